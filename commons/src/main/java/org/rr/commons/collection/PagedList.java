@@ -0,0 +1,134 @@
+package org.rr.commons.collection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.rr.commons.log.LoggerFactory;
+
+/**
+ * Read only list which loads it's elements page by page with a {@link PageLoader}. Only a few recently
+ * used pages are kept in memory, so the memory usage did not depend on the size of the list.
+ * <br><br>
+ * The key of the last element of each loaded page is remembered. A page following a page with a known
+ * key is loaded by asking for the elements after this key which is much faster than skipping all
+ * elements before the page for large lists. Pages without a known key before them are loaded by their offset.
+ */
+public class PagedList<E> extends AbstractList<E> implements ICloseableList<E> {
+
+	/**
+	 * Loads the elements for a {@link PagedList}.
+	 */
+	public static interface PageLoader<E> {
+
+		/**
+		 * @return The number of all elements.
+		 */
+		int count() throws Exception;
+
+		/**
+		 * Loads the elements of one page.
+		 * @param afterKey The key of the element before the page or <code>null</code> if the page should be loaded by it's offset.
+		 * @param offset The index of the first element of the page. Only used if the <code>afterKey</code> is <code>null</code>.
+		 * @param limit The maximum number of elements to be loaded.
+		 * @return The loaded elements.
+		 */
+		List<E> load(Object[] afterKey, int offset, int limit) throws Exception;
+
+		/**
+		 * Get the key of the given element which allows to load the following elements.
+		 * @return The key values or <code>null</code> if the pages could only be loaded by their offset.
+		 */
+		Object[] getKey(E element);
+	}
+
+	private final PageLoader<E> loader;
+
+	private final int pageSize;
+
+	private final LRUCacheMap<Integer, List<E>> pages;
+
+	/** The keys of the last elements of all loaded pages. */
+	private final Map<Integer, Object[]> pageEndKeys = new HashMap<>();
+
+	private int size = -1;
+
+	/**
+	 * @param loader The loader for the pages.
+	 * @param pageSize The number of elements of one page.
+	 * @param cachedPages The number of pages kept in memory.
+	 */
+	public PagedList(PageLoader<E> loader, int pageSize, int cachedPages) {
+		this.loader = loader;
+		this.pageSize = pageSize;
+		this.pages = new LRUCacheMap<>(cachedPages);
+	}
+
+	@Override
+	public synchronized E get(int index) {
+		if(index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+
+		final Integer page = Integer.valueOf(index / pageSize);
+		List<E> elements = pages.get(page);
+		if(elements == null) {
+			elements = loadPage(page.intValue());
+			pages.put(page, elements);
+		}
+
+		final int pageIndex = index % pageSize;
+		return pageIndex < elements.size() ? elements.get(pageIndex) : null;
+	}
+
+	@Override
+	public synchronized int size() {
+		if(size == -1) {
+			try {
+				size = loader.count();
+			} catch (Exception e) {
+				LoggerFactory.log(Level.SEVERE, this, "Failed to count the elements", e);
+				size = 0;
+			}
+		}
+		return size;
+	}
+
+	private List<E> loadPage(int page) {
+		final Object[] afterKey = page > 0 ? pageEndKeys.get(Integer.valueOf(page - 1)) : null;
+		try {
+			final List<E> elements = loader.load(afterKey, page * pageSize, pageSize);
+			if(elements.size() == pageSize) {
+				Object[] endKey = loader.getKey(elements.get(elements.size() - 1));
+				if(endKey != null) {
+					pageEndKeys.put(Integer.valueOf(page), endKey);
+				}
+			}
+			return elements;
+		} catch (Exception e) {
+			LoggerFactory.log(Level.SEVERE, this, "Failed to load page " + page, e);
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Drops all loaded pages and closes the loader if it is {@link Closeable}.
+	 */
+	@Override
+	public synchronized void close() {
+		pages.clear();
+		pageEndKeys.clear();
+		if(loader instanceof Closeable) {
+			try {
+				((Closeable) loader).close();
+			} catch (IOException e) {
+				LoggerFactory.log(Level.WARNING, this, "Failed to close the page loader", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package org.rr.commons.collection;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+/**
+ * Thread safe, size limited cache which holds it's values with soft or weak references. The entries are
+ * spread over a number of segments which are locked independently, so concurrent lookups of different keys
+ * rarely wait for each other. Each segment evicts it's least recently used entries if it gets full and drops
+ * the entries whose values have been garbage collected.
+ */
+public class ReferenceCacheMap<K, V> {
+
+	private static final int SEGMENT_COUNT = 16;
+
+	private final Segment<K, V>[] segments;
+
+	private final boolean softValues;
+
+	/**
+	 * @param maxSize maximum number of entries.
+	 * @param softValues <code>true</code> to keep the values with soft references which are only collected if the memory
+	 * 	gets low or <code>false</code> for weak references which are collected as soon as the value is no longer used elsewhere.
+	 */
+	public ReferenceCacheMap(final int maxSize, final boolean softValues) {
+		this.softValues = softValues;
+		this.segments = newSegments(SEGMENT_COUNT);
+		final int segmentSize = Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment<>(segmentSize);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> Segment<K, V>[] newSegments(int count) {
+		return (Segment<K, V>[]) new Segment<?, ?>[count];
+	}
+
+	/**
+	 * Get the value for the given key.
+	 * @return The cached value or <code>null</code> if there is no value or the value was already collected.
+	 */
+	public V get(K key) {
+		final Segment<K, V> segment = getSegment(key);
+		synchronized (segment) {
+			final Reference<V> reference = segment.entries.get(key);
+			if(reference != null) {
+				final V value = reference.get();
+				if(value == null) {
+					segment.entries.remove(key);
+				}
+				return value;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Puts the given value to the cache if there is no value for the given key.
+	 * @return The value which was already cached for the key or the given value if there was none.
+	 */
+	public V putIfAbsent(K key, V value) {
+		final Segment<K, V> segment = getSegment(key);
+		synchronized (segment) {
+			segment.expunge();
+			final Reference<V> reference = segment.entries.get(key);
+			final V cached = reference != null ? reference.get() : null;
+			if(cached != null) {
+				return cached;
+			}
+			segment.entries.put(key, createReference(key, value, segment.queue));
+			return value;
+		}
+	}
+
+	public V remove(K key) {
+		final Segment<K, V> segment = getSegment(key);
+		synchronized (segment) {
+			final Reference<V> reference = segment.entries.remove(key);
+			return reference != null ? reference.get() : null;
+		}
+	}
+
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.entries.clear();
+				segment.expunge();
+			}
+		}
+	}
+
+	/**
+	 * Get the number of entries including those whose values are collected but not yet removed.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.entries.size();
+			}
+		}
+		return size;
+	}
+
+	private Segment<K, V> getSegment(K key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return segments[(hash & 0x7FFFFFFF) % segments.length];
+	}
+
+	private Reference<V> createReference(K key, V value, ReferenceQueue<V> queue) {
+		if(softValues) {
+			return new SoftValueReference<>(key, value, queue);
+		}
+		return new WeakValueReference<>(key, value, queue);
+	}
+
+	private static interface KeyReference<K> {
+
+		K getKey();
+	}
+
+	private static class SoftValueReference<K, V> extends SoftReference<V> implements KeyReference<K> {
+
+		private final K key;
+
+		SoftValueReference(K key, V value, ReferenceQueue<V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+	}
+
+	private static class WeakValueReference<K, V> extends WeakReference<V> implements KeyReference<K> {
+
+		private final K key;
+
+		WeakValueReference(K key, V value, ReferenceQueue<V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+	}
+
+	private static class Segment<K, V> {
+
+		private final LRUCacheMap<K, Reference<V>> entries;
+
+		private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+
+		Segment(int maxSize) {
+			this.entries = new LRUCacheMap<>(maxSize);
+		}
+
+		/**
+		 * Removes the entries whose values have been garbage collected.
+		 */
+		@SuppressWarnings("unchecked")
+		void expunge() {
+			Reference<? extends V> reference;
+			while((reference = queue.poll()) != null) {
+				final K key = ((KeyReference<K>) reference).getKey();
+				if(entries.get(key) == reference) {
+					entries.remove(key);
+				}
+			}
+		}
+	}
+}
@@ -14,9 +14,7 @@ import java.lang.management.MemoryUsage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 import org.rr.commons.log.LoggerFactory;
@@ -28,31 +26,6 @@ import org.rr.commons.log.LoggerFactory;
  */
 abstract class AResourceHandler implements IResourceHandler {
 
-	private static final HashMap<String, Pattern> FILE_EXTENSION_PATTERNS = new HashMap<String, Pattern>() {
-		{
-			put(MimeUtils.MIME_JPEG, Pattern.compile("(.jpg|.jpeg)$"));
-			put(MimeUtils.MIME_PNG, Pattern.compile("(.png)$"));
-			put(MimeUtils.MIME_GIF, Pattern.compile("(.gif)$"));
-			put(MimeUtils.MIME_TEXT, Pattern.compile("(.txt)$"));
-			put(MimeUtils.MIME_EPUB, Pattern.compile("(.epub)$"));
-			put(MimeUtils.MIME_PDF, Pattern.compile("(.pdf)$"));
-			put(MimeUtils.MIME_CBZ, Pattern.compile("(.cbz)$"));
-			put(MimeUtils.MIME_CBR, Pattern.compile("(.cbr)$"));
-			put(MimeUtils.MIME_HTML, Pattern.compile("(.htm|.html|.xhtml)$"));
-			put(MimeUtils.MIME_XML, Pattern.compile("(.xml)$"));
-			put(MimeUtils.MIME_RTF, Pattern.compile("(.rtf)$"));
-			put(MimeUtils.MIME_MOBI, Pattern.compile("(.mobi)$"));
-			put(MimeUtils.MIME_AZW, Pattern.compile("(.azw\\d*)$"));
-			put(MimeUtils.MIME_FB2, Pattern.compile("(.fb2)$"));
-			put(MimeUtils.MIME_LIT, Pattern.compile("(.lit)$"));
-			put(MimeUtils.MIME_PKG, Pattern.compile("(.pkg)$"));
-			put(MimeUtils.MIME_RB, Pattern.compile("(.rb)$"));
-			put(MimeUtils.MIME_DJVU, Pattern.compile("(.djvu)$"));
-			put(MimeUtils.MIME_DOC, Pattern.compile("(.doc)$"));
-			put(MimeUtils.MIME_DOCX, Pattern.compile("(.docx)$"));
-		}
-	};
-
 	/**
 	 * The file format. This is a cached value, so the format should not be determined each time.
 	 */
@@ -109,17 +82,7 @@ abstract class AResourceHandler implements IResourceHandler {
 	 * @return The desired mime for the file or <code>null</code> if the extension is not known.
 	 */
 	private String extractMimeTypeFromFileName() {
-		final String resourceString = this.getResourceString();
-		if (resourceString != null && resourceString.lastIndexOf('.') != -1) {
-			final String lowerCasedResourceString = resourceString.toLowerCase();
-			for(String mime : FILE_EXTENSION_PATTERNS.keySet()) {
-				Pattern pattern = FILE_EXTENSION_PATTERNS.get(mime);
-				if(pattern.matcher(lowerCasedResourceString).find()) {
-					return mime;
-				}
-			}
-		}
-		return null;
+		return MimeDetector.getMimeFromFileName(this.getResourceString());
 	}
 
 	/**
@@ -12,8 +12,10 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -62,6 +64,12 @@ class FileResourceHandler extends AResourceHandler {
 	
 	private Boolean isDirectory = null;
 	
+	/**
+	 * File attributes read while listing the parent folder. Used instead of asking the file system
+	 * again until the resource is changed, refreshed or the attributes get released.
+	 */
+	private volatile BasicFileAttributes attributes = null;
+	
 	/**
 	 * Provide a shared FileSystemView but note that it's not synchronized.
 	 */
@@ -77,6 +85,18 @@ class FileResourceHandler extends AResourceHandler {
 		this.resourceString = normalizeDirectoryResourceString(f.getPath(), f);
 	}
 	
+	/**
+	 * Creates a {@link FileResourceHandler} for a file which attributes are already known.
+	 * @param f The file to be handled. Must not be a directory.
+	 * @param attributes The attributes of the given file.
+	 */
+	FileResourceHandler(File f, BasicFileAttributes attributes) {
+		super();
+		this.setFile(f);
+		this.resourceString = f.getPath();
+		this.attributes = attributes;
+	}
+	
 	/**
 	 * Gets the file which is set to this {@link FileResourceHandler} instance.
 	 *
@@ -98,6 +118,15 @@ class FileResourceHandler extends AResourceHandler {
 	@Override
 	public void refresh() {
 		super.refresh();
+		this.attributes = null;
+	}
+
+	/**
+	 * Drops the attributes which were read while listing the parent folder, so the file system
+	 * is asked again for the size, modification date and existence of the file.
+	 */
+	void releaseAttributes() {
+		this.attributes = null;
 	}
 
 	/**
@@ -251,6 +280,7 @@ class FileResourceHandler extends AResourceHandler {
 	 */
 	@Override
 	public OutputStream getContentOutputStream(boolean append) throws IOException {
+		this.attributes = null;
 		final FileOutputStream fOut = new FileOutputStream(this.file, append);
 		final BufferedOutputStream buffOut = new BufferedOutputStream(fOut);
 		
@@ -262,6 +292,9 @@ class FileResourceHandler extends AResourceHandler {
 	 */
 	@Override
 	public boolean exists() {
+		if(this.attributes != null) {
+			return true;
+		}
 		if(this.isFloppyDrive()) {
 			return true;
 		}
@@ -328,6 +361,7 @@ class FileResourceHandler extends AResourceHandler {
 
 	private void resetIsDirectoryEvaluation() {
 		this.isDirectory = null;
+		this.attributes = null;
 	}
 	
 	@Override
@@ -487,6 +521,10 @@ class FileResourceHandler extends AResourceHandler {
 	@Override
 	public boolean isDirectoryResource() {
 		//use the cached information
+		final BasicFileAttributes attributes = this.attributes;
+		if(attributes != null) {
+			return attributes.isDirectory();
+		}
 		if(this.isDirectory!=null) {
 			return this.isDirectory.booleanValue();
 		}
@@ -540,6 +578,10 @@ class FileResourceHandler extends AResourceHandler {
 	 */
 	@Override
 	public long size() {
+		final BasicFileAttributes attributes = this.attributes;
+		if(attributes != null) {
+			return attributes.isDirectory() ? 0 : attributes.size();
+		}
 		final File file = this.getFile();
 		if(file.isDirectory()) {
 			return 0;
@@ -655,7 +697,16 @@ class FileResourceHandler extends AResourceHandler {
 	 */
 	@Override
 	public Date getModifiedAt() {
-		return new Date(this.file.lastModified());
+		final BasicFileAttributes attributes = this.attributes;
+		if(attributes != null) {
+			return new Date(attributes.lastModifiedTime().toMillis());
+		}
+		try {
+			// use the same source as the attributes because File.lastModified did not return milliseconds with all jre versions
+			return new Date(Files.getLastModifiedTime(this.file.toPath()).toMillis());
+		} catch (IOException | InvalidPathException e) {
+			return new Date(this.file.lastModified());
+		}
 	}
 
 	/**
@@ -0,0 +1,133 @@
+package org.rr.commons.mufs;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.rr.commons.log.LoggerFactory;
+import org.rr.commons.utils.ThreadUtils;
+
+/**
+ * Reads all files below a base folder like {@link ResourceHandlerUtils#readAllFilesFromBasePath(IResourceHandler, ResourceNameFilter)}
+ * but streams local folders with a {@link DirectoryStream} instead of listing them into {@link IResourceHandler} arrays.
+ * The {@link IResourceHandler} instances passed to the filter already know the size, modification date and type
+ * of their file, so there is no need to ask the file system again while the filter is invoked. Afterwards the
+ * resources ask the file system again. Sub folders are read in parallel, so the filter must be thread safe.
+ */
+public class FileTreeWalker {
+
+	private static final ForkJoinPool WALKER_POOL = new ForkJoinPool(Math.max(2, ThreadUtils.availableProcessors()));
+
+	private final ResourceNameFilter filter;
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private volatile boolean canceled = false;
+
+	/**
+	 * @param filter The filter which gets invoked with each file. Folders are not passed to the filter.
+	 */
+	public FileTreeWalker(ResourceNameFilter filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Reads all files starting from the baseFolder and waits until all files have been passed to the filter.
+	 * Other than local folders are read with {@link ResourceHandlerUtils#readAllFilesFromBasePath(IResourceHandler, ResourceNameFilter)}.
+	 *
+	 * @param baseFolder Folder to start reading.
+	 * @return The number of files accepted by the filter.
+	 */
+	public int walk(IResourceHandler baseFolder) {
+		if(baseFolder instanceof FileResourceHandler) {
+			try {
+				WALKER_POOL.invoke(new DirectoryTask(((FileResourceHandler) baseFolder).getFile().toPath()));
+				return count.get();
+			} catch(InvalidPathException e) {
+				LoggerFactory.log(Level.INFO, this, "Failed to stream folder " + baseFolder, e);
+			}
+		}
+		return ResourceHandlerUtils.readAllFilesFromBasePath(baseFolder, filter);
+	}
+
+	/**
+	 * Stops reading further files and folders. Files which are currently passed to the filter are finished
+	 * and {@link #walk(IResourceHandler)} returns as soon as the running folder tasks have stopped.
+	 */
+	public void cancel() {
+		canceled = true;
+	}
+
+	public boolean isCanceled() {
+		return canceled;
+	}
+
+	private class DirectoryTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 4203316425413154316L;
+
+		private final Path directory;
+
+		DirectoryTask(Path directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		protected void compute() {
+			if(canceled) {
+				return;
+			}
+
+			final List<DirectoryTask> subFolders = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+				for(Path path : stream) {
+					if(canceled) {
+						break;
+					}
+
+					try {
+						BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+						if(attributes.isDirectory()) {
+							DirectoryTask subFolder = new DirectoryTask(path);
+							subFolder.fork();
+							subFolders.add(subFolder);
+						} else {
+							FileResourceHandler resource = new FileResourceHandler(path.toFile(), attributes);
+							try {
+								if(filter.accept(resource)) {
+									count.incrementAndGet();
+								}
+							} finally {
+								// the attributes are a snapshot which must not be used after the walk.
+								resource.releaseAttributes();
+							}
+						}
+					} catch (IOException e) {
+						LoggerFactory.log(Level.INFO, FileTreeWalker.this, "Failed reading attributes of " + path, e);
+					}
+				}
+			} catch (IOException e) {
+				LoggerFactory.log(Level.INFO, FileTreeWalker.this, "Failed reading folder " + directory, e);
+			}
+
+			for(DirectoryTask subFolder : subFolders) {
+				if(canceled) {
+					// sub folders which are not yet started are not needed any longer.
+					subFolder.cancel(false);
+				}
+				if(!subFolder.isCancelled()) {
+					subFolder.join();
+				}
+			}
+		}
+	}
+}
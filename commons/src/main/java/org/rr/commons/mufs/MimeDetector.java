@@ -0,0 +1,252 @@
+package org.rr.commons.mufs;
+
+import static org.rr.commons.utils.StringUtil.EMPTY;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.rr.commons.collection.LRUCacheMap;
+
+/**
+ * Detects the mime type of a resource by it's file name extension or by the magic numbers at the beginning of it's content.
+ * The content is only read once per file. The result is cached for the path of the file as long as the size and
+ * the modification time of the file did not change.
+ */
+class MimeDetector {
+
+	/** Number of bytes read from the beginning of the content. Large enough for the office sub header and the fb2 root element. */
+	static final int HEADER_LENGTH = 1024;
+
+	private static final int MAX_CACHE_ENTRIES = 1000;
+
+	private static final Map<String, String> FILE_EXTENSIONS = new HashMap<String, String>() {
+		{
+			put("jpg", MimeUtils.MIME_JPEG);
+			put("jpeg", MimeUtils.MIME_JPEG);
+			put("png", MimeUtils.MIME_PNG);
+			put("gif", MimeUtils.MIME_GIF);
+			put("txt", MimeUtils.MIME_TEXT);
+			put("epub", MimeUtils.MIME_EPUB);
+			put("pdf", MimeUtils.MIME_PDF);
+			put("cbz", MimeUtils.MIME_CBZ);
+			put("cbr", MimeUtils.MIME_CBR);
+			put("htm", MimeUtils.MIME_HTML);
+			put("html", MimeUtils.MIME_HTML);
+			put("xhtml", MimeUtils.MIME_HTML);
+			put("xml", MimeUtils.MIME_XML);
+			put("rtf", MimeUtils.MIME_RTF);
+			put("mobi", MimeUtils.MIME_MOBI);
+			put("azw", MimeUtils.MIME_AZW);
+			put("fb2", MimeUtils.MIME_FB2);
+			put("lit", MimeUtils.MIME_LIT);
+			put("pkg", MimeUtils.MIME_PKG);
+			put("rb", MimeUtils.MIME_RB);
+			put("djvu", MimeUtils.MIME_DJVU);
+			put("doc", MimeUtils.MIME_DOC);
+			put("docx", MimeUtils.MIME_DOCX);
+		}
+	};
+
+	private static final LRUCacheMap<String, Entry> cache = new LRUCacheMap<>(MAX_CACHE_ENTRIES);
+
+	private MimeDetector() {
+	}
+
+	/**
+	 * Get the mime type by the file extension of the given file name or path.
+	 * @return The desired mime for the file or <code>null</code> if the extension is not known.
+	 */
+	static String getMimeFromFileName(String fileName) {
+		if(fileName == null) {
+			return null;
+		}
+		final int dot = fileName.lastIndexOf('.');
+		if(dot == -1 || dot == fileName.length() - 1) {
+			return null;
+		}
+		String extension = fileName.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+		if(extension.startsWith("azw")) {
+			// azw1, azw3, azw4 ...
+			extension = trimTrailingDigits(extension);
+		}
+		return FILE_EXTENSIONS.get(extension);
+	}
+
+	/**
+	 * Detects the mime type of the given resource by the magic numbers at the beginning of it's content.
+	 * @return The mime type or <code>null</code> if no format could be identified.
+	 * @throws IOException if the content of the resource could not be read.
+	 */
+	static String getMimeFromContent(IResourceHandler resource) throws IOException {
+		final boolean cacheable = resource.isFileResource();
+		final String key = cacheable ? resource.getResourceString() : null;
+		final long size = cacheable ? resource.size() : -1;
+		final Date modifiedAt = cacheable ? resource.getModifiedAt() : null;
+		if(modifiedAt != null) {
+			final Entry entry;
+			synchronized(cache) {
+				entry = cache.get(key);
+			}
+			if(entry != null && entry.size == size && entry.modifiedAt == modifiedAt.getTime()) {
+				return entry.mime.isEmpty() ? null : entry.mime;
+			}
+		}
+
+		final byte[] header = new byte[HEADER_LENGTH];
+		final int length;
+		try (InputStream in = resource.getContentInputStream()) {
+			length = IOUtils.read(in, header);
+		}
+		final String mime = getMimeFromHeader(header, length);
+
+		if(modifiedAt != null) {
+			synchronized(cache) {
+				cache.put(key, new Entry(size, modifiedAt.getTime(), mime != null ? mime : EMPTY));
+			}
+		}
+		return mime;
+	}
+
+	/**
+	 * Detects the mime type from the given bytes read from the beginning of a file.
+	 * @param length The number of valid bytes in the header array.
+	 * @return The mime type or <code>null</code> if no format could be identified.
+	 */
+	static String getMimeFromHeader(byte[] header, int length) {
+		if(length < 4) {
+			return null;
+		}
+
+		final int b1 = header[0] & 0xff;
+		final int b2 = header[1] & 0xff;
+		final int b3 = header[2] & 0xff;
+		final int b4 = header[3] & 0xff;
+
+		if (b1 == 0x47 && b2 == 0x49) {
+			return "image/gif";
+		} else if (b1 == 0x89 && b2 == 0x50) {
+			return "image/png";
+		} else if (b1 == 0xff && b2 == 0xd8) {
+			return "image/jpeg";
+		} else if (b1 == 0xff && b2 == 0xd9) {
+			return "image/jpeg";
+		} else if (b1 == 0x42 && b2 == 0x4d) {
+			return "image/bmp";
+		} else if (b1 == 0x4D && b2 == 0x4D) { // Motorola byte order TIFF
+			return "image/tiff";
+		} else if (b1 == 0x49 && b2 == 0x49) { // Intel byte order TIFF
+			return "image/tiff";
+		} else if (b1 == 0x38 && b2 == 0x42) {
+			return "image/psd";
+		} else if (b1 == 0x50 && (b2 == 0x31 || b2 == 0x34)) {
+			return "image/pbm";
+		} else if (b1 == 0x50 && (b2 == 0x32 || b2 == 0x33 || b2 == 0x35 || b2 == 0x36)) {
+			return "image/pgm";
+		} else if (b1 == 0x97 && b2 == 0x4A && b3 == 0x42 && b4 == 0x32) {
+			return "image/x-jbig2";
+		} else if (b1 == 0x25 && b2 == 0x50 && b3 == 0x44 && b4 == 0x46) { // %PDF
+			return MimeUtils.MIME_PDF;
+		} else if (b1 == 0xD0 && b2 == 0xCF && b3 == 0x11 && b4 == 0xE0) {
+			return getOfficeMime(header, length);
+		} else if (b1 == 0x50 && b2 == 0x4B && b3 == 0x03 && b4 == 0x04) { // PK zip
+			// the first entry of an epub must be the uncompressed mimetype file. Other zip archives
+			// could not be distinguished by their header and are only detected by their extension.
+			if(startsWith(header, length, 30, "mimetype") && startsWith(header, length, 38, MimeUtils.MIME_EPUB)) {
+				return MimeUtils.MIME_EPUB;
+			}
+			return null;
+		} else if (startsWith(header, length, 60, "BOOKMOBI")) {
+			return MimeUtils.MIME_MOBI;
+		} else if (startsWith(header, length, 60, "TPZ")) { // topaz
+			return MimeUtils.MIME_AZW;
+		} else if (startsWith(header, length, 0, "AT&TFORM")) {
+			return MimeUtils.MIME_DJVU;
+		} else if (startsWith(header, length, 0, "{\\rtf")) {
+			return MimeUtils.MIME_RTF;
+		}
+		return getMarkupMime(header, length);
+	}
+
+	private static String getOfficeMime(byte[] header, int length) {
+		if(length >= 516) {
+			if ((header[512] & 0xff) == 0xec && (header[513] & 0xff) == 0xa5 && (header[514] & 0xff) == 0xc1 && (header[515] & 0xff) == 0x00) {
+				// Word document subheader (MS Office)
+				return MimeUtils.MIME_DOC;
+			} else if ((header[512] & 0xff) == 0x09 && (header[513] & 0xff) == 0x08 && /* (header[514]& 0xff) == 0x10 && */(header[515] & 0xff) == 0x00) {
+				// Excel document subheader (MS Office)
+				return "application/excel"; // mime can be application/excel, application/x-excel, application/x-msexcel, application/vnd.ms-excel
+			}
+		}
+
+		// Word, Powerpoint, Excel have the same container signature
+		// The sub type can be determined with the bytes starting at 512 (0x200)
+		return null;
+	}
+
+	/**
+	 * Detects xml, fb2 and html content which starts with a <code>&lt;</code> after an optional byte order mark and white spaces.
+	 */
+	private static String getMarkupMime(byte[] header, int length) {
+		int start = 0;
+		if(length >= 3 && (header[0] & 0xff) == 0xEF && (header[1] & 0xff) == 0xBB && (header[2] & 0xff) == 0xBF) {
+			start = 3;
+		}
+		while(start < length && Character.isWhitespace(header[start])) {
+			start++;
+		}
+		if(start >= length || header[start] != '<') {
+			return null;
+		}
+
+		final String markup = new String(header, start, length - start, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ENGLISH);
+		if(markup.contains("<fictionbook")) {
+			return MimeUtils.MIME_FB2;
+		} else if(markup.startsWith("<!doctype html") || markup.contains("<html")) {
+			return MimeUtils.MIME_HTML;
+		} else if(markup.startsWith("<?xml")) {
+			return MimeUtils.MIME_XML;
+		}
+		return null;
+	}
+
+	private static boolean startsWith(byte[] header, int length, int offset, String magic) {
+		if(offset + magic.length() > length) {
+			return false;
+		}
+		for(int i = 0; i < magic.length(); i++) {
+			if(header[offset + i] != magic.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String trimTrailingDigits(String extension) {
+		int end = extension.length();
+		while(end > 0 && Character.isDigit(extension.charAt(end - 1))) {
+			end--;
+		}
+		return extension.substring(0, end);
+	}
+
+	private static class Entry {
+
+		private final long size;
+
+		private final long modifiedAt;
+
+		private final String mime;
+
+		Entry(long size, long modifiedAt, String mime) {
+			this.size = size;
+			this.modifiedAt = modifiedAt;
+			this.mime = mime;
+		}
+	}
+}
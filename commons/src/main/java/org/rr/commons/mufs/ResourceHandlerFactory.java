@@ -18,16 +18,24 @@ import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.io.IOUtils;
-import org.rr.commons.collection.VolatileHashMap;
+import org.rr.commons.collection.ReferenceCacheMap;
 import org.rr.commons.utils.ListUtils;
 import org.rr.commons.utils.StringUtil;
 
 public class ResourceHandlerFactory {
 
 	/**
-	 * cache a limited number of {@link IResourceHandler} instances.
+	 * Default number of cached {@link IResourceHandler} instances. Can be changed with the
+	 * <code>resourcehandler.cache.size</code> system property.
 	 */
-	private static final VolatileHashMap<String, IResourceHandler> resourceHandlerCache = new VolatileHashMap<String, IResourceHandler>(100,100);
+	private static final int DEFAULT_CACHE_SIZE = 1000;
+
+	/**
+	 * cache a limited number of {@link IResourceHandler} instances. The instances are softly referenced
+	 * and the cache is striped, so the lookups of concurrent threads did not block each other.
+	 */
+	private static final ReferenceCacheMap<String, IResourceHandler> resourceHandlerCache = new ReferenceCacheMap<>(
+			Integer.getInteger("resourcehandler.cache.size", DEFAULT_CACHE_SIZE), true);
 
 	private static IResourceHandler userHome = null;
 
@@ -369,21 +377,19 @@ public class ResourceHandlerFactory {
 			return null;
 		}
 
-		synchronized(resourceHandlerCache) {
-			IResourceHandler resourceHandler = resourceHandlerCache.get(resource);
-			if(resourceHandler!=null) {
-				return resourceHandler;
-			}
+		IResourceHandler resourceHandler = resourceHandlerCache.get(resource);
+		if(resourceHandler!=null) {
+			return resourceHandler;
+		}
 
-			for (int i = 0; i < resourceLoader.length; i++) {
-				if(resourceLoader[i].isValidResource(resource)) {
-					try {
-						IResourceHandler createdResourcehandlerInstance = resourceLoader[i].createInstance(resource);
-						resourceHandlerCache.put(resource, createdResourcehandlerInstance);
-						return createdResourcehandlerInstance;
-					} catch (Exception e) {
-						return null;
-					}
+		for (int i = 0; i < resourceLoader.length; i++) {
+			if(resourceLoader[i].isValidResource(resource)) {
+				try {
+					IResourceHandler createdResourcehandlerInstance = resourceLoader[i].createInstance(resource);
+					// another thread may have created an instance for the same resource in the meantime.
+					return resourceHandlerCache.putIfAbsent(resource, createdResourcehandlerInstance);
+				} catch (Exception e) {
+					return null;
 				}
 			}
 		}
@@ -419,100 +419,18 @@ public class ResourceHandlerUtils {
 		return count;
 	}
 
-    /**
-     * Tries to guess what the image type (if any) of a file based on the file's "magic numbers," the first bytes of the file.
-     * <p>
-     * <b>Note that this operation can only be performed with {@link InputStream}s supporting marks.</b>
-     *
-     * @param resourceLoader {@link IResourceHandler} containing image data.
-     * @return The mime type of the image or <code>null</code> if no format could be identified.
-     * @throw {@link IOException}
-     */
-    public static String guessFormat(final IResourceHandler resourceLoader) throws IOException {
-    	final InputStream is = resourceLoader.getContentInputStream();
-        if (!is.markSupported()) {
-            return null;
-        }
-
-        is.mark(8);
-        try {
-            int i1 = is.read();
-            int i2 = is.read();
-            int i3 = is.read();
-            int i4 = is.read();
-
-            if ((i1 < 0) || (i2 < 0) || (i3 < 0) || (i4 < 0)) {
-                throw new IOException("Couldn't read magic numbers to guess format.");
-            }
-
-            int b1 = i1 & 0xff;
-            int b2 = i2 & 0xff;
-            int b3 = i3 & 0xff;
-            int b4 = i4 & 0xff;
-
-            if (b1 == 0x47 && b2 == 0x49) {
-                return "image/gif";
-            } else if (b1 == 0x89 && b2 == 0x50) {
-                return "image/png";
-            } else if (b1 == 0xff && b2 == 0xd8) {
-                return "image/jpeg";
-            } else if (b1 == 0xff && b2 == 0xd9) {
-                return "image/jpeg";
-            } else if (b1 == 0x42 && b2 == 0x4d) {
-                return "image/bmp";
-            } else if (b1 == 0x4D && b2 == 0x4D) { // Motorola byte order TIFF
-                return "image/tiff";
-            } else if (b1 == 0x49 && b2 == 0x49) { // Intel byte order TIFF
-                return "image/tiff";
-            } else if (b1 == 0x38 && b2 == 0x42) {
-                return "image/psd";
-            } else if (b1 == 0x50 && b2 == 0x31) {
-                return "image/pbm";
-            } else if (b1 == 0x50 && b2 == 0x34) {
-                return "image/pbm";
-            } else if (b1 == 0x50 && b2 == 0x32) {
-                return "image/pgm";
-            } else if (b1 == 0x50 && b2 == 0x35) {
-                return "image/pgm";
-            } else if (b1 == 0x50 && b2 == 0x33) {
-                return "image/pgm";
-            } else if (b1 == 0x50 && b2 == 0x36) {
-                return "image/pgm";
-            } else if (b1 == 0x97 && b2 == 0x4A && b3 == 0x42 && b4 == 0x32) {
-                return "image/x-jbig2";
-            } else if (b1 == 0x25 && b2 == 0x50 && b3 == 0x44 && b4 == 0x46) {
-                return "application/pdf";
-            } else if (b1 == 0xD0 && b2 == 0xCF && b3 == 0x11 && b4 == 0xE0) {
-                int bytecount = 512 + 4; // the bytes to be read starting with 0.
-                is.reset();
-                is.mark(bytecount + 1);
-                byte[] bytes = new byte[bytecount]; // buffer to read
-                int read = is.read(bytes);
-                if (read == -1) {
-                    return null;
-                }
-
-                if ((bytes[512] & 0xff) == 0xec && (bytes[513] & 0xff) == 0xa5 && (bytes[514] & 0xff) == 0xc1 && (bytes[515] & 0xff) == 0x00) {
-                    // Word document subheader (MS Office)
-                    return "application/msword";
-                } else if ((bytes[512] & 0xff) == 0x09 && (bytes[513] & 0xff) == 0x08 && /* (bytes[514]& 0xff) == 0x10 && */(bytes[515] & 0xff) == 0x00) {
-                    // Excel document subheader (MS Office)
-                    return "application/excel"; // mime can be application/excel, application/x-excel, application/x-msexcel, application/vnd.ms-excel
-                }
-
-                // Word, Powerpoint, Excel have the same container signature
-                // The sub type can be determined with the bytes starting at 512 (0x200)
-                return null;
-            }
-        } finally {
-            try {
-                is.reset();
-            } catch (Exception e) {}
-        }
-
-        // no format detected..
-        return null;
-    }
+	/**
+	 * Tries to guess the format of a file based on the file's "magic numbers," the first bytes of the file.
+	 * Only the first bytes are read once and the result is cached for file resources as long as the file
+	 * is not changed.
+	 *
+	 * @param resourceLoader {@link IResourceHandler} containing the data.
+	 * @return The mime type of the file or <code>null</code> if no format could be identified.
+	 * @throw {@link IOException}
+	 */
+	public static String guessFormat(final IResourceHandler resourceLoader) throws IOException {
+		return MimeDetector.getMimeFromContent(resourceLoader);
+	}
 
 	/**
 	 * Copy bytes from an <code>InputStream</code> to an
@@ -1,17 +1,44 @@
 package org.rr.commons.utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 import org.rr.commons.collection.IteratorList;
+import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.compression.CompressedDataEntry;
 
 public class ThreadUtils {
 
-	private static final Object MUTEX = new Object();
+	/**
+	 * The pool for all loops. Threads are created on demand, so loops started from
+	 * inside of another loop did not need to wait for free threads.
+	 */
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ThreadUtils-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
 
 	public static <S,T> List<T> loopAndWait(final Iterable<S> l, final RunnableImpl<S,T> each, final int maxThreads) {
 		return loopAndWait(l.iterator(), each, maxThreads);
@@ -21,8 +48,26 @@ public class ThreadUtils {
 		return loopAndWait(new IteratorList<S>(l, -1), each, maxThreads);
 	}
 
+	/**
+	 * Does a loop over the given list where the <code>each</code> parameter is
+	 * invoked with any entry in the list and waits until all entries are processed.
+	 * If the current thread gets interrupted, the loop is cancelled and the results
+	 * which are available until then are returned.
+	 *
+	 * @param l The list to be looped.
+	 * @param each The {@link RunnableImpl} implementation which is executed with each list entry.
+	 * @param maxThreads Maximum number of Threads to be executed to run the {@link RunnableImpl} implementations.
+	 * @return A list of results for each RunnableImpl in the same order than given with <code>each</code>.
+	 */
 	public static <S,T> List<T> loopAndWait(final List<S> l, final RunnableImpl<S,T> each, int maxThreads) {
-		return loop(l, each, maxThreads, true);
+		final LoopFuture<T> future = loop(l, each, maxThreads);
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			return future.getAvailableResults();
+		}
 	}
 
 	public static List<List<IResourceHandler>> loopAndWait(List<CompressedDataEntry> sourceFiles,
@@ -32,81 +77,130 @@ public class ThreadUtils {
 
 	/**
 	 * Does a loop over the given list where the <code>each</code> parameter is
-	 * invoked with any entry in the list. The
+	 * invoked with any entry in the list. The entries are processed by the threads of
+	 * a shared pool where each of the at most <code>maxThreads</code> workers takes the
+	 * next unprocessed entry until all entries are done. Use the returned {@link LoopFuture}
+	 * to wait for the results with or without a timeout or to cancel the loop.
 	 *
 	 * @param l The list to be looped.
 	 * @param each The {@link RunnableImpl} implementation which is executed with each list entry.
 	 * @param maxThreads Maximum number of Threads to be executed to run the {@link RunnableImpl} implementations.
-	 * @return A list of results for each RunnableImpl in the same order than given with <code>each</code>.
+	 * @return The future for the results.
 	 */
-	private static <S, T> List<T> loop(final List<S> l, final RunnableImpl<S, T> each, int maxThreads, boolean wait) {
-		final Thread[] slots = new Thread[maxThreads];
-		final List<T> results = Collections.synchronizedList(l != null ? new ArrayList<T>(l.size()) : Collections.<T>emptyList());
-		final List<S> working = Collections.synchronizedList(l != null ? new ArrayList<S>(l) : Collections.<S>emptyList());
-		while(!working.isEmpty()) {
-			//thread slot searching and execution must be synchronized.
-			synchronized(MUTEX) {
-				boolean emptySlotFound = false;
-				for(int i = 0; i < slots.length; i++) {
-					final int slot = i;
-					if(slots[slot] == null) {
-						//free slot to use.
-						slots[slot] = new Thread(new Runnable() {
-
-							@Override
-							public void run() {
-								S entry = null;
-								try {
-									entry = working.remove(0);
-								} catch(IndexOutOfBoundsException e) {
-								}
-
-								if(entry != null) {
-									int index = l.indexOf(entry);
-									ListUtils.set(results, each.run(entry), index);
-								}
-								slots[slot] = null;
-							}
-						});
-						slots[slot].start();
-						emptySlotFound = true;
-					} else {
-						//no free slot
-						emptySlotFound = false;
-					}
-				}
-
-				if(!emptySlotFound && !working.isEmpty()) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
+	public static <S, T> LoopFuture<T> loop(final List<S> l, final RunnableImpl<S, T> each, int maxThreads) {
+		final List<S> entries = l != null ? new ArrayList<S>(l) : Collections.<S>emptyList();
+		final int workerCount = Math.max(0, Math.min(maxThreads, entries.size()));
+		final LoopFuture<T> future = new LoopFuture<>(entries.size(), workerCount);
+		for(int i = 0; i < workerCount; i++) {
+			final FutureTask<Void> worker = new FutureTask<Void>(new Runnable() {
+
+				@Override
+				public void run() {
+					int index;
+					while(!future.cancelled && (index = future.next.getAndIncrement()) < future.results.length) {
+						try {
+							future.results[index] = each.run(entries.get(index));
+						} catch(RuntimeException e) {
+							LoggerFactory.getLogger(ThreadUtils.class).log(Level.WARNING, "Failed to process " + entries.get(index), e);
+						}
 					}
 				}
-			}
-		}
-
-		if(wait) {
-			while(!containsOnlyNull(slots)) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
+			}, null) {
+
+				/**
+				 * Invoked once if the worker is completed or cancelled, even if it is cancelled before it has been started.
+				 */
+				@Override
+				protected void done() {
+					future.finished.countDown();
 				}
-			}
+			};
+			future.workers.add(worker);
+			EXECUTOR.execute(worker);
 		}
-		return results;
+		return future;
 	}
-	
+
 	public static int availableProcessors() {
 		return Runtime.getRuntime().availableProcessors();
 	}
 
-	private static boolean containsOnlyNull(Object[] values) {
-		for (int i = 0; i < values.length; i++) {
-			if(values[i] != null) {
+	/**
+	 * The results of a {@link ThreadUtils#loop(List, RunnableImpl, int)}. Cancelling the loop stops processing
+	 * further entries and interrupts the entries which are processed at the moment.
+	 */
+	public static class LoopFuture<T> implements Future<List<T>> {
+
+		private final Object[] results;
+
+		/** The index of the next entry to be processed. */
+		private final AtomicInteger next = new AtomicInteger();
+
+		private final CountDownLatch finished;
+
+		private final List<Future<?>> workers;
+
+		private volatile boolean cancelled;
+
+		private LoopFuture(int size, int workerCount) {
+			this.results = new Object[size];
+			this.finished = new CountDownLatch(workerCount);
+			this.workers = new ArrayList<>(workerCount);
+		}
+
+		@Override
+		public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+			if(isDone()) {
 				return false;
 			}
+			cancelled = true;
+			for(Future<?> worker : workers) {
+				worker.cancel(mayInterruptIfRunning);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public boolean isDone() {
+			return cancelled || finished.getCount() == 0;
+		}
+
+		@Override
+		public List<T> get() throws InterruptedException {
+			if(!cancelled) {
+				finished.await();
+			}
+			return getResults();
+		}
+
+		@Override
+		public List<T> get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+			if(!cancelled && !finished.await(timeout, unit)) {
+				throw new TimeoutException();
+			}
+			return getResults();
+		}
+
+		private List<T> getResults() {
+			if(cancelled) {
+				throw new CancellationException();
+			}
+			return getAvailableResults();
+		}
+
+		/**
+		 * Get the results which are available at the moment. The results of the entries which are
+		 * not processed yet are <code>null</code>.
+		 */
+		@SuppressWarnings("unchecked")
+		public List<T> getAvailableResults() {
+			return new ArrayList<>((List<T>) Arrays.asList(results.clone()));
 		}
-		return true;
 	}
 
 	public static abstract class RunnableImpl<S, T> {
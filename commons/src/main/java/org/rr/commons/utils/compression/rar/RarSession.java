@@ -0,0 +1,180 @@
+package org.rr.commons.utils.compression.rar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.io.FileUtils;
+import org.rr.commons.log.LoggerFactory;
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.utils.ProcessExecutor;
+import org.rr.commons.utils.ProcessExecutorHandler;
+import org.rr.commons.utils.StringUtil;
+import org.rr.commons.utils.compression.CompressedDataEntry;
+import org.rr.commons.utils.compression.FileEntryFilter;
+
+/**
+ * Reads many entries of one rar file. Other than {@link RarUtils#extract(IResourceHandler, String)} which starts
+ * one unrar process for each entry, the session extracts all requested entries with one unrar process into a
+ * temporary folder. The extracted files are deleted when the session gets closed.
+ * <br><br>
+ * {@link #read(String)} only extracts the requested entry if it was not extracted before. Entries which are
+ * read one after another, like all pages of a comic book, should be extracted with {@link #extract(FileEntryFilter)}
+ * first, so only one process is needed.
+ */
+public class RarSession implements Closeable {
+
+	/** Entries are named at the command line up to this number. All entries are extracted if more are requested. */
+	private static final int MAX_NAMED_ENTRIES = 32;
+
+	private final IResourceHandler rarFileHandler;
+
+	private final File extractFolder;
+
+	/** The entries which are already extracted to the {@link #extractFolder}. */
+	private final Set<String> extracted = new HashSet<>();
+
+	private RarSession(IResourceHandler rarFileHandler) {
+		this.rarFileHandler = rarFileHandler;
+		this.extractFolder = new File(FileUtils.getTempDirectoryPath(), UUID.randomUUID().toString());
+	}
+
+	/**
+	 * Creates a new session for the given rar file. The session must be closed to delete the extracted entries.
+	 */
+	public static RarSession open(IResourceHandler rarFileHandler) {
+		return new RarSession(rarFileHandler);
+	}
+
+	/**
+	 * List all file entries of the rar file. The listing is cached as long as the rar file did not change.
+	 */
+	public List<String> list() {
+		return RarUtils.list(rarFileHandler);
+	}
+
+	/**
+	 * List all file entries of the rar file accepted by the given filter.
+	 */
+	public List<String> list(FileEntryFilter filter) {
+		return RarUtils.list(rarFileHandler, filter);
+	}
+
+	/**
+	 * Extracts all entries accepted by the given filter with one unrar process. The returned entries
+	 * stay readable until the session is closed.
+	 * @param filter The filter for the entries to be extracted or <code>null</code> for all entries.
+	 */
+	public List<CompressedDataEntry> extract(FileEntryFilter filter) {
+		final List<String> names = list(filter);
+		extract(names);
+
+		final List<CompressedDataEntry> result = new ArrayList<>(names.size());
+		for(String name : names) {
+			result.add(new RarSessionDataEntry(name));
+		}
+		return result;
+	}
+
+	/**
+	 * Get the content of the rar entry with the given name. The entry is extracted with it's own unrar
+	 * process if it was not extracted before.
+	 * @throws IOException if the entry could not be extracted.
+	 */
+	public byte[] read(String name) throws IOException {
+		final File file = getExtractedFile(name);
+		extract(Collections.singletonList(name));
+		if(!file.isFile()) {
+			throw new FileNotFoundException("No entry " + name + " in rar " + rarFileHandler);
+		}
+		return FileUtils.readFileToByteArray(file);
+	}
+
+	/**
+	 * Deletes all extracted entries of this session.
+	 */
+	@Override
+	public synchronized void close() {
+		FileUtils.deleteQuietly(extractFolder);
+		extracted.clear();
+	}
+
+	private File getExtractedFile(String name) {
+		return new File(extractFolder, StringUtil.replace(name, "/", File.separator));
+	}
+
+	/**
+	 * Extracts the given entries which are not extracted yet with one unrar process.
+	 */
+	private synchronized void extract(List<String> names) {
+		final List<String> toExtract = new ArrayList<>(names);
+		toExtract.removeAll(extracted);
+		if(toExtract.isEmpty()) {
+			return;
+		}
+
+		try {
+			extractFolder.mkdirs();
+			final CommandLine cl = new CommandLine(RarUtils.getUnRarExecutable());
+			cl.addArgument("x"); // extract with full path
+			cl.addArgument("-o+"); // overwrite existing
+			cl.addArgument("-y");
+			cl.addArgument("\"" + rarFileHandler.toFile().getPath() + "\"", false);
+			if(toExtract.size() <= MAX_NAMED_ENTRIES) {
+				for(String name : toExtract) {
+					cl.addArgument("\"" + StringUtil.replace(name, "/", File.separator) + "\"", false);
+				}
+			} else {
+				// extract everything instead of exceeding the command line length.
+				toExtract.clear();
+				toExtract.addAll(list());
+			}
+			cl.addArgument("\"" + extractFolder.getPath() + File.separator + "\"", false);
+
+			ProcessExecutor.runProcessAsScript(cl, new ProcessExecutorHandler() {
+
+				@Override
+				public void onStandardOutput(String msg) {
+				}
+
+				@Override
+				public void onStandardError(String msg) {
+					LoggerFactory.getLogger(this).log(Level.WARNING, msg);
+				}
+			}, ExecuteWatchdog.INFINITE_TIMEOUT);
+			extracted.addAll(toExtract);
+		} catch (Exception e) {
+			LoggerFactory.getLogger(this).log(Level.SEVERE, "Failed to extract files from rar " + rarFileHandler, e);
+		}
+	}
+
+	/**
+	 * Entry which reads it's content from the session.
+	 */
+	private class RarSessionDataEntry extends CompressedDataEntry {
+
+		RarSessionDataEntry(String name) {
+			super(name, name.getBytes(), (byte[]) null);
+		}
+
+		@Override
+		public byte[] getBytes() {
+			try {
+				return read(path);
+			} catch (IOException e) {
+				LoggerFactory.getLogger(this).log(Level.SEVERE, "Failed to read " + path + " from rar " + rarFileHandler, e);
+				return null;
+			}
+		}
+	}
+}
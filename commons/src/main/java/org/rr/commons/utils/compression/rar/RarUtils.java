@@ -5,12 +5,14 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.io.FileUtils;
+import org.rr.commons.collection.LRUCacheMap;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.ProcessExecutor;
@@ -25,6 +27,10 @@ import org.rr.commons.utils.compression.FileEntryFilter;
 public class RarUtils {
 	
 	private static String rarExecFolder;
+
+	private static final int CACHED_LISTINGS = 32;
+
+	private static final Map<String, RarListing> listingCache = Collections.synchronizedMap(new LRUCacheMap<String, RarListing>(CACHED_LISTINGS));
 	
 	/**
 	 * Set the folder where the rar executables could be found.
@@ -95,9 +101,29 @@ public class RarUtils {
 	}
 	
 	/**
-	 * List all entries of the rar file allowed by the given {@link ZipFileFilter} instance.
+	 * List all entries of the rar file allowed by the given {@link ZipFileFilter} instance. The entries are
+	 * cached as long as the size and the modification date of the rar file did not change.
 	 */
 	public static List<String> list(final IResourceHandler rarFileHandler, final FileEntryFilter rarFileFilter) {
+		final File rarFile = rarFileHandler.toFile();
+		final String key = rarFile.getAbsolutePath();
+		final long modifiedAt = rarFile.lastModified();
+		final long length = rarFile.length();
+		RarListing listing = listingCache.get(key);
+		if(listing == null || listing.modifiedAt != modifiedAt || listing.length != length) {
+			final List<String> entries = listEntries(rarFileHandler);
+			if(entries == null) {
+				return new ArrayList<>();
+			}
+			listing = new RarListing(modifiedAt, length, entries);
+			listingCache.put(key, listing);
+		}
+
+		//apply filter
+		return processFileEntryFilter(listing.entries, rarFileFilter);
+	}
+
+	private static List<String> listEntries(final IResourceHandler rarFileHandler) {
 		final List<String> result = new ArrayList<>();
 		final CommandLine cl = new CommandLine(getUnRarExecutable());
 		
@@ -125,13 +151,12 @@ public class RarUtils {
 			}, 100000);
 		} catch (Exception e) {
 			LoggerFactory.getLogger().log(Level.SEVERE, "To list files in rar " + rarFileHandler, e);
+			return null;
 		}
 		
 		//remove dirs
 		removeDirectoryEntries(result);
-		
-		//apply filter
-		return processFileEntryFilter(result, rarFileFilter);
+		return Collections.unmodifiableList(result);
 	}
 	
 	public static boolean add(IResourceHandler rarFileHandler, String name, File in) {
@@ -223,4 +248,22 @@ public class RarUtils {
 		}
 		throw new RuntimeException("No rar executable!");
 	}
+
+	/**
+	 * The entries of a rar file at the time it had the given size and modification date.
+	 */
+	private static class RarListing {
+
+		private final long modifiedAt;
+
+		private final long length;
+
+		private final List<String> entries;
+
+		RarListing(long modifiedAt, long length, List<String> entries) {
+			this.modifiedAt = modifiedAt;
+			this.length = length;
+			this.entries = entries;
+		}
+	}
 }
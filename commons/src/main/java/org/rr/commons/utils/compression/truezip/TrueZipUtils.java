@@ -1,5 +1,6 @@
 package org.rr.commons.utils.compression.truezip;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -17,6 +18,7 @@ import org.rr.commons.utils.compression.CompressedDataEntry;
 import org.rr.commons.utils.compression.CompressionUtils;
 import org.rr.commons.utils.compression.EmptyFileEntryFilter;
 import org.rr.commons.utils.compression.FileEntryFilter;
+import org.rr.commons.utils.compression.zip.ZipUtils;
 
 import de.schlichtherle.truezip.file.TArchiveDetector;
 import de.schlichtherle.truezip.file.TConfig;
@@ -133,6 +135,19 @@ public class TrueZipUtils {
 		return isDeleted;
 	}
 	
+	/**
+	 * Add / Replace the an entry with the given name and given data. Other than {@link #add(IResourceHandler, String, InputStream)}
+	 * the entries which are not replaced are copied without compressing them again, so this should be used for
+	 * changing the metadata of a file.
+	 */
+	public static boolean replace(IResourceHandler zipFileHandler, String name, byte[] data) {
+		unmout(); // changes made with TrueZip must be written before the zip file is copied.
+		if(ZipUtils.add(zipFileHandler, new CompressedDataEntry(name, null, data), CompressionUtils.isStoreOnlyFile(name))) {
+			return true;
+		}
+		return add(zipFileHandler, name, new ByteArrayInputStream(data));
+	}
+
 	/**
 	 * Threading problem makes it indispensable to invoke unmount manually 
 	 * from the parent thread.
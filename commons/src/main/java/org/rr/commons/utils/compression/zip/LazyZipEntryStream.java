@@ -4,7 +4,6 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.compression.CompressedDataEntry;
 
@@ -21,17 +20,9 @@ public class LazyZipEntryStream extends InputStream {
 	
 	private void load() throws IOException {
 		if(data == null) {
-			InputStream contentInputStream = null;
-			try {
-				contentInputStream = zipResource.getContentInputStream();
-				CompressedDataEntry extract = ZipUtils.extract(contentInputStream, entry);
-				data = new ByteArrayInputStream(extract.getBytes());
-				data.mark(Integer.MAX_VALUE);
-			} finally {
-				if(contentInputStream != null) {
-					IOUtils.closeQuietly(contentInputStream);
-				}
-			}
+			CompressedDataEntry extract = ZipUtils.extract(zipResource, entry);
+			data = new ByteArrayInputStream(extract.getBytes());
+			data.mark(Integer.MAX_VALUE);
 		}		
 	}
 	
@@ -0,0 +1,583 @@
+package org.rr.commons.utils.compression.zip;
+
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_ENDHDR;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_ENDOFF;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_ENDSIG;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_ENDSIZ;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_ENDTOT;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_EXTID;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_LOCHDR;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_LOCOFF;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_LOCSIG;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_MAGICCOUNT;
+import static org.rr.commons.utils.compression.zip.ZipConstants64.ZIP64_MAGICVAL;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.rr.commons.collection.LRUCacheMap;
+import org.rr.commons.utils.compression.CompressedDataEntry;
+import org.rr.commons.utils.compression.FileEntryFilter;
+
+/**
+ * Reads single entries from a zip file without scanning the whole file. The central directory at the
+ * end of the zip file is read once and cached for the path, size and modification date of the file.
+ * Reading an entry only needs the local header and the compressed data of this entry.
+ */
+public class ZipFileReader implements ZipConstants, Closeable {
+
+	/** Number of zip files whose central directory is kept in memory. */
+	private static final int CACHED_DIRECTORIES = 64;
+
+	/** The end record is at most this far away from the end of the file because of the zip file comment. */
+	private static final int MAX_END_SEARCH = ENDHDR + 0xFFFF;
+
+	private static final Map<String, CentralDirectory> directoryCache = Collections.synchronizedMap(new LRUCacheMap<String, CentralDirectory>(CACHED_DIRECTORIES));
+
+	private final FileChannel channel;
+
+	private final CentralDirectory directory;
+
+	/**
+	 * The central directory of a zip file.
+	 */
+	private static class CentralDirectory {
+
+		private final long modifiedAt;
+
+		private final long length;
+
+		private final List<ZipEntry> entries;
+
+		private final long[] localHeaderOffsets;
+
+		private final Map<String, Integer> entryIndex;
+
+		private final long directoryOffset;
+
+		/** Positions of the entry records relative to the {@link #directoryOffset}. */
+		private final int[] recordPositions;
+
+		private final int directorySize;
+
+		/** Tells if the zip64 extensions are used somewhere in the central directory. */
+		private final boolean zip64;
+
+		/** The raw zip file comment from the end of central directory record. */
+		private final byte[] comment;
+
+		CentralDirectory(long modifiedAt, long length, List<ZipEntry> entries, long[] localHeaderOffsets, long directoryOffset,
+				int[] recordPositions, int directorySize, boolean zip64, byte[] comment) {
+			this.modifiedAt = modifiedAt;
+			this.length = length;
+			this.entries = entries;
+			this.localHeaderOffsets = localHeaderOffsets;
+			this.directoryOffset = directoryOffset;
+			this.recordPositions = recordPositions;
+			this.directorySize = directorySize;
+			this.zip64 = zip64;
+			this.comment = comment;
+			this.entryIndex = new HashMap<>(entries.size() * 2);
+			for(int i = entries.size() - 1; i >= 0; i--) {
+				entryIndex.put(entries.get(i).getName(), Integer.valueOf(i));
+			}
+		}
+	}
+
+	private ZipFileReader(FileChannel channel, CentralDirectory directory) {
+		this.channel = channel;
+		this.directory = directory;
+	}
+
+	/**
+	 * Removes the cached central directory of the given file. Must be invoked after the file was rewritten.
+	 */
+	static void invalidate(File file) {
+		directoryCache.remove(file.getAbsolutePath());
+	}
+
+	/**
+	 * Opens the given zip file. The central directory is read from the file if it's not already cached.
+	 * @param file The zip file to be read.
+	 * @return The new {@link ZipFileReader} which must be closed after use.
+	 * @throws IOException if the file could not be read or if it has no valid central directory.
+	 */
+	public static ZipFileReader open(File file) throws IOException {
+		final String path = file.getAbsolutePath();
+		final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			final long modifiedAt = file.lastModified();
+			final long length = channel.size();
+			CentralDirectory directory = directoryCache.get(path);
+			if(directory == null || directory.modifiedAt != modifiedAt || directory.length != length) {
+				directory = readCentralDirectory(channel, modifiedAt, length);
+				directoryCache.put(path, directory);
+			}
+			return new ZipFileReader(channel, directory);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The names of all entries in the order of the central directory.
+	 */
+	public List<String> list() {
+		final List<String> result = new ArrayList<>(directory.entries.size());
+		for(ZipEntry entry : directory.entries) {
+			result.add(entry.getName());
+		}
+		return result;
+	}
+
+	/**
+	 * @return The entry with the given name or <code>null</code> if there is no such entry.
+	 */
+	public ZipEntry getEntry(String name) {
+		final Integer index = directory.entryIndex.get(name);
+		return index != null ? directory.entries.get(index.intValue()) : null;
+	}
+
+	/**
+	 * Reads and inflates the entry with the given name.
+	 * @return The uncompressed entry data or <code>null</code> if there is no such entry.
+	 */
+	public byte[] read(String name) throws IOException {
+		final Integer index = directory.entryIndex.get(name);
+		return index != null ? read(index.intValue()) : null;
+	}
+
+	/**
+	 * Extracts all file entries accepted by the given filter. Entries which are not accepted are not read.
+	 * @param filter The filter for the entries to be extracted or <code>null</code> for all entries.
+	 * @return The extracted entries.
+	 */
+	public List<CompressedDataEntry> extract(FileEntryFilter filter) throws IOException {
+		final ArrayList<CompressedDataEntry> result = new ArrayList<>();
+		for(int i = 0; i < directory.entries.size(); i++) {
+			ZipEntry entry = directory.entries.get(i);
+			if(!entry.isDirectory() && (filter == null || filter.accept(entry.getName(), entry.getRawName()))) {
+				result.add(new CompressedDataEntry(entry.getName(), entry.getRawName(), read(i)));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes a copy of this zip file to the given target where the given entry is added or replaced. All other entries
+	 * are copied as they are without inflating and deflating them again. A new central directory is written at the end
+	 * and the zip file comment is kept.
+	 * @param target The channel for the new zip file.
+	 * @param replacement The entry to be added or replaced.
+	 * @param storeOnly Did not compress the replacement if <code>true</code>.
+	 * @throws IOException if the zip file could not be copied. Zip files which need the zip64 extensions are not supported.
+	 */
+	void rewrite(FileChannel target, CompressedDataEntry replacement, boolean storeOnly) throws IOException {
+		if(directory.zip64) {
+			throw new ZipException("Rewriting zip64 files is not supported");
+		}
+
+		final ByteBuffer records = readFully(channel, directory.directoryOffset, directory.directorySize);
+		final ByteArrayOutputStream newDirectory = new ByteArrayOutputStream(directory.directorySize + 1024);
+		final Integer replacedIndex = directory.entryIndex.get(replacement.path);
+		final int entryCount = directory.entries.size() + (replacedIndex == null ? 1 : 0);
+		if(entryCount >= ZIP64_MAGICCOUNT) {
+			throw new ZipException("Rewriting zip64 files is not supported");
+		}
+
+		long position = 0;
+		for(int i = 0; i < directory.entries.size(); i++) {
+			if(replacedIndex != null && replacedIndex.intValue() == i) {
+				final boolean utf8 = (getShort(records, directory.recordPositions[i] + CENFLG) & 0x800) != 0;
+				position += writeEntry(target, position, directory.entries.get(i).getRawName(), utf8, replacement, storeOnly, newDirectory);
+			} else {
+				final long entryLength = getLocalEntryLength(i);
+				transferFully(channel, directory.localHeaderOffsets[i], entryLength, target, position);
+
+				// copy the central directory record and only change the position of the local header.
+				final int recordPosition = directory.recordPositions[i];
+				final int recordLength = CENHDR + getShort(records, recordPosition + CENNAM) + getShort(records, recordPosition + CENEXT)
+						+ getShort(records, recordPosition + CENCOM);
+				final ByteBuffer record = ByteBuffer.allocate(recordLength).order(ByteOrder.LITTLE_ENDIAN);
+				record.put(records.array(), recordPosition, recordLength);
+				record.putInt(CENOFF, (int) position);
+				newDirectory.write(record.array());
+				position += entryLength;
+			}
+			if(position >= ZIP64_MAGICVAL) {
+				throw new ZipException("Rewriting zip64 files is not supported");
+			}
+		}
+		if(replacedIndex == null) {
+			final byte[] rawName = replacement.rawPath != null ? replacement.rawPath : replacement.path.getBytes(StandardCharsets.UTF_8);
+			position += writeEntry(target, position, rawName, !isAscii(rawName), replacement, storeOnly, newDirectory);
+		}
+
+		final ByteBuffer end = ByteBuffer.allocate(ENDHDR + directory.comment.length).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(0, (int) ENDSIG);
+		end.putShort(ENDSUB, (short) entryCount);
+		end.putShort(ENDTOT, (short) entryCount);
+		end.putInt(ENDSIZ, newDirectory.size());
+		end.putInt(ENDOFF, (int) position);
+		end.putShort(ENDCOM, (short) directory.comment.length);
+		end.position(ENDHDR);
+		end.put(directory.comment);
+		end.rewind();
+		writeFully(target, ByteBuffer.wrap(newDirectory.toByteArray()), position);
+		writeFully(target, end, position + newDirectory.size());
+	}
+
+	/**
+	 * Get the length of the local header, the data and the data descriptor of the entry with the given index.
+	 */
+	private long getLocalEntryLength(int index) throws IOException {
+		final ZipEntry entry = directory.entries.get(index);
+		final long localHeaderOffset = directory.localHeaderOffsets[index];
+		final ByteBuffer localHeader = readFully(channel, localHeaderOffset, LOCHDR);
+		if((localHeader.getInt(0) & 0xFFFFFFFFL) != LOCSIG) {
+			throw new ZipException("Invalid local header for " + entry.getName());
+		}
+		long length = LOCHDR + getShort(localHeader, LOCNAM) + getShort(localHeader, LOCEXT) + entry.csize;
+		if((getShort(localHeader, LOCFLG) & 8) == 8) {
+			// the data descriptor may start with a signature.
+			final ByteBuffer descriptor = readFully(channel, localHeaderOffset + length, 4);
+			length += (descriptor.getInt(0) & 0xFFFFFFFFL) == EXTSIG ? EXTHDR : EXTHDR - 4;
+		}
+		return length;
+	}
+
+	/**
+	 * Writes the local header and the data of the given entry and appends it's central directory record to the given directory.
+	 * @return The number of bytes written to the target channel.
+	 */
+	private static long writeEntry(FileChannel target, long position, byte[] rawName, boolean utf8, CompressedDataEntry entry, boolean storeOnly,
+			ByteArrayOutputStream directory) throws IOException {
+		final byte[] data = entry.getBytes();
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+		final byte[] compressed = storeOnly ? data : deflate(data);
+		final int method = storeOnly ? ZipEntry.STORED : ZipEntry.DEFLATED;
+		final int flag = utf8 ? 0x800 : 0; // language encoding flag for utf-8 file names
+		final int time = (int) javaToDosTime(System.currentTimeMillis());
+
+		final ByteBuffer localHeader = ByteBuffer.allocate(LOCHDR + rawName.length).order(ByteOrder.LITTLE_ENDIAN);
+		localHeader.putInt(0, (int) LOCSIG);
+		localHeader.putShort(LOCVER, (short) 20);
+		localHeader.putShort(LOCFLG, (short) flag);
+		localHeader.putShort(LOCHOW, (short) method);
+		localHeader.putInt(LOCTIM, time);
+		localHeader.putInt(LOCCRC, (int) crc.getValue());
+		localHeader.putInt(LOCSIZ, compressed.length);
+		localHeader.putInt(LOCLEN, data.length);
+		localHeader.putShort(LOCNAM, (short) rawName.length);
+		localHeader.position(LOCHDR);
+		localHeader.put(rawName);
+		localHeader.rewind();
+		writeFully(target, localHeader, position);
+		writeFully(target, ByteBuffer.wrap(compressed), position + LOCHDR + rawName.length);
+
+		final ByteBuffer record = ByteBuffer.allocate(CENHDR + rawName.length).order(ByteOrder.LITTLE_ENDIAN);
+		record.putInt(0, (int) CENSIG);
+		record.putShort(CENVEM, (short) 20);
+		record.putShort(CENVER, (short) 20);
+		record.putShort(CENFLG, (short) flag);
+		record.putShort(CENHOW, (short) method);
+		record.putInt(CENTIM, time);
+		record.putInt(CENCRC, (int) crc.getValue());
+		record.putInt(CENSIZ, compressed.length);
+		record.putInt(CENLEN, data.length);
+		record.putShort(CENNAM, (short) rawName.length);
+		record.putInt(CENOFF, (int) position);
+		record.position(CENHDR);
+		record.put(rawName);
+		directory.write(record.array());
+
+		return LOCHDR + rawName.length + compressed.length;
+	}
+
+	private static byte[] deflate(byte[] data) {
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+			final byte[] buffer = new byte[8192];
+			while(!deflater.finished()) {
+				int len = deflater.deflate(buffer);
+				out.write(buffer, 0, len);
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static boolean isAscii(byte[] rawName) {
+		for(byte b : rawName) {
+			if(b < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Converts Java time to DOS time.
+	 */
+	@SuppressWarnings("deprecation")
+	private static long javaToDosTime(long time) {
+		final Date d = new Date(time);
+		final int year = d.getYear() + 1900;
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (year - 1980) << 25 | (d.getMonth() + 1) << 21 | d.getDate() << 16 | d.getHours() << 11 | d.getMinutes() << 5 | d.getSeconds() >> 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private byte[] read(int index) throws IOException {
+		final ZipEntry entry = directory.entries.get(index);
+		if(entry.csize > Integer.MAX_VALUE || entry.size > Integer.MAX_VALUE) {
+			throw new ZipException("Entry too large " + entry.getName());
+		}
+
+		final long localHeaderOffset = directory.localHeaderOffsets[index];
+		final ByteBuffer localHeader = readFully(channel, localHeaderOffset, LOCHDR);
+		if((localHeader.getInt(0) & 0xFFFFFFFFL) != LOCSIG) {
+			throw new ZipException("Invalid local header for " + entry.getName());
+		}
+		final long dataOffset = localHeaderOffset + LOCHDR + getShort(localHeader, LOCNAM) + getShort(localHeader, LOCEXT);
+		final ByteBuffer compressed = readFully(channel, dataOffset, (int) entry.csize);
+
+		final byte[] data;
+		if(entry.method == ZipEntry.STORED) {
+			data = compressed.array();
+		} else if(entry.method == ZipEntry.DEFLATED) {
+			data = inflate(entry, compressed.array());
+		} else {
+			throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.getName());
+		}
+
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+		if(crc.getValue() != entry.crc) {
+			throw new ZipException("Invalid CRC for " + entry.getName());
+		}
+		return data;
+	}
+
+	private static byte[] inflate(ZipEntry entry, byte[] compressed) throws ZipException {
+		final Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed);
+			final byte[] data = new byte[(int) entry.size];
+			int offset = 0;
+			boolean dummyInput = false;
+			while(offset < data.length) {
+				int inflated = inflater.inflate(data, offset, data.length - offset);
+				if(inflated == 0) {
+					if(inflater.needsInput() && !dummyInput) {
+						// the nowrap mode could need an extra dummy byte after the compressed data.
+						inflater.setInput(new byte[1]);
+						dummyInput = true;
+					} else if(inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+						break;
+					}
+				}
+				offset += inflated;
+			}
+			if(offset != data.length) {
+				throw new ZipException("Invalid compressed data for " + entry.getName());
+			}
+			return data;
+		} catch(DataFormatException e) {
+			throw new ZipException("Invalid compressed data for " + entry.getName() + ": " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static CentralDirectory readCentralDirectory(FileChannel channel, long modifiedAt, long length) throws IOException {
+		final int tailLength = (int) Math.min(length, MAX_END_SEARCH);
+		final ByteBuffer tail = readFully(channel, length - tailLength, tailLength);
+		int endPosition = -1;
+		for(int i = tailLength - ENDHDR; i >= 0; i--) {
+			if((tail.getInt(i) & 0xFFFFFFFFL) == ENDSIG) {
+				endPosition = i;
+				break;
+			}
+		}
+		if(endPosition == -1) {
+			throw new ZipException("No end of central directory found");
+		}
+
+		// a broken comment length must not prevent reading the entries, so the comment is cut at the end of the file.
+		final byte[] comment = new byte[Math.min(getShort(tail, endPosition + ENDCOM), tailLength - endPosition - ENDHDR)];
+		System.arraycopy(tail.array(), endPosition + ENDHDR, comment, 0, comment.length);
+
+		long entryCount = getShort(tail, endPosition + ENDTOT);
+		long directorySize = getInt(tail, endPosition + ENDSIZ);
+		long directoryOffset = getInt(tail, endPosition + ENDOFF);
+		boolean zip64 = false;
+		if(entryCount == ZIP64_MAGICCOUNT || directorySize == ZIP64_MAGICVAL || directoryOffset == ZIP64_MAGICVAL) {
+			zip64 = true;
+			final long locatorOffset = length - tailLength + endPosition - ZIP64_LOCHDR;
+			final ByteBuffer locator = readFully(channel, locatorOffset, ZIP64_LOCHDR);
+			if((locator.getInt(0) & 0xFFFFFFFFL) == ZIP64_LOCSIG) {
+				final ByteBuffer end64 = readFully(channel, locator.getLong(ZIP64_LOCOFF), ZIP64_ENDHDR);
+				if((end64.getInt(0) & 0xFFFFFFFFL) != ZIP64_ENDSIG) {
+					throw new ZipException("Invalid zip64 end of central directory");
+				}
+				entryCount = end64.getLong(ZIP64_ENDTOT);
+				directorySize = end64.getLong(ZIP64_ENDSIZ);
+				directoryOffset = end64.getLong(ZIP64_ENDOFF);
+			}
+		}
+		if(directorySize > Integer.MAX_VALUE || directoryOffset + directorySize > length) {
+			throw new ZipException("Invalid central directory");
+		}
+
+		final ByteBuffer buffer = readFully(channel, directoryOffset, (int) directorySize);
+		final List<ZipEntry> entries = new ArrayList<>((int) Math.min(entryCount, 0xFFFF));
+		final List<Long> offsets = new ArrayList<>(entries.size());
+		final List<Integer> positions = new ArrayList<>(entries.size());
+		ZipCoder zc = ZipCoder.get(Charset.forName("UTF-8"));
+		int position = 0;
+		while(position + CENHDR <= directorySize && (buffer.getInt(position) & 0xFFFFFFFFL) == CENSIG) {
+			final int nameLength = getShort(buffer, position + CENNAM);
+			final int extraLength = getShort(buffer, position + CENEXT);
+			final int commentLength = getShort(buffer, position + CENCOM);
+			if(position + CENHDR + nameLength + extraLength + commentLength > directorySize) {
+				throw new ZipException("Invalid central directory entry");
+			}
+
+			final byte[] rawName = new byte[nameLength];
+			System.arraycopy(buffer.array(), position + CENHDR, rawName, 0, nameLength);
+			String name;
+			try {
+				name = zc.toString(rawName, nameLength);
+			} catch (IllegalArgumentException ex) {
+				// same fallback as the ZipInputStream if decoding the file name fails.
+				zc = ZipCoder.get(Charset.forName("ibm437"));
+				name = zc.toString(rawName, nameLength);
+			}
+
+			final ZipEntry entry = new ZipEntry(name, rawName);
+			if((getShort(buffer, position + CENFLG) & 1) == 1) {
+				throw new ZipException("encrypted ZIP entry not supported");
+			}
+			entry.method = getShort(buffer, position + CENHOW);
+			entry.time = getInt(buffer, position + CENTIM);
+			entry.crc = getInt(buffer, position + CENCRC);
+			entry.csize = getInt(buffer, position + CENSIZ);
+			entry.size = getInt(buffer, position + CENLEN);
+			long localHeaderOffset = getInt(buffer, position + CENOFF);
+			if(entry.size == ZIP64_MAGICVAL || entry.csize == ZIP64_MAGICVAL || localHeaderOffset == ZIP64_MAGICVAL) {
+				zip64 = true;
+				localHeaderOffset = readZip64Extra(buffer, position + CENHDR + nameLength, extraLength, entry, localHeaderOffset);
+			}
+			entries.add(entry);
+			offsets.add(Long.valueOf(localHeaderOffset));
+			positions.add(Integer.valueOf(position));
+			position += CENHDR + nameLength + extraLength + commentLength;
+		}
+
+		final long[] localHeaderOffsets = new long[offsets.size()];
+		final int[] recordPositions = new int[positions.size()];
+		for(int i = 0; i < localHeaderOffsets.length; i++) {
+			localHeaderOffsets[i] = offsets.get(i).longValue();
+			recordPositions[i] = positions.get(i).intValue();
+		}
+		return new CentralDirectory(modifiedAt, length, entries, localHeaderOffsets, directoryOffset, recordPositions, (int) directorySize, zip64, comment);
+	}
+
+	/**
+	 * Reads the 64 bit sizes and offset of the zip64 extra field for these values which are marked as stored there.
+	 * @return The local header offset.
+	 */
+	private static long readZip64Extra(ByteBuffer buffer, int extraOffset, int extraLength, ZipEntry entry, long localHeaderOffset) {
+		int position = extraOffset;
+		while(position + 4 <= extraOffset + extraLength) {
+			final int id = getShort(buffer, position);
+			final int size = getShort(buffer, position + 2);
+			int valuePosition = position + 4;
+			if(id == ZIP64_EXTID) {
+				if(entry.size == ZIP64_MAGICVAL) {
+					entry.size = buffer.getLong(valuePosition);
+					valuePosition += 8;
+				}
+				if(entry.csize == ZIP64_MAGICVAL) {
+					entry.csize = buffer.getLong(valuePosition);
+					valuePosition += 8;
+				}
+				if(localHeaderOffset == ZIP64_MAGICVAL) {
+					localHeaderOffset = buffer.getLong(valuePosition);
+				}
+				break;
+			}
+			position += 4 + size;
+		}
+		return localHeaderOffset;
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of zip file");
+			}
+		}
+		return buffer;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	private static void transferFully(FileChannel source, long position, long count, FileChannel target, long targetPosition) throws IOException {
+		target.position(targetPosition);
+		long transferred = 0;
+		while(transferred < count) {
+			long len = source.transferTo(position + transferred, count - transferred, target);
+			if(len <= 0) {
+				throw new EOFException("Unexpected end of zip file");
+			}
+			transferred += len;
+		}
+	}
+
+	private static int getShort(ByteBuffer buffer, int position) {
+		return buffer.getShort(position) & 0xFFFF;
+	}
+
+	private static long getInt(ByteBuffer buffer, int position) {
+		return buffer.getInt(position) & 0xFFFFFFFFL;
+	}
+}
@@ -5,9 +5,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 
 import org.apache.commons.io.IOUtils;
 import org.rr.commons.log.LoggerFactory;
@@ -117,7 +124,23 @@ public class ZipUtils {
 		return extract(new ByteArrayInputStream(zipData), entry);
 	}
 
+	/**
+	 * Extracts the entry specified with the entry parameter and returns it. Zip files are read with
+	 * the {@link ZipFileReader}, so only the requested entry is read from the file.
+	 * @param zipData The zip data containing the file to be extracted.
+	 * @param entry The entry to be extracted. for example 'META-INF/container.xml'
+	 * @return The desired entry or <code>null</code> if the entry is not in the zip.
+	 */
 	public static CompressedDataEntry extract(IResourceHandler zipData, String entry) throws IOException {
+		if(zipData.isFileResource()) {
+			try (ZipFileReader reader = ZipFileReader.open(zipData.toFile())) {
+				ZipEntry zipEntry = reader.getEntry(entry);
+				return zipEntry != null ? new CompressedDataEntry(zipEntry.getName(), zipEntry.getRawName(), reader.read(entry)) : null;
+			} catch(IOException e) {
+				LoggerFactory.log(Level.FINE, ZipUtils.class, "Random access to " + zipData + " has failed.", e);
+			}
+		}
+
 		ResourceHandlerInputStream contentInputStream = zipData.getContentInputStream();
 		try {
 			return extract(contentInputStream, entry);
@@ -126,7 +149,19 @@ public class ZipUtils {
 		}		
 	}
 	
+	/**
+	 * Extracts all file entries accepted by the given filter. Zip files are read with
+	 * the {@link ZipFileReader}, so entries which are not accepted are not read from the file.
+	 */
 	public static List<CompressedDataEntry> extract(IResourceHandler zipData, FileEntryFilter filter) throws IOException {
+		if(zipData.isFileResource()) {
+			try (ZipFileReader reader = ZipFileReader.open(zipData.toFile())) {
+				return reader.extract(filter);
+			} catch(IOException e) {
+				LoggerFactory.log(Level.FINE, ZipUtils.class, "Random access to " + zipData + " has failed.", e);
+			}
+		}
+
 		ResourceHandlerInputStream contentInputStream = zipData.getContentInputStream();
 		try {
 			return extract(contentInputStream, filter, Integer.MAX_VALUE);
@@ -156,6 +191,50 @@ public class ZipUtils {
 	}
 	
 
+	/**
+	 * Adds or replaces the given entry in the given zip file. The other entries are copied with their
+	 * compressed data, so only the given entry is compressed. The zip file is written to a temporary file
+	 * which replaces the original one when finished.
+	 * @param zipData The zip file where the given entry should be added.
+	 * @param entry The entry to be added.
+	 * @param storeOnly Did not compress the entry if <code>true</code> and does if <code>false</code>.
+	 * @return <code>true</code> if the entry was added or <code>false</code> if the zip file could not be rewritten.
+	 */
+	public static boolean add(IResourceHandler zipData, CompressedDataEntry entry, boolean storeOnly) {
+		if(!zipData.isFileResource()) {
+			return false;
+		}
+
+		final Path zipFile = zipData.toFile().toPath();
+		Path tmpFile = null;
+		try {
+			tmpFile = Files.createTempFile(zipFile.toAbsolutePath().getParent(), zipFile.getFileName().toString(), ".tmp");
+			try (ZipFileReader reader = ZipFileReader.open(zipFile.toFile());
+					FileChannel target = FileChannel.open(tmpFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				reader.rewrite(target, entry, storeOnly);
+				target.force(false);
+			}
+
+			try {
+				Files.move(tmpFile, zipFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile, zipFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			ZipFileReader.invalidate(zipFile.toFile());
+			return true;
+		} catch(IOException e) {
+			LoggerFactory.log(Level.FINE, ZipUtils.class, "Rewriting " + zipData + " has failed.", e);
+			if(tmpFile != null) {
+				try {
+					Files.deleteIfExists(tmpFile);
+				} catch (IOException e1) {
+					LoggerFactory.log(Level.WARNING, ZipUtils.class, "Could not delete " + tmpFile, e1);
+				}
+			}
+			return false;
+		}
+	}
+
 	/**
 	 * Adds or replaces the given entry to existing zip data. Note that the whole
 	 * zip is copied.
@@ -65,4 +65,12 @@ class DefaultImageProvider extends AImageProvider implements IImageProvider {
 	public BufferedImage getImage() {
 		return ImageUtils.decodeImage(this.resourceLoader, mime);	
 	}
+
+	/**
+	 * Returns the current JpgImage object as a BufferedImage which is decoded with a lower
+	 * resolution if the image is much higher than the given height.
+	 */
+	public BufferedImage getImage(int minHeight) {
+		return ImageUtils.decodeImage(this.resourceLoader, mime, minHeight);
+	}
 }
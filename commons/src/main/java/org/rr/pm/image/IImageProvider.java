@@ -12,6 +12,15 @@ public interface IImageProvider {
 	 */
 	public BufferedImage getImage();
 
+	/**
+	 * Gets a {@link BufferedImage} for the image provided by this {@link IImageProvider} instance which
+	 * could have a lower resolution than the original image. Use this one for thumbnails because it's
+	 * much faster and needs less memory than decoding the full sized image.
+	 * @param minHeight The height of the returned image is at least this one if the original image is at least that high.
+	 * @return The desired {@link BufferedImage}.
+	 */
+	public BufferedImage getImage(int minHeight);
+
 	/**
 	 * Gets the height of the image provided by this {@link IImageProvider} instance.
 	 * @return The image height.
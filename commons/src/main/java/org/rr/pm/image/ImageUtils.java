@@ -29,7 +29,10 @@ import java.util.Iterator;
 import java.util.List;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 import javax.swing.ImageIcon;
 
@@ -118,6 +121,46 @@ public class ImageUtils {
 		return bi;
 	}
 
+	/**
+	 * Decodes the given image with a lower resolution if it's much higher than the given height. Only the
+	 * image header is read to get the image size, the image data is decoded with source subsampling so
+	 * the full sized image is never created.
+	 * @param resourceLoader The image resource to be loaded.
+	 * @param minHeight The height of the decoded image is at least this one if the image itself is at least that high.
+	 * @return The {@link BufferedImage} for the given file or <code>null</code> if the image could not be loaded.
+	 */
+	static BufferedImage decodeImage(IResourceHandler resourceLoader, String mime, int minHeight) {
+		InputStream bin = null;
+		ImageInputStream iin = null;
+		try {
+			bin = resourceLoader.getContentInputStream();
+			iin = ImageIO.createImageInputStream(bin);
+			Iterator<ImageReader> readers = iin != null ? ImageIO.getImageReaders(iin) : Collections.<ImageReader>emptyIterator();
+			if(readers.hasNext()) {
+				ImageReader reader = readers.next();
+				try {
+					reader.setInput(iin, true, true);
+					ImageReadParam param = reader.getDefaultReadParam();
+					int subsampling = minHeight > 0 ? reader.getHeight(0) / minHeight : 1;
+					if(subsampling > 1) {
+						param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+					}
+					return reader.read(0, param);
+				} finally {
+					reader.dispose();
+				}
+			}
+		} catch (Exception e) {
+			//LoggerFactory.getLogger().log(Level.WARNING, "Could not decode image " + resourceLoader, e);
+		} finally {
+			IOUtils.closeQuietly(iin);
+			IOUtils.closeQuietly(bin);
+		}
+
+		// no suitable image reader or the subsampled decoding has failed
+		return decodeImage(resourceLoader, mime);
+	}
+
 	/**
 	 * Scales the given image to the maximum fitting into the given frame
 	 * dimension without loosing the proportions.
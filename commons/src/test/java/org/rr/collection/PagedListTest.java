@@ -0,0 +1,124 @@
+package org.rr.collection;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rr.commons.collection.PagedList;
+
+import junit.framework.TestCase;
+
+public class PagedListTest extends TestCase {
+
+	public void testSequentialPagesUseKeys() {
+		TestLoader loader = new TestLoader(250, true);
+		PagedList<Integer> list = new PagedList<>(loader, 100, 2);
+		assertEquals(250, list.size());
+		for(int i = 0; i < list.size(); i++) {
+			assertEquals(Integer.valueOf(i), list.get(i));
+		}
+		assertEquals(3, loader.loads);
+		assertEquals(1, loader.offsetLoads);
+		assertEquals(1, loader.counts);
+	}
+
+	public void testRandomJumpUsesOffset() {
+		TestLoader loader = new TestLoader(1000, true);
+		PagedList<Integer> list = new PagedList<>(loader, 100, 2);
+		assertEquals(Integer.valueOf(750), list.get(750));
+		assertEquals(Integer.valueOf(850), list.get(850));
+		assertEquals(2, loader.loads);
+		assertEquals(1, loader.offsetLoads);
+	}
+
+	public void testWithoutKeys() {
+		TestLoader loader = new TestLoader(300, false);
+		PagedList<Integer> list = new PagedList<>(loader, 100, 2);
+		for(int i = 0; i < list.size(); i++) {
+			assertEquals(Integer.valueOf(i), list.get(i));
+		}
+		assertEquals(3, loader.offsetLoads);
+	}
+
+	public void testLeastRecentlyUsedPagesDropped() {
+		TestLoader loader = new TestLoader(1000, true);
+		PagedList<Integer> list = new PagedList<>(loader, 100, 2);
+		list.get(0);
+		list.get(100);
+		list.get(0);
+		list.get(200);
+		assertEquals(3, loader.loads);
+
+		// page 0 is still cached, page 1 was dropped
+		list.get(1);
+		assertEquals(3, loader.loads);
+		list.get(101);
+		assertEquals(4, loader.loads);
+
+		list.close();
+		assertEquals(1, loader.closes);
+		list.get(0);
+		assertEquals(5, loader.loads);
+	}
+
+	public void testIndexOutOfBounds() {
+		PagedList<Integer> list = new PagedList<>(new TestLoader(10, true), 100, 2);
+		try {
+			list.get(10);
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+		}
+	}
+
+	private static class TestLoader implements PagedList.PageLoader<Integer>, Closeable {
+
+		private final int size;
+
+		private final boolean keys;
+
+		int counts;
+
+		int loads;
+
+		int offsetLoads;
+
+		int closes;
+
+		TestLoader(int size, boolean keys) {
+			this.size = size;
+			this.keys = keys;
+		}
+
+		@Override
+		public void close() {
+			closes++;
+		}
+
+		@Override
+		public int count() {
+			counts++;
+			return size;
+		}
+
+		@Override
+		public List<Integer> load(Object[] afterKey, int offset, int limit) {
+			loads++;
+			int start = offset;
+			if(afterKey != null) {
+				start = ((Integer) afterKey[0]).intValue() + 1;
+			} else {
+				offsetLoads++;
+			}
+			List<Integer> result = new ArrayList<>();
+			for(int i = start; i < Math.min(size, start + limit); i++) {
+				result.add(Integer.valueOf(i));
+			}
+			return result;
+		}
+
+		@Override
+		public Object[] getKey(Integer element) {
+			return keys ? new Object[] {element} : null;
+		}
+	}
+}
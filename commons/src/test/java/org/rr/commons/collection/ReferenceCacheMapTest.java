@@ -0,0 +1,143 @@
+package org.rr.commons.collection;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class ReferenceCacheMapTest extends TestCase {
+
+	/** Takes some seconds, so the contention benchmark only runs if this system property is set to <code>true</code>. */
+	private static final String BENCHMARK_PROPERTY = "jeboorker.benchmark";
+
+	private static final int THREADS = 16;
+
+	private static final int PATHS = 100000;
+
+	public void testPutIfAbsent() {
+		ReferenceCacheMap<String, String> cache = new ReferenceCacheMap<>(100, true);
+		String value = new String("value");
+		assertSame(value, cache.putIfAbsent("key", value));
+		assertSame(value, cache.putIfAbsent("key", new String("value")));
+		assertSame(value, cache.get("key"));
+		assertSame(value, cache.remove("key"));
+		assertNull(cache.get("key"));
+	}
+
+	public void testBounds() {
+		ReferenceCacheMap<Integer, String> cache = new ReferenceCacheMap<>(160, true);
+		String[] values = new String[1000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = String.valueOf(i);
+			cache.putIfAbsent(i, values[i]);
+		}
+		assertTrue(cache.size() <= 160);
+		assertSame(values[999], cache.get(999));
+		assertNull(cache.get(0));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	public void testWeakValues() throws Exception {
+		ReferenceCacheMap<String, Object> cache = new ReferenceCacheMap<>(100, false);
+		cache.putIfAbsent("key", new Object());
+		for (int i = 0; i < 10 && cache.get("key") != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(cache.get("key"));
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Compares the striped cache with the formerly used, globally synchronized {@link VolatileHashMap} while 16 threads
+	 * resolve the same 100k distinct paths in a different order.
+	 */
+	public void testContentionBenchmark() throws Exception {
+		if(!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+			return;
+		}
+		final Map<String, File> volatileCache = new VolatileHashMap<>(100, 100);
+		long synchronizedTime = runBenchmark(new Resolver() {
+
+			@Override
+			public File resolve(String path) {
+				synchronized(volatileCache) {
+					File file = volatileCache.get(path);
+					if(file == null) {
+						volatileCache.put(path, file = new File(path));
+					}
+					return file;
+				}
+			}
+		});
+
+		final ReferenceCacheMap<String, File> referenceCache = new ReferenceCacheMap<>(1000, true);
+		long stripedTime = runBenchmark(new Resolver() {
+
+			@Override
+			public File resolve(String path) {
+				File file = referenceCache.get(path);
+				if(file == null) {
+					file = referenceCache.putIfAbsent(path, new File(path));
+				}
+				return file;
+			}
+		});
+
+		System.out.println(THREADS + " threads resolving " + PATHS + " paths: synchronized VolatileHashMap " + synchronizedTime
+				+ "ms, ReferenceCacheMap " + stripedTime + "ms");
+	}
+
+	private static long runBenchmark(final Resolver resolver) throws Exception {
+		final String[] paths = new String[PATHS];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = "/home/user/library/author" + (i % 500) + "/book" + i + ".epub";
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			final CountDownLatch done = new CountDownLatch(THREADS);
+			for (int t = 0; t < THREADS; t++) {
+				final int offset = t * (PATHS / THREADS);
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							start.await();
+							for (int i = 0; i < paths.length; i++) {
+								String path = paths[(offset + i) % paths.length];
+								// repeated lookups of the same path like they happen for a listed file.
+								for (int j = 0; j < 2; j++) {
+									assertNotNull(resolver.resolve(path));
+								}
+							}
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						} finally {
+							done.countDown();
+						}
+					}
+				});
+			}
+			long time = System.currentTimeMillis();
+			start.countDown();
+			assertTrue(done.await(5, TimeUnit.MINUTES));
+			return System.currentTimeMillis() - time;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static interface Resolver {
+
+		File resolve(String path);
+	}
+}
@@ -0,0 +1,125 @@
+package org.rr.commons.mufs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class FileTreeWalkerTest extends TestCase {
+
+	private static final int FOLDERS = 50;
+
+	private static final int FILES_PER_FOLDER = 40;
+
+	private File root;
+
+	@Override
+	protected void setUp() throws Exception {
+		root = Files.createTempDirectory("walker").toFile();
+		for(int i = 0; i < FOLDERS; i++) {
+			File folder = new File(root, "author" + i + File.separator + "series" + (i % 3));
+			folder.mkdirs();
+			for(int j = 0; j < FILES_PER_FOLDER; j++) {
+				FileUtils.writeStringToFile(new File(folder, "book" + j + ".epub"), "content " + i + " " + j);
+			}
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		FileUtils.deleteDirectory(root);
+	}
+
+	public void testWalk() throws IOException {
+		final Set<String> walked = Collections.synchronizedSet(new HashSet<String>());
+		int count = new FileTreeWalker(new ResourceNameFilter() {
+
+			@Override
+			public boolean accept(IResourceHandler resource) {
+				File file = resource.toFile();
+				assertTrue(resource.isFileResource());
+				assertEquals(file.length(), resource.size());
+				assertEquals(file.lastModified() / 1000, resource.getModifiedAt().getTime() / 1000);
+				walked.add(resource.toString());
+				return true;
+			}
+		}).walk(ResourceHandlerFactory.getResourceHandler(root));
+
+		final Set<String> read = new HashSet<>();
+		ResourceHandlerUtils.readAllFilesFromBasePath(ResourceHandlerFactory.getResourceHandler(root), new ResourceNameFilter() {
+
+			@Override
+			public boolean accept(IResourceHandler resource) {
+				if(resource.isFileResource()) {
+					read.add(resource.toString());
+					return true;
+				}
+				return false;
+			}
+		});
+
+		assertEquals(FOLDERS * FILES_PER_FOLDER, count);
+		assertEquals(read, walked);
+	}
+
+	public void testCancel() {
+		final FileTreeWalker[] walker = new FileTreeWalker[1];
+		walker[0] = new FileTreeWalker(new ResourceNameFilter() {
+
+			@Override
+			public boolean accept(IResourceHandler resource) {
+				walker[0].cancel();
+				return true;
+			}
+		});
+		int count = walker[0].walk(ResourceHandlerFactory.getResourceHandler(root));
+		assertTrue(walker[0].isCanceled());
+		// each running folder task stops with the next file
+		assertTrue(count < FILES_PER_FOLDER);
+	}
+
+	public void testAttributesReleasedAfterWalk() throws IOException {
+		final Set<IResourceHandler> walked = Collections.synchronizedSet(new HashSet<IResourceHandler>());
+		new FileTreeWalker(new ResourceNameFilter() {
+
+			@Override
+			public boolean accept(IResourceHandler resource) {
+				walked.add(resource);
+				return true;
+			}
+		}).walk(ResourceHandlerFactory.getResourceHandler(root));
+
+		IResourceHandler resource = walked.iterator().next();
+		FileUtils.writeStringToFile(resource.toFile(), "changed content with another size");
+		assertEquals(resource.toFile().length(), resource.size());
+
+		resource.toFile().delete();
+		assertFalse(resource.exists());
+	}
+
+	public void testWalkBenchmark() {
+		final ResourceNameFilter filter = new ResourceNameFilter() {
+
+			@Override
+			public boolean accept(IResourceHandler resource) {
+				return resource.isFileResource() && resource.getModifiedAt() != null;
+			}
+		};
+
+		long start = System.currentTimeMillis();
+		ResourceHandlerUtils.readAllFilesFromBasePath(ResourceHandlerFactory.getResourceHandler(root), filter);
+		long readTime = System.currentTimeMillis() - start;
+
+		start = System.currentTimeMillis();
+		new FileTreeWalker(filter).walk(ResourceHandlerFactory.getResourceHandler(root));
+		long walkTime = System.currentTimeMillis() - start;
+
+		System.out.println("Reading " + (FOLDERS * FILES_PER_FOLDER) + " files: recursive listing " + readTime + "ms, FileTreeWalker " + walkTime + "ms");
+	}
+}
@@ -0,0 +1,87 @@
+package org.rr.commons.mufs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class MimeDetectorTest extends TestCase {
+
+	public void testMimeFromFileName() {
+		assertEquals(MimeUtils.MIME_JPEG, MimeDetector.getMimeFromFileName("/home/user/Cover.JPG"));
+		assertEquals(MimeUtils.MIME_JPEG, MimeDetector.getMimeFromFileName("cover.jpeg"));
+		assertEquals(MimeUtils.MIME_HTML, MimeDetector.getMimeFromFileName("chapter.xhtml"));
+		assertEquals(MimeUtils.MIME_AZW, MimeDetector.getMimeFromFileName("book.azw3"));
+		assertEquals(MimeUtils.MIME_AZW, MimeDetector.getMimeFromFileName("book.azw"));
+		assertEquals(MimeUtils.MIME_DOC, MimeDetector.getMimeFromFileName("book.doc"));
+		assertEquals(MimeUtils.MIME_DOCX, MimeDetector.getMimeFromFileName("book.docx"));
+		assertNull(MimeDetector.getMimeFromFileName("/home/user.epub/book"));
+		assertNull(MimeDetector.getMimeFromFileName("book_epub"));
+		assertNull(MimeDetector.getMimeFromFileName("book."));
+		assertNull(MimeDetector.getMimeFromFileName(null));
+	}
+
+	public void testMimeFromHeader() throws Exception {
+		assertEquals(MimeUtils.MIME_PDF, getMime("%PDF-1.4\n".getBytes("US-ASCII")));
+		assertEquals(MimeUtils.MIME_JPEG, getMime(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+		assertEquals(MimeUtils.MIME_RTF, getMime("{\\rtf1\\ansi".getBytes("US-ASCII")));
+		assertEquals(MimeUtils.MIME_DJVU, getMime("AT&TFORM\0\0\0\0DJVU".getBytes("US-ASCII")));
+		assertEquals(MimeUtils.MIME_FB2, getMime("<?xml version=\"1.0\"?>\n<FictionBook xmlns=\"http://www.gribuser.ru/xml/fictionbook/2.0\">".getBytes("UTF-8")));
+		assertEquals(MimeUtils.MIME_HTML, getMime("\n  <!DOCTYPE html><html></html>".getBytes("UTF-8")));
+		assertEquals(MimeUtils.MIME_XML, getMime("\uFEFF<?xml version=\"1.0\"?><root/>".getBytes("UTF-8")));
+		assertEquals(MimeUtils.MIME_EPUB, getMime(createZip("mimetype", MimeUtils.MIME_EPUB)));
+		assertNull(getMime(createZip("image.jpg", "no comic book detection by content")));
+		assertNull(getMime("plain text".getBytes("US-ASCII")));
+		assertNull(getMime(new byte[] {1, 2}));
+
+		byte[] mobi = new byte[100];
+		System.arraycopy("BOOKMOBI".getBytes("US-ASCII"), 0, mobi, 60, 8);
+		assertEquals(MimeUtils.MIME_MOBI, getMime(mobi));
+	}
+
+	public void testCachedForModification() throws Exception {
+		File file = File.createTempFile("mimedetector", ".tmp");
+		try {
+			FileUtils.writeStringToFile(file, "%PDF-1.4", "US-ASCII");
+			assertEquals(MimeUtils.MIME_PDF, ResourceHandlerUtils.guessFormat(ResourceHandlerFactory.getResourceHandler(file)));
+
+			FileUtils.writeStringToFile(file, "{\\rtf1\\ansi", "US-ASCII");
+			assertEquals(MimeUtils.MIME_RTF, ResourceHandlerUtils.guessFormat(ResourceHandlerFactory.getResourceHandler(file)));
+
+			FileUtils.writeStringToFile(file, "no format", "US-ASCII");
+			assertNull(ResourceHandlerUtils.guessFormat(ResourceHandlerFactory.getResourceHandler(file)));
+			assertNull(ResourceHandlerUtils.guessFormat(ResourceHandlerFactory.getResourceHandler(file)));
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static String getMime(byte[] content) {
+		byte[] header = new byte[MimeDetector.HEADER_LENGTH];
+		int length = Math.min(content.length, header.length);
+		System.arraycopy(content, 0, header, 0, length);
+		return MimeDetector.getMimeFromHeader(header, length);
+	}
+
+	private static byte[] createZip(String firstEntry, String content) throws Exception {
+		byte[] data = content.getBytes("US-ASCII");
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (ZipOutputStream out = new ZipOutputStream(result)) {
+			ZipEntry entry = new ZipEntry(firstEntry);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(data.length);
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			entry.setCrc(crc.getValue());
+			out.putNextEntry(entry);
+			out.write(data);
+			out.closeEntry();
+		}
+		return result.toByteArray();
+	}
+}
@@ -0,0 +1,233 @@
+package org.rr.commons.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.rr.commons.utils.ThreadUtils.LoopFuture;
+import org.rr.commons.utils.ThreadUtils.RunnableImpl;
+
+import junit.framework.TestCase;
+
+public class ThreadUtilsTest extends TestCase {
+
+	public void testResultOrderWithDuplicates() {
+		List<Integer> values = Arrays.asList(3, 1, 3, 2, 1, 3);
+		List<Integer> results = ThreadUtils.loopAndWait(values, new RunnableImpl<Integer, Integer>() {
+
+			@Override
+			public Integer run(Integer entry) {
+				sleep(entry.intValue() * 10);
+				return Integer.valueOf(entry.intValue() * 2);
+			}
+		}, 3);
+		assertEquals(Arrays.asList(6, 2, 6, 4, 2, 6), results);
+	}
+
+	public void testFailingEntry() {
+		List<String> results = ThreadUtils.loopAndWait(Arrays.asList("a", null, "c"), new RunnableImpl<String, String>() {
+
+			@Override
+			public String run(String entry) {
+				return entry.toUpperCase();
+			}
+		}, 2);
+		assertEquals(Arrays.asList("A", null, "C"), results);
+		assertTrue(ThreadUtils.loopAndWait(Collections.<String>emptyList(), null, 2).isEmpty());
+	}
+
+	public void testTimeoutAndCancel() throws Exception {
+		final AtomicInteger processed = new AtomicInteger();
+		LoopFuture<Void> future = ThreadUtils.loop(Collections.nCopies(100, "entry"), new RunnableImpl<String, Void>() {
+
+			@Override
+			public Void run(String entry) {
+				sleep(50);
+				processed.incrementAndGet();
+				return null;
+			}
+		}, 2);
+
+		try {
+			future.get(100, TimeUnit.MILLISECONDS);
+			fail();
+		} catch(TimeoutException e) {
+		}
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		try {
+			future.get();
+			fail();
+		} catch(CancellationException e) {
+		}
+
+		sleep(200);
+		int processedAfterCancel = processed.get();
+		sleep(200);
+		assertEquals(processedAfterCancel, processed.get());
+		assertTrue(processedAfterCancel < 100);
+	}
+
+	public void testGetAfterCancel() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final LoopFuture<Void> future = ThreadUtils.loop(Collections.nCopies(10, "entry"), new RunnableImpl<String, Void>() {
+
+			@Override
+			public Void run(String entry) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return null;
+			}
+		}, 4);
+
+		// a get waiting for the running workers returns as soon as the loop gets cancelled.
+		final AtomicReference<Exception> waitingResult = new AtomicReference<>();
+		Thread waiting = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					future.get();
+				} catch (Exception e) {
+					waitingResult.set(e);
+				}
+			}
+		};
+		waiting.start();
+		sleep(100);
+
+		assertTrue(future.cancel(false));
+		try {
+			future.get();
+			fail();
+		} catch(CancellationException e) {
+		}
+		try {
+			future.get(1, TimeUnit.MINUTES);
+			fail();
+		} catch(CancellationException e) {
+		}
+		waiting.join(10000);
+		assertTrue(waitingResult.get() instanceof CancellationException);
+		release.countDown();
+	}
+
+	/**
+	 * Compares the former implementation which started one thread for each entry and polled for free slots with the pool.
+	 */
+	public void testBenchmark() {
+		RunnableImpl<Integer, Integer> cpu = new RunnableImpl<Integer, Integer>() {
+
+			@Override
+			public Integer run(Integer entry) {
+				int result = entry.intValue();
+				for(int i = 0; i < 200000; i++) {
+					result = result * 31 + i;
+				}
+				return Integer.valueOf(result);
+			}
+		};
+		RunnableImpl<Integer, Integer> io = new RunnableImpl<Integer, Integer>() {
+
+			@Override
+			public Integer run(Integer entry) {
+				sleep(20);
+				return entry;
+			}
+		};
+
+		List<Integer> entries = new ArrayList<>();
+		for(int i = 0; i < 200; i++) {
+			entries.add(Integer.valueOf(i));
+		}
+		ThreadUtils.loopAndWait(entries, cpu, 4);
+
+		for(RunnableImpl<Integer, Integer> each : Arrays.asList(cpu, io)) {
+			long start = System.currentTimeMillis();
+			List<Integer> legacyResults = legacyLoop(entries, each, 8);
+			long legacyTime = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			List<Integer> results = ThreadUtils.loopAndWait(entries, each, 8);
+			long time = System.currentTimeMillis() - start;
+
+			assertEquals(legacyResults, results);
+			System.out.println((each == cpu ? "CPU" : "IO") + " loop over " + entries.size() + " entries with 8 threads: former " + legacyTime
+					+ "ms, pool " + time + "ms");
+		}
+	}
+
+	/**
+	 * The former implementation of {@link ThreadUtils#loopAndWait(List, RunnableImpl, int)}.
+	 */
+	private static <S, T> List<T> legacyLoop(final List<S> l, final RunnableImpl<S, T> each, int maxThreads) {
+		final Thread[] slots = new Thread[maxThreads];
+		final List<T> results = Collections.synchronizedList(new ArrayList<T>(l.size()));
+		final List<S> working = Collections.synchronizedList(new ArrayList<S>(l));
+		while(!working.isEmpty()) {
+			synchronized(slots) {
+				boolean emptySlotFound = false;
+				for(int i = 0; i < slots.length; i++) {
+					final int slot = i;
+					if(slots[slot] == null) {
+						slots[slot] = new Thread(new Runnable() {
+
+							@Override
+							public void run() {
+								S entry = null;
+								try {
+									entry = working.remove(0);
+								} catch(IndexOutOfBoundsException e) {
+								}
+
+								if(entry != null) {
+									int index = l.indexOf(entry);
+									ListUtils.set(results, each.run(entry), index);
+								}
+								slots[slot] = null;
+							}
+						});
+						slots[slot].start();
+						emptySlotFound = true;
+					} else {
+						emptySlotFound = false;
+					}
+				}
+
+				if(!emptySlotFound && !working.isEmpty()) {
+					sleep(100);
+				}
+			}
+		}
+
+		boolean running = true;
+		while(running) {
+			running = false;
+			for(Thread slot : slots) {
+				running |= slot != null;
+			}
+			if(running) {
+				sleep(100);
+			}
+		}
+		return results;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -12,6 +12,7 @@ import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.mufs.ResourceHandlerFactory;
 import org.rr.commons.utils.ReflectionUtils;
 import org.rr.commons.utils.compression.CompressedDataEntry;
+import org.rr.commons.utils.compression.rar.RarSession;
 import org.rr.commons.utils.compression.rar.RarUtils;
 
 public class RarUtilsTest extends TestCase {
@@ -46,4 +47,43 @@ public class RarUtilsTest extends TestCase {
 		} catch (IOException e) {
 		}
 	}
+
+	public void testSession() throws IOException {
+		String file = FileUtils.getTempDirectory() + File.separator + "session.rar";
+		IResourceHandler rarFileHandler = ResourceHandlerFactory.getResourceHandler(file);
+		for(int i=0; i<50; i++) {
+			RarUtils.add(rarFileHandler, "pages/page "+i+".jpg", new ByteArrayInputStream(("page" + i).getBytes()));
+		}
+		
+		try (RarSession session = RarSession.open(rarFileHandler)) {
+			assertEquals("page7", new String(session.read("pages/page 7.jpg")));
+		}
+
+		try (RarSession session = RarSession.open(rarFileHandler)) {
+			List<String> list = session.list();
+			assertEquals(50, list.size());
+			assertEquals(list, RarUtils.list(rarFileHandler));
+			
+			long start = System.currentTimeMillis();
+			assertEquals(50, session.extract(null).size());
+			for(String entry : list) {
+				assertEquals("page" + entry.substring(11, entry.indexOf('.')), new String(session.read(entry)));
+			}
+			System.out.println("Session read " + list.size() + " entries in " + (System.currentTimeMillis() - start) + "ms");
+			
+			start = System.currentTimeMillis();
+			for(String entry : list) {
+				RarUtils.extract(rarFileHandler, entry).getBytes();
+			}
+			System.out.println("Single reads of " + list.size() + " entries in " + (System.currentTimeMillis() - start) + "ms");
+			
+			try {
+				session.read("missing.jpg");
+				fail();
+			} catch(IOException e) {
+			}
+		} finally {
+			rarFileHandler.delete();
+		}
+	}
 }
@@ -0,0 +1,238 @@
+package org.rr.commons.utils.zip;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.mufs.ResourceHandlerFactory;
+import org.rr.commons.utils.compression.CompressedDataEntry;
+import org.rr.commons.utils.compression.FileEntryFilter;
+import org.rr.commons.utils.compression.zip.ZipFileReader;
+import org.rr.commons.utils.compression.zip.ZipUtils;
+
+import junit.framework.TestCase;
+
+public class ZipFileReaderTest extends TestCase {
+
+	/** System property which enables the benchmarks. They create epubs with about 40MB of chapters each. */
+	private static final String BENCHMARK_PROPERTY = "jeboorker.benchmark";
+
+	private static final String COMMENT = "Test epub";
+
+	private static final String CONTAINER_XML = "<container><rootfiles><rootfile full-path=\"OEBPS/content.opf\"/></rootfiles></container>";
+
+	public void testRead() throws Exception {
+		File file = createEpub(10, 1000);
+		try {
+			try (ZipFileReader reader = ZipFileReader.open(file)) {
+				assertEquals(Arrays.asList("mimetype", "META-INF/", "META-INF/container.xml", "OEBPS/content.opf"), reader.list().subList(0, 4));
+				assertEquals("application/epub+zip", new String(reader.read("mimetype")));
+				assertEquals(CONTAINER_XML, new String(reader.read("META-INF/container.xml")));
+				assertTrue(Arrays.equals(createContent(7, 1000), reader.read("OEBPS/chapter7.html")));
+				assertNull(reader.read("OEBPS/missing.html"));
+			}
+
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			CompressedDataEntry entry = ZipUtils.extract(resource, "OEBPS/content.opf");
+			assertEquals("OEBPS/content.opf", entry.path);
+			assertTrue(new String(entry.getBytes()).startsWith("<package"));
+			assertNull(ZipUtils.extract(resource, "missing"));
+
+			List<CompressedDataEntry> html = ZipUtils.extract(resource, new FileEntryFilter() {
+
+				@Override
+				public boolean accept(String entry, byte[] rawEntry) {
+					return entry.endsWith(".html");
+				}
+			});
+			assertEquals(10, html.size());
+			assertTrue(Arrays.equals(createContent(3, 1000), html.get(3).getBytes()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testModifiedFile() throws Exception {
+		File file = createEpub(2, 100);
+		try {
+			try (ZipFileReader reader = ZipFileReader.open(file)) {
+				assertNull(reader.read("OEBPS/chapter5.html"));
+			}
+			createEpub(file, 6, 100);
+			try (ZipFileReader reader = ZipFileReader.open(file)) {
+				assertTrue(Arrays.equals(createContent(5, 100), reader.read("OEBPS/chapter5.html")));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testInvalidFile() throws Exception {
+		File file = File.createTempFile("zipfilereader", ".epub");
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(createContent(1, 1000));
+		}
+		try {
+			ZipFileReader.open(file).close();
+			fail();
+		} catch(IOException e) {
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testRewrite() throws Exception {
+		File file = createEpub(20, 1000);
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			String opf = "<package><metadata><dc:title>Changed</dc:title></metadata></package>";
+			assertTrue(ZipUtils.add(resource, new CompressedDataEntry("OEBPS/content.opf", null, opf.getBytes()), false));
+			assertTrue(ZipUtils.add(resource, new CompressedDataEntry("OEBPS/cover\u00e4.jpg", null, createContent(99, 500)), true));
+
+			try (ZipFileReader reader = ZipFileReader.open(file)) {
+				List<String> entries = reader.list();
+				assertEquals(25, entries.size());
+				assertEquals("mimetype", entries.get(0));
+				assertEquals("OEBPS/content.opf", entries.get(3));
+				assertEquals("OEBPS/cover\u00e4.jpg", entries.get(24));
+				assertEquals(opf, new String(reader.read("OEBPS/content.opf")));
+			}
+
+			try (ZipFile zipFile = new ZipFile(file)) {
+				assertEquals(COMMENT, zipFile.getComment());
+				assertEquals(ZipEntry.STORED, zipFile.getEntry("mimetype").getMethod());
+				assertEquals(ZipEntry.STORED, zipFile.getEntry("OEBPS/cover\u00e4.jpg").getMethod());
+				assertEquals(opf, new String(IOUtils.toByteArray(zipFile.getInputStream(zipFile.getEntry("OEBPS/content.opf")))));
+				assertTrue(Arrays.equals(createContent(99, 500), IOUtils.toByteArray(zipFile.getInputStream(zipFile.getEntry("OEBPS/cover\u00e4.jpg")))));
+				assertTrue(Arrays.equals(createContent(17, 1000), IOUtils.toByteArray(zipFile.getInputStream(zipFile.getEntry("OEBPS/chapter17.html")))));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Compares replacing the opf file of a large epub by recompressing all entries and by copying the
+	 * compressed entries.
+	 */
+	public void testRewriteBenchmark() throws Exception {
+		if(!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+			return;
+		}
+		File file = createEpub(400, 100 * 1024);
+		File copy = File.createTempFile("zipfilereader", ".epub");
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			byte[] opf = "<package><metadata><dc:title>Changed</dc:title></metadata></package>".getBytes();
+			int runs = 3;
+
+			long start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				try (FileInputStream in = new FileInputStream(file); FileOutputStream out = new FileOutputStream(copy)) {
+					ZipUtils.add(in, out, new CompressedDataEntry("OEBPS/content.opf", null, opf));
+				}
+			}
+			long recompressTime = (System.nanoTime() - start) / 1000000 / runs;
+
+			start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				assertTrue(ZipUtils.add(resource, new CompressedDataEntry("OEBPS/content.opf", null, opf), false));
+			}
+			long rewriteTime = (System.nanoTime() - start) / 1000000 / runs;
+
+			System.out.println("Metadata change of a " + (file.length() / 1024 / 1024) + "MB epub: recompressed " + recompressTime + "ms, rewritten " + rewriteTime + "ms");
+		} finally {
+			file.delete();
+			copy.delete();
+		}
+	}
+
+	/**
+	 * Compares reading the metadata files of a large epub with the sequential zip stream
+	 * and the central directory.
+	 */
+	public void testMetadataReadBenchmark() throws Exception {
+		if(!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+			return;
+		}
+		File file = createEpub(400, 100 * 1024);
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			int runs = 10;
+
+			long start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				try (java.io.InputStream in = resource.getContentInputStream()) {
+					ZipUtils.extract(in, "META-INF/container.xml");
+				}
+				try (java.io.InputStream in = resource.getContentInputStream()) {
+					ZipUtils.extract(in, "OEBPS/content.opf");
+				}
+			}
+			long sequentialTime = (System.nanoTime() - start) / 1000 / runs;
+
+			start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				ZipUtils.extract(resource, "META-INF/container.xml");
+				ZipUtils.extract(resource, "OEBPS/content.opf");
+			}
+			long randomAccessTime = (System.nanoTime() - start) / 1000 / runs;
+
+			System.out.println("Metadata of a " + (file.length() / 1024 / 1024) + "MB epub: sequential " + sequentialTime + "us, central directory " + randomAccessTime + "us");
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static File createEpub(int chapters, int chapterSize) throws IOException {
+		File file = File.createTempFile("zipfilereader", ".epub");
+		createEpub(file, chapters, chapterSize);
+		return file;
+	}
+
+	private static void createEpub(File file, int chapters, int chapterSize) throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+			out.setComment(COMMENT);
+			byte[] mimetype = "application/epub+zip".getBytes();
+			ZipEntry entry = new ZipEntry("mimetype");
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(mimetype.length);
+			CRC32 crc = new CRC32();
+			crc.update(mimetype);
+			entry.setCrc(crc.getValue());
+			out.putNextEntry(entry);
+			out.write(mimetype);
+
+			out.putNextEntry(new ZipEntry("META-INF/"));
+			out.putNextEntry(new ZipEntry("META-INF/container.xml"));
+			out.write(CONTAINER_XML.getBytes());
+			out.putNextEntry(new ZipEntry("OEBPS/content.opf"));
+			out.write("<package><metadata><dc:title>Test</dc:title></metadata></package>".getBytes());
+			for(int i = 0; i < chapters; i++) {
+				out.putNextEntry(new ZipEntry("OEBPS/chapter" + i + ".html"));
+				out.write(createContent(i, chapterSize));
+			}
+		}
+		// make sure the modification date changes even if the file is rewritten within the same second.
+		file.setLastModified(file.lastModified() + chapters * 1000);
+	}
+
+	private static byte[] createContent(int seed, int size) {
+		byte[] data = new byte[size];
+		Random random = new Random(seed);
+		for(int i = 0; i < size; i++) {
+			data[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return data;
+	}
+}
@@ -0,0 +1,80 @@
+package org.rr.pm.image;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.UUID;
+
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.mufs.MimeUtils;
+import org.rr.commons.mufs.ResourceHandlerFactory;
+
+import junit.framework.TestCase;
+
+public class ImageUtilsTest extends TestCase {
+
+	private static final int THUMBNAIL_HEIGHT = 100;
+
+	public void testSubsampledDecode() {
+		IResourceHandler cover = createCover(1500, 2000);
+		BufferedImage image = ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG, THUMBNAIL_HEIGHT * 2);
+		assertTrue(image.getHeight() >= THUMBNAIL_HEIGHT * 2);
+		assertTrue(image.getHeight() < THUMBNAIL_HEIGHT * 4);
+		assertEquals(1500 / (2000 / (THUMBNAIL_HEIGHT * 2)), image.getWidth());
+
+		// smaller images are not subsampled
+		image = ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG, 3000);
+		assertEquals(2000, image.getHeight());
+		image = ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG, 0);
+		assertEquals(2000, image.getHeight());
+	}
+
+	public void testUndecodableImage() {
+		IResourceHandler resource = ResourceHandlerFactory.getVirtualResourceHandler(UUID.randomUUID().toString(), new byte[] {1, 2, 3, 4});
+		assertNull(ImageUtils.decodeImage(resource, MimeUtils.MIME_JPEG, THUMBNAIL_HEIGHT));
+	}
+
+	/**
+	 * Compares the thumbnail creation from a large comic cover by decoding the full sized image with
+	 * the subsampled decoding.
+	 */
+	public void testThumbnailBenchmark() {
+		IResourceHandler cover = createCover(3000, 4000);
+		int runs = 5;
+
+		// warm up
+		ImageUtils.scaleToHeight(ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG), THUMBNAIL_HEIGHT);
+		ImageUtils.scaleToHeight(ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG, THUMBNAIL_HEIGHT * 2), THUMBNAIL_HEIGHT);
+
+		long start = System.nanoTime();
+		for(int i = 0; i < runs; i++) {
+			BufferedImage thumbnail = ImageUtils.scaleToHeight(ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG), THUMBNAIL_HEIGHT);
+			assertEquals(THUMBNAIL_HEIGHT, thumbnail.getHeight());
+		}
+		long fullTime = (System.nanoTime() - start) / 1000000 / runs;
+
+		start = System.nanoTime();
+		for(int i = 0; i < runs; i++) {
+			BufferedImage thumbnail = ImageUtils.scaleToHeight(ImageUtils.decodeImage(cover, MimeUtils.MIME_JPEG, THUMBNAIL_HEIGHT * 2), THUMBNAIL_HEIGHT);
+			assertEquals(THUMBNAIL_HEIGHT, thumbnail.getHeight());
+		}
+		long subsampledTime = (System.nanoTime() - start) / 1000000 / runs;
+
+		System.out.println("Thumbnail of a 3000x4000 cover: full decode " + fullTime + "ms, subsampled decode " + subsampledTime + "ms");
+	}
+
+	private static IResourceHandler createCover(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+		g.fillRect(0, 0, width, height);
+		g.setColor(Color.WHITE);
+		for(int i = 0; i < height; i += 40) {
+			g.drawLine(0, i, width, height - i);
+		}
+		g.dispose();
+		byte[] data = ImageUtils.getImageBytes(image, MimeUtils.MIME_JPEG);
+		return ResourceHandlerFactory.getVirtualResourceHandler(UUID.randomUUID().toString(), data);
+	}
+}
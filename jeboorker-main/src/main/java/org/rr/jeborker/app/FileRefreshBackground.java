@@ -1,21 +1,21 @@
 package org.rr.jeborker.app;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
+import org.rr.commons.collection.LRUCacheMap;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.mufs.ResourceHandlerFactory;
 import org.rr.commons.utils.DateUtils;
-import org.rr.commons.utils.ReflectionUtils;
 import org.rr.commons.utils.UtilConstants;
 import org.rr.jeborker.Jeboorker;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
@@ -25,11 +25,38 @@ import org.rr.jeborker.gui.action.ActionFactory;
 import org.rr.jeborker.gui.action.ActionUtils;
 import org.rr.jeborker.gui.action.ApplicationAction;
 
+/**
+ * Tests the ebook files added with {@link #addEbook(EbookPropertyItem)} in the background if they have been
+ * changed or deleted and refreshes the catalog if needed. The items are queued with a priority and each
+ * file is queued only once at a time. A small pool of workers takes the items from the queue as soon as
+ * they are added. Adding items never blocks, so it can be done from the event dispatch thread.
+ */
 public class FileRefreshBackground {
 
+	public static enum PRIORITY {
+		/** Items which are currently shown to the user. */
+		HIGH,
+		/** Items which are not shown, for example files changed in the file system. */
+		LOW
+	}
+
+	private static final int WORKER_COUNT = 2;
+
+	/** Time in milliseconds a file is not tested again after it has been tested with high priority. */
+	private static final long RECHECK_INTERVAL = 1000;
+
 	private static FileRefreshBackground singleton;
 
-	private static final Set<EbookPropertyItem> items = Collections.synchronizedSet(new HashSet<EbookPropertyItem>());
+	private static final PriorityBlockingQueue<QueueEntry> queue = new PriorityBlockingQueue<>();
+
+	/** The queued or currently processed entry for each file. */
+	private static final ConcurrentHashMap<String, QueueEntry> pending = new ConcurrentHashMap<>();
+
+	private static final Map<String, Long> recentlyChecked = Collections.synchronizedMap(new LRUCacheMap<String, Long>(256));
+
+	private static final AtomicLong sequence = new AtomicLong();
+
+	private static final Object disabledLock = new Object();
 
 	private static int isDisabled = 0;
 	
@@ -39,27 +66,58 @@ public class FileRefreshBackground {
 	public static synchronized FileRefreshBackground getInstance() {
 		if (singleton == null) {
 			singleton = new FileRefreshBackground();
-			Jeboorker.APPLICATION_THREAD_POOL.submit(new Worker());
+			for(int i = 0; i < WORKER_COUNT; i++) {
+				Jeboorker.APPLICATION_THREAD_POOL.submit(new Worker());
+			}
 		}
 		return singleton;
 	}
 
+	/**
+	 * Adds the given item with {@link PRIORITY#HIGH} because it's shown to the user.
+	 */
 	public void addEbook(EbookPropertyItem item) {
-		if(isDisabled == 0) {
-			synchronized (items) {
-				items.add(item);
+		addEbook(item, PRIORITY.HIGH);
+	}
+	
+	/**
+	 * Adds the given item to be tested for changes. If the item is already queued with a lower
+	 * priority, it's priority gets raised.
+	 * @param item The item to be tested.
+	 * @param priority The priority for the item.
+	 */
+	public void addEbook(EbookPropertyItem item, PRIORITY priority) {
+		if(!isDisabled() && item != null && item.getFile() != null) {
+			final String file = item.getFile();
+			if(priority == PRIORITY.HIGH && isRecentlyChecked(file)) {
+				return;
+			}
+			
+			final QueueEntry entry = new QueueEntry(item, priority, sequence.incrementAndGet());
+			final QueueEntry queued = pending.putIfAbsent(file, entry);
+			if(queued == null) {
+				queue.offer(entry);
+			} else if(!queued.running && queued.priority.compareTo(priority) > 0 && pending.replace(file, queued, entry)) {
+				// the old entry is skipped by the worker because it's no longer pending.
+				queue.offer(entry);
 			}
 		}
 	}
 	
+	/**
+	 * Adds the given items with {@link PRIORITY#LOW} because they are not shown to the user.
+	 */
 	public void addEbooks(List<EbookPropertyItem> changedResources) {
-		if(isDisabled == 0 && !changedResources.isEmpty()) {
-			synchronized (items) {
-				items.addAll(changedResources);
-			}
+		for(EbookPropertyItem item : changedResources) {
+			addEbook(item, PRIORITY.LOW);
 		}
 	}
 	
+	private static boolean isRecentlyChecked(String file) {
+		final Long checkedAt = recentlyChecked.get(file);
+		return checkedAt != null && System.currentTimeMillis() - checkedAt.longValue() < RECHECK_INTERVAL;
+	}
+	
 	/**
 	 * Disabled the {@link FileRefreshBackground}. The {@link #addEbook(EbookPropertyItem)} method
 	 * did no longer add books if the {@link FileRefreshBackground} is set to disabled.
@@ -67,10 +125,13 @@ public class FileRefreshBackground {
 	 *  to enable it.
 	 */
 	public static void setDisabled(boolean disabled) {
-		if(disabled) {
-			isDisabled ++;
-		} else {
-			isDisabled --;
+		synchronized(disabledLock) {
+			if(disabled) {
+				isDisabled ++;
+			} else {
+				isDisabled --;
+				disabledLock.notifyAll();
+			}
 		}
 	}
 	
@@ -91,7 +152,46 @@ public class FileRefreshBackground {
 	 * Tells if the background refresh is currently disabled or not.
 	 */
 	public static boolean isDisabled() {
-		return isDisabled != 0;
+		synchronized(disabledLock) {
+			return isDisabled != 0;
+		}
+	}
+	
+	/**
+	 * Blocks until the background refresh is no longer disabled.
+	 */
+	private static void awaitEnabled() throws InterruptedException {
+		synchronized(disabledLock) {
+			while(isDisabled != 0) {
+				disabledLock.wait();
+			}
+		}
+	}
+
+	private static class QueueEntry implements Comparable<QueueEntry> {
+
+		private final EbookPropertyItem item;
+
+		private final PRIORITY priority;
+
+		private final long sequence;
+
+		private volatile boolean running = false;
+
+		QueueEntry(EbookPropertyItem item, PRIORITY priority, long sequence) {
+			this.item = item;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(QueueEntry o) {
+			int result = priority.compareTo(o.priority);
+			if(result == 0) {
+				result = sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+			}
+			return result;
+		}
 	}
 
 	private static class Worker implements Runnable {
@@ -99,29 +199,33 @@ public class FileRefreshBackground {
 		@Override
 		public void run() {
 			while (true) {
-				while (!items.isEmpty() && isDisabled == 0) {
-					EbookPropertyItem ebookPropertyItem = null;
-					try {
-						synchronized (items) {
-							List<EbookPropertyItem> processedItems = new ArrayList<>();
-							Iterator<EbookPropertyItem> itemsIter = items.iterator();
-							while(itemsIter.hasNext()) {
-								ebookPropertyItem = itemsIter.next();
-								if(ebookPropertyItem != null) {
-									this.processItem(ebookPropertyItem);
-									processedItems.add(ebookPropertyItem);
-								}
-							}
-							items.removeAll(processedItems);
-							items.remove(null);
+				QueueEntry entry = null;
+				try {
+					entry = queue.take();
+					if(pending.get(entry.item.getFile()) != entry) {
+						// replaced by an entry with a higher priority
+						continue;
+					}
+					
+					awaitEnabled();
+					entry.running = true;
+					this.processItem(entry.item);
+				} catch(InterruptedException e) {
+					// the pool is shutting down, keep the interrupt for it.
+					Thread.currentThread().interrupt();
+					LoggerFactory.log(Level.WARNING, this, "Background refresh has been interrupted", e);
+					return;
+				} catch(Exception e) {
+					LoggerFactory.log(Level.WARNING, this, "Failed to handle " + entry.item + " in background process", e);
+				} finally {
+					if(entry != null) {
+						if(entry.running) {
+							recentlyChecked.put(entry.item.getFile(), System.currentTimeMillis());
 						}
-					} catch(Exception e) {
-						LoggerFactory.log(Level.WARNING, this, "Failed to handle " + ebookPropertyItem + " in background process", e);
+						// only removes the entry if it's not replaced, so the file could be queued again.
+						pending.remove(entry.item.getFile(), entry);
 					}
 				}
-				
-				// wait a moment before restart
-				ReflectionUtils.sleepSilent(1000);
 			}
 		}
 
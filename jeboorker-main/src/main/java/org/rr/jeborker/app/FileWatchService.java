@@ -3,21 +3,31 @@ package org.rr.jeborker.app;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import javax.swing.SwingUtilities;
@@ -25,20 +35,30 @@ import javax.swing.SwingUtilities;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.mufs.ResourceHandlerFactory;
-import org.rr.commons.utils.ReflectionUtils;
 import org.rr.jeborker.Jeboorker;
+import org.rr.jeborker.app.preferences.APreferenceStore;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
+import org.rr.jeborker.db.DBWriteBuffer;
 import org.rr.jeborker.db.DefaultDBManager;
 import org.rr.jeborker.db.item.EbookPropertyItem;
 import org.rr.jeborker.db.item.EbookPropertyItemUtils;
 import org.rr.jeborker.gui.MainController;
 import org.rr.jeborker.gui.action.ActionUtils;
+import org.rr.jeborker.metadata.MetadataCache;
 
 public class FileWatchService {
 
 	private static WatchService watchService;
 
-	private static final HashMap<String, WatchKey> items = new HashMap<String, WatchKey>();
+	/** Preference key for the time in milliseconds without any file change until the collected changes are processed. */
+	private static final String DEBOUNCE_WINDOW_KEY = "fileWatchDebounceWindow";
+
+	private static final long DEFAULT_DEBOUNCE_WINDOW = 1000;
+
+	/** Changes are processed after this number of debounce windows even if the files are still changing. */
+	private static final int MAX_DEBOUNCE_WINDOWS = 10;
+
+	private static final ConcurrentHashMap<String, WatchKey> items = new ConcurrentHashMap<String, WatchKey>();
 
 	static {
 		try {
@@ -116,32 +136,35 @@ public class FileWatchService {
 		public void run() {
 	        while (true) {
 	        	try {
-	        		WatchKey watchKey = watchService.take();
+	        		final Map<Path, Kind<?>> changes = collectChanges(watchService.take());
+	        		if(changes.isEmpty()) {
+	        			continue;
+	        		}
 
 	        		final List<EbookPropertyItem> changedEbooks = new ArrayList<>();
 	        		final List<IResourceHandler> addedResources = new ArrayList<>();
-		            for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
-		            	if(!FileRefreshBackground.isDisabled()) {
-			            	final Path fullPath = ((Path)watchKey.watchable()).resolve((Path)watchEvent.context());
-			            	final IResourceHandler resourceHandler = ResourceHandlerFactory.getResourceHandler(fullPath.toFile());
-	            			final List<EbookPropertyItem> ebookPropertyItemByResource = EbookPropertyItemUtils.getEbookPropertyItemByResource(resourceHandler);
-
-	            			if(ebookPropertyItemByResource.isEmpty() && watchEvent.kind() == ENTRY_CREATE) {
-	            				addedResources.add(resourceHandler);
-	            			} else if(watchEvent.kind() == ENTRY_DELETE || watchEvent.kind() == ENTRY_MODIFY) {
-	            				changedEbooks.addAll(ebookPropertyItemByResource);
-	            			}
-		            	}
-		            }
-		            watchKey.reset();
+	        		final Map<String, EbookPropertyItem> knownEbooks = EbookPropertyItemUtils.getEbookPropertyItemsByFile(toFileNames(changes.keySet()));
+	        		for (Map.Entry<Path, Kind<?>> change : changes.entrySet()) {
+	        			final Path fullPath = change.getKey();
+	        			MetadataCache.getInstance().remove(fullPath.toString());
+	        			final EbookPropertyItem item = knownEbooks.get(fullPath.toString());
+	        			if(item != null) {
+	        				changedEbooks.add(item);
+	        			} else if(change.getValue() == ENTRY_DELETE) {
+	        				removeWatchPath(fullPath.toString());
+	        			} else if(Files.isDirectory(fullPath)) {
+	        				if(change.getValue() == ENTRY_CREATE) {
+	        					addedResources.addAll(registerNewFolder(fullPath));
+	        				}
+	        			} else {
+	        				addedResources.add(ResourceHandlerFactory.getResourceHandler(fullPath.toFile()));
+	        			}
+	        		}
 
 					FileRefreshBackground.runWithDisabledRefresh(new Runnable() {
 
 						@Override
 						public void run() {
-							//seems the file may be not ready to read, wait...
-							ReflectionUtils.sleepSilent(500);
-
 				            transferDeleteAndRefresh(changedEbooks);
 				            transferNewEbookFiles(addedResources);
 						}
@@ -152,19 +175,106 @@ public class FileWatchService {
 	        }
 		}
 
+		/**
+		 * Collects the events of the given and all following {@link WatchKey}s until no further event
+		 * occurs for the debounce window. Multiple events for the same path are merged into one.
+		 * @return The merged event kind for each changed path.
+		 */
+		private Map<Path, Kind<?>> collectChanges(WatchKey watchKey) throws InterruptedException {
+			final long debounceWindow = getDebounceWindow();
+			final long maxEnd = System.currentTimeMillis() + debounceWindow * MAX_DEBOUNCE_WINDOWS;
+			final Map<Path, Kind<?>> changes = new LinkedHashMap<>();
+			while(watchKey != null) {
+	            for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+	            	if(!FileRefreshBackground.isDisabled() && watchEvent.kind() != OVERFLOW) {
+		            	final Path fullPath = ((Path)watchKey.watchable()).resolve((Path)watchEvent.context());
+		            	mergeChange(changes, fullPath, watchEvent.kind());
+	            	}
+	            }
+	            watchKey.reset();
+
+	            final long wait = Math.min(debounceWindow, maxEnd - System.currentTimeMillis());
+	            watchKey = wait > 0 ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
+			}
+			return changes;
+		}
+
+		/**
+		 * Merges the given event kind with the one already collected for the path. For example a file
+		 * which is created and modified is still a created file and a file which is created and deleted
+		 * within the debounce window needs no processing at all.
+		 */
+		private void mergeChange(Map<Path, Kind<?>> changes, Path path, Kind<?> kind) {
+			final Kind<?> previous = changes.get(path);
+			if(previous == null || previous == kind) {
+				changes.put(path, kind);
+			} else if(previous == ENTRY_CREATE) {
+				if(kind == ENTRY_DELETE) {
+					changes.remove(path);
+				}
+			} else if(kind == ENTRY_DELETE) {
+				changes.put(path, ENTRY_DELETE);
+			} else {
+				// deleted and created again or modified
+				changes.put(path, ENTRY_MODIFY);
+			}
+		}
+
+		private long getDebounceWindow() {
+			return PreferenceStoreFactory.getPreferenceStore(PreferenceStoreFactory.DB_STORE).getGenericEntryAsNumber(DEBOUNCE_WINDOW_KEY,
+					DEFAULT_DEBOUNCE_WINDOW).longValue();
+		}
+
+		private List<String> toFileNames(Collection<Path> paths) {
+			final List<String> result = new ArrayList<>(paths.size());
+			for(Path path : paths) {
+				result.add(path.toString());
+			}
+			return result;
+		}
+
+		/**
+		 * Adds the given new folder and all it's sub folders to the watch service.
+		 * @return All files found in the new folder.
+		 */
+		private List<IResourceHandler> registerNewFolder(Path folder) throws IOException {
+			final List<IResourceHandler> files = new ArrayList<>();
+			Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					addWatchPath(dir.toString());
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					files.add(ResourceHandlerFactory.getResourceHandler(file.toFile()));
+					return FileVisitResult.CONTINUE;
+				}
+			});
+			return files;
+		}
+
 		private void transferNewEbookFiles(final List<IResourceHandler> addedResources) {
-			for (IResourceHandler resource : addedResources) {
-				if(EbookPropertyItemUtils.getEbookPropertyItemByResource(resource).isEmpty()) {
-					IResourceHandler basePathForFile = PreferenceStoreFactory.getPreferenceStore(PreferenceStoreFactory.DB_STORE).getBasePath().getBasePathForFile(resource);
+			final APreferenceStore preferenceStore = PreferenceStoreFactory.getPreferenceStore(PreferenceStoreFactory.DB_STORE);
+			final Set<IResourceHandler> changedBasePaths = new HashSet<>();
+			try (DBWriteBuffer writeBuffer = DefaultDBManager.getInstance().createWriteBuffer()) {
+				for (IResourceHandler resource : addedResources) {
+					IResourceHandler basePathForFile = preferenceStore.getBasePath().getBasePathForFile(resource);
 					if( basePathForFile != null && resource.exists() && ActionUtils.isSupportedEbookFormat(resource, true) ) {
 						final EbookPropertyItem item = EbookPropertyItemUtils.createEbookPropertyItem(resource, basePathForFile);
-						DefaultDBManager.getInstance().storeObject(item);
-						ActionUtils.addAndStoreEbookPropertyItem(item);
-						MainController.getController().getMainTreeHandler().refreshFileSystemTreeEntry(basePathForFile);
+						writeBuffer.add(item);
+						ActionUtils.addEbookPropertyItem(item, -1);
+						changedBasePaths.add(basePathForFile);
 						LoggerFactory.getLogger().log(Level.INFO, "add " + resource);
 					}
 				}
 			}
+
+			for(IResourceHandler basePath : changedBasePaths) {
+				MainController.getController().getMainTreeHandler().refreshFileSystemTreeEntry(basePath);
+			}
 		}
 
 		private void transferDeleteAndRefresh(final List<EbookPropertyItem> ebooks) {
@@ -193,10 +303,9 @@ public class FileWatchService {
 						DefaultDBManager.getInstance().updateObject(item);
 						LoggerFactory.getLogger().log(Level.INFO, "refresh " + resourceHandler);
 					}
-
-					FileRefreshBackground.getInstance().addEbooks(ebooks);
 				}
 			}
+			FileRefreshBackground.getInstance().addEbooks(ebooks);
 		}
 
 		private boolean isTimeLeft(EbookPropertyItem item, long time) {
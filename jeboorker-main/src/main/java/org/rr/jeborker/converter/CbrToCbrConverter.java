@@ -1,20 +1,35 @@
 package org.rr.jeborker.converter;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.compression.CompressedDataEntry;
-import org.rr.commons.utils.compression.FileEntryFilter;
+import org.rr.commons.utils.compression.rar.RarSession;
 import org.rr.commons.utils.compression.rar.RarUtils;
 import org.rr.jeborker.app.JeboorkerConstants;
 import org.rr.jeborker.app.JeboorkerConstants.SUPPORTED_MIMES;
 
 public class CbrToCbrConverter extends AArchiveToArchiveConverter {
 
+	private RarSession rarSession;
+
 	public CbrToCbrConverter(IResourceHandler cbrResource) {
 		super(cbrResource);
 	}
+
+	@Override
+	public IResourceHandler convert() throws IOException {
+		try {
+			return super.convert();
+		} finally {
+			if(rarSession != null) {
+				rarSession.close();
+				rarSession = null;
+			}
+		}
+	}
 	
 	@Override
 	protected String getTargetArchiveExtension() {
@@ -23,7 +38,8 @@ public class CbrToCbrConverter extends AArchiveToArchiveConverter {
 
 	@Override
 	protected List<CompressedDataEntry> extractArchive(IResourceHandler cbrResource) {
-		return RarUtils.extract(cbrResource, (FileEntryFilter) null);
+		rarSession = RarSession.open(cbrResource);
+		return rarSession.extract(null);
 	}
 
 	@Override
@@ -8,17 +8,30 @@ import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.compression.CompressedDataEntry;
-import org.rr.commons.utils.compression.FileEntryFilter;
-import org.rr.commons.utils.compression.rar.RarUtils;
+import org.rr.commons.utils.compression.rar.RarSession;
 import org.rr.commons.utils.compression.truezip.TrueZipUtils;
 import org.rr.jeborker.app.JeboorkerConstants;
 import org.rr.jeborker.app.JeboorkerConstants.SUPPORTED_MIMES;
 
 public class CbrToCbzConverter extends AArchiveToArchiveConverter {
 
+	private RarSession rarSession;
+
 	public CbrToCbzConverter(IResourceHandler cbrResource) {
 		super(cbrResource);
 	}
+
+	@Override
+	public IResourceHandler convert() throws IOException {
+		try {
+			return super.convert();
+		} finally {
+			if(rarSession != null) {
+				rarSession.close();
+				rarSession = null;
+			}
+		}
+	}
 	
 	@Override
 	protected String getTargetArchiveExtension() {
@@ -27,7 +40,8 @@ public class CbrToCbzConverter extends AArchiveToArchiveConverter {
 
 	@Override
 	protected List<CompressedDataEntry> extractArchive(IResourceHandler cbzResource) {
-		return RarUtils.extract(cbzResource, (FileEntryFilter) null);
+		rarSession = RarSession.open(cbzResource);
+		return rarSession.extract(null);
 	}
 
 	@Override
@@ -1,11 +1,14 @@
 package org.rr.jeborker.converter;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.rr.commons.mufs.IResourceHandler;
-import org.rr.commons.utils.compression.rar.LazyRarEntryStream;
-import org.rr.commons.utils.compression.rar.RarUtils;
+import org.rr.commons.utils.compression.CompressedDataEntry;
+import org.rr.commons.utils.compression.rar.RarSession;
 import org.rr.jeborker.app.JeboorkerConstants;
 import org.rr.jeborker.app.JeboorkerConstants.SUPPORTED_MIMES;
 
@@ -14,16 +17,45 @@ import org.rr.jeborker.app.JeboorkerConstants.SUPPORTED_MIMES;
  */
 class CbrToPdfConverter extends ACompressedImageToPdfConverter {
 
+	private RarSession rarSession;
+
 	public CbrToPdfConverter(IResourceHandler comicBookResource) {
 		super(comicBookResource);
 	}
+
+	@Override
+	public IResourceHandler convert() throws IOException {
+		try {
+			return super.convert();
+		} finally {
+			if(rarSession != null) {
+				rarSession.close();
+				rarSession = null;
+			}
+		}
+	}
+
+	private RarSession getRarSession() {
+		if(rarSession == null) {
+			rarSession = RarSession.open(this.comicBookResource);
+		}
+		return rarSession;
+	}
 	
 	protected InputStream getCompressionEntryStream(IResourceHandler resourceHandler, String entry) {
-		return new LazyRarEntryStream(resourceHandler, entry);
+		try {
+			return new ByteArrayInputStream(getRarSession().read(entry));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 	
 	protected List<String> listEntries(IResourceHandler cbrResource) {
-		final List<String> cbrEntries = RarUtils.list(this.comicBookResource);
+		// all pages are read afterwards, so they are extracted with one unrar process.
+		final List<String> cbrEntries = new ArrayList<>();
+		for(CompressedDataEntry entry : getRarSession().extract(null)) {
+			cbrEntries.add(entry.path);
+		}
 		return cbrEntries;
 	}
 
@@ -0,0 +1,738 @@
+package org.rr.jeborker.db;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+
+import org.h2.tools.SimpleResultSet;
+import org.rr.commons.log.LoggerFactory;
+import org.rr.commons.utils.ListUtils;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+import org.rr.jeborker.db.item.ViewField;
+
+import com.j256.ormlite.field.DatabaseField;
+
+/**
+ * In memory inverted index over all text columns of the {@link EbookPropertyItem}s. Each field has it's own
+ * sorted term dictionary with the posting lists of the matching documents, so search terms are matched
+ * by their prefix which allows to search while typing. Field scoped keywords like <code>title:lord</code> are
+ * matched anywhere inside the terms using a trigram index over the term dictionary.
+ * <br><br>
+ * Keywords are combined with OR and the words of one keyword with AND. The word <code>OR</code> splits
+ * a keyword into alternatives. The hits are ranked by the number of matching keywords and the weight of
+ * the fields where the words have been found.
+ * <br><br>
+ * The index is updated with each stored or deleted item. Updated items get a new document id and
+ * the old one is only marked as deleted, so the index needs to be rebuilt from time to time.
+ * The index is provided to the database as table function named {@value #SEARCH_FUNCTION}.
+ */
+public class CatalogSearchIndex {
+
+	/** Name of the table function returning the <code>FILE</code> and <code>SCORE</code> of all hits. */
+	public static final String SEARCH_FUNCTION = "JB_SEARCH";
+
+	/** The separator for the keywords passed to the {@link #SEARCH_FUNCTION}. */
+	private static final char KEYWORD_SEPARATOR = ',';
+
+	/** Escapes the separator and itself inside of the keywords passed to the {@link #SEARCH_FUNCTION}. */
+	private static final char KEYWORD_ESCAPE = '\\';
+
+	private static final String OR = "OR";
+
+	private static final int GRAM_LENGTH = 3;
+
+	/** Minimum number of deleted documents before a rebuild is suggested. */
+	private static final int MIN_REBUILD_DELETED = 10000;
+
+	private static final AtomicInteger nextId = new AtomicInteger();
+
+	private static final Map<Integer, CatalogSearchIndex> instances = new ConcurrentHashMap<>();
+
+	private static final AtomicInteger nextResultId = new AtomicInteger();
+
+	private static final Field[] FIELDS = getIndexedFields();
+
+	private static final float[] FIELD_WEIGHTS = getFieldWeights();
+
+	private final int id = nextId.incrementAndGet();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private IndexData data = new IndexData();
+
+	/** Changes done while a rebuild is running. They are applied to the rebuilt index. */
+	private List<Object[]> rebuildChanges;
+
+	private volatile boolean ready = false;
+
+	/**
+	 * The hits of the open queries by their result id. The value is <code>null</code> until the first search
+	 * for the result id is done. The entries are only removed with {@link #releaseResult(int)}.
+	 */
+	private final Map<Integer, List<SearchHit>> results = new HashMap<>();
+
+	public CatalogSearchIndex() {
+		instances.put(id, this);
+	}
+
+	/**
+	 * @return The id used to address this index with the {@link #SEARCH_FUNCTION}.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return <code>true</code> if the index has been built and could be used for searching.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Removes this index from the instances accessible with the {@link #SEARCH_FUNCTION}.
+	 */
+	public void close() {
+		instances.remove(id);
+		synchronized(results) {
+			results.clear();
+		}
+	}
+
+	/**
+	 * Creates a new result id for the {@link #SEARCH_FUNCTION}. All calls with the same result id share the hits
+	 * of the first call, so the count and the pages of one query did not search again and see the same hits.
+	 * @return The new result id which must be released with {@link #releaseResult(int)}.
+	 */
+	public int createResultId() {
+		final int resultId = nextResultId.incrementAndGet();
+		synchronized(results) {
+			results.put(resultId, null);
+		}
+		return resultId;
+	}
+
+	/**
+	 * Drops the hits kept for the given result id.
+	 */
+	public void releaseResult(int resultId) {
+		synchronized(results) {
+			results.remove(resultId);
+		}
+	}
+
+	/**
+	 * Get the hits for the given result id. The keywords are only searched if there are no hits
+	 * kept for the result id. The hits are kept until the result id is released, hits for a result id
+	 * which is already released are not kept.
+	 */
+	List<SearchHit> getResult(int resultId, List<String> keywords) {
+		synchronized(results) {
+			final List<SearchHit> hits = results.get(resultId);
+			if(hits != null) {
+				return hits;
+			}
+		}
+
+		final List<SearchHit> hits = search(keywords);
+		synchronized(results) {
+			if(results.containsKey(resultId)) {
+				final List<SearchHit> kept = results.get(resultId);
+				if(kept != null) {
+					// another call for the same query was faster.
+					return kept;
+				}
+				results.put(resultId, hits);
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * @return The names of the indexed columns. The file column is always the first one.
+	 */
+	static String[] getFieldNames() {
+		String[] names = new String[FIELDS.length];
+		for(int i = 0; i < FIELDS.length; i++) {
+			names[i] = FIELDS[i].getName();
+		}
+		return names;
+	}
+
+	/**
+	 * Adds the given item to the index or replaces the item with the same file.
+	 * @param item The item to be indexed.
+	 */
+	public void add(EbookPropertyItem item) {
+		String[] values = new String[FIELDS.length];
+		for(int i = 0; i < FIELDS.length; i++) {
+			try {
+				values[i] = (String) FIELDS[i].get(item);
+			} catch (IllegalAccessException e) {
+				LoggerFactory.getLogger(this).log(Level.WARNING, "Could not read " + FIELDS[i].getName() + " from " + item.getFile(), e);
+			}
+		}
+		add(values);
+	}
+
+	private void add(String[] values) {
+		lock.writeLock().lock();
+		try {
+			data.add(values);
+			if(rebuildChanges != null) {
+				rebuildChanges.add(values);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the item with the given file from the index.
+	 * @param file The file of the item to be removed.
+	 */
+	public void remove(String file) {
+		lock.writeLock().lock();
+		try {
+			data.remove(file);
+			if(rebuildChanges != null) {
+				rebuildChanges.add(new Object[] {file});
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Marks the begin of a rebuild. Changes done from now on are also applied to the rebuilt index.
+	 * @return <code>false</code> if there is already a running rebuild.
+	 */
+	boolean startRebuild() {
+		lock.writeLock().lock();
+		try {
+			if(rebuildChanges != null) {
+				return false;
+			}
+			rebuildChanges = new ArrayList<>();
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Builds a new index from the given rows and replaces the current one. {@link #startRebuild()} must be invoked
+	 * before the rows are read from the database.
+	 * @param rows The values of all items with the columns ordered like {@link #getFieldNames()}.
+	 */
+	void rebuild(Iterable<String[]> rows) {
+		try {
+			IndexData rebuilt = new IndexData();
+			for(String[] row : rows) {
+				rebuilt.add(row);
+			}
+
+			lock.writeLock().lock();
+			try {
+				for(Object[] change : rebuildChanges) {
+					if(change instanceof String[]) {
+						rebuilt.add((String[]) change);
+					} else {
+						rebuilt.remove((String) change[0]);
+					}
+				}
+				data = rebuilt;
+				ready = true;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} finally {
+			abortRebuild();
+		}
+	}
+
+	/**
+	 * Finishes a rebuild started with {@link #startRebuild()} without changing the index.
+	 */
+	void abortRebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuildChanges = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Tells if there are so much deleted documents in the index that it should be rebuilt.
+	 */
+	boolean isRebuildRequired() {
+		lock.readLock().lock();
+		try {
+			return rebuildChanges == null && data.deleted > MIN_REBUILD_DELETED && data.deleted > data.docIds.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The number of indexed items.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return data.docIds.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches for the given keywords.
+	 * @param keywords The keywords. Keywords in the form <code>field:value</code> are only searched in the given field.
+	 * @return The hits ordered by their score, the best hits first.
+	 */
+	public List<SearchHit> search(List<String> keywords) {
+		lock.readLock().lock();
+		try {
+			final IndexData data = this.data;
+			final float[] scores = new float[data.files.size()];
+			for(String keyword : keywords) {
+				int[] fields = getAllFields();
+				boolean scoped = false;
+				int colon = keyword.indexOf(':');
+				if(colon > 0) {
+					int field = getField(keyword.substring(0, colon).trim());
+					if(field != -1) {
+						fields = new int[] {field};
+						scoped = true;
+						keyword = keyword.substring(colon + 1);
+					}
+				}
+
+				for(List<String> alternative : splitAlternatives(keyword)) {
+					float[] alternativeScores = null;
+					for(String word : alternative) {
+						float[] wordScores = data.match(word, fields, scoped);
+						if(alternativeScores == null) {
+							alternativeScores = wordScores;
+						} else {
+							for(int doc = 0; doc < alternativeScores.length; doc++) {
+								alternativeScores[doc] = wordScores[doc] > 0 && alternativeScores[doc] > 0 ? alternativeScores[doc] + wordScores[doc] : 0;
+							}
+						}
+					}
+
+					if(alternativeScores != null) {
+						for(int doc = 0; doc < scores.length; doc++) {
+							scores[doc] += alternativeScores[doc];
+						}
+					}
+				}
+			}
+
+			// sort the score and the document id packed into one long. The bits of positive floats have the same order as their values.
+			long[] ranked = new long[scores.length];
+			int count = 0;
+			for(int doc = 0; doc < scores.length; doc++) {
+				if(scores[doc] > 0 && !data.deletedDocs.get(doc)) {
+					ranked[count++] = ((long) Float.floatToIntBits(scores[doc]) << 32) | (Integer.MAX_VALUE - doc);
+				}
+			}
+			Arrays.sort(ranked, 0, count);
+
+			final List<SearchHit> hits = new ArrayList<>(count);
+			for(int i = count - 1; i >= 0; i--) {
+				int doc = Integer.MAX_VALUE - (int) ranked[i];
+				hits.add(new SearchHit(data.files.get(doc), scores[doc]));
+			}
+			return hits;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The {@link #SEARCH_FUNCTION} table function.
+	 * @param connection The connection provided by the database.
+	 * @param indexId The id of the {@link CatalogSearchIndex} to be searched.
+	 * @param resultId The id created with {@link #createResultId()} for the query.
+	 * @param keywords The keywords joined with {@link #joinKeywords(List)}.
+	 * @return A result with the <code>FILE</code> and the <code>SCORE</code> of all hits.
+	 */
+	public static ResultSet search(Connection connection, int indexId, int resultId, String keywords) throws SQLException {
+		SimpleResultSet result = new SimpleResultSet();
+		result.addColumn("FILE", Types.VARCHAR, Integer.MAX_VALUE, 0);
+		result.addColumn("SCORE", Types.REAL, 0, 0);
+		if(connection.getMetaData().getURL().equals("jdbc:columnlist:connection")) {
+			// the database only asks for the columns.
+			return result;
+		}
+
+		CatalogSearchIndex index = instances.get(indexId);
+		if(index != null) {
+			for(SearchHit hit : index.getResult(resultId, splitKeywords(keywords))) {
+				result.addRow(hit.file, hit.score);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Joins the given keywords to the one string passed to the {@link #SEARCH_FUNCTION}. Separators inside
+	 * of the keywords are escaped, so {@link #splitKeywords(String)} restores the same keywords.
+	 */
+	public static String joinKeywords(List<String> keywords) {
+		final StringBuilder result = new StringBuilder();
+		for(String keyword : keywords) {
+			if(result.length() > 0) {
+				result.append(KEYWORD_SEPARATOR);
+			}
+			for(int i = 0; i < keyword.length(); i++) {
+				char c = keyword.charAt(i);
+				if(c == KEYWORD_SEPARATOR || c == KEYWORD_ESCAPE) {
+					result.append(KEYWORD_ESCAPE);
+				}
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Splits the keywords joined with {@link #joinKeywords(List)}.
+	 */
+	static List<String> splitKeywords(String keywords) {
+		final List<String> result = new ArrayList<>();
+		final StringBuilder keyword = new StringBuilder();
+		for(int i = 0; i < keywords.length(); i++) {
+			char c = keywords.charAt(i);
+			if(c == KEYWORD_ESCAPE && i + 1 < keywords.length()) {
+				keyword.append(keywords.charAt(++i));
+			} else if(c == KEYWORD_SEPARATOR) {
+				result.add(keyword.toString());
+				keyword.setLength(0);
+			} else {
+				keyword.append(c);
+			}
+		}
+		if(keyword.length() > 0 || !result.isEmpty()) {
+			result.add(keyword.toString());
+		}
+		return result;
+	}
+
+	/**
+	 * Splits the given keyword into it's alternatives separated by <code>OR</code> and each alternative into it's words.
+	 */
+	private static List<List<String>> splitAlternatives(String keyword) {
+		List<List<String>> alternatives = new ArrayList<>();
+		List<String> words = new ArrayList<>();
+		for(String word : ListUtils.split(keyword, " ")) {
+			if(word.equals(OR)) {
+				if(!words.isEmpty()) {
+					alternatives.add(words);
+					words = new ArrayList<>();
+				}
+			} else {
+				words.addAll(tokenize(word));
+			}
+		}
+		if(!words.isEmpty()) {
+			alternatives.add(words);
+		}
+		return alternatives;
+	}
+
+	/**
+	 * Splits the given text into lower case words containing only letters and digits.
+	 */
+	static List<String> tokenize(String text) {
+		final List<String> tokens = new ArrayList<>();
+		final StringBuilder token = new StringBuilder();
+		for(int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if(Character.isLetterOrDigit(c)) {
+				token.append(Character.toLowerCase(c));
+			} else if(token.length() > 0) {
+				tokens.add(token.toString());
+				token.setLength(0);
+			}
+		}
+		return tokens;
+	}
+
+	private static int getField(String name) {
+		for(int i = 0; i < FIELDS.length; i++) {
+			if(FIELDS[i].getName().equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int[] getAllFields() {
+		int[] fields = new int[FIELDS.length];
+		for(int i = 0; i < fields.length; i++) {
+			fields[i] = i;
+		}
+		return fields;
+	}
+
+	/**
+	 * Get all text columns of the {@link EbookPropertyItem}. The file column is the first one.
+	 */
+	private static Field[] getIndexedFields() {
+		List<Field> fields = new ArrayList<>();
+		for(Field field : EbookPropertyItem.class.getDeclaredFields()) {
+			if(field.getType() == String.class && field.isAnnotationPresent(DatabaseField.class)) {
+				field.setAccessible(true);
+				if(field.getAnnotation(DatabaseField.class).id()) {
+					fields.add(0, field);
+				} else {
+					fields.add(field);
+				}
+			}
+		}
+		return fields.toArray(new Field[fields.size()]);
+	}
+
+	/**
+	 * The weight of each field is derived from it's {@link ViewField#orderPriority()}, so hits in the
+	 * title or author count more than hits in the description or the file name.
+	 */
+	private static float[] getFieldWeights() {
+		float[] weights = new float[FIELDS.length];
+		for(int i = 0; i < FIELDS.length; i++) {
+			ViewField viewField = FIELDS[i].getAnnotation(ViewField.class);
+			weights[i] = 1f + (viewField != null ? viewField.orderPriority() / 25f : 0f);
+		}
+		return weights;
+	}
+
+	public static class SearchHit {
+
+		private final String file;
+
+		private final float score;
+
+		SearchHit(String file, float score) {
+			this.file = file;
+			this.score = score;
+		}
+
+		public String getFile() {
+			return file;
+		}
+
+		public float getScore() {
+			return score;
+		}
+
+		@Override
+		public String toString() {
+			return file + " (" + score + ")";
+		}
+	}
+
+	/**
+	 * The documents and the field indices. Not thread safe.
+	 */
+	private static class IndexData {
+
+		private final FieldIndex[] fields = new FieldIndex[FIELDS.length];
+
+		private final List<String> files = new ArrayList<>();
+
+		private final HashMap<String, Integer> docIds = new HashMap<>();
+
+		private final BitSet deletedDocs = new BitSet();
+
+		private int deleted;
+
+		IndexData() {
+			for(int i = 0; i < fields.length; i++) {
+				fields[i] = new FieldIndex();
+			}
+		}
+
+		void add(String[] values) {
+			final String file = values[0];
+			remove(file);
+
+			final int doc = files.size();
+			files.add(file);
+			docIds.put(file, doc);
+			for(int i = 0; i < values.length; i++) {
+				if(values[i] != null) {
+					fields[i].add(doc, values[i]);
+				}
+			}
+		}
+
+		void remove(String file) {
+			Integer doc = docIds.remove(file);
+			if(doc != null) {
+				deletedDocs.set(doc);
+				files.set(doc, null);
+				deleted++;
+			}
+		}
+
+		/**
+		 * Get the score of all documents for the given word.
+		 * @param infix <code>true</code> if the word could be somewhere in the terms or <code>false</code> if the terms must start with the word.
+		 */
+		float[] match(String word, int[] fieldIndices, boolean infix) {
+			final float[] scores = new float[files.size()];
+			for(int field : fieldIndices) {
+				Collection<Term> terms = infix ? fields[field].getTermsContaining(word) : fields[field].getTermsStartingWith(word);
+				for(Term term : terms) {
+					float weight = FIELD_WEIGHTS[field] * (term.term.equals(word) ? 2 : 1);
+					Postings docs = term.docs;
+					for(int i = 0; i < docs.size; i++) {
+						int doc = docs.ids[i];
+						if(scores[doc] < weight) {
+							scores[doc] = weight;
+						}
+					}
+				}
+			}
+			return scores;
+		}
+	}
+
+	private static class FieldIndex {
+
+		/** Sorted terms for the prefix search. */
+		private final TreeMap<String, Term> terms = new TreeMap<>();
+
+		/** The same terms for a faster lookup while indexing. */
+		private final HashMap<String, Term> termLookup = new HashMap<>();
+
+		private final List<Term> termList = new ArrayList<>();
+
+		/** Trigrams to the ids of the terms containing them. */
+		private final HashMap<String, Postings> grams = new HashMap<>();
+
+		void add(int doc, String value) {
+			for(String token : tokenize(value)) {
+				Term term = termLookup.get(token);
+				if(term == null) {
+					term = new Term(token);
+					terms.put(token, term);
+					termLookup.put(token, term);
+					int termId = termList.size();
+					termList.add(term);
+					for(int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+						String gram = token.substring(i, i + GRAM_LENGTH);
+						Postings termIds = grams.get(gram);
+						if(termIds == null) {
+							grams.put(gram, termIds = new Postings());
+						}
+						termIds.add(termId);
+					}
+				}
+				term.docs.add(doc);
+			}
+		}
+
+		Collection<Term> getTermsStartingWith(String prefix) {
+			return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+		}
+
+		Collection<Term> getTermsContaining(String word) {
+			if(word.length() < GRAM_LENGTH) {
+				List<Term> result = new ArrayList<>();
+				for(Term term : termList) {
+					if(term.term.contains(word)) {
+						result.add(term);
+					}
+				}
+				return result;
+			}
+
+			Postings candidates = null;
+			for(int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+				Postings termIds = grams.get(word.substring(i, i + GRAM_LENGTH));
+				if(termIds == null) {
+					return Collections.emptyList();
+				}
+				candidates = candidates == null ? termIds : candidates.intersect(termIds);
+			}
+
+			List<Term> result = new ArrayList<>(candidates.size);
+			for(int i = 0; i < candidates.size; i++) {
+				Term term = termList.get(candidates.ids[i]);
+				if(term.term.contains(word)) {
+					result.add(term);
+				}
+			}
+			return result;
+		}
+	}
+
+	private static class Term {
+
+		private final String term;
+
+		private final Postings docs = new Postings();
+
+		Term(String term) {
+			this.term = term;
+		}
+	}
+
+	/**
+	 * Ascending list of ids. Ids are always added in ascending order.
+	 */
+	private static class Postings {
+
+		private int[] ids = new int[2];
+
+		private int size;
+
+		void add(int id) {
+			if(size > 0 && ids[size - 1] == id) {
+				return;
+			}
+			if(size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+		Postings intersect(Postings other) {
+			Postings result = new Postings();
+			int i = 0, j = 0;
+			while(i < size && j < other.size) {
+				if(ids[i] < other.ids[j]) {
+					i++;
+				} else if(ids[i] > other.ids[j]) {
+					j++;
+				} else {
+					result.add(ids[i]);
+					i++;
+					j++;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.rr.jeborker.db;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Write behind buffer for {@link IDBObject} instances. Added items are collected and stored with
+ * {@link DefaultDBManager#storeObjects(java.util.Collection)} as soon as the batch size is reached
+ * or the flush interval is elapsed after the first item has been added to an empty buffer.
+ * Using one transaction for a whole batch is much faster than storing each item for it's own
+ * while importing a large number of ebooks.
+ */
+public class DBWriteBuffer implements Closeable {
+
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	public static final long DEFAULT_FLUSH_INTERVAL = 2000;
+
+	private static final Timer FLUSH_TIMER = new Timer(DBWriteBuffer.class.getSimpleName(), true);
+
+	private final DefaultDBManager db;
+
+	private final int batchSize;
+
+	private final long flushInterval;
+
+	private final Object flushLock = new Object();
+
+	private List<IDBObject> buffer;
+
+	private TimerTask flushTask;
+
+	/**
+	 * @param db The {@link DefaultDBManager} where the buffered items should be stored to.
+	 * @param batchSize The number of items that are stored within one transaction.
+	 * @param flushInterval Maximum time in milliseconds an item is kept in the buffer. The interval
+	 *   flush is disabled for values less than or equal to zero.
+	 */
+	public DBWriteBuffer(DefaultDBManager db, int batchSize, long flushInterval) {
+		this.db = db;
+		this.batchSize = Math.max(1, batchSize);
+		this.flushInterval = flushInterval;
+		this.buffer = new ArrayList<>(this.batchSize);
+	}
+
+	/**
+	 * Adds the given item to the buffer. The item gets stored or updated with the next flush.
+	 * @param item The item to be stored.
+	 */
+	public void add(IDBObject item) {
+		boolean full;
+		synchronized(this) {
+			buffer.add(item);
+			full = buffer.size() >= batchSize;
+			if(!full && flushTask == null && flushInterval > 0) {
+				flushTask = new TimerTask() {
+
+					@Override
+					public void run() {
+						flush();
+					}
+				};
+				FLUSH_TIMER.schedule(flushTask, flushInterval);
+			}
+		}
+
+		if(full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Stores all buffered items to the database.
+	 */
+	public void flush() {
+		synchronized(flushLock) {
+			List<IDBObject> batch = drain();
+			if(!batch.isEmpty()) {
+				db.storeObjects(batch);
+			}
+		}
+	}
+
+	private synchronized List<IDBObject> drain() {
+		if(flushTask != null) {
+			flushTask.cancel();
+			flushTask = null;
+		}
+		List<IDBObject> batch = buffer;
+		buffer = new ArrayList<>(batchSize);
+		return batch;
+	}
+
+	/**
+	 * Stores all remaining buffered items.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+}
@@ -1,31 +1,50 @@
 package org.rr.jeborker.db;
 
+import static org.rr.commons.utils.StringUtil.EMPTY;
+
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.rr.commons.collection.ICloseableList;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.utils.ReflectionUtils;
-import org.rr.commons.utils.StringUtil;
+import org.rr.jeborker.Jeboorker;
 import org.rr.jeborker.db.item.EbookPropertyItem;
 import org.rr.jeborker.db.item.EbookPropertyItemUtils;
 import org.rr.jeborker.db.item.PreferenceItem;
 
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.stmt.PreparedQuery;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
 import com.j256.ormlite.stmt.Where;
 
 /**
  * The {@link DefaultDBManager} provides methods for handle database connections and it's content.
+ * Read access runs concurrently on the pooled connections. All writes are serialized by a single
+ * writer thread, so long running queries did not block writes and the other way round.
  *
  * @param <T>
  */
@@ -37,6 +56,27 @@ public abstract class DefaultDBManager {
 
 	private JdbcPooledConnectionSource connection;
 
+	private volatile Thread writerThread;
+
+	private final ConcurrentHashMap<Class<?>, Dao<?, ?>> daoCache = new ConcurrentHashMap<>();
+
+	/** Prepared lookup queries which are not in use. Each key contains the queried class, field and number of values. */
+	private final ConcurrentHashMap<String, Queue<PreparedQuery<?>>> preparedQueries = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<String, QueryLatencyCounter> latencyCounters = new ConcurrentHashMap<>();
+
+	private final CatalogSearchIndex searchIndex = new CatalogSearchIndex();
+
+	private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "DBWriter");
+			thread.setDaemon(true);
+			return writerThread = thread;
+		}
+	});
+
 	/**
 	 * Gets a shared {@link ConfigManager} instance.
 	 *
@@ -47,6 +87,7 @@ public abstract class DefaultDBManager {
 			manager = new H2DBManager();
 			JdbcPooledConnectionSource initDatabase = manager.initDatabase();
 			manager.connection = initDatabase;
+			manager.rebuildSearchIndex();
 		}
 		return manager;
 	}
@@ -68,12 +109,28 @@ public abstract class DefaultDBManager {
 
 	protected void setConnectionPool(JdbcPooledConnectionSource connection) {
 		this.connection = connection;
+		daoCache.clear();
+		preparedQueries.clear();
 	}
 
 	/**
 	 * Closes and shutdown all database connections previously opened.
 	 */
 	public synchronized void shutdown() {
+		for(QueryLatencyCounter counter : latencyCounters.values()) {
+			LoggerFactory.log(Level.INFO, this, counter.toString());
+		}
+
+		writeExecutor.shutdown();
+		try {
+			writeExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LoggerFactory.log(Level.WARNING, this, "Waiting for pending database writes has been interrupted", e);
+		}
+		// pending writes still update the search index.
+		searchIndex.close();
+
 		try {
 			connection.close();
 		} catch (IOException e) {
@@ -86,10 +143,10 @@ public abstract class DefaultDBManager {
 	 * @return a new {@link QueryBuilder} instance for the given class. Never returns <code>null</code>
 	 * @throws RuntimeException if an SQL error occurs.
 	 */
-	public synchronized <T> QueryBuilder<T, T> getQueryBuilder(Class<T> cls) {
+	public <T> QueryBuilder<T, T> getQueryBuilder(Class<T> cls) {
 		Dao<T, T> createDao;
 		try {
-			createDao = DaoManager.createDao(connection, cls);
+			createDao = getDao(cls);
 			QueryBuilder<T, T> queryBuilder = createDao.queryBuilder();
 			return queryBuilder;
 		} catch (SQLException e) {
@@ -97,14 +154,140 @@ public abstract class DefaultDBManager {
 		}
 	}
 
-	public synchronized IDBObject storeObject(final IDBObject item) {
-		try {
-			Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) DaoManager.createDao(connection, item.getClass());
-			createDao.createOrUpdate(item);
-		} catch (Exception e) {
-			LoggerFactory.log(Level.SEVERE, this, "Failed to store object " + item, e);
+	/**
+	 * Get the {@link Dao} for the given entity class. The {@link Dao} is created only once for each class.
+	 * @param cls The entity class.
+	 * @return The desired {@link Dao}. Never returns <code>null</code>.
+	 * @throws SQLException if the {@link Dao} could not be created.
+	 */
+	protected <T> Dao<T, T> getDao(Class<T> cls) throws SQLException {
+		Dao<T, T> dao = (Dao<T, T>) daoCache.get(cls);
+		if(dao == null) {
+			dao = DaoManager.createDao(connection, cls);
+			daoCache.putIfAbsent(cls, dao);
+		}
+		return dao;
+	}
+
+	public IDBObject storeObject(final IDBObject item) {
+		return write(new Callable<IDBObject>() {
+
+			@Override
+			public IDBObject call() {
+				try {
+					Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) getDao(item.getClass());
+					createDao.createOrUpdate(item);
+					updateSearchIndex(item);
+				} catch (Exception e) {
+					LoggerFactory.log(Level.SEVERE, DefaultDBManager.this, "Failed to store object " + item, e);
+				}
+				return item;
+			}
+		}, item);
+	}
+
+	/**
+	 * Stores all given items. The items are grouped by their class and each group is
+	 * written within a single transaction. If the transaction fails, the items of the group
+	 * are stored one by one so a single broken item did not discard the whole group.
+	 *
+	 * @param items The items to be stored.
+	 */
+	public void storeObjects(final Collection<? extends IDBObject> items) {
+		write(new Callable<Void>() {
+
+			@Override
+			public Void call() {
+				final Map<Class<?>, List<IDBObject>> itemsByClass = new LinkedHashMap<>();
+				for(IDBObject item : items) {
+					List<IDBObject> classItems = itemsByClass.get(item.getClass());
+					if(classItems == null) {
+						itemsByClass.put(item.getClass(), classItems = new ArrayList<>());
+					}
+					classItems.add(item);
+				}
+
+				for(Map.Entry<Class<?>, List<IDBObject>> entry : itemsByClass.entrySet()) {
+					final List<IDBObject> classItems = entry.getValue();
+					try {
+						final Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) getDao(entry.getKey());
+						createDao.callBatchTasks(new Callable<Void>() {
+
+							@Override
+							public Void call() throws Exception {
+								for(IDBObject item : classItems) {
+									createDao.createOrUpdate(item);
+								}
+								return null;
+							}
+						});
+						for(IDBObject item : classItems) {
+							updateSearchIndex(item);
+						}
+					} catch (Exception e) {
+						LoggerFactory.log(Level.WARNING, DefaultDBManager.this, "Failed to store " + classItems.size() + " objects of " + entry.getKey() + " in one transaction", e);
+						for(IDBObject item : classItems) {
+							storeObject(item);
+						}
+					}
+				}
+				return null;
+			}
+		}, null);
+	}
+
+	/**
+	 * Adds the given item to the search index if it's an {@link EbookPropertyItem}.
+	 */
+	private void updateSearchIndex(IDBObject item) {
+		if(item instanceof EbookPropertyItem) {
+			searchIndex.add((EbookPropertyItem) item);
+			if(searchIndex.isRebuildRequired()) {
+				rebuildSearchIndex();
+			}
+		}
+	}
+
+	/**
+	 * Get the search index containing all stored {@link EbookPropertyItem}s.
+	 */
+	protected CatalogSearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/**
+	 * Reads all {@link EbookPropertyItem}s from the database into a new search index in the background.
+	 */
+	protected void rebuildSearchIndex() {
+		if(searchIndex.startRebuild()) {
+			Jeboorker.APPLICATION_THREAD_POOL.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						long start = System.currentTimeMillis();
+						Dao<EbookPropertyItem, EbookPropertyItem> dao = getDao(EbookPropertyItem.class);
+						String query = dao.queryBuilder().selectColumns(CatalogSearchIndex.getFieldNames()).prepareStatementString();
+						try (GenericRawResults<String[]> rows = dao.queryRaw(query)) {
+							searchIndex.rebuild(rows);
+						}
+						LoggerFactory.log(Level.INFO, DefaultDBManager.this,
+								"Search index with " + searchIndex.size() + " entries built in " + (System.currentTimeMillis() - start) + "ms");
+					} catch (Exception e) {
+						searchIndex.abortRebuild();
+						LoggerFactory.log(Level.WARNING, DefaultDBManager.this, "Failed to build the search index", e);
+					}
+				}
+			});
 		}
-		return item;
+	}
+
+	/**
+	 * Creates a new {@link DBWriteBuffer} with the default batch size and flush interval which
+	 * stores it's items to this {@link DefaultDBManager} instance.
+	 */
+	public DBWriteBuffer createWriteBuffer() {
+		return new DBWriteBuffer(this, DBWriteBuffer.DEFAULT_BATCH_SIZE, DBWriteBuffer.DEFAULT_FLUSH_INTERVAL);
 	}
 
 	/**
@@ -113,9 +296,9 @@ public abstract class DefaultDBManager {
 	 * @param cls The class type of the pojos to be fetched
 	 * @return A Iterable which provides the data. Never returns <code>null</code>.
 	 */
-	public synchronized <T> Collection<T> getItems(Class<T> cls) {
+	public <T> Collection<T> getItems(Class<T> cls) {
 		try {
-			Dao<IDBObject, T> createDao = (Dao<IDBObject, T>) DaoManager.createDao(connection, cls);
+			Dao<IDBObject, T> createDao = (Dao<IDBObject, T>) getDao(cls);
 			List<T> queryForAll = (List<T>) createDao.queryForAll();
 			return queryForAll;
 		} catch (Exception e) {
@@ -130,10 +313,10 @@ public abstract class DefaultDBManager {
 	 * @param cls The class type of the pojos to be fetched
 	 * @return A Iterable which provides the data. Never returns <code>null</code>.
 	 */
-	public synchronized <T> List<T> getItems(final Class<T> cls, Where<T, T> where, final List<Field> orderFields,
+	public <T> List<T> getItems(final Class<T> cls, Where<T, T> where, final List<Field> orderFields,
 			final OrderDirection orderDirection) {
 		try {
-			Dao<T, T> createDao = DaoManager.createDao(connection, cls);
+			Dao<T, T> createDao = getDao(cls);
 			QueryBuilder<T, T> queryBuilder = createDao.queryBuilder();
 			if(where != null && !DBUtils.isEmpty(where)) {
 				queryBuilder.setWhere(where);
@@ -154,8 +337,14 @@ public abstract class DefaultDBManager {
 		}
 	}
 
+	/**
+	 * Queries the items matching the given where condition and keywords.
+	 * @param listView <code>true</code> if only the columns needed to display {@link EbookPropertyItem}s in the list view should be loaded.
+	 *   These items are marked with {@link EbookPropertyItem#isPartial()} and must be reloaded before they could be used for anything else.
+	 * @return The items found.
+	 */
 	public abstract <T> ICloseableList<T> queryFullTextSearch(Class<T> cls, Where<T, T> where, List<String> keywords, List<Field> orderFields,
-			OrderDirection orderDirection);
+			OrderDirection orderDirection, boolean listView);
 
 	/**
 	 * Updates the given item.
@@ -163,7 +352,7 @@ public abstract class DefaultDBManager {
 	 * @param item
 	 *            {@link IDBObject} instance to be updated.
 	 */
-	public synchronized IDBObject updateObject(final IDBObject item) {
+	public IDBObject updateObject(final IDBObject item) {
 		// store the bytes before deleting
 		final HashMap<Field, byte[]> data = new HashMap<Field, byte[]>();
 
@@ -184,6 +373,7 @@ public abstract class DefaultDBManager {
 
 	/**
 	 * Simple getObject method which searches for an entry with the given class type allowing to specify one field with a value as condition.
+	 * The prepared query for each class and field is reused, so this method should be preferred for frequently invoked lookups.
 	 *
 	 * @param <T>
 	 *            The class type to be searched
@@ -191,24 +381,117 @@ public abstract class DefaultDBManager {
 	 *            The entry class type.
 	 * @param field
 	 *            The name of the field for the condition
-	 * @param value
-	 *            The condition value.
+	 * @param values
+	 *            The condition values. Entries matching to any of these values are returned.
 	 * @return A list with all results.
 	 */
-	public synchronized <T> List<T> getObject(Class<T> class1, final String field, final String value) {
+	public <T> List<T> getObject(Class<T> class1, final String field, final String... values) {
+		final String queryKey = class1.getSimpleName() + "." + field + (values.length > 1 ? "[" + values.length + "]" : EMPTY);
+		final long start = System.nanoTime();
+		PreparedQuery<T> preparedQuery = null;
 		try {
-			Dao<T, T> createDao = DaoManager.createDao(connection, class1);
-			QueryBuilder<T, T> queryBuilder = createDao.queryBuilder();
-			queryBuilder.where().eq(field, StringUtil.escapeSql(value));
-			List<T> query = createDao.query(queryBuilder.prepare());
-			return query;
+			preparedQuery = acquirePreparedQuery(queryKey, class1, field, values.length);
+			for(int i = 0; i < values.length; i++) {
+				preparedQuery.setArgumentHolderValue(i, values[i]);
+			}
+			return getDao(class1).query(preparedQuery);
+		} catch(Exception e) {
+			LoggerFactory.getLogger(this).log(Level.WARNING, "getObject for " + class1 + " and field=" + field + " and value=" + Arrays.toString(values) + " failed.", e);
+			return Collections.emptyList();
+		} finally {
+			if(preparedQuery != null) {
+				preparedQueries.get(queryKey).offer(preparedQuery);
+			}
+			getLatencyCounter(queryKey).add(start);
+		}
+	}
+
+	/**
+	 * Fetches only the given columns of all entries where the given field matches to one of the given values.
+	 * This is much cheaper than {@link #getObject(Class, String, String...)} if only a few columns of many entries are needed.
+	 *
+	 * @param cls
+	 *            The entry class type.
+	 * @param columns
+	 *            The names of the columns to be fetched.
+	 * @param field
+	 *            The name of the field for the condition
+	 * @param values
+	 *            The condition values.
+	 * @return The raw column values of each entry in the order of the <code>columns</code> parameter. Never returns <code>null</code>.
+	 */
+	public <T> List<String[]> getColumns(Class<T> cls, String[] columns, String field, String... values) {
+		final String queryKey = cls.getSimpleName() + "." + field + Arrays.toString(columns);
+		final long start = System.nanoTime();
+		try {
+			Dao<T, T> dao = getDao(cls);
+			QueryBuilder<T, T> queryBuilder = dao.queryBuilder().selectColumns(columns);
+			SelectArg[] args = new SelectArg[values.length];
+			for(int i = 0; i < values.length; i++) {
+				args[i] = new SelectArg();
+			}
+			queryBuilder.where().in(field, (Object[]) args);
+			GenericRawResults<String[]> results = dao.queryRaw(queryBuilder.prepareStatementString(), values);
+			try {
+				return results.getResults();
+			} finally {
+				results.close();
+			}
 		} catch(Exception e) {
-			LoggerFactory.getLogger(this).log(Level.WARNING, "getObject for " + class1 + " and field=" + field + " and value=" + value + " failed.", e);
+			LoggerFactory.getLogger(this).log(Level.WARNING, "getColumns for " + cls + " and field=" + field + " and value=" + Arrays.toString(values) + " failed.", e);
 			return Collections.emptyList();
+		} finally {
+			getLatencyCounter(queryKey).add(start);
 		}
 	}
 
-	public synchronized boolean deleteObject(IDBObject item) {
+	/**
+	 * Takes an unused {@link PreparedQuery} for the given key or creates a new one. A {@link PreparedQuery} holds it's
+	 * arguments, so it must not be used by more than one thread at the same time.
+	 */
+	private <T> PreparedQuery<T> acquirePreparedQuery(String queryKey, Class<T> cls, String field, int valueCount) throws SQLException {
+		Queue<PreparedQuery<?>> queries = preparedQueries.get(queryKey);
+		if(queries == null) {
+			preparedQueries.putIfAbsent(queryKey, new ConcurrentLinkedQueue<PreparedQuery<?>>());
+			queries = preparedQueries.get(queryKey);
+		}
+
+		PreparedQuery<T> preparedQuery = (PreparedQuery<T>) queries.poll();
+		if(preparedQuery == null) {
+			QueryBuilder<T, T> queryBuilder = getDao(cls).queryBuilder();
+			if(valueCount == 1) {
+				queryBuilder.where().eq(field, new SelectArg());
+			} else {
+				SelectArg[] args = new SelectArg[valueCount];
+				for(int i = 0; i < valueCount; i++) {
+					args[i] = new SelectArg();
+				}
+				queryBuilder.where().in(field, (Object[]) args);
+			}
+			preparedQuery = queryBuilder.prepare();
+		}
+		return preparedQuery;
+	}
+
+	private QueryLatencyCounter getLatencyCounter(String name) {
+		QueryLatencyCounter counter = latencyCounters.get(name);
+		if(counter == null) {
+			latencyCounters.putIfAbsent(name, new QueryLatencyCounter(name));
+			counter = latencyCounters.get(name);
+		}
+		return counter;
+	}
+
+	/**
+	 * Get the latency counters for all lookups done with {@link #getObject(Class, String, String...)}. The counters
+	 * are named with the queried class and field name.
+	 * @return The desired latency counters. Never returns <code>null</code>.
+	 */
+	public Collection<QueryLatencyCounter> getQueryLatencyCounters() {
+		return Collections.unmodifiableCollection(latencyCounters.values());
+	}
+
+	public boolean deleteObject(IDBObject item) {
 		return deleteObject(item, true);
 	}
 
@@ -219,19 +502,51 @@ public abstract class DefaultDBManager {
 	 *            The item to be deleted.
 	 * @return
 	 */
-	public synchronized boolean deleteObject(IDBObject item, boolean deleteCover) {
-		try {
-			Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) DaoManager.createDao(connection, item.getClass());
-			createDao.delete(item);
+	public boolean deleteObject(final IDBObject item, boolean deleteCover) {
+		return write(new Callable<Boolean>() {
 
-			if (item instanceof EbookPropertyItem) {
-				EbookPropertyItemUtils.deleteCoverThumbnail(((EbookPropertyItem) item).getResourceHandler());
+			@Override
+			public Boolean call() {
+				try {
+					Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) getDao(item.getClass());
+					createDao.delete(item);
+
+					if (item instanceof EbookPropertyItem) {
+						searchIndex.remove(((EbookPropertyItem) item).getFile());
+						EbookPropertyItemUtils.deleteCoverThumbnail(((EbookPropertyItem) item).getResourceHandler());
+					}
+				} catch (Exception e) {
+					LoggerFactory.getLogger(DefaultDBManager.this).log(Level.WARNING, "failed to delete " + item, e);
+					return Boolean.FALSE;
+				}
+				return Boolean.TRUE;
+			}
+		}, Boolean.FALSE).booleanValue();
+	}
+
+	/**
+	 * Executes the given write task with the single database writer thread and waits until it's finished.
+	 * Tasks invoked from the writer thread itself are executed directly.
+	 *
+	 * @param task The task doing the write.
+	 * @param failureResult The result to be returned if the write task could not be executed.
+	 * @return The result of the given task or the <code>failureResult</code> if the task has failed.
+	 */
+	private <T> T write(Callable<T> task, T failureResult) {
+		try {
+			if(Thread.currentThread() == writerThread) {
+				return task.call();
 			}
+			return writeExecutor.submit(task).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LoggerFactory.log(Level.WARNING, this, "Waiting for database write has been interrupted", e);
+		} catch (ExecutionException e) {
+			LoggerFactory.log(Level.SEVERE, this, "Database write has failed", e.getCause());
 		} catch (Exception e) {
-			LoggerFactory.getLogger(this).log(Level.WARNING, "failed to delete " + item, e);
-			return false;
+			LoggerFactory.log(Level.SEVERE, this, "Database write has failed", e);
 		}
-		return true;
+		return failureResult;
 	}
 
 	/**
@@ -248,17 +563,18 @@ public abstract class DefaultDBManager {
 	/**
 	 * Rereads the given item from the database.
 	 *
-	 * @return The new item or <code>null</code> if the item is no longer present in the database.
+	 * @return The given, reloaded item or <code>null</code> if the item is no longer present in the database
+	 * 	or could not be loaded.
 	 */
 	public IDBObject reload(IDBObject item) {
 		if (item != null) {
 			try {
-				Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) DaoManager.createDao(connection, item.getClass());
-				createDao.refresh(item);
+				Dao<IDBObject, ?> createDao = (Dao<IDBObject, ?>) getDao(item.getClass());
+				return createDao.refresh(item) > 0 ? item : null;
 			} catch(Exception e) {
 				LoggerFactory.getLogger(this).log(Level.WARNING, "failed to load " + item, e);
 			}
 		}
-		return item;
+		return null;
 	}
 }
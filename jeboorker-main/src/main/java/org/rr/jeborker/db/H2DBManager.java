@@ -3,39 +3,56 @@ package org.rr.jeborker.db;
 import static org.rr.commons.utils.StringUtil.EMPTY;
 import static org.rr.jeborker.app.preferences.PreferenceStoreFactory.PREFERENCE_KEYS.JEBOORKER_DB_VERSION_KEY;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 
-import org.h2.jdbc.JdbcResultSet;
-import org.h2.result.LocalResult;
 import org.rr.commons.collection.ICloseableList;
 import org.rr.commons.collection.IteratorList;
+import org.rr.commons.collection.PagedList;
 import org.rr.commons.log.LoggerFactory;
-import org.rr.commons.utils.ReflectionFailureException;
-import org.rr.commons.utils.ReflectionUtils;
+import org.rr.commons.utils.ListUtils;
 import org.rr.commons.utils.StringUtil;
 import org.rr.jeborker.Jeboorker;
 import org.rr.jeborker.app.preferences.APreferenceStore;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
+import org.rr.jeborker.db.item.EbookPropertyItem;
 
-import com.j256.ormlite.dao.BaseDaoImpl;
 import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.dao.GenericRawResults;
-import com.j256.ormlite.jdbc.JdbcDatabaseResults;
 import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
-import com.j256.ormlite.stmt.RawRowMapperImpl;
 import com.j256.ormlite.stmt.Where;
 import com.j256.ormlite.support.DatabaseConnection;
-import com.j256.ormlite.table.TableInfo;
 import com.j256.ormlite.table.TableUtils;
 
 class H2DBManager extends DefaultDBManager {
 
+	/** Number of rows loaded at once by the lists returned by {@link #queryFullTextSearch(Class, Where, List, List, OrderDirection)}. */
+	private static final int PAGE_SIZE = 100;
+
+	/** Number of pages kept in memory by the lists returned by {@link #queryFullTextSearch(Class, Where, List, List, OrderDirection)}. */
+	private static final int CACHED_PAGES = 10;
+
+	/** Columns of the {@link EbookPropertyItem} needed to display it in the list view beside the order columns. */
+	private static final String[] LIST_VIEW_COLUMNS = new String[] {"file", "basePath", "mimeType", "title", "author", "rating", "timestamp"};
+
+	/**
+	 * The list view only shows the beginning of the description, so it's not loaded completely. The
+	 * description is loaded with a second query for the rows of a page only because the truncation
+	 * would otherwise be done for all rows which must be sorted.
+	 */
+	private static final int LIST_VIEW_DESCRIPTION_LENGTH = 512;
+
 	protected JdbcPooledConnectionSource initDatabase() {
 		PreferenceStoreFactory.getPreferenceStore(PreferenceStoreFactory.SYSTEM_STORE);
 		String configPath = APreferenceStore.getConfigDirectory();
@@ -47,6 +64,7 @@ class H2DBManager extends DefaultDBManager {
 			connection.setPassword(EMPTY);
 			setConnectionPool(connection);
 			createDatabaseIfNecessary(connection);
+			createSearchFunction();
 			return connection;
 		} catch (Exception e) {
 			LoggerFactory.log(Level.SEVERE, this, "could not init database in " + configPath, e);
@@ -68,6 +86,23 @@ class H2DBManager extends DefaultDBManager {
 		}
 	}
 
+	/**
+	 * Registers the {@link CatalogSearchIndex#SEARCH_FUNCTION} table function.
+	 */
+	private void createSearchFunction() throws SQLException {
+		JdbcPooledConnectionSource connectionPool = getConnectionPool();
+		DatabaseConnection connection = null;
+		try {
+			connection = connectionPool.getReadWriteConnection(null);
+			connection.executeStatement("CREATE ALIAS IF NOT EXISTS " + CatalogSearchIndex.SEARCH_FUNCTION + " FOR \"" + CatalogSearchIndex.class.getName() + ".search\"",
+					DatabaseConnection.DEFAULT_RESULT_FLAGS);
+		} finally {
+			if (connection != null) {
+				connectionPool.releaseConnection(connection);
+			}
+		}
+	}
+
 	private void reCreateFullTextIndices() throws SQLException {
 		JdbcPooledConnectionSource connectionPool = getConnectionPool();
 		DatabaseConnection connection = null;
@@ -109,69 +144,71 @@ class H2DBManager extends DefaultDBManager {
 		}
 	}
 
-	public synchronized <T> ICloseableList<T> queryFullTextSearch(Class<T> cls, Where<T, T> where, List<String> keywords, List<Field> orderFields,
-			OrderDirection orderDirection) {
+	public <T> ICloseableList<T> queryFullTextSearch(Class<T> cls, Where<T, T> where, List<String> keywords, List<Field> orderFields,
+			OrderDirection orderDirection, boolean listView) {
 		try {
-			StringBuilder sql = new StringBuilder();
 			String tableName = cls.getSimpleName().toUpperCase();
-			sql.append("SELECT A.* FROM ").append(tableName).append(" A ");
-
-			boolean searchTableAppended = appendFulltextQueryTable(keywords, tableName, sql);
-			if (searchTableAppended) {
-				sql.append(" WHERE A.FILE = B.KEYS AND ");
-				boolean queryConditionAppended = appendFulltextQueryCondition(keywords, tableName, sql);
-				if(queryConditionAppended) {
-					sql.append(" AND ");
-				}
-			} else {
-				if(!isEmptyWhereClause(where)) {
-					sql.append(" WHERE ");
-				} else {
-					sql.append(" ");
+			StringBuilder from = new StringBuilder(tableName).append(" A ");
+			List<String> conditions = new ArrayList<>();
+			boolean ranked = false;
+			CatalogSearchIndex searchIndex = null;
+			int searchResultId = 0;
+
+			if (!keywords.isEmpty() && cls == EbookPropertyItem.class && getSearchIndex().isReady()) {
+				searchIndex = getSearchIndex();
+				searchResultId = searchIndex.createResultId();
+				appendSearchIndexQueryTable(searchIndex, searchResultId, keywords, from);
+				conditions.add("A.FILE = B.FILE");
+				ranked = orderFields.isEmpty();
+			} else if (appendFulltextQueryTable(keywords, tableName, from)) {
+				conditions.add("A.FILE = B.KEYS");
+				StringBuilder condition = new StringBuilder();
+				if(appendFulltextQueryCondition(keywords, tableName, condition)) {
+					conditions.add(condition.toString());
 				}
 			}
-			
+
 			if(!isEmptyWhereClause(where)) {
-				sql.append(where.getStatement()).append(' ');
+				conditions.add(where.getStatement());
 			}
-			appendOrderFields(orderFields, orderDirection, sql);
-
-			String sqlString = sql.toString();
 
-			Dao<T, T> createDao = DaoManager.createDao(getConnectionPool(), cls);
-			GenericRawResults<T> queryRaw = createDao.queryRaw(sqlString, new RawRowMapperImpl<T, T>(new TableInfo<T, T>(getConnectionPool(),
-					(BaseDaoImpl<T, T>) createDao, cls)), new String[0]);
-
-			Iterator<T> iterator = queryRaw.closeableIterator();
-			int rowCount = getRowCount(iterator);
-
-			return new IteratorList<T>(iterator, rowCount);
+			boolean partial = listView && cls == EbookPropertyItem.class;
+			String columns = partial ? getListViewColumns(orderFields) : "A.*";
+			return new PagedList<T>(new QueryPageLoader<T>(getDao(cls), columns, from.toString(), conditions, orderFields, orderDirection, ranked, partial,
+					searchIndex, searchResultId), PAGE_SIZE, CACHED_PAGES);
 		} catch (Exception e) {
 			LoggerFactory.log(Level.SEVERE, this, "Failed to execute query", e);
 			return new IteratorList<T>(new ArrayList<T>(0).iterator(), 0);
 		}
 	}
 
-	private <T> boolean isEmptyWhereClause(Where<T, T> where) {
-		return where.toString().equals("empty where clause");
+	/**
+	 * Get the select list for loading {@link EbookPropertyItem}s for the list view.
+	 */
+	private String getListViewColumns(List<Field> orderFields) {
+		Set<String> columns = new LinkedHashSet<>();
+		for(String column : LIST_VIEW_COLUMNS) {
+			columns.add("A." + column);
+		}
+		for(Field orderField : orderFields) {
+			columns.add("A." + orderField.getName());
+		}
+		return ListUtils.join(new ArrayList<>(columns), ", ");
 	}
 
-	private <T> int getRowCount(Iterator<T> iterator) throws ReflectionFailureException {
-		JdbcDatabaseResults results = (JdbcDatabaseResults) ReflectionUtils.getFieldValue(iterator, "results", false);
-		JdbcResultSet resultSet = (JdbcResultSet) ReflectionUtils.getFieldValue(results, "resultSet", false);
-		LocalResult localResult = (LocalResult) ReflectionUtils.getFieldValue(resultSet, "result", false);
-		return localResult.getRowCount();
+	private <T> boolean isEmptyWhereClause(Where<T, T> where) {
+		return where.toString().equals("empty where clause");
 	}
 
-	private void appendOrderFields(List<Field> orderFields, OrderDirection orderDirection, StringBuilder sql) {
-		if (!orderFields.isEmpty()) {
-			sql.append("ORDER BY ");
-			for (Field orderField : orderFields) {
-				sql.append("A.").append(orderField.getName()).append(" ").append(orderDirection.getDirectionString()).append(", ");
-			}
-			sql.setLength(sql.length() - 2);
-		}
-		sql.append(' ');
+	/**
+	 * Appends the {@link CatalogSearchIndex#SEARCH_FUNCTION} table function searching for the given keywords.
+	 * The hits are kept for the given result id, so counting and loading the pages did not search again.
+	 */
+	private void appendSearchIndexQueryTable(CatalogSearchIndex searchIndex, int resultId, List<String> keywords, StringBuilder sql) {
+		// only the quotes need to be escaped inside of a sql string literal.
+		String joinedKeywords = StringUtil.replace(CatalogSearchIndex.joinKeywords(keywords), "'", "''");
+		sql.append(", ").append(CatalogSearchIndex.SEARCH_FUNCTION).append("(").append(searchIndex.getId()).append(", ").append(resultId)
+				.append(", '").append(joinedKeywords).append("') B");
 	}
 
 	private boolean appendFulltextQueryTable(List<String> keywords, String tableName, StringBuilder sql) {
@@ -186,7 +223,8 @@ class H2DBManager extends DefaultDBManager {
 					keyword = keyword.substring(keyword.indexOf(':') + 1);
 				}
 				keyword = StringUtil.escapeSql(keyword);
-				sql.append("select * from FT_SEARCH_DATA('").append(keyword).append("', 0, 0) B where B.TABLE='").append(tableName).append("'");
+				// only the keys are selected, so the union drops the rows of a file matching more than one keyword.
+				sql.append("select KEYS from FT_SEARCH_DATA('").append(keyword).append("', 0, 0) B where B.TABLE='").append(tableName).append("'");
 			}
 			sql.append(") B");
 			return true;
@@ -224,4 +262,206 @@ class H2DBManager extends DefaultDBManager {
 		return false;
 	}
 
+	/**
+	 * Loads the pages of a query result. The pages are loaded with keyset pagination on the order columns
+	 * and the file column which makes the order unique. Search results ranked by their score have no
+	 * usable key and are loaded by their offset.
+	 */
+	private static class QueryPageLoader<T> implements PagedList.PageLoader<T>, Closeable {
+
+		private final Dao<T, T> dao;
+
+		private final String columns;
+
+		private final String from;
+
+		private final List<String> conditions;
+
+		private final List<Field> orderFields;
+
+		private final boolean descending;
+
+		private final boolean ranked;
+
+		private final boolean partial;
+
+		private final CatalogSearchIndex searchIndex;
+
+		private final int searchResultId;
+
+		QueryPageLoader(Dao<T, T> dao, String columns, String from, List<String> conditions, List<Field> orderFields, OrderDirection orderDirection,
+				boolean ranked, boolean partial, CatalogSearchIndex searchIndex, int searchResultId) {
+			this.dao = dao;
+			this.columns = columns;
+			this.from = from;
+			this.conditions = conditions;
+			this.orderFields = new ArrayList<>(orderFields);
+			this.descending = !orderDirection.isAscending();
+			this.ranked = ranked;
+			this.partial = partial;
+			this.searchIndex = searchIndex;
+			this.searchResultId = searchResultId;
+			for(Field orderField : this.orderFields) {
+				orderField.setAccessible(true);
+			}
+		}
+
+		/**
+		 * Drops the search hits kept for this query.
+		 */
+		@Override
+		public void close() {
+			if(searchIndex != null) {
+				searchIndex.releaseResult(searchResultId);
+			}
+		}
+
+		@Override
+		public int count() throws SQLException {
+			return (int) dao.queryRawValue("SELECT COUNT(*) FROM " + from + getWhereClause(conditions));
+		}
+
+		@Override
+		public List<T> load(Object[] afterKey, int offset, int limit) throws SQLException, IOException {
+			final List<String> pageConditions = new ArrayList<>(conditions);
+			final List<String> arguments = new ArrayList<>();
+			if(afterKey != null) {
+				pageConditions.add(getKeysetCondition(afterKey, arguments));
+			}
+
+			final StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM ").append(from).append(getWhereClause(pageConditions)).append(" ORDER BY ");
+			if(ranked) {
+				sql.append("B.SCORE DESC, A.FILE");
+			} else {
+				for(Field orderField : orderFields) {
+					sql.append("A.").append(orderField.getName()).append(descending ? " DESC NULLS LAST" : " NULLS FIRST").append(", ");
+				}
+				sql.append("A.FILE").append(descending ? " DESC" : EMPTY);
+			}
+			sql.append(" LIMIT ").append(limit);
+			if(afterKey == null && offset > 0) {
+				sql.append(" OFFSET ").append(offset);
+			}
+
+			try (GenericRawResults<T> results = dao.queryRaw(sql.toString(), dao.getRawRowMapper(), arguments.toArray(new String[arguments.size()]))) {
+				final List<T> items = results.getResults();
+				if(partial) {
+					loadDescriptionPreviews(items);
+				}
+				return items;
+			}
+		}
+
+		/**
+		 * Loads the beginning of the descriptions for the given items and marks them as partial.
+		 */
+		private void loadDescriptionPreviews(List<T> items) throws SQLException, IOException {
+			final Map<String, EbookPropertyItem> itemsByFile = new HashMap<>();
+			for(T item : items) {
+				EbookPropertyItem ebookPropertyItem = (EbookPropertyItem) item;
+				ebookPropertyItem.setPartial(true);
+				if(ebookPropertyItem.getDescription() == null) {
+					itemsByFile.put(ebookPropertyItem.getFile(), ebookPropertyItem);
+				}
+			}
+			if(itemsByFile.isEmpty()) {
+				return;
+			}
+
+			final StringBuilder sql = new StringBuilder("SELECT file, LEFT(description, ").append(LIST_VIEW_DESCRIPTION_LENGTH).append(") FROM ")
+					.append(EbookPropertyItem.class.getSimpleName().toUpperCase()).append(" WHERE description IS NOT NULL AND file IN (");
+			for(int i = 0; i < itemsByFile.size(); i++) {
+				sql.append(i > 0 ? ", ?" : "?");
+			}
+			sql.append(')');
+
+			try (GenericRawResults<String[]> results = dao.queryRaw(sql.toString(), itemsByFile.keySet().toArray(new String[itemsByFile.size()]))) {
+				for(String[] row : results) {
+					EbookPropertyItem item = itemsByFile.get(row[0]);
+					if(item != null) {
+						item.setDescription(row[1]);
+					}
+				}
+			}
+		}
+
+		@Override
+		public Object[] getKey(T element) {
+			if(ranked) {
+				return null;
+			}
+			final Object[] key = new Object[orderFields.size() + 1];
+			try {
+				for(int i = 0; i < orderFields.size(); i++) {
+					key[i] = getKeyValue(orderFields.get(i), orderFields.get(i).get(element));
+				}
+				key[key.length - 1] = ((EbookPropertyItem) element).getFile();
+			} catch (Exception e) {
+				LoggerFactory.log(Level.WARNING, this, "Failed to get the key of " + element, e);
+				return null;
+			}
+			return key;
+		}
+
+		/**
+		 * Creates the condition for all rows after the given key in the form
+		 * <code>(k1 &gt; ?) OR (k1 = ? AND k2 &gt; ?) OR ...</code>
+		 * <br><br>
+		 * <code>null</code> values of the order columns are the lowest ones like in the <code>ORDER BY</code> clause,
+		 * so they are compared with <code>IS NULL</code> and <code>IS NOT NULL</code>.
+		 */
+		private String getKeysetCondition(Object[] afterKey, List<String> arguments) {
+			final List<String> alternatives = new ArrayList<>();
+			for(int i = 0; i < afterKey.length; i++) {
+				final StringBuilder alternative = new StringBuilder("(");
+				final List<String> alternativeArguments = new ArrayList<>();
+				for(int j = 0; j < i; j++) {
+					alternative.append(getEqualCondition(getKeyColumn(j), afterKey[j], alternativeArguments)).append(" AND ");
+				}
+				final String afterCondition = getAfterCondition(getKeyColumn(i), afterKey[i], alternativeArguments);
+				if(afterCondition != null) {
+					alternatives.add(alternative.append(afterCondition).append(')').toString());
+					arguments.addAll(alternativeArguments);
+				}
+			}
+			return "(" + ListUtils.join(alternatives, " OR ") + ")";
+		}
+
+		private String getEqualCondition(String column, Object value, List<String> arguments) {
+			if(value == null) {
+				return column + " IS NULL";
+			}
+			arguments.add(StringUtil.toString(value));
+			return column + " = ?";
+		}
+
+		/**
+		 * @return The condition for the values following the given one or <code>null</code> if no value follows it.
+		 */
+		private String getAfterCondition(String column, Object value, List<String> arguments) {
+			if(value == null) {
+				return descending ? null : column + " IS NOT NULL";
+			}
+			arguments.add(StringUtil.toString(value));
+			return descending ? "(" + column + " < ? OR " + column + " IS NULL)" : column + " > ?";
+		}
+
+		private String getKeyColumn(int keyIndex) {
+			return keyIndex < orderFields.size() ? "A." + orderFields.get(keyIndex).getName() : "A.FILE";
+		}
+
+		private static Object getKeyValue(Field orderField, Object value) {
+			if(value != null && Date.class.isAssignableFrom(orderField.getType())) {
+				return new Timestamp(((Date) value).getTime()).toString();
+			}
+			return value;
+		}
+
+		private static String getWhereClause(List<String> conditions) {
+			if(conditions.isEmpty()) {
+				return EMPTY;
+			}
+			return " WHERE " + ListUtils.join(conditions, " AND ");
+		}
+	}
 }
@@ -0,0 +1,67 @@
+package org.rr.jeborker.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the number and the execution time of a database lookup.
+ */
+public class QueryLatencyCounter {
+
+	private final String name;
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	QueryLatencyCounter(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Adds one lookup which started at the given {@link System#nanoTime()}.
+	 * @param startNanos The {@link System#nanoTime()} value taken before the lookup was started.
+	 */
+	void add(long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+
+		long max;
+		while((max = maxNanos.get()) < nanos && !maxNanos.compareAndSet(max, nanos)) {
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The number of lookups measured by this {@link QueryLatencyCounter}.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return The average lookup time in microseconds.
+	 */
+	public long getAverageMicros() {
+		long c = count.get();
+		return c == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / c);
+	}
+
+	/**
+	 * @return The longest lookup time in microseconds.
+	 */
+	public long getMaxMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + getCount() + " lookups, avg " + getAverageMicros() + "us, max " + getMaxMicros() + "us";
+	}
+}
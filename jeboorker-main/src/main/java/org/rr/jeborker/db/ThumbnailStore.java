@@ -0,0 +1,696 @@
+package org.rr.jeborker.db;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import org.rr.commons.log.LoggerFactory;
+import org.rr.jeborker.Jeboorker;
+import org.rr.jeborker.app.preferences.APreferenceStore;
+
+/**
+ * Stores the cover thumbnails of all ebooks in one append only data file instead of one file per ebook.
+ * Each record in the data file contains the hash of the ebook path, the time the thumbnail was stored and
+ * the thumbnail bytes. An in memory index maps the path hash to the position of the newest record, so
+ * looking up a thumbnail needs no file system access and the bytes are read from a {@link MappedByteBuffer}.
+ * <br><br>
+ * Replaced and removed thumbnails stay in the data file until the store gets compacted in the background.
+ * The compaction copies all live records into a temporary file which becomes the new data file generation
+ * when it's complete. The index is written to a separate file with {@link #close()} and after each compaction.
+ * Records which have been appended after the index was written are recovered by scanning the end of the data
+ * file at startup.
+ */
+public class ThumbnailStore implements Closeable {
+
+	private static final int RECORD_MAGIC = 0x4A425448;
+
+	private static final int INDEX_MAGIC = 0x4A424958;
+
+	private static final int INDEX_VERSION = 1;
+
+	/** Record header with magic, path hash, modification time and data length. */
+	private static final int RECORD_HEADER_SIZE = 4 + 8 + 8 + 4;
+
+	/** Index file entry with path hash, offset, length and modification time. */
+	private static final int INDEX_ENTRY_SIZE = 8 + 8 + 4 + 8;
+
+	/** Length of a record which marks a removed thumbnail. */
+	private static final int TOMBSTONE = -1;
+
+	/** Minimum number of unused bytes in the data file before a compaction gets started. */
+	private static final long MIN_COMPACTION_GARBAGE = 4 * 1024 * 1024;
+
+	private static final String DATA_FILE_PREFIX = "thumbs-";
+
+	private static final String DATA_FILE_SUFFIX = ".dat";
+
+	/** Suffix of the data file which is written by a running compaction. */
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	/** Size of the data file which can be appended before the whole file gets mapped again. */
+	private static final long REMAP_SIZE = 16 * 1024 * 1024;
+
+	private static final String INDEX_FILE = "thumbs.idx";
+
+	/** The folder where the thumbnails have been stored as single files by earlier versions. */
+	private static final String LEGACY_THUMBNAIL_FOLDER = "thumbs";
+
+	private static ThumbnailStore instance;
+
+	private final File directory;
+
+	private final ConcurrentHashMap<Long, Entry> index = new ConcurrentHashMap<>();
+
+	private final Object writeLock = new Object();
+
+	private volatile DataFile dataFile;
+
+	/** Number of bytes in the current data file not used by any live record. */
+	private long garbage;
+
+	private boolean compacting;
+
+	/** The folder with the thumbnails of earlier versions while they are migrated into the store. */
+	private volatile File migrationFolder;
+
+	public static synchronized ThumbnailStore getInstance() {
+		if(instance == null) {
+			String configDirectory = APreferenceStore.getConfigDirectory();
+			try {
+				instance = new ThumbnailStore(new File(configDirectory));
+				File legacyFolder = new File(configDirectory, LEGACY_THUMBNAIL_FOLDER);
+				if(legacyFolder.isDirectory()) {
+					instance.migrate(legacyFolder);
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Could not open thumbnail store in " + configDirectory, e);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Opens the thumbnail store in the given directory. A new and empty store is created if
+	 * there is no store in the given directory.
+	 * @param directory The directory containing the store files.
+	 * @throws IOException
+	 */
+	public ThumbnailStore(File directory) throws IOException {
+		this.directory = directory;
+		open();
+	}
+
+	/**
+	 * Get the thumbnail stored for the given ebook path.
+	 * @param path The path of the ebook.
+	 * @return The thumbnail bytes or <code>null</code> if no thumbnail is stored for the given path.
+	 * @throws IOException
+	 */
+	public byte[] get(String path) throws IOException {
+		final Long key = getKey(path);
+		for(int retry = 0; ; retry++) {
+			Entry entry = index.get(key);
+			if(entry == null) {
+				return getLegacyThumbnail(path);
+			}
+			try {
+				return entry.dataFile.read(entry.offset, entry.length);
+			} catch(ClosedChannelException e) {
+				// the data file has been replaced by a compaction, try again with the new index entry
+				if(retry > 0) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the time when the thumbnail for the given ebook path has been stored.
+	 * @param path The path of the ebook.
+	 * @return The modification time in milliseconds or <code>0</code> if no thumbnail is stored for the given path.
+	 */
+	public long getModifiedAt(String path) {
+		Entry entry = index.get(getKey(path));
+		if(entry == null) {
+			File legacyFile = getLegacyFile(path);
+			return legacyFile != null ? legacyFile.lastModified() : 0;
+		}
+		return entry.modifiedAt;
+	}
+
+	/**
+	 * Stores the given thumbnail for the given ebook path. A previously stored thumbnail gets replaced.
+	 * @param path The path of the ebook.
+	 * @param data The thumbnail bytes.
+	 * @throws IOException
+	 */
+	public void put(String path, byte[] data) throws IOException {
+		final Long key = getKey(path);
+		synchronized(writeLock) {
+			Entry old = index.get(key);
+			// the modification time must change with each stored thumbnail, it's used to invalidate cached images.
+			long modifiedAt = Math.max(System.currentTimeMillis(), old != null ? old.modifiedAt + 1 : 0);
+			append(key, modifiedAt, data);
+		}
+	}
+
+	/**
+	 * Removes the thumbnail for the given ebook path.
+	 * @param path The path of the ebook.
+	 * @throws IOException
+	 */
+	public void remove(String path) throws IOException {
+		final Long key = getKey(path);
+		synchronized(writeLock) {
+			File legacyFile = getLegacyFile(path);
+			if(legacyFile != null) {
+				legacyFile.delete();
+			}
+			if(index.containsKey(key)) {
+				append(key, 0, null);
+			}
+		}
+	}
+
+	/**
+	 * Moves the thumbnail stored for the source path to the target path.
+	 * @param sourcePath The path of the ebook where the thumbnail is stored for.
+	 * @param targetPath The new path of the ebook.
+	 * @throws IOException
+	 */
+	public void rename(String sourcePath, String targetPath) throws IOException {
+		synchronized(writeLock) {
+			byte[] data = get(sourcePath);
+			if(data != null) {
+				put(targetPath, data);
+				remove(sourcePath);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of stored thumbnails.
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Imports the thumbnails stored as single files in the given folder in the background. Until the import is
+	 * finished, thumbnails which are not yet imported are read from the folder.
+	 * @param folder The folder containing the thumbnail files.
+	 * @return The future of the import.
+	 */
+	Future<?> migrate(final File folder) {
+		migrationFolder = folder;
+		return Jeboorker.APPLICATION_THREAD_POOL.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					int imported = importFolder(folder);
+					LoggerFactory.log(Level.INFO, ThumbnailStore.this, "Migrated " + imported + " thumbnails from " + folder);
+				} catch (Exception e) {
+					LoggerFactory.getLogger(ThumbnailStore.this).log(Level.WARNING, "Failed to migrate thumbnails from " + folder, e);
+				} finally {
+					migrationFolder = null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Imports all thumbnails stored as single files in the given folder. The file names are the name based
+	 * {@link UUID} of the ebook path. Imported files and the folder itself are deleted. The write lock is taken
+	 * for each file, so thumbnails could be stored while the import is running.
+	 * @param folder The folder containing the thumbnail files.
+	 * @return The number of imported thumbnails.
+	 * @throws IOException
+	 */
+	int importFolder(File folder) throws IOException {
+		int imported = 0;
+		File[] files = folder.listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().endsWith(".jpg");
+			}
+		});
+
+		if(files != null) {
+			for(File file : files) {
+				try {
+					Long key = getKey(UUID.fromString(file.getName().substring(0, file.getName().length() - 4)));
+					synchronized(writeLock) {
+						if(!index.containsKey(key) && file.isFile()) {
+							append(key, file.lastModified(), Files.readAllBytes(file.toPath()));
+							imported++;
+						}
+						file.delete();
+					}
+				} catch(IllegalArgumentException e) {
+					LoggerFactory.getLogger(this).log(Level.WARNING, "Skip unknown thumbnail file " + file);
+				}
+			}
+		}
+		folder.delete();
+		return imported;
+	}
+
+	/**
+	 * Get the not yet migrated thumbnail file of an earlier version for the given ebook path.
+	 * @return The thumbnail file or <code>null</code> if there is no such file or no migration is running.
+	 */
+	private File getLegacyFile(String path) {
+		final File folder = migrationFolder;
+		if(folder != null) {
+			File file = new File(folder, UUID.nameUUIDFromBytes(path.getBytes()).toString() + ".jpg");
+			if(file.isFile()) {
+				return file;
+			}
+		}
+		return null;
+	}
+
+	private byte[] getLegacyThumbnail(String path) throws IOException {
+		final File legacyFile = getLegacyFile(path);
+		if(legacyFile != null) {
+			try {
+				return Files.readAllBytes(legacyFile.toPath());
+			} catch(NoSuchFileException e) {
+				// migrated in the meantime
+				final Entry entry = index.get(getKey(path));
+				return entry != null ? entry.dataFile.read(entry.offset, entry.length) : null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the index file and closes the data file. The store could not be used after it has been closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized(writeLock) {
+			writeIndex();
+			dataFile.close();
+		}
+	}
+
+	/**
+	 * Copies all live records into a new data file and removes the old one.
+	 * @throws IOException
+	 */
+	public void compact() throws IOException {
+		synchronized(writeLock) {
+			if(compacting) {
+				return;
+			}
+			compacting = true;
+		}
+		runCompaction();
+	}
+
+	private void runCompaction() throws IOException {
+		try {
+			final DataFile source = dataFile;
+			final Map<Long, Entry> snapshot = new HashMap<>(index);
+			final File tempFile = getTempFile(source.generation + 1);
+			Files.deleteIfExists(tempFile.toPath());
+			final DataFile target = new DataFile(tempFile, source.generation + 1);
+
+			// copy without blocking writers. Records added in the meantime are copied after that.
+			final Map<Long, Entry> copied = new HashMap<>(snapshot.size());
+			for(Map.Entry<Long, Entry> entry : snapshot.entrySet()) {
+				copied.put(entry.getKey(), copy(entry.getKey(), entry.getValue(), target));
+			}
+
+			synchronized(writeLock) {
+				final Map<Long, Entry> newIndex = new HashMap<>(index.size());
+				long liveBytes = 0;
+				for(Map.Entry<Long, Entry> entry : index.entrySet()) {
+					Entry copy = copied.get(entry.getKey());
+					if(copy == null || snapshot.get(entry.getKey()) != entry.getValue()) {
+						copy = copy(entry.getKey(), entry.getValue(), target);
+					}
+					newIndex.put(entry.getKey(), copy);
+					liveBytes += RECORD_HEADER_SIZE + copy.length;
+				}
+
+				// the new generation gets it's final name only if it's complete, so a generation found at startup is never half written.
+				target.close();
+				final File targetFile = getDataFile(target.generation);
+				Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				final DataFile newDataFile = new DataFile(targetFile, target.generation);
+				for(Map.Entry<Long, Entry> entry : newIndex.entrySet()) {
+					Entry copy = entry.getValue();
+					entry.setValue(new Entry(newDataFile, copy.offset, copy.length, copy.modifiedAt));
+				}
+
+				dataFile = newDataFile;
+				index.putAll(newIndex);
+				garbage = newDataFile.size - liveBytes;
+				writeIndex();
+			}
+
+			source.close();
+			if(!source.file.delete()) {
+				// mapped files could not be deleted on some platforms. It's removed with the next start.
+				source.file.deleteOnExit();
+			}
+			LoggerFactory.log(Level.INFO, this, "Compacted thumbnail store from " + source.size + " to " + target.size + " bytes");
+		} finally {
+			synchronized(writeLock) {
+				compacting = false;
+			}
+		}
+	}
+
+	/**
+	 * Appends a record to the current data file and updates the index. Must be invoked with the write lock.
+	 * @param data The thumbnail bytes or <code>null</code> to remove the thumbnail.
+	 */
+	private void append(Long key, long modifiedAt, byte[] data) throws IOException {
+		final DataFile file = dataFile;
+		final long offset = file.append(key, modifiedAt, data);
+		final Entry old;
+		if(data != null) {
+			old = index.put(key, new Entry(file, offset, data.length, modifiedAt));
+		} else {
+			old = index.remove(key);
+			garbage += RECORD_HEADER_SIZE;
+		}
+		if(old != null) {
+			garbage += RECORD_HEADER_SIZE + old.length;
+		}
+
+		if(!compacting && garbage > MIN_COMPACTION_GARBAGE && garbage > file.size / 2) {
+			compacting = true;
+			Jeboorker.APPLICATION_THREAD_POOL.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						runCompaction();
+					} catch (Exception e) {
+						LoggerFactory.getLogger(ThumbnailStore.this).log(Level.WARNING, "Failed to compact thumbnail store", e);
+					}
+				}
+			});
+		}
+	}
+
+	private Entry copy(Long key, Entry entry, DataFile target) throws IOException {
+		final byte[] data = entry.dataFile.read(entry.offset, entry.length);
+		return new Entry(target, target.append(key, entry.modifiedAt, data), entry.length, entry.modifiedAt);
+	}
+
+	/**
+	 * Loads the index file and recovers all records appended after the index file has been written.
+	 */
+	private void open() throws IOException {
+		final File indexFile = new File(directory, INDEX_FILE);
+		long indexedSize = 0;
+		int generation = findLatestGeneration();
+		if(indexFile.isFile()) {
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+				if(buffer.getInt() == INDEX_MAGIC && buffer.getInt() == INDEX_VERSION) {
+					int indexGeneration = buffer.getInt();
+					if(getDataFile(indexGeneration).isFile()) {
+						generation = indexGeneration;
+						indexedSize = buffer.getLong();
+						dataFile = new DataFile(getDataFile(generation), generation);
+						int count = buffer.getInt();
+						for(int i = 0; i < count; i++) {
+							index.put(buffer.getLong(), new Entry(dataFile, buffer.getLong(), buffer.getInt(), buffer.getLong()));
+						}
+					}
+				}
+			} catch(RuntimeException e) {
+				LoggerFactory.getLogger(this).log(Level.WARNING, "Ignoring broken thumbnail index " + indexFile, e);
+				index.clear();
+				indexedSize = 0;
+			}
+		}
+
+		if(dataFile == null) {
+			dataFile = new DataFile(getDataFile(generation), generation);
+		} else if(indexedSize > dataFile.size) {
+			index.clear();
+			indexedSize = 0;
+		}
+		scan(indexedSize);
+		deleteOtherGenerations(generation);
+
+		long liveBytes = 0;
+		for(Entry entry : index.values()) {
+			liveBytes += RECORD_HEADER_SIZE + entry.length;
+		}
+		garbage = dataFile.size - liveBytes;
+	}
+
+	/**
+	 * Reads all records of the current data file starting at the given position into the index.
+	 * A broken record at the end of the file, left by an abnormal termination, gets truncated.
+	 */
+	private void scan(long position) throws IOException {
+		final FileChannel channel = dataFile.channel;
+		final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		final long size = channel.size();
+		while(position < size) {
+			header.clear();
+			if(channel.read(header, position) < RECORD_HEADER_SIZE || header.getInt(0) != RECORD_MAGIC) {
+				break;
+			}
+			long key = header.getLong(4);
+			long modifiedAt = header.getLong(12);
+			int length = header.getInt(20);
+			long offset = position + RECORD_HEADER_SIZE;
+			if(length == TOMBSTONE) {
+				index.remove(key);
+				position = offset;
+			} else if(length >= 0 && offset + length <= size) {
+				index.put(key, new Entry(dataFile, offset, length, modifiedAt));
+				position = offset + length;
+			} else {
+				break;
+			}
+		}
+
+		if(position < size) {
+			LoggerFactory.getLogger(this).log(Level.WARNING, "Truncate broken thumbnail data at " + position + " in " + dataFile.file);
+			channel.truncate(position);
+		}
+		dataFile.size = position;
+	}
+
+	/**
+	 * Writes the index to the index file. Must be invoked with the write lock.
+	 */
+	private void writeIndex() throws IOException {
+		final Map<Long, Entry> entries = new HashMap<>(index);
+		final ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 4 + 8 + 4 + entries.size() * INDEX_ENTRY_SIZE);
+		buffer.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putInt(dataFile.generation).putLong(dataFile.size).putInt(entries.size());
+		for(Map.Entry<Long, Entry> entry : entries.entrySet()) {
+			Entry value = entry.getValue();
+			buffer.putLong(entry.getKey()).putLong(value.offset).putInt(value.length).putLong(value.modifiedAt);
+		}
+
+		final File indexFile = new File(directory, INDEX_FILE);
+		final File tempFile = new File(directory, INDEX_FILE + ".tmp");
+		Files.write(tempFile.toPath(), buffer.array());
+		Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private int findLatestGeneration() {
+		int generation = 0;
+		for(File file : getDataFiles()) {
+			generation = Math.max(generation, getGeneration(file));
+		}
+		return generation;
+	}
+
+	private void deleteOtherGenerations(int generation) {
+		for(File file : getDataFiles()) {
+			if(getGeneration(file) != generation) {
+				file.delete();
+			}
+		}
+
+		// left by a compaction which has not been finished
+		File[] tempFiles = directory.listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept(File file) {
+				return file.getName().startsWith(DATA_FILE_PREFIX) && file.getName().endsWith(DATA_FILE_SUFFIX + TEMP_FILE_SUFFIX);
+			}
+		});
+		if(tempFiles != null) {
+			for(File file : tempFiles) {
+				file.delete();
+			}
+		}
+	}
+
+	private File[] getDataFiles() {
+		File[] files = directory.listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept(File file) {
+				return file.getName().startsWith(DATA_FILE_PREFIX) && file.getName().endsWith(DATA_FILE_SUFFIX) && getGeneration(file) >= 0;
+			}
+		});
+		return files != null ? files : new File[0];
+	}
+
+	private static int getGeneration(File dataFile) {
+		String name = dataFile.getName();
+		try {
+			return Integer.parseInt(name.substring(DATA_FILE_PREFIX.length(), name.length() - DATA_FILE_SUFFIX.length()));
+		} catch(NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private File getDataFile(int generation) {
+		return new File(directory, DATA_FILE_PREFIX + generation + DATA_FILE_SUFFIX);
+	}
+
+	private File getTempFile(int generation) {
+		return new File(directory, DATA_FILE_PREFIX + generation + DATA_FILE_SUFFIX + TEMP_FILE_SUFFIX);
+	}
+
+	/**
+	 * Get the index key for the given ebook path. The key is derived from the same name based {@link UUID}
+	 * which has been used as file name for the thumbnails by earlier versions.
+	 */
+	private static Long getKey(String path) {
+		return getKey(UUID.nameUUIDFromBytes(path.getBytes()));
+	}
+
+	private static Long getKey(UUID uuid) {
+		return Long.valueOf(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits());
+	}
+
+	private static class Entry {
+
+		private final DataFile dataFile;
+
+		private final long offset;
+
+		private final int length;
+
+		private final long modifiedAt;
+
+		Entry(DataFile dataFile, long offset, int length, long modifiedAt) {
+			this.dataFile = dataFile;
+			this.offset = offset;
+			this.length = length;
+			this.modifiedAt = modifiedAt;
+		}
+	}
+
+	private static class DataFile implements Closeable {
+
+		private final File file;
+
+		private final int generation;
+
+		private final FileChannel channel;
+
+		/** The end of the last record. Only modified with the write lock. */
+		private volatile long size;
+
+		private volatile MappedByteBuffer mapped;
+
+		DataFile(File file, int generation) throws IOException {
+			this.file = file;
+			this.generation = generation;
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.size = channel.size();
+		}
+
+		/**
+		 * Appends a record at the end of the data file.
+		 * @return The offset of the record data.
+		 */
+		long append(long key, long modifiedAt, byte[] data) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + (data != null ? data.length : 0));
+			buffer.putInt(RECORD_MAGIC).putLong(key).putLong(modifiedAt).putInt(data != null ? data.length : TOMBSTONE);
+			if(data != null) {
+				buffer.put(data);
+			}
+			buffer.flip();
+
+			final long position = size;
+			while(buffer.hasRemaining()) {
+				channel.write(buffer, position + buffer.position());
+			}
+			size = position + buffer.limit();
+			return position + RECORD_HEADER_SIZE;
+		}
+
+		/**
+		 * Reads the given record data. Records within the mapped part of the file are read from the mapping, records
+		 * appended after the file has been mapped are read from the channel. The file is only mapped again if more than
+		 * {@link #REMAP_SIZE} bytes have been appended, so reading recently stored thumbnails did not map the file each time.
+		 */
+		byte[] read(long offset, int length) throws IOException {
+			final byte[] result = new byte[length];
+			MappedByteBuffer buffer = mapped;
+			if((buffer == null || buffer.capacity() < offset + length) && offset + length <= Integer.MAX_VALUE) {
+				buffer = remap();
+			}
+
+			if(buffer != null && buffer.capacity() >= offset + length) {
+				ByteBuffer view = buffer.duplicate();
+				view.position((int) offset);
+				view.get(result);
+			} else {
+				ByteBuffer target = ByteBuffer.wrap(result);
+				while(target.hasRemaining()) {
+					if(channel.read(target, offset + target.position()) < 0) {
+						throw new EOFException("Unexpected end of thumbnail data at " + (offset + target.position()) + " in " + file);
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Maps the data file if it's not mapped yet or maps it again if the unmapped part at the end of the file
+		 * got larger than {@link #REMAP_SIZE}.
+		 * @return The current mapping which could be <code>null</code> or smaller than the file.
+		 */
+		private synchronized MappedByteBuffer remap() throws IOException {
+			final long mappedSize = mapped != null ? mapped.capacity() : 0;
+			if((mapped == null && size > 0) || (mappedSize < Integer.MAX_VALUE && size - mappedSize > REMAP_SIZE)) {
+				mapped = channel.map(MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+			}
+			return mapped;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
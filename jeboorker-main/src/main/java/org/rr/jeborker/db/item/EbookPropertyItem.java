@@ -194,6 +194,11 @@ public class EbookPropertyItem implements IDBObject, Serializable {
 	@DatabaseField(index = true)
 	private long timestamp = 0l;
 	
+	/**
+	 * Tells if only the columns needed to display this item in the list view have been loaded.
+	 */
+	private transient boolean partial = false;
+	
 	public EbookPropertyItem() {
 		super();
 	}
@@ -468,4 +473,16 @@ public class EbookPropertyItem implements IDBObject, Serializable {
 	public void setTimestamp(long timestamp) {
 		this.timestamp = timestamp;
 	}
+
+	/**
+	 * Tells if only the columns needed to display this item in the list view have been loaded.
+	 * Such an item must be reloaded before it's used for anything else.
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
+	public void setPartial(boolean partial) {
+		this.partial = partial;
+	}
 }
@@ -3,25 +3,31 @@ package org.rr.jeborker.db.item;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 
-import org.apache.jempbox.xmp.Thumbnail;
 import org.rr.commons.collection.TransformValueList;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.mufs.MimeUtils;
 import org.rr.commons.mufs.ResourceHandlerFactory;
+import org.rr.commons.utils.CommonUtils;
 import org.rr.commons.utils.ListUtils;
+import org.rr.commons.utils.ReflectionUtils;
+import org.rr.commons.utils.StringUtil;
 import org.rr.jeborker.app.BasePathList;
-import org.rr.jeborker.app.preferences.APreferenceStore;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
 import org.rr.jeborker.db.DefaultDBManager;
+import org.rr.jeborker.db.ThumbnailStore;
 import org.rr.jeborker.gui.MainController;
 import org.rr.jeborker.metadata.IMetadataReader;
 import org.rr.jeborker.metadata.MetadataHandlerFactory;
@@ -30,20 +36,15 @@ import org.rr.pm.image.IImageProvider;
 import org.rr.pm.image.ImageProviderFactory;
 import org.rr.pm.image.ImageUtils;
 
+import com.j256.ormlite.field.DatabaseField;
+
 public class EbookPropertyItemUtils {
 
 	private static final String ALL_BOOK_PATH_COLLECTION = "allBookPathCollection";
-	private static final String thumbnailFolder = APreferenceStore.getConfigDirectory() + "thumbs/";
-	static {
-		IResourceHandler thumbnailFolderResource = ResourceHandlerFactory.getResourceHandler(thumbnailFolder);
-		if(!thumbnailFolderResource.exists()) {
-			try {
-				thumbnailFolderResource.mkdirs();
-			} catch (IOException e) {
-				LoggerFactory.getLogger().log(Level.SEVERE, "Could not create thumbnail folder " + thumbnailFolder, e);
-			}
-		}
-	}
+	private static final int FILE_QUERY_CHUNK_SIZE = 100;
+
+	/** Height of the cover thumbnails stored for the ebooks. */
+	private static final int THUMBNAIL_HEIGHT = 100;
 
 	/**
 	 * Reloads the given item from the database.
@@ -78,6 +79,79 @@ public class EbookPropertyItemUtils {
 		return defaultDBManager.getObject(EbookPropertyItem.class, "file", resourceLoader.toString());
 	}
 	
+	/**
+	 * Get the {@link EbookPropertyItem}s for the given files. The items are fetched with one query for
+	 * each {@value #FILE_QUERY_CHUNK_SIZE} files.
+	 * @param files The files of the items to be fetched.
+	 * @return The items found in the database mapped by their file. Never returns <code>null</code>.
+	 */
+	public static Map<String, EbookPropertyItem> getEbookPropertyItemsByFile(List<String> files) {
+		final Map<String, EbookPropertyItem> result = new HashMap<>(files.size());
+		final DefaultDBManager defaultDBManager = DefaultDBManager.getInstance();
+		for(int i = 0; i < files.size(); i += FILE_QUERY_CHUNK_SIZE) {
+			// always use the same number of values so the prepared query can be reused.
+			final String[] chunk = new String[FILE_QUERY_CHUNK_SIZE];
+			for(int j = 0; j < chunk.length; j++) {
+				chunk[j] = files.get(Math.min(i + j, files.size() - 1));
+			}
+			for(EbookPropertyItem item : defaultDBManager.getObject(EbookPropertyItem.class, "file", chunk)) {
+				result.put(item.getFile(), item);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Completely loads the given partial items which are only loaded for the list view. The items are fetched
+	 * with one query for each {@value #FILE_QUERY_CHUNK_SIZE} items and their values are copied into the given items.
+	 * Items which could not be loaded stay partial.
+	 * @param items The items to be loaded.
+	 */
+	public static void reloadPartialEbookPropertyItems(List<EbookPropertyItem> items) {
+		final List<String> files = new ArrayList<>(items.size());
+		for(EbookPropertyItem item : items) {
+			if(item != null && item.isPartial()) {
+				files.add(item.getFile());
+			}
+		}
+		if(files.isEmpty()) {
+			return;
+		}
+
+		final Map<String, EbookPropertyItem> loadedItems = getEbookPropertyItemsByFile(files);
+		final List<Field> databaseFields = ReflectionUtils.getFieldsByAnnotation(DatabaseField.class, EbookPropertyItem.class);
+		for(EbookPropertyItem item : items) {
+			final EbookPropertyItem loadedItem = item != null && item.isPartial() ? loadedItems.get(item.getFile()) : null;
+			if(loadedItem != null) {
+				try {
+					for(Field field : databaseFields) {
+						field.setAccessible(true);
+						field.set(item, field.get(loadedItem));
+					}
+					item.setPartial(false);
+				} catch (IllegalAccessException e) {
+					LoggerFactory.getLogger(EbookPropertyItemUtils.class).log(Level.WARNING, "Failed to load " + item.getFile(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fetches the file and timestamp of all {@link EbookPropertyItem}s below the given base path with one single query.
+	 * @param basePath The base path of the items to be fetched.
+	 * @return The timestamps of all items mapped by their file. Never returns <code>null</code>.
+	 */
+	public static Map<String, Long> fetchFileTimestamps(String basePath) {
+		final String trimmedPath = StringUtil.stripTrailing(basePath, File.separatorChar);
+		final List<String[]> columns = DefaultDBManager.getInstance().getColumns(EbookPropertyItem.class, new String[] {"file", "timestamp"},
+				"basePath", trimmedPath, trimmedPath + File.separator);
+		final Map<String, Long> result = new HashMap<>(columns.size());
+		for(String[] column : columns) {
+			result.put(column[0], CommonUtils.toNumber(column[1]).longValue());
+		}
+		return result;
+	}
+
 	/**
 	 * Creates a new {@link EbookPropertyItem} from the given resource but without any setup excepting the resource file name.
 	 *  
@@ -98,6 +172,21 @@ public class EbookPropertyItemUtils {
 	 * @return The newly created {@link EbookPropertyItem}.
 	 */
 	public static EbookPropertyItem createEbookPropertyItem(final IResourceHandler resource, final IResourceHandler topLevelBaseFolder) {
+		final EbookPropertyItem item = createBasicEbookPropertyItem(resource, topLevelBaseFolder);
+		refreshEbookPropertyItem(item, resource, true);
+
+		return item;
+	}
+
+	/**
+	 * Creates a new {@link EbookPropertyItem} from the given resource with all file based values but
+	 * without reading the metadata from the ebook file.
+	 *
+	 * @param resource The resource where the {@link EbookPropertyItem} should be created from.
+	 * @param topLevelBaseFolder The base folder where the {@link EbookPropertyItem} is located at.
+	 * @return The newly created {@link EbookPropertyItem}.
+	 */
+	public static EbookPropertyItem createBasicEbookPropertyItem(final IResourceHandler resource, final IResourceHandler topLevelBaseFolder) {
 		final EbookPropertyItem item = createBasicEbookPropertyItem(resource);
 		item.setCreatedAt(new Date());
 		if(topLevelBaseFolder != null) {
@@ -105,8 +194,6 @@ public class EbookPropertyItemUtils {
 		}
 		item.setMimeType(resource.getMimeType(false));
 		item.setTimestamp(resource.getModifiedAt().getTime());
-		refreshEbookPropertyItem(item, resource, true);
-
 		return item;
 	}
 
@@ -120,29 +207,38 @@ public class EbookPropertyItemUtils {
 			resource = ResourceHandlerFactory.getResourceHandler(item.getFile());
 		}
 
+		byte[] coverData = readEbookPropertyItemMetadata(item, resource);
+		if(refreshCover) {
+			setupCoverData(item, coverData);
+		}
+	}
+
+	/**
+	 * Reads the metadata of the given resource into the given {@link EbookPropertyItem}. The cover thumbnail
+	 * is not touched. It can be created later from the returned cover bytes with {@link #setupCoverData(EbookPropertyItem, byte[])}.
+	 * @param item The item to be filled with the metadata.
+	 * @param resource The resource file for the {@link EbookPropertyItem}.
+	 * @return The cover bytes of the ebook or <code>null</code> if the ebook did not provide a cover.
+	 */
+	public static byte[] readEbookPropertyItemMetadata(final EbookPropertyItem item, final IResourceHandler resource) {
+		byte[] coverData = null;
 		IMetadataReader reader = MetadataHandlerFactory.getReader(resource);
 		if(reader != null) {
 			final List<MetadataProperty> metadataProperties = reader.readMetadata();
 			reader.fillEbookPropertyItem(metadataProperties, item);
-			if(refreshCover) {
-				boolean refreshed = false;
-				List<MetadataProperty> metadataByType = reader.getMetadataByType(false, metadataProperties, IMetadataReader.COMMON_METADATA_TYPES.COVER);
-				if(metadataByType != null && !metadataByType.isEmpty()) {
-					MetadataProperty metadataProperty = metadataByType.get(0);
-					if(metadataProperty.getValues() != null && !metadataProperty.getValues().isEmpty()) {
-						Object value = metadataProperty.getValues().get(0);
-						if(value instanceof byte[]) {
-							setupCoverData(item, (byte[]) value);
-							refreshed = true;
-						}
+			List<MetadataProperty> metadataByType = reader.getMetadataByType(false, metadataProperties, IMetadataReader.COMMON_METADATA_TYPES.COVER);
+			if(metadataByType != null && !metadataByType.isEmpty()) {
+				MetadataProperty metadataProperty = metadataByType.get(0);
+				if(metadataProperty.getValues() != null && !metadataProperty.getValues().isEmpty()) {
+					Object value = metadataProperty.getValues().get(0);
+					if(value instanceof byte[]) {
+						coverData = (byte[]) value;
 					}
 				}
-				if(!refreshed) {
-					setupCoverData(item, null);
-				}
 			}
 			item.setTimestamp(resource.getModifiedAt().getTime());
 		}
+		return coverData;
 	}
 
 	/**
@@ -159,7 +255,8 @@ public class EbookPropertyItemUtils {
 			if(imageData != null && imageData.length > 0) {
 				IImageProvider imageProvider = ImageProviderFactory.getImageProvider(ResourceHandlerFactory.getVirtualResourceHandler(UUID.randomUUID().toString(), imageData));
 				if(imageProvider != null) {
-					BufferedImage thumbnailImage = ImageUtils.scaleToHeight(imageProvider.getImage(), 100);
+					// twice the thumbnail height keeps enough detail of the subsampled cover for the scaling and cropping.
+					BufferedImage thumbnailImage = ImageUtils.scaleToHeight(imageProvider.getImage(THUMBNAIL_HEIGHT * 2), THUMBNAIL_HEIGHT);
 
 					//much faster cropping the thumbnail than the original sized cover image.
 					BufferedImage cropedImage = ImageUtils.crop(thumbnailImage);
@@ -187,10 +284,7 @@ public class EbookPropertyItemUtils {
 	 * @throws IOException
 	 */
 	public static void deleteCoverThumbnail(final IResourceHandler ebookResource) throws IOException {
-		IResourceHandler thumbnailResourceLoader = getCoverThumbnailResourceHandler(ebookResource);
-		if(thumbnailResourceLoader.exists()) {
-			thumbnailResourceLoader.delete();
-		}
+		ThumbnailStore.getInstance().remove(ebookResource.toString());
 	}
 
 	/**
@@ -201,8 +295,7 @@ public class EbookPropertyItemUtils {
 	 */
 	private static void setCoverThumbnail(byte[] thumbnailData, IResourceHandler ebookResource) throws IOException {
 		if(thumbnailData != null && thumbnailData.length != 0) {
-			IResourceHandler thumbnailResourceLoader = getCoverThumbnailResourceHandler(ebookResource);
-			thumbnailResourceLoader.setContent(thumbnailData);
+			ThumbnailStore.getInstance().put(ebookResource.toString(), thumbnailData);
 		}
 	}
 
@@ -212,39 +305,21 @@ public class EbookPropertyItemUtils {
 	 * @return The desired cover thumbnail bytes or <code>null</code> if no cover is stored for the given ebook {@link IResourceHandler}.
 	 */
 	public static byte[] getCoverThumbnailBytes(final IResourceHandler ebookResource) {
-		IResourceHandler coverThumbnail = getCoverThumbnail(ebookResource);
-		if(coverThumbnail != null) {
-			try {
-				return coverThumbnail.getContent();
-			} catch (IOException e) {
-				LoggerFactory.getLogger().log(Level.WARNING, "Failed to load cover thumbnail for " + ebookResource.getName(), e);
-			}
-		}
-		return null;
-	}
-
-	/**
-	 * Get the cover thumbnail {@link IResourceHandler} for the given ebook {@link IResourceHandler}.
-	 * @param ebookResource The ebook {@link IResourceHandler} where the {@link Thumbnail} should be fetched for.
-	 * @return The desired {@link IResourceHandler} instance for the cover thumbnail. Returns <code>null</code> if
-	 *   no cover is stored for the given ebook {@link IResourceHandler}.
-	 */
-	private static IResourceHandler getCoverThumbnail(final IResourceHandler ebookResource) {
-		IResourceHandler coverThumbnailResourceHandler = getCoverThumbnailResourceHandler(ebookResource);
-		if(coverThumbnailResourceHandler.exists()) {
-			return coverThumbnailResourceHandler;
+		try {
+			return ThumbnailStore.getInstance().get(ebookResource.toString());
+		} catch (IOException e) {
+			LoggerFactory.getLogger().log(Level.WARNING, "Failed to load cover thumbnail for " + ebookResource.getName(), e);
 		}
 		return null;
 	}
 
 	/**
-	 * Get the {@link IResourceHandler} pointing to the cover thumbnail for the given ebook {@link IResourceHandler}.
-	 * @param ebookResource The ebook {@link IResourceHandler} where the cover thumbnail {@link IResourceHandler} should be fetched for.
-	 * @return The desired cover thumbnail {@link IResourceHandler} instance.
+	 * Get the modification time of the cover thumbnail for the given ebook resource.
+	 * @param ebookResource The ebook resource where the cover thumbnail modification time should be fetched for.
+	 * @return The modification time in milliseconds or <code>0</code> if no cover is stored for the given ebook {@link IResourceHandler}.
 	 */
-	private static IResourceHandler getCoverThumbnailResourceHandler(IResourceHandler ebookResource) {
-		String thumbnail = thumbnailFolder + UUID.nameUUIDFromBytes(ebookResource.toString().getBytes()) + ".jpg";
-		return ResourceHandlerFactory.getResourceHandler(thumbnail);
+	public static long getCoverThumbnailModifiedAt(final IResourceHandler ebookResource) {
+		return ThumbnailStore.getInstance().getModifiedAt(ebookResource.toString());
 	}
 
 	/**
@@ -254,15 +329,10 @@ public class EbookPropertyItemUtils {
 	 * @param target The target {@link IResourceHandler} for the cover thumbnail.
 	 */
 	public static void renameCoverThumbnail(IResourceHandler source, IResourceHandler target) {
-		IResourceHandler sourceThumbnailResourceHandler = getCoverThumbnailResourceHandler(source);
-		if(sourceThumbnailResourceHandler.exists()) {
-			IResourceHandler targetThumbnailResourceHandler = getCoverThumbnailResourceHandler(target);
-			try {
-				sourceThumbnailResourceHandler.moveTo(targetThumbnailResourceHandler, true);
-			} catch (IOException e) {
-				LoggerFactory.getLogger().log(Level.WARNING,
-						String.format("Failed to rename thumbnail from %s to %s", sourceThumbnailResourceHandler, targetThumbnailResourceHandler), e);
-			}
+		try {
+			ThumbnailStore.getInstance().rename(source.toString(), target.toString());
+		} catch (IOException e) {
+			LoggerFactory.getLogger().log(Level.WARNING, String.format("Failed to rename thumbnail from %s to %s", source, target), e);
 		}
 	}
 
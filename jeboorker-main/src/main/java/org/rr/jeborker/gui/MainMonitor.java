@@ -24,6 +24,8 @@ public class MainMonitor {
 	private int started = 0;
 	
 	private boolean isEnabled;
+	
+	private volatile boolean canceled;
 
 	private MainMonitor(JProgressBar progressbar) {
 		this.progressbar = progressbar;
@@ -67,6 +69,9 @@ public class MainMonitor {
 
 	public void monitorProgressStart(final String message, final boolean indeterminate) {
 		if(isEnabled) {
+			if(started == 0) {
+				canceled = false;
+			}
 			started++;
 			SwingUtilities.invokeLater(new Runnable() {
 
@@ -169,6 +174,25 @@ public class MainMonitor {
 		}
 	}
 
+	/**
+	 * Requests to cancel the currently running progress. Long running tasks should test
+	 * {@link #isCanceled()} from time to time and stop their work if it returns <code>true</code>.
+	 */
+	public void cancel() {
+		if(started > 0) {
+			canceled = true;
+			setMessage(Bundle.getString("JEBorkerMainMonitor.canceled"));
+		}
+	}
+
+	/**
+	 * Tells if the running progress should be canceled.
+	 * @return <code>true</code> if {@link #cancel()} was invoked since the progress has been started.
+	 */
+	public boolean isCanceled() {
+		return canceled;
+	}
+
 	public boolean isEnabled() {
 		return isEnabled;
 	}
@@ -19,6 +19,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
@@ -40,6 +41,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 
+import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ActionMap;
 import javax.swing.DefaultListSelectionModel;
@@ -60,6 +62,7 @@ import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.JTree;
+import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 import javax.swing.TransferHandler;
 import javax.swing.border.EmptyBorder;
@@ -312,6 +315,15 @@ class MainView extends JFrame {
 
 		inputMap.put(MainViewMenuUtils.FIND_KEY, "FIND");
 		actionMap.put("FIND", ActionFactory.getTableFindAction(mainTable));
+
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "CANCEL_PROGRESS");
+		actionMap.put("CANCEL_PROGRESS", new AbstractAction() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				controller.getProgressMonitor().cancel();
+			}
+		});
 	}
 
 	/**
@@ -684,7 +696,7 @@ class MainView extends JFrame {
 		        final List<String> files = new ArrayList<>();
 
 		        for (int i = 0; i < selectedRows.length; i++) {
-		        	EbookPropertyItem val = (EbookPropertyItem) mainTable.getModel().getValueAt(selectedRows[i], 0);
+		        	EbookPropertyItem val = getEbookTableHandler().getModel().getEbookPropertyItemAt(selectedRows[i]);
 		        	try {
 		        		uriList.add(new File(val.getFile()).toURI());
 		        		files.add(new File(val.getFile()).getPath());
@@ -1,15 +1,18 @@
 package org.rr.jeborker.gui;
 
-import java.util.ArrayList;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.List;
 
 import javax.swing.JScrollPane;
 import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.TableModelEvent;
 import javax.swing.table.TableModel;
 
 import org.rr.commons.swing.components.JRTable;
 import org.rr.jeborker.db.item.EbookPropertyItem;
+import org.rr.jeborker.gui.cell.CoverThumbnailLoader;
 import org.rr.jeborker.gui.model.EbookPropertyDBTableModel;
 import org.rr.jeborker.gui.model.ReloadableTableModel;
 
@@ -18,10 +21,54 @@ public class MainViewEbookTableComponentHandler {
 	private JRTable mainTable;
 	private JScrollPane mainTableScrollPane;
 	private EbookPropertyDBTableModel ebookPropertyDBTableModel;
+	private int prefetchedFirstRow = -1;
+	private int prefetchedLastRow = -1;
 
 	public MainViewEbookTableComponentHandler(JRTable mainTable, JScrollPane mainTableScrollPane) {
 		this.mainTable = mainTable;
 		this.mainTableScrollPane = mainTableScrollPane;
+		mainTableScrollPane.getViewport().addChangeListener(new ChangeListener() {
+
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				prefetchCoverThumbnails();
+			}
+		});
+	}
+
+	/**
+	 * Loads the cover thumbnails of the rows just above and below the visible rows in the background,
+	 * so they are already available when they get scrolled into view.
+	 */
+	private void prefetchCoverThumbnails() {
+		if(!(mainTable.getModel() instanceof EbookPropertyDBTableModel) || mainTable.getRowCount() == 0) {
+			return;
+		}
+
+		Rectangle viewRect = mainTableScrollPane.getViewport().getViewRect();
+		int firstRow = mainTable.rowAtPoint(viewRect.getLocation());
+		int lastRow = mainTable.rowAtPoint(new Point(viewRect.x, viewRect.y + viewRect.height - 1));
+		if(firstRow == -1) {
+			return;
+		} else if(lastRow == -1) {
+			lastRow = mainTable.getRowCount() - 1;
+		}
+
+		if(firstRow != prefetchedFirstRow || lastRow != prefetchedLastRow) {
+			prefetchedFirstRow = firstRow;
+			prefetchedLastRow = lastRow;
+			EbookPropertyDBTableModel model = (EbookPropertyDBTableModel) mainTable.getModel();
+			CoverThumbnailLoader thumbnailLoader = CoverThumbnailLoader.getInstance();
+			// the loader takes the latest request first, so the rows next to the visible ones are requested at last
+			int prefetchLastRow = Math.min(lastRow + CoverThumbnailLoader.PREFETCH_ROWS, mainTable.getRowCount() - 1);
+			for (int row = prefetchLastRow; row > lastRow; row--) {
+				thumbnailLoader.prefetch(mainTable, model.getListViewItemAt(row));
+			}
+			int prefetchFirstRow = Math.max(firstRow - CoverThumbnailLoader.PREFETCH_ROWS, 0);
+			for (int row = prefetchFirstRow; row < firstRow; row++) {
+				thumbnailLoader.prefetch(mainTable, model.getListViewItemAt(row));
+			}
+		}
 	}
 
 	public void clearSelection() {
@@ -131,14 +178,7 @@ public class MainViewEbookTableComponentHandler {
 	 * @return The selected items. Never returns <code>null</code>.
 	 */
 	public List<EbookPropertyItem> getSelectedEbookPropertyItems() {
-		final int[] selectedRows = getSelectedRows();
-		final ArrayList<EbookPropertyItem> result = new ArrayList<>(selectedRows.length);
-		for (int i = 0; i < selectedRows.length; i++) {
-			EbookPropertyItem valueAt = (EbookPropertyItem) getModel().getValueAt(selectedRows[i], 0);
-			result.add(valueAt);
-		}
-
-		return result;
+		return getModel().getEbookPropertyItemsAt(getSelectedRows());
 	}
 	
 	/**
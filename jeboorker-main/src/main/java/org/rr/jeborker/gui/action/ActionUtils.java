@@ -24,14 +24,17 @@ import org.rr.jeborker.app.JeboorkerConstants.SUPPORTED_MIMES;
 import org.rr.jeborker.app.preferences.APreferenceStore;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
 import org.rr.jeborker.db.DefaultDBManager;
+import org.rr.jeborker.db.ThumbnailStore;
 import org.rr.jeborker.db.item.EbookPropertyItem;
 import org.rr.jeborker.db.item.EbookPropertyItemUtils;
 import org.rr.jeborker.gui.MainController;
 import org.rr.jeborker.gui.MainMenuBarController;
 import org.rr.jeborker.gui.MainMonitor;
+import org.rr.jeborker.gui.cell.CoverThumbnailCache;
 import org.rr.jeborker.gui.model.EbookPropertyDBTableModel;
 import org.rr.jeborker.gui.model.EbookSheetPropertyModel;
 import org.rr.jeborker.gui.model.ReloadableTableModel;
+import org.rr.jeborker.metadata.MetadataCache;
 import org.rr.jeborker.metadata.MetadataProperty;
 
 import com.j256.ormlite.stmt.Where;
@@ -56,11 +59,18 @@ public class ActionUtils {
 	static void quit() {
 		MainController.getController().dispose();
 		FileWatchService.shutdownWatchService();
+		LoggerFactory.log(Level.INFO, ActionUtils.class, CoverThumbnailCache.getInstance().toString());
+		LoggerFactory.log(Level.INFO, ActionUtils.class, MetadataCache.getInstance().toString());
 		try {
 			DefaultDBManager.getInstance().shutdown();
 		} catch(Exception e1) {
 			LoggerFactory.logWarning(ActionUtils.class, "Database shutdown failed.", e1);
 		}
+		try {
+			ThumbnailStore.getInstance().close();
+		} catch(Exception e1) {
+			LoggerFactory.logWarning(ActionUtils.class, "Thumbnail store shutdown failed.", e1);
+		}
 
 		System.exit(0);
 	}
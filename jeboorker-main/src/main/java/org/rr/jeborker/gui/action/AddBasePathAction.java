@@ -2,18 +2,20 @@ package org.rr.jeborker.gui.action;
 
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 
 import org.rr.commons.log.LoggerFactory;
+import org.rr.commons.mufs.FileTreeWalker;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.mufs.ResourceHandlerFactory;
-import org.rr.commons.mufs.ResourceHandlerUtils;
 import org.rr.commons.mufs.ResourceNameFilter;
 import org.rr.commons.swing.SwingUtils;
 import org.rr.jeborker.app.preferences.APreferenceStore;
@@ -21,6 +23,7 @@ import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
 import org.rr.jeborker.db.item.EbookPropertyItem;
 import org.rr.jeborker.db.item.EbookPropertyItemUtils;
 import org.rr.jeborker.gui.MainController;
+import org.rr.jeborker.gui.MainMonitor;
 import org.rr.jeborker.gui.resources.ImageResourceBundle;
 
 /**
@@ -124,11 +127,17 @@ class AddBasePathAction extends AbstractAction {
 	 * @param baseFolder The folder where the ebook search should be started.
 	 */
 	static int readEbookFilesToDB(final IResourceHandler baseFolder) {
-		final HashSet<String> path = new HashSet<>();
-		int count = ResourceHandlerUtils.readAllFilesFromBasePath(baseFolder, new ResourceNameFilter() {
+		final Set<String> path = Collections.synchronizedSet(new HashSet<String>());
+		final MainMonitor monitor = MainController.getController().getProgressMonitor();
+		final FileTreeWalker[] walker = new FileTreeWalker[1];
+		walker[0] = new FileTreeWalker(new ResourceNameFilter() {
 			
 			@Override
 			public boolean accept(IResourceHandler resource) {
+				if(monitor.isCanceled()) {
+					walker[0].cancel();
+					return false;
+				}
 				if(resource.isFileResource() && ActionUtils.isSupportedEbookFormat(resource, true)) {
 					try {
 						final EbookPropertyItem item = EbookPropertyItemUtils.createEbookPropertyItem(resource, baseFolder);
@@ -142,6 +151,7 @@ class AddBasePathAction extends AbstractAction {
 				return false;
 			}
 		});
+		int count = walker[0].walk(baseFolder);
 		EbookPropertyItemUtils.storePathElements(path);
 		return count;
 	}
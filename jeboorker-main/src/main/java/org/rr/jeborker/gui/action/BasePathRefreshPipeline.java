@@ -0,0 +1,302 @@
+package org.rr.jeborker.gui.action;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.rr.commons.log.LoggerFactory;
+import org.rr.commons.mufs.FileTreeWalker;
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.mufs.ResourceNameFilter;
+import org.rr.commons.utils.ThreadUtils;
+import org.rr.jeborker.Jeboorker;
+import org.rr.jeborker.db.DBWriteBuffer;
+import org.rr.jeborker.db.DefaultDBManager;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+import org.rr.jeborker.db.item.EbookPropertyItemUtils;
+import org.rr.jeborker.gui.MainMonitor;
+
+/**
+ * Refreshes all ebook files below a base path with a staged pipeline. The directory walk runs
+ * in the calling thread and feeds the metadata stage. Metadata reading and thumbnail generation
+ * run on worker pools sized to the available processors and a single writer stores the results
+ * in batches to the database. All stages are connected with bounded queues, so a fast stage gets
+ * blocked until the slower following stage has caught up.
+ * <br><br>
+ * The file timestamps of all known items below the base path are loaded with one query before
+ * the walk starts. Files with an unchanged timestamp are skipped without any further database
+ * access and all known files not seen by the walk are reported by {@link #getUnseenFiles()}.
+ */
+class BasePathRefreshPipeline {
+
+	/** Marks the end of the input for a stage worker. */
+	private static final RefreshTask END_OF_QUEUE = new RefreshTask(null, 0);
+
+	private static final int QUEUE_CAPACITY_PER_WORKER = 16;
+
+	/** Number of processed files until the progress gets updated. */
+	private static final int PROGRESS_INTERVAL = 25;
+
+	private final IResourceHandler basePath;
+
+	private final MainMonitor monitor;
+
+	private final int workerCount;
+
+	private final BlockingQueue<RefreshTask> metadataQueue;
+
+	private final BlockingQueue<RefreshTask> thumbnailQueue;
+
+	private final BlockingQueue<RefreshTask> storeQueue;
+
+	private final AtomicInteger discovered = new AtomicInteger();
+
+	private final AtomicInteger processed = new AtomicInteger();
+
+	private final Set<String> pathElements = Collections.synchronizedSet(new HashSet<String>());
+
+	private final DBWriteBuffer writeBuffer = DefaultDBManager.getInstance().createWriteBuffer();
+
+	/** Timestamps of the known files below the base path. Each file seen by the walk is removed. */
+	private final ConcurrentHashMap<String, Long> snapshot;
+
+	private FileTreeWalker walker;
+
+	BasePathRefreshPipeline(IResourceHandler basePath, MainMonitor monitor) {
+		this.basePath = basePath;
+		this.monitor = monitor;
+		this.workerCount = Math.max(1, ThreadUtils.availableProcessors());
+		this.metadataQueue = new ArrayBlockingQueue<>(workerCount * QUEUE_CAPACITY_PER_WORKER);
+		this.thumbnailQueue = new ArrayBlockingQueue<>(workerCount * QUEUE_CAPACITY_PER_WORKER);
+		this.storeQueue = new ArrayBlockingQueue<>(workerCount * QUEUE_CAPACITY_PER_WORKER);
+		this.snapshot = new ConcurrentHashMap<>(EbookPropertyItemUtils.fetchFileTimestamps(basePath.toString()));
+	}
+
+	/**
+	 * Runs the pipeline and waits until all files below the base path are processed.
+	 * @return The folders containing ebook files which have been found while walking the base path.
+	 */
+	Set<String> run() {
+		final CountDownLatch finished = new CountDownLatch(1);
+		startStage(new MetadataStage(), metadataQueue, thumbnailQueue, workerCount, workerCount, null);
+		startStage(new ThumbnailStage(), thumbnailQueue, storeQueue, workerCount, 1, null);
+		startStage(new StoreStage(), storeQueue, null, 1, 0, finished);
+
+		try {
+			walk();
+		} finally {
+			putEndOfQueue(metadataQueue, workerCount);
+		}
+
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LoggerFactory.getLogger(this).log(Level.WARNING, "Refreshing " + basePath + " has been interrupted", e);
+		} finally {
+			writeBuffer.close();
+		}
+		monitor.setProgress(processed.get(), discovered.get());
+		return pathElements;
+	}
+
+	/**
+	 * Get the files which are stored in the database for the base path but have not been found
+	 * by the last {@link #run()}. These files are possibly deleted.
+	 */
+	Collection<String> getUnseenFiles() {
+		return snapshot.keySet();
+	}
+
+	/**
+	 * Walks the base path and puts all found files into the metadata queue. The walk stops
+	 * if the progress gets canceled.
+	 */
+	private void walk() {
+		walker = new FileTreeWalker(new ResourceNameFilter() {
+
+			@Override
+			public boolean accept(IResourceHandler resource) {
+				if(monitor.isCanceled()) {
+					walker.cancel();
+				} else if(resource.isFileResource()) {
+					try {
+						// the modification date is known by the walker and would be read from the file system later.
+						metadataQueue.put(new RefreshTask(resource, resource.getModifiedAt().getTime()));
+						discovered.incrementAndGet();
+						return true;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						walker.cancel();
+						LoggerFactory.getLogger(this).log(Level.WARNING, "Walking " + basePath + " has been interrupted", e);
+					}
+				}
+				return false;
+			}
+		});
+		walker.walk(basePath);
+	}
+
+	private void startStage(final Stage stage, final BlockingQueue<RefreshTask> in, final BlockingQueue<RefreshTask> out,
+			final int workers, final int nextStageWorkers, final CountDownLatch finished) {
+		final AtomicInteger running = new AtomicInteger(workers);
+		for(int i = 0; i < workers; i++) {
+			Jeboorker.APPLICATION_THREAD_POOL.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						RefreshTask task;
+						while((task = in.take()) != END_OF_QUEUE) {
+							boolean forward = false;
+							try {
+								forward = stage.process(task);
+							} catch(Throwable e) {
+								LoggerFactory.getLogger(this).log(Level.SEVERE, "Failed adding resource " + task.resource, e);
+							}
+
+							if(forward && out != null) {
+								out.put(task);
+							} else {
+								taskProcessed();
+							}
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						LoggerFactory.getLogger(this).log(Level.WARNING, "Refresh worker has been interrupted", e);
+					} finally {
+						if(running.decrementAndGet() == 0) {
+							if(out != null) {
+								putEndOfQueue(out, nextStageWorkers);
+							}
+							if(finished != null) {
+								finished.countDown();
+							}
+						}
+					}
+				}
+			});
+		}
+	}
+
+	private void putEndOfQueue(BlockingQueue<RefreshTask> queue, int workers) {
+		for(int i = 0; i < workers; i++) {
+			try {
+				queue.put(END_OF_QUEUE);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				LoggerFactory.getLogger(this).log(Level.WARNING, "Failed to finish refresh stage", e);
+			}
+		}
+	}
+
+	private void taskProcessed() {
+		int count = processed.incrementAndGet();
+		if(count % PROGRESS_INTERVAL == 0) {
+			monitor.setProgress(count, discovered.get());
+		}
+	}
+
+	/**
+	 * Tests if the file is a supported and new or changed ebook and reads it's metadata.
+	 */
+	private class MetadataStage implements Stage {
+
+		@Override
+		public boolean process(RefreshTask task) {
+			final IResourceHandler resource = task.resource;
+			if(monitor.isCanceled()) {
+				return false;
+			}
+
+			final Long timestamp = snapshot.remove(resource.toString());
+			if(timestamp != null && timestamp.longValue() != 0 && timestamp.longValue() == task.modifiedAt) {
+				//unchanged ebook
+				pathElements.add(resource.getParentResource().toString());
+				return false;
+			}
+
+			if(!ActionUtils.isSupportedEbookFormat(resource, true)) {
+				return false;
+			}
+
+			List<EbookPropertyItem> ebookPropertyItems = timestamp != null ? EbookPropertyItemUtils.getEbookPropertyItemByResource(resource)
+					: Collections.<EbookPropertyItem>emptyList();
+			if(ebookPropertyItems.isEmpty()) {
+				//new ebook
+				task.items = Collections.singletonList(EbookPropertyItemUtils.createBasicEbookPropertyItem(resource, basePath));
+			} else {
+				//file has changed. Refresh all items stored for the file.
+				task.items = ebookPropertyItems;
+			}
+
+			for(EbookPropertyItem item : task.items) {
+				task.coverData = EbookPropertyItemUtils.readEbookPropertyItemMetadata(item, resource);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Creates the cover thumbnail from the cover data read by the {@link MetadataStage}.
+	 */
+	private static class ThumbnailStage implements Stage {
+
+		@Override
+		public boolean process(RefreshTask task) {
+			// the thumbnail is stored for the ebook file, so it's enough to create it once for all items.
+			EbookPropertyItemUtils.setupCoverData(task.items.get(0), task.coverData);
+			task.coverData = null;
+			return true;
+		}
+	}
+
+	/**
+	 * Stores the new or changed items to the database.
+	 */
+	private class StoreStage implements Stage {
+
+		@Override
+		public boolean process(RefreshTask task) {
+			for(EbookPropertyItem item : task.items) {
+				writeBuffer.add(item);
+			}
+			pathElements.add(task.resource.getParentResource().toString());
+			return false;
+		}
+	}
+
+	private static interface Stage {
+
+		/**
+		 * Processes the given task.
+		 * @return <code>true</code> if the task should be passed to the next stage or <code>false</code>
+		 *   if the task is finished.
+		 */
+		boolean process(RefreshTask task);
+	}
+
+	private static class RefreshTask {
+
+		private final IResourceHandler resource;
+
+		private final long modifiedAt;
+
+		private List<EbookPropertyItem> items;
+
+		private byte[] coverData;
+
+		RefreshTask(IResourceHandler resource, long modifiedAt) {
+			this.resource = resource;
+			this.modifiedAt = modifiedAt;
+		}
+	}
+}
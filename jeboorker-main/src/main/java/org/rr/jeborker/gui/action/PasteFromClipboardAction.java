@@ -102,7 +102,7 @@ public class PasteFromClipboardAction extends AbstractAction implements Clipboar
 		ReloadableTableModel listModel = MainController.getController().getModel();
 
 		// Get the current string under the drop.
-		EbookPropertyItem value = (EbookPropertyItem) listModel.getValueAt(dropRow, 0);
+		EbookPropertyItem value = listModel.getEbookPropertyItemAt(dropRow);
 
 		// Get the string that is being dropped.
 		try {
@@ -1,10 +1,9 @@
 package org.rr.jeborker.gui.action;
 
 import java.awt.event.ActionEvent;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 
 import javax.swing.AbstractAction;
@@ -13,8 +12,6 @@ import javax.swing.Action;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.mufs.ResourceHandlerFactory;
-import org.rr.commons.mufs.ResourceHandlerUtils;
-import org.rr.commons.mufs.ResourceNameFilter;
 import org.rr.jeborker.app.preferences.APreferenceStore;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
 import org.rr.jeborker.db.DefaultDBManager;
@@ -81,23 +78,22 @@ class RefreshBasePathAction extends AbstractAction {
 	
 	private void doRefreshBasePath(String path, ActionEvent e, MainMonitor monitor) {
 		IResourceHandler resourceLoader = ResourceHandlerFactory.getResourceHandler(path);
-		removeDeletedFiles(resourceLoader);
-		refreshEbookFiles(resourceLoader);
+		refreshEbookFiles(resourceLoader, monitor);
 		
 		MainController.getController().getEbookTableHandler().refreshTable();
 	}
 	
 	/**
 	 * Removes all deleted files from the database.
-	 * @param basePath The folder to be processed.
+	 * @param files The files which have not been found while refreshing.
 	 */
-	private static void removeDeletedFiles(final IResourceHandler basePath) {
+	private static void removeDeletedFiles(final Collection<String> files) {
 		final DefaultDBManager db = DefaultDBManager.getInstance();
-		final ArrayList<EbookPropertyItem> itemsToTest = RemoveBasePathAction.getItemsByBasePath(basePath.toString());
-		for(EbookPropertyItem item : itemsToTest) {
-			final IResourceHandler itemResourceHandler = item.getResourceHandler();
-			if(!itemResourceHandler.exists()) {
-				db.deleteObject(item);
+		for(String file : files) {
+			if(!ResourceHandlerFactory.getResourceHandler(file).exists()) {
+				for(EbookPropertyItem item : db.getObject(EbookPropertyItem.class, "file", file)) {
+					db.deleteObject(item);
+				}
 			}
 		}
 	}
@@ -105,41 +101,13 @@ class RefreshBasePathAction extends AbstractAction {
 	/**
 	 * Read all ebook files recursive and stores them directly to the database.
 	 * @param basePath The folder where the ebook search should be started.
+	 * @param monitor The monitor where the progress should be reported to.
 	 */
-	private void refreshEbookFiles(final IResourceHandler basePath) {
-		final DefaultDBManager db = DefaultDBManager.getInstance();
-		final HashSet<String> path = new HashSet<>();
+	private void refreshEbookFiles(final IResourceHandler basePath, final MainMonitor monitor) {
 		final Collection<String> oldPathElements = EbookPropertyItemUtils.fetchPathElements();
-		ResourceHandlerUtils.readAllFilesFromBasePath(basePath, new ResourceNameFilter() {
-			
-			@Override
-			public boolean accept(IResourceHandler resourceLoader) {
-				if(resourceLoader.isFileResource() && ActionUtils.isSupportedEbookFormat(resourceLoader, true)) {
-					try {
-						List<EbookPropertyItem> ebookPropertyItems = EbookPropertyItemUtils.getEbookPropertyItemByResource(resourceLoader);
-						if(!ebookPropertyItems.isEmpty()) {
-							for(EbookPropertyItem item : ebookPropertyItems) {
-								long fileTimeStamp = resourceLoader.getModifiedAt().getTime();
-								if(item.getTimestamp() == 0 || item.getTimestamp() != fileTimeStamp) {
-									//file has changed
-									EbookPropertyItemUtils.refreshEbookPropertyItem(item, resourceLoader, true);
-									db.updateObject(item);
-								}
-							}
-						} else {
-							//new ebook
-							final EbookPropertyItem item = EbookPropertyItemUtils.createEbookPropertyItem(resourceLoader, basePath);
-							db.storeObject(item);
-						}
-						path.add(resourceLoader.getParentResource().toString());
-						return true;
-					} catch(Throwable e) {
-						LoggerFactory.getLogger(this).log(Level.SEVERE, "Failed adding resource " + resourceLoader, e);
-					}
-				}
-				return false;
-			}
-		});
+		final BasePathRefreshPipeline pipeline = new BasePathRefreshPipeline(basePath, monitor);
+		final Set<String> path = pipeline.run();
+		removeDeletedFiles(pipeline.getUnseenFiles());
 		EbookPropertyItemUtils.storePathElements(path);
 		reloadBasePathTree(path, oldPathElements);
 	}
@@ -96,7 +96,8 @@ class RemoveBasePathAction extends AbstractAction {
 		final String normalizedPath = StringUtil.replace(basePath, File.separator, EMPTY);
 		final DefaultDBManager defaultDBManager = DefaultDBManager.getInstance();
 		final ArrayList<EbookPropertyItem> toRemove = new ArrayList<>();
-		final Iterable<EbookPropertyItem> items = defaultDBManager.getItems(EbookPropertyItem.class);
+		final String trimmedPath = StringUtil.stripTrailing(basePath, File.separatorChar);
+		final Iterable<EbookPropertyItem> items = defaultDBManager.getObject(EbookPropertyItem.class, "basePath", trimmedPath, trimmedPath + File.separator);
 		for (EbookPropertyItem item : items) {
 			if(StringUtil.replace(item.getBasePath(), File.separator, EMPTY).equals(normalizedPath)) {
 				toRemove.add(item);
@@ -0,0 +1,145 @@
+package org.rr.jeborker.gui.cell;
+
+import java.awt.Dimension;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.ImageIcon;
+
+/**
+ * Least recently used cache for the decoded and scaled cover thumbnails shown in the ebook table.
+ * The thumbnails are cached for the ebook file. An entry is only valid for the modification time of
+ * the thumbnail it was created from and the dimension it was scaled to. The cache size is bounded by
+ * the memory needed for the image pixels.
+ */
+public class CoverThumbnailCache {
+
+	/** Default cache size in bytes, which is enough for some hundred table rows. */
+	private static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+	private static final CoverThumbnailCache instance = new CoverThumbnailCache(DEFAULT_MAX_SIZE);
+
+	private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+	private final long maxSize;
+
+	private long size = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	CoverThumbnailCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public static CoverThumbnailCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Get the cached thumbnail for the given ebook file.
+	 * @param file The ebook file.
+	 * @param modifiedAt The modification time of the thumbnail.
+	 * @param dimension The dimension the thumbnail is scaled to.
+	 * @return The cached thumbnail or <code>null</code> if there is no valid thumbnail in the cache.
+	 */
+	public synchronized ImageIcon get(String file, long modifiedAt, Dimension dimension) {
+		final Entry entry = cache.get(file);
+		if(entry != null && entry.modifiedAt == modifiedAt && entry.dimension.equals(dimension)) {
+			hits.incrementAndGet();
+			return entry.icon;
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Puts the given thumbnail to the cache. A previously cached thumbnail for the same file is replaced
+	 * and the least recently used thumbnails are removed if the cache exceeds it's size.
+	 * @param file The ebook file.
+	 * @param modifiedAt The modification time of the thumbnail.
+	 * @param dimension The dimension the thumbnail is scaled to.
+	 * @param icon The scaled thumbnail.
+	 */
+	public synchronized void put(String file, long modifiedAt, Dimension dimension, ImageIcon icon) {
+		final Entry entry = new Entry(modifiedAt, dimension, icon);
+		final Entry previous = cache.put(file, entry);
+		if(previous != null) {
+			size -= previous.size;
+		}
+		size += entry.size;
+
+		Iterator<Entry> values = cache.values().iterator();
+		while(size > maxSize && values.hasNext()) {
+			Entry eldest = values.next();
+			if(eldest != entry) {
+				size -= eldest.size;
+				values.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes the thumbnail for the given ebook file.
+	 */
+	public synchronized void remove(String file) {
+		final Entry entry = cache.remove(file);
+		if(entry != null) {
+			size -= entry.size;
+		}
+	}
+
+	public synchronized int getEntryCount() {
+		return cache.size();
+	}
+
+	/**
+	 * @return The number of bytes used by the cached thumbnails.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return The percentage of requests which could be served from the cache.
+	 */
+	public int getHitRate() {
+		long hitCount = hits.get();
+		long total = hitCount + misses.get();
+		return total == 0 ? 0 : (int) (hitCount * 100 / total);
+	}
+
+	@Override
+	public String toString() {
+		return "Cover thumbnail cache: " + getEntryCount() + " entries, " + (getSize() / 1024) + "kb, " + getHitCount() + " hits, " + getMissCount()
+				+ " misses (" + getHitRate() + "%)";
+	}
+
+	private static class Entry {
+
+		private final long modifiedAt;
+
+		private final Dimension dimension;
+
+		private final ImageIcon icon;
+
+		private final long size;
+
+		Entry(long modifiedAt, Dimension dimension, ImageIcon icon) {
+			this.modifiedAt = modifiedAt;
+			this.dimension = new Dimension(dimension);
+			this.icon = icon;
+			this.size = (long) Math.max(1, icon.getIconWidth()) * Math.max(1, icon.getIconHeight()) * 4;
+		}
+	}
+}
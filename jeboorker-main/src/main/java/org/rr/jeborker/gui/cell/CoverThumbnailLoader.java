@@ -0,0 +1,242 @@
+package org.rr.jeborker.gui.cell;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.ImageIcon;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+
+import org.rr.commons.log.LoggerFactory;
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.mufs.ResourceHandlerFactory;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+import org.rr.jeborker.db.item.EbookPropertyItemUtils;
+import org.rr.pm.image.IImageProvider;
+import org.rr.pm.image.ImageProviderFactory;
+import org.rr.pm.image.ImageUtils;
+
+/**
+ * Loads the cover thumbnails for the ebook table in the background. A placeholder is shown until
+ * the thumbnail is decoded and scaled and only the row showing the thumbnail gets repainted after
+ * that. The most recently requested thumbnails are loaded first, so the rows currently scrolled
+ * into view don't have to wait for the rows which have already been scrolled out.
+ */
+public class CoverThumbnailLoader {
+
+	/** Number of rows above and below the visible ones where the thumbnails should be loaded in advance. */
+	public static final int PREFETCH_ROWS = 10;
+
+	private static final int LOADER_THREADS = 2;
+
+	/** Maximum number of waiting load requests. The oldest requests are dropped if there are more. */
+	private static final int MAX_QUEUED = 64;
+
+	private static final CoverThumbnailLoader instance = new CoverThumbnailLoader();
+
+	private final CoverThumbnailCache cache = CoverThumbnailCache.getInstance();
+
+	/** Files which are currently queued or loaded. */
+	private final ConcurrentHashMap<String, LoadTask> pending = new ConcurrentHashMap<>();
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(LOADER_THREADS, LOADER_THREADS, 0L, TimeUnit.MILLISECONDS, new LifoQueue(),
+			new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "CoverThumbnailLoader");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+
+	private ImageIcon placeholder;
+
+	private ImageIcon noThumbnail;
+
+	private CoverThumbnailLoader() {
+	}
+
+	public static CoverThumbnailLoader getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Get the cover thumbnail for the given item to be shown in the given table row. This method never blocks
+	 * for decoding the thumbnail. If the thumbnail is not cached, a placeholder is returned and the row is
+	 * repainted as soon as the thumbnail has been loaded.
+	 * @param table The table showing the thumbnail.
+	 * @param row The row showing the thumbnail.
+	 * @param item The ebook item which cover thumbnail should be returned.
+	 * @return The thumbnail, a placeholder or <code>null</code> if there is no thumbnail for the given item.
+	 */
+	public ImageIcon getCover(JTable table, int row, EbookPropertyItem item) {
+		final long thumbnailModifiedAt = EbookPropertyItemUtils.getCoverThumbnailModifiedAt(item.getResourceHandler());
+		if(thumbnailModifiedAt == 0) {
+			return null;
+		}
+
+		final Dimension dimension = getThumbnailDimension(table);
+		final ImageIcon cached = cache.get(item.getFile(), thumbnailModifiedAt, dimension);
+		if(cached != null) {
+			return cached != noThumbnail ? cached : null;
+		}
+
+		load(new LoadTask(item, thumbnailModifiedAt, dimension, table, row));
+		return getPlaceholder(dimension);
+	}
+
+	/**
+	 * Loads the cover thumbnail for the given item in the background if it's not already cached.
+	 * @param table The table which will show the thumbnail.
+	 * @param item The ebook item which cover thumbnail should be loaded.
+	 */
+	public void prefetch(JTable table, EbookPropertyItem item) {
+		if(item != null && !pending.containsKey(item.getFile())) {
+			load(new LoadTask(item, -1, getThumbnailDimension(table), null, -1));
+		}
+	}
+
+	private void load(LoadTask task) {
+		if(pending.putIfAbsent(task.item.getFile(), task) == null) {
+			executor.execute(task);
+		}
+	}
+
+	/**
+	 * Gets the dimension for the thumbnail in the view.
+	 * @param table The table which shows the thumbnail.
+	 * @return The dimension for the thumbnail.
+	 */
+	static Dimension getThumbnailDimension(final JTable table) {
+		return new Dimension((int) (table.getRowHeight() * 0.7), table.getRowHeight());
+	}
+
+	private synchronized ImageIcon getPlaceholder(Dimension dimension) {
+		if(placeholder == null || placeholder.getIconWidth() != dimension.width || placeholder.getIconHeight() != dimension.height) {
+			BufferedImage image = new BufferedImage(dimension.width, dimension.height, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			try {
+				g.setColor(new Color(128, 128, 128, 40));
+				g.fillRect(2, 2, dimension.width - 4, dimension.height - 4);
+			} finally {
+				g.dispose();
+			}
+			placeholder = new ImageIcon(image);
+		}
+		return placeholder;
+	}
+
+	/**
+	 * Decodes the given thumbnail data and scales it to the given dimension.
+	 * @return The desired thumbnail or <code>null</code> if the data could not be decoded.
+	 */
+	private static ImageIcon createThumbnail(byte[] coverThumbnail, Dimension dimension) {
+		final IResourceHandler virtualImageResourceLoader = ResourceHandlerFactory.getVirtualResourceHandler("TableCellRendererImageData", coverThumbnail);
+		final IImageProvider imageProvider = ImageProviderFactory.getImageProvider(virtualImageResourceLoader);
+		final BufferedImage image = imageProvider.getImage();
+		if(image != null) {
+			BufferedImage scaleToMatch = ImageUtils.scaleToMatch(image, dimension, false);
+			return new ImageIcon(scaleToMatch);
+		}
+		return null;
+	}
+
+	private class LoadTask implements Runnable {
+
+		private final EbookPropertyItem item;
+
+		private final Dimension dimension;
+
+		private final JTable table;
+
+		private final int row;
+
+		private long thumbnailModifiedAt;
+
+		LoadTask(EbookPropertyItem item, long thumbnailModifiedAt, Dimension dimension, JTable table, int row) {
+			this.item = item;
+			this.thumbnailModifiedAt = thumbnailModifiedAt;
+			this.dimension = dimension;
+			this.table = table;
+			this.row = row;
+		}
+
+		@Override
+		public void run() {
+			try {
+				final IResourceHandler ebookResource = item.getResourceHandler();
+				if(thumbnailModifiedAt == -1) {
+					thumbnailModifiedAt = EbookPropertyItemUtils.getCoverThumbnailModifiedAt(ebookResource);
+					if(thumbnailModifiedAt == 0 || cache.get(item.getFile(), thumbnailModifiedAt, dimension) != null) {
+						return;
+					}
+				}
+
+				ImageIcon thumbnail = null;
+				final byte[] coverThumbnail = EbookPropertyItemUtils.getCoverThumbnailBytes(ebookResource);
+				if(coverThumbnail != null && coverThumbnail.length > 0) {
+					thumbnail = createThumbnail(coverThumbnail, dimension);
+				}
+				cache.put(item.getFile(), thumbnailModifiedAt, dimension, thumbnail != null ? thumbnail : getNoThumbnail());
+			} catch (Exception e) {
+				LoggerFactory.logInfo(this, "Could not render thumbnail", e);
+			} finally {
+				pending.remove(item.getFile(), this);
+				repaint();
+			}
+		}
+
+		private void repaint() {
+			if(table != null) {
+				SwingUtilities.invokeLater(new Runnable() {
+
+					@Override
+					public void run() {
+						if(row < table.getRowCount()) {
+							table.repaint(table.getCellRect(row, 0, true));
+						}
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Marker for thumbnails which could not be decoded, so there is no further attempt to load them.
+	 */
+	private synchronized ImageIcon getNoThumbnail() {
+		if(noThumbnail == null) {
+			noThumbnail = new ImageIcon(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+		}
+		return noThumbnail;
+	}
+
+	/**
+	 * Queue which takes the most recently added tasks first and drops the oldest tasks if it gets too long.
+	 */
+	private class LifoQueue extends LinkedBlockingDeque<Runnable> {
+
+		private static final long serialVersionUID = -2441426541516154402L;
+
+		@Override
+		public boolean offer(Runnable task) {
+			boolean added = super.offerFirst(task);
+			while(size() > MAX_QUEUED) {
+				Runnable dropped = pollLast();
+				if(dropped instanceof LoadTask) {
+					pending.remove(((LoadTask) dropped).item.getFile(), dropped);
+				}
+			}
+			return added;
+		}
+	}
+}
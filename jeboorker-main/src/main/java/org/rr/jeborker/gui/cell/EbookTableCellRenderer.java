@@ -12,7 +12,6 @@ import java.awt.Insets;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.awt.image.BufferedImage;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.text.SimpleDateFormat;
@@ -35,13 +34,10 @@ import javax.swing.table.TableCellRenderer;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Whitelist;
-import org.rr.commons.collection.VolatileHashMap;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
-import org.rr.commons.mufs.ResourceHandlerFactory;
 import org.rr.commons.swing.SwingUtils;
 import org.rr.commons.swing.components.StarRater;
-import org.rr.commons.utils.CommonUtils;
 import org.rr.commons.utils.HTMLEntityConverter;
 import org.rr.commons.utils.ListUtils;
 import org.rr.commons.utils.ReflectionFailureException;
@@ -54,11 +50,7 @@ import org.rr.jeborker.app.preferences.APreferenceStore;
 import org.rr.jeborker.app.preferences.PreferenceStoreFactory;
 import org.rr.jeborker.db.IDBObject;
 import org.rr.jeborker.db.item.EbookPropertyItem;
-import org.rr.jeborker.db.item.EbookPropertyItemUtils;
 import org.rr.jeborker.gui.MainController;
-import org.rr.pm.image.IImageProvider;
-import org.rr.pm.image.ImageProviderFactory;
-import org.rr.pm.image.ImageUtils;
 
 public class EbookTableCellRenderer implements TableCellRenderer, Serializable  {
 
@@ -235,12 +227,10 @@ public class EbookTableCellRenderer implements TableCellRenderer, Serializable
 		}
 	}
 	
-	private static final VolatileHashMap<String, ImageIcon> thumbnailCache = new VolatileHashMap<String, ImageIcon>(20, 20);
+	private static final CoverThumbnailLoader thumbnailLoader = CoverThumbnailLoader.getInstance();
 	
 	private final APreferenceStore preferenceStore = PreferenceStoreFactory.getPreferenceStore(PreferenceStoreFactory.DB_STORE);
 	
-	private Dimension thumbnailDimension;
-	
 	private final MouseListener popupMouseListener;
 	
 	private boolean singletonComponent = false;
@@ -291,7 +281,7 @@ public class EbookTableCellRenderer implements TableCellRenderer, Serializable
 		RendererComponent renderer = createTableCellComponent(item);
 		setCommonColorRendererComponentSetup(isSelected, foregroundColor, selectionForegroundColor, brighterColor, backgroundColor, renderer);
 		
-		renderer.imageLabel.setIcon(getImageIconCover(table, item));
+		renderer.imageLabel.setIcon(getImageIconCover(table, row, item));
 		renderer.completeLabelSetup(table, renderer);
 		
 		//title
@@ -390,55 +380,23 @@ public class EbookTableCellRenderer implements TableCellRenderer, Serializable
 	/**
 	 * Gets the thumbnail image to be displayed in the renderer.
 	 * @param table The JTable instance.
+	 * @param row The row to be rendered.
 	 * @param item The item to be rendered.
 	 * @return The thumbnail image to be displayed in the renderer.
 	 */
-	private ImageIcon getImageIconCover(final JTable table, final EbookPropertyItem item) {
+	private ImageIcon getImageIconCover(final JTable table, final int row, final EbookPropertyItem item) {
 		if(item == null) {
 			return null;
 		}
 		
-		byte[] coverThumbnail = EbookPropertyItemUtils.getCoverThumbnailBytes(item.getResourceHandler());
-		if(item != null && coverThumbnail != null && coverThumbnail.length > 0) {
-			final String coverThumbnailCRC32 = String.valueOf(CommonUtils.calculateCrc(coverThumbnail));
-			if(thumbnailCache.containsKey(coverThumbnailCRC32)) {
-				return thumbnailCache.get(coverThumbnailCRC32);
-			}
-			
-			try {
-				final byte[] coverData = coverThumbnail;
-				if(coverData != null) {
-					final IResourceHandler virtualImageResourceLoader = ResourceHandlerFactory.getVirtualResourceHandler("TableCellRendererImageData", coverData);
-					final IImageProvider imageProvider = ImageProviderFactory.getImageProvider(virtualImageResourceLoader);
-					final BufferedImage image = imageProvider.getImage();
-					if(image != null) {
-						BufferedImage scaleToMatch = ImageUtils.scaleToMatch(imageProvider.getImage(), getThumbnailDimension(table), false);
-						ImageIcon imageIcon = new ImageIcon(scaleToMatch);
-						thumbnailCache.put(coverThumbnailCRC32, imageIcon);
-						return imageIcon;
-					} else {
-						return null;
-					}
-				}
-			} catch (Exception e) {
-				LoggerFactory.logInfo(this, "Could not render thumbnail", e);
-			}
+		try {
+			return thumbnailLoader.getCover(table, row, item);
+		} catch (Exception e) {
+			LoggerFactory.logInfo(this, "Could not render thumbnail", e);
 		}
 		return null;
 	}
 	
-	/**
-	 * Gets the dimension for the thumbnail in the view.
-	 * @param table The tabel which shows the thumbnail.
-	 * @return The dimension for the thumbnail.
-	 */
-	private Dimension getThumbnailDimension(final JTable table) {
-		if(thumbnailDimension == null) {
-			thumbnailDimension = new Dimension((int) (table.getRowHeight()*0.7), table.getRowHeight());
-		}
-		return thumbnailDimension;
-	}
-	
 	/**
 	 * Get the author and the sort order column values.
 	 * @param item The item containing the desired values.
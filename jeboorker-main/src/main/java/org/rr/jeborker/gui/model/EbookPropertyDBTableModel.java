@@ -139,6 +139,10 @@ public class EbookPropertyDBTableModel extends AbstractEbookPropertyTableModel {
 		}
 	}
 
+	/**
+	 * Gets the value for the renderer of the given row. The returned {@link EbookPropertyItem} could be
+	 * partial, so {@link #getEbookPropertyItemAt(int)} should be used for anything else than displaying it.
+	 */
 	@Override
 	public Object getValueAt(int rowIndex, int columnIndex) {
 		List<EbookPropertyItem> ebookItems = this.getEbookItems();
@@ -146,9 +150,8 @@ public class EbookPropertyDBTableModel extends AbstractEbookPropertyTableModel {
 		try {
 			if(ebookItems.size() < rowIndex) {
 				setDirty();
-				ebookItems = this.getEbookItems();
 			}
-			ebookPropertyItem = ebookItems.get(rowIndex);
+			ebookPropertyItem = getListViewItemAt(rowIndex);
 		} catch(IndexOutOfBoundsException ex) {
 			return null;
 		}
@@ -164,18 +167,53 @@ public class EbookPropertyDBTableModel extends AbstractEbookPropertyTableModel {
 	}
 	
 	/**
-	 * Gets the {@link EbookPropertyItem} displayed in the given row.
+	 * Gets the {@link EbookPropertyItem} displayed in the given row. Items which are only
+	 * loaded for the list view are completely loaded from the database before they're returned.
 	 * @return The desired {@link EbookPropertyItem} or possibly <code>null</code>.
 	 */
 	public EbookPropertyItem getEbookPropertyItemAt(int rowIndex) {
 		final List<EbookPropertyItem> ebookItems = this.getEbookItems();
 		try {
-			return ebookItems.get(rowIndex);
+			final EbookPropertyItem item = ebookItems.get(rowIndex);
+			if(item != null && item.isPartial() && EbookPropertyItemUtils.reloadEbookPropertyItem(item) != null) {
+				item.setPartial(false);
+			}
+			return item;
 		} catch(IndexOutOfBoundsException ex) {
 			LoggerFactory.logInfo(this, EMPTY, ex);
 			return null;
 		}
 	}
+
+	/**
+	 * Gets the {@link EbookPropertyItem}s displayed in the given rows. The items which are only loaded for
+	 * the list view are completely loaded with a few batched queries before they're returned.
+	 */
+	@Override
+	public List<EbookPropertyItem> getEbookPropertyItemsAt(int[] rowIndex) {
+		final List<EbookPropertyItem> ebookItems = this.getEbookItems();
+		final List<EbookPropertyItem> result = new ArrayList<>(rowIndex.length);
+		for(int row : rowIndex) {
+			try {
+				result.add(ebookItems.get(row));
+			} catch(IndexOutOfBoundsException ex) {
+				LoggerFactory.logInfo(this, EMPTY, ex);
+				result.add(null);
+			}
+		}
+		EbookPropertyItemUtils.reloadPartialEbookPropertyItems(result);
+		return result;
+	}
+
+	/**
+	 * Gets the {@link EbookPropertyItem} displayed in the given row as it's loaded for the list view.
+	 * The item could be partial and should only be used for displaying it.
+	 * @return The desired {@link EbookPropertyItem} or possibly <code>null</code>.
+	 * @see EbookPropertyItem#isPartial()
+	 */
+	public EbookPropertyItem getListViewItemAt(int rowIndex) {
+		return this.getEbookItems().get(rowIndex);
+	}
 	
 	/**
 	 * Loads the {@link EbookPropertyItem} element at the given index from the database
@@ -312,7 +350,7 @@ public class EbookPropertyDBTableModel extends AbstractEbookPropertyTableModel {
 			Where<EbookPropertyItem, EbookPropertyItem> whereConditions = prepareQuery();
 			List<String> keywords = prepareKeywords();
 			ICloseableList<EbookPropertyItem> items = DefaultDBManager.getInstance().queryFullTextSearch(EbookPropertyItem.class, whereConditions,
-					keywords, getOrderByColumns(), getOrderDirection());
+					keywords, getOrderByColumns(), getOrderDirection(), true);
 			clearVolatileConditions();
 
 			if (this.dbItems != null) {
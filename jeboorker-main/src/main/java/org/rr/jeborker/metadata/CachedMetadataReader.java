@@ -0,0 +1,75 @@
+package org.rr.jeborker.metadata;
+
+import java.util.List;
+
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+
+/**
+ * Reader which serves the metadata of the wrapped {@link IMetadataReader} from the {@link MetadataCache}
+ * if the ebook file was not changed since it was read the last time.
+ */
+class CachedMetadataReader implements IMetadataReader {
+
+	private final IMetadataReader reader;
+
+	private final IResourceHandler resource;
+
+	CachedMetadataReader(IMetadataReader reader, IResourceHandler resource) {
+		this.reader = reader;
+		this.resource = resource;
+	}
+
+	/**
+	 * Get the reader which is wrapped by the given one.
+	 * @return The wrapped reader or the given one if it is no {@link CachedMetadataReader}.
+	 */
+	static IMetadataReader unwrap(IMetadataReader reader) {
+		return reader instanceof CachedMetadataReader ? ((CachedMetadataReader) reader).reader : reader;
+	}
+
+	@Override
+	public List<IResourceHandler> getEbookResource() {
+		return reader.getEbookResource();
+	}
+
+	@Override
+	public List<MetadataProperty> readMetadata() {
+		final MetadataCache cache = MetadataCache.getInstance();
+		List<MetadataProperty> metadata = cache.get(resource);
+		if(metadata == null) {
+			final long[] stamp = cache.getStamp(resource);
+			metadata = reader.readMetadata();
+			if(!metadata.isEmpty()) {
+				// an empty result is also returned if the ebook could not be read.
+				cache.put(resource, stamp, metadata);
+			}
+		}
+		return metadata;
+	}
+
+	@Override
+	public List<MetadataProperty> getSupportedMetadata() {
+		return reader.getSupportedMetadata();
+	}
+
+	@Override
+	public void fillEbookPropertyItem(List<MetadataProperty> metadataProperties, EbookPropertyItem item) {
+		reader.fillEbookPropertyItem(metadataProperties, item);
+	}
+
+	@Override
+	public String getPlainMetadata() {
+		return reader.getPlainMetadata();
+	}
+
+	@Override
+	public String getPlainMetadataMime() {
+		return reader.getPlainMetadataMime();
+	}
+
+	@Override
+	public List<MetadataProperty> getMetadataByType(boolean create, List<MetadataProperty> props, COMMON_METADATA_TYPES type) {
+		return reader.getMetadataByType(create, props, type);
+	}
+}
@@ -9,8 +9,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.logging.Level;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 
 import nl.siegmann.epublib.domain.Author;
 import nl.siegmann.epublib.domain.Book;
@@ -28,6 +30,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.StringUtil;
+import org.rr.commons.utils.compression.CompressedDataEntry;
+import org.rr.commons.utils.compression.FileEntryFilter;
+import org.rr.commons.utils.compression.zip.ZipUtils;
 import org.rr.jeborker.db.item.EbookPropertyItem;
 import org.rr.jeborker.gui.cell.DatePropertyCellEditor;
 import org.rr.jeborker.gui.cell.DatePropertyCellRenderer;
@@ -43,11 +48,11 @@ class EPubLibMetadataReader extends AEpubMetadataHandler implements IMetadataRea
 		final IResourceHandler ebookResourceHandler = getEbookResource().get(0);
 
 		try {
-			final Book epub = readBook(ebookResourceHandler.getContentInputStream(), ebookResourceHandler, true);
-			final Metadata metadata = epub.getMetadata();
-
-			final List<MetadataProperty> metadataList = this.createMetadataList(epub, metadata);
-			return metadataList;
+			final List<MetadataProperty> metadataList = readOpfMetadata(ebookResourceHandler);
+			if(metadataList != null) {
+				return metadataList;
+			}
+			return readBookMetadata(ebookResourceHandler);
 		} catch (Throwable e) {
 			LoggerFactory.logWarning(getClass(), "Could not read metadata for epub " + ebookResourceHandler, e);
 		} finally {
@@ -56,13 +61,62 @@ class EPubLibMetadataReader extends AEpubMetadataHandler implements IMetadataRea
 		return new ArrayList<MetadataProperty>(0);
 	}
 
+	/**
+	 * Reads the metadata with the {@link EpubOpfReader} which only needs the opf file and the cover image
+	 * to be extracted from the epub.
+	 * @return The metadata or <code>null</code> if the opf could not be read.
+	 */
+	List<MetadataProperty> readOpfMetadata(final IResourceHandler ebookResourceHandler) throws IOException {
+		final String opfFile = getOpfFile(ebookResourceHandler);
+		final byte[] opfData = getContainerOPF(ebookResourceHandler);
+		if(opfFile == null || opfData == null) {
+			return null;
+		}
+
+		final EpubOpfReader opf;
+		try {
+			opf = EpubOpfReader.read(opfData);
+		} catch (XMLStreamException e) {
+			LoggerFactory.log(Level.FINE, this, "Could not parse opf of " + ebookResourceHandler, e);
+			return null;
+		}
+
+		byte[] coverData = null;
+		for(String coverHref : opf.getCoverImageHrefs()) {
+			final CompressedDataEntry coverEntry = ZipUtils.extract(ebookResourceHandler, EpubOpfReader.resolveHref(opfFile, coverHref));
+			if(coverEntry != null) {
+				coverData = coverEntry.getBytes();
+				break;
+			}
+		}
+		if(coverData == null) {
+			coverData = searchCoverImage(ebookResourceHandler);
+		}
+		return createMetadataList(opf.getMetadata(), coverData);
+	}
+
+	/**
+	 * Reads the metadata from the epublib {@link Book} which is created from the whole epub.
+	 */
+	List<MetadataProperty> readBookMetadata(final IResourceHandler ebookResourceHandler) throws IOException {
+		final Book epub = readBook(ebookResourceHandler.getContentInputStream(), ebookResourceHandler, true);
+		final Resource coverImage = epub.getCoverImage();
+		final byte[] coverData;
+		if(coverImage != null) {
+			coverData = coverImage.getData();
+		} else {
+			coverData = searchCoverImage(epub);
+		}
+		return createMetadataList(epub.getMetadata(), coverData);
+	}
+
 	/**
 	 * Read all metadata entries from the given {@link Metadata} instance into {@link EpubLibMetadataProperty}.
 	 * @param metadata The metadata instance where the entries read from.
+	 * @param coverData The cover image bytes or <code>null</code> if the epub has no cover.
 	 * @return All available metadata from teh given {@link Metadata} instance.
-	 * @throws IOException
 	 */
-	private List<MetadataProperty> createMetadataList(final Book epub, final Metadata metadata) throws IOException {
+	private List<MetadataProperty> createMetadataList(final Metadata metadata, final byte[] coverData) {
 		final ArrayList<MetadataProperty> result = new ArrayList<MetadataProperty>() {
 
 			@Override
@@ -195,14 +249,7 @@ class EPubLibMetadataReader extends AEpubMetadataHandler implements IMetadataRea
 			result.add(new EpubLibMetadataProperty<Void>(EPUB_METADATA_TYPES.LANGUAGE.getName(), language, null));
 		}
 
-		final Resource coverImage = epub.getCoverImage();
-		final byte[] data;
-		if(coverImage != null) {
-			data = coverImage.getData();
-		} else {
-			data = searchCoverImage(epub);
-		}
-		result.add(new EpubLibMetadataProperty<Void>(EPUB_METADATA_TYPES.COVER.getName(), data, null));
+		result.add(new EpubLibMetadataProperty<Void>(EPUB_METADATA_TYPES.COVER.getName(), coverData, null));
 
 		return new ArrayList<MetadataProperty>(result);
 	}
@@ -233,6 +280,27 @@ class EPubLibMetadataReader extends AEpubMetadataHandler implements IMetadataRea
 		return null;
 	}
 
+	/**
+	 * Searches the zip entries of the given epub for an image which seems to be the cover image.
+	 * @return The desired cover image bytes or <code>null</code> if no cover could be found.
+	 */
+	private byte[] searchCoverImage(final IResourceHandler ebookResourceHandler) throws IOException {
+		final List<CompressedDataEntry> coverEntries = ZipUtils.extract(ebookResourceHandler, new FileEntryFilter() {
+
+			@Override
+			public boolean accept(String entry, byte[] rawEntry) {
+				return new File(entry).getName().toLowerCase().contains("cover") && (entry.endsWith(".jpg") || entry.endsWith(".jpeg"));
+			}
+		});
+		for(CompressedDataEntry coverEntry : coverEntries) {
+			byte[] data = coverEntry.getBytes();
+			if(data != null && data.length > 0) {
+				return data;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public void fillEbookPropertyItem(final List<MetadataProperty> metadataProperties, final EbookPropertyItem item) {
 		item.clearMetadata();
@@ -3,7 +3,6 @@ package org.rr.jeborker.metadata;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.rr.commons.utils.StringUtil.EMPTY;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
@@ -305,7 +304,7 @@ class EPubLibMetadataWriter extends AEpubMetadataHandler implements IMetadataWri
 	 */
 	private void writeZipData(byte[] content, final String file) throws IOException {
 		final IResourceHandler ebookResourceHandler = getEbookResource().get(0);
-		TrueZipUtils.add(ebookResourceHandler, file, new ByteArrayInputStream(content));
+		TrueZipUtils.replace(ebookResourceHandler, file, content);
 	}
 
 	@Override
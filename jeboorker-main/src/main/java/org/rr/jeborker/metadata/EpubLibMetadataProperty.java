@@ -3,6 +3,10 @@ package org.rr.jeborker.metadata;
 import java.util.ArrayList;
 import java.util.Date;
 
+import nl.siegmann.epublib.domain.Author;
+import nl.siegmann.epublib.domain.Identifier;
+import nl.siegmann.epublib.domain.Meta;
+
 import org.rr.commons.utils.DateConversionUtils;
 
 
@@ -66,14 +70,39 @@ class EpubLibMetadataProperty<T> extends MetadataProperty {
 	
 	/**
 	 * Creates a new {@link EpubLibMetadataProperty} instance with the data of this {@link EpubLibMetadataProperty}.
+	 * The epublib metadata entry is copied, so changing the clone did not change this property.
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
 	public MetadataProperty clone() {
-		EpubLibMetadataProperty<?> newMetadataProperty = new EpubLibMetadataProperty(this.name, this.value, this.epubLibMetadataEntry);
+		EpubLibMetadataProperty<?> newMetadataProperty = new EpubLibMetadataProperty(this.name, this.value, copyEntry(this.epubLibMetadataEntry));
 		newMetadataProperty.hints = this.hints;
 		newMetadataProperty.values = new ArrayList<>(this.values);
 		return newMetadataProperty;
 	}
 
+	/**
+	 * Copies the mutable epublib metadata entries. The qualified names of the other properties are immutable.
+	 */
+	private static Object copyEntry(Object entry) {
+		if(entry instanceof Author) {
+			Author author = (Author) entry;
+			Author copy = new Author(author.getFirstname(), author.getLastname());
+			copy.setRelator(author.getRelator());
+			return copy;
+		} else if(entry instanceof nl.siegmann.epublib.domain.Date) {
+			nl.siegmann.epublib.domain.Date date = (nl.siegmann.epublib.domain.Date) entry;
+			return new nl.siegmann.epublib.domain.Date(date.getValue(), date.getEvent());
+		} else if(entry instanceof Identifier) {
+			Identifier identifier = (Identifier) entry;
+			Identifier copy = new Identifier(identifier.getScheme(), identifier.getValue());
+			copy.setBookId(identifier.isBookId());
+			return copy;
+		} else if(entry instanceof Meta) {
+			Meta meta = (Meta) entry;
+			return new Meta(meta.getName(), meta.getContent());
+		}
+		return entry;
+	}
+
 }
@@ -0,0 +1,385 @@
+package org.rr.jeborker.metadata;
+
+import static nl.siegmann.epublib.epub.PackageDocumentBase.NAMESPACE_DUBLIN_CORE;
+import static nl.siegmann.epublib.epub.PackageDocumentBase.NAMESPACE_OPF;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import nl.siegmann.epublib.domain.Author;
+import nl.siegmann.epublib.domain.Date;
+import nl.siegmann.epublib.domain.Identifier;
+import nl.siegmann.epublib.domain.Meta;
+import nl.siegmann.epublib.domain.Metadata;
+import nl.siegmann.epublib.epub.EpubReader;
+import nl.siegmann.epublib.service.MediatypeService;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.rr.commons.utils.StringUtil;
+
+/**
+ * Reads the metadata and the cover image reference from the opf package document of an epub with a
+ * streaming xml parser. Other than the {@link EpubReader}, no {@link nl.siegmann.epublib.domain.Book} with all
+ * it's resources, the spine and the table of contents is created, so only the opf file and the cover image
+ * needs to be extracted from the epub.
+ * <br><br>
+ * The metadata is read into the epublib {@link Metadata} in the same way as the epublib package document reader
+ * does, so it can be handled by the {@link EPubLibMetadataWriter} like the metadata read from a book.
+ */
+class EpubOpfReader {
+
+	private static final XMLInputFactory XML_INPUT_FACTORY;
+
+	static {
+		XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+	}
+
+	private final Metadata metadata = new Metadata();
+
+	private final List<Identifier> identifiers = new ArrayList<>();
+
+	private final List<String> identifierIds = new ArrayList<>();
+
+	private final List<Author> authors = new ArrayList<>();
+
+	private final List<Author> contributors = new ArrayList<>();
+
+	private final List<Date> dates = new ArrayList<>();
+
+	private final Map<QName, String> otherProperties = new HashMap<>();
+
+	private final List<Meta> otherMeta = new ArrayList<>();
+
+	/** The manifest hrefs mapped by their ids. */
+	private final Map<String, String> manifest = new HashMap<>();
+
+	/** The manifest media types mapped by the hrefs. */
+	private final Map<String, String> mediaTypes = new HashMap<>();
+
+	/** The epub3 manifest item with the cover-image property. */
+	private String coverImageHref;
+
+	/** The id or href of the epub2 cover meta entry. */
+	private String coverMetaContent;
+
+	/** The href of the cover guide reference. */
+	private String guideCoverHref;
+
+	private String uniqueIdentifier;
+
+	private boolean languageRead = false;
+
+	private EpubOpfReader() {
+		metadata.setFormat(null); // no default format for epubs which didn't define one.
+	}
+
+	/**
+	 * Parses the given opf package document.
+	 * @param opfData The bytes of the opf file.
+	 * @return The reader with the metadata and cover reference of the given opf.
+	 * @throws XMLStreamException if the opf is not well formed.
+	 */
+	static EpubOpfReader read(byte[] opfData) throws XMLStreamException {
+		final EpubOpfReader result = new EpubOpfReader();
+		final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(opfData));
+		try {
+			result.parse(reader);
+		} finally {
+			reader.close();
+		}
+		result.finish();
+		return result;
+	}
+
+	/**
+	 * Get the metadata read from the opf.
+	 */
+	Metadata getMetadata() {
+		return metadata;
+	}
+
+	/**
+	 * Get the hrefs of the bitmap images which are referenced as cover by the opf. The hrefs are relative to the opf file
+	 * and ordered by their relevance.
+	 * @return The cover image hrefs. Never returns <code>null</code>.
+	 */
+	List<String> getCoverImageHrefs() {
+		final Map<String, Boolean> result = new LinkedHashMap<>();
+		if(StringUtil.isNotEmpty(coverImageHref)) {
+			result.put(coverImageHref, Boolean.TRUE);
+		}
+		if(StringUtil.isNotEmpty(coverMetaContent)) {
+			final String href = manifest.get(coverMetaContent);
+			// maybe there was a cover href put in the cover id attribute
+			result.put(StringUtil.isNotEmpty(href) ? href : coverMetaContent, Boolean.TRUE);
+		}
+		if(StringUtil.isNotEmpty(guideCoverHref)) {
+			result.put(guideCoverHref, Boolean.TRUE);
+		}
+
+		final List<String> images = new ArrayList<>(result.size());
+		for(String href : result.keySet()) {
+			if(isBitmapImage(href)) {
+				images.add(href);
+			}
+		}
+		return images;
+	}
+
+	/**
+	 * Resolves the given href which is relative to the given opf file to the path of the zip entry.
+	 */
+	static String resolveHref(String opfFile, String href) {
+		final int opfFolderIndex = opfFile != null ? opfFile.lastIndexOf('/') : -1;
+		final List<String> segments = new ArrayList<>();
+		if(opfFolderIndex != -1) {
+			addSegments(segments, opfFile.substring(0, opfFolderIndex));
+		}
+		addSegments(segments, decodeHref(href));
+
+		final StringBuilder result = new StringBuilder();
+		for(String segment : segments) {
+			if(result.length() > 0) {
+				result.append('/');
+			}
+			result.append(segment);
+		}
+		return result.toString();
+	}
+
+	private static void addSegments(List<String> segments, String path) {
+		for(String segment : StringUtils.split(path, '/')) {
+			if(segment.equals(".")) {
+				continue;
+			} else if(segment.equals("..")) {
+				if(!segments.isEmpty()) {
+					segments.remove(segments.size() - 1);
+				}
+			} else {
+				segments.add(segment);
+			}
+		}
+	}
+
+	private static String decodeHref(String href) {
+		final int fragmentIndex = href.indexOf('#');
+		final String path = fragmentIndex != -1 ? href.substring(0, fragmentIndex) : href;
+		if(path.indexOf('%') != -1) {
+			try {
+				return URLDecoder.decode(StringUtil.replace(path, "+", "%2B"), StringUtil.UTF_8);
+			} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+				return path;
+			}
+		}
+		return path;
+	}
+
+	private boolean isBitmapImage(String href) {
+		final String mediaType = mediaTypes.get(href);
+		if(mediaType != null && MediatypeService.getMediaTypeByName(mediaType) != null) {
+			return MediatypeService.isBitmapImage(MediatypeService.getMediaTypeByName(mediaType));
+		}
+		return MediatypeService.isBitmapImage(MediatypeService.determineMediaType(href));
+	}
+
+	private void parse(XMLStreamReader reader) throws XMLStreamException {
+		boolean inMetadata = false;
+		boolean inGuide = false;
+		while(reader.hasNext()) {
+			final int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				final String namespace = reader.getNamespaceURI();
+				final String name = reader.getLocalName();
+				if(NAMESPACE_OPF.equals(namespace)) {
+					if(name.equals("package")) {
+						uniqueIdentifier = reader.getAttributeValue(null, "unique-identifier");
+					} else if(name.equals("metadata")) {
+						inMetadata = true;
+					} else if(name.equals("meta") && inMetadata) {
+						readMeta(reader);
+					} else if(name.equals("item")) {
+						readManifestItem(reader);
+					} else if(name.equals("guide")) {
+						inGuide = true;
+					} else if(name.equals("reference") && inGuide && "cover".equals(reader.getAttributeValue(null, "type"))) {
+						if(guideCoverHref == null) {
+							guideCoverHref = reader.getAttributeValue(null, "href");
+						}
+					}
+				} else if(NAMESPACE_DUBLIN_CORE.equals(namespace) && inMetadata) {
+					readDublinCore(reader, name);
+				}
+			} else if(event == XMLStreamConstants.END_ELEMENT && NAMESPACE_OPF.equals(reader.getNamespaceURI())) {
+				final String name = reader.getLocalName();
+				if(name.equals("metadata")) {
+					inMetadata = false;
+				} else if(name.equals("guide")) {
+					inGuide = false;
+				}
+			}
+		}
+	}
+
+	private void readManifestItem(XMLStreamReader reader) {
+		final String id = reader.getAttributeValue(null, "id");
+		final String href = reader.getAttributeValue(null, "href");
+		if(href == null) {
+			return;
+		}
+		if(id != null) {
+			manifest.put(id, href);
+		}
+		final String mediaType = reader.getAttributeValue(null, "media-type");
+		if(mediaType != null) {
+			mediaTypes.put(href, mediaType);
+		}
+		final String properties = reader.getAttributeValue(null, "properties");
+		if(coverImageHref == null && properties != null && ArrayUtils.contains(StringUtils.split(properties, ' '), "cover-image")) {
+			coverImageHref = href;
+		}
+	}
+
+	private void readMeta(XMLStreamReader reader) throws XMLStreamException {
+		final String name = reader.getAttributeValue(null, "name");
+		final String content = reader.getAttributeValue(null, "content");
+		final String property = reader.getAttributeValue(null, "property");
+		if(name != null && content != null) {
+			otherMeta.add(new Meta(name, content));
+			if(coverMetaContent == null && "cover".equals(name)) {
+				coverMetaContent = content;
+			}
+		}
+		if(property != null) {
+			// <meta property="media:active-class">-epub-media-overlay-active</meta>
+			otherProperties.put(new QName(property), readTextContent(reader));
+		}
+	}
+
+	private void readDublinCore(XMLStreamReader reader, String name) throws XMLStreamException {
+		if(name.equals("identifier")) {
+			final String scheme = reader.getAttributeValue(NAMESPACE_OPF, "scheme");
+			final String id = reader.getAttributeValue(null, "id");
+			final String value = readTextChildren(reader);
+			if(StringUtil.isNotEmpty(value)) {
+				identifiers.add(new Identifier(scheme != null ? scheme : StringUtil.EMPTY, value));
+				identifierIds.add(id);
+			}
+		} else if(name.equals("creator") || name.equals("contributor")) {
+			final String role = reader.getAttributeValue(NAMESPACE_OPF, "role");
+			final Author author = createAuthor(readTextChildren(reader), role);
+			if(author != null) {
+				(name.equals("creator") ? authors : contributors).add(author);
+			}
+		} else if(name.equals("date")) {
+			final String event = reader.getAttributeValue(NAMESPACE_OPF, "event");
+			try {
+				dates.add(new Date(readTextChildren(reader), event != null ? event : StringUtil.EMPTY));
+			} catch(IllegalArgumentException e) {
+				// not a valid date
+			}
+		} else if(name.equals("title")) {
+			metadata.getTitles().add(readTextChildren(reader));
+		} else if(name.equals("publisher")) {
+			metadata.getPublishers().add(readTextChildren(reader));
+		} else if(name.equals("description")) {
+			metadata.getDescriptions().add(readTextChildren(reader));
+		} else if(name.equals("rights")) {
+			metadata.getRights().add(readTextChildren(reader));
+		} else if(name.equals("type")) {
+			metadata.getTypes().add(readTextChildren(reader));
+		} else if(name.equals("subject")) {
+			metadata.getSubjects().add(readTextChildren(reader));
+		} else if(name.equals("language")) {
+			final String language = readTextChildren(reader);
+			if(!languageRead) {
+				metadata.setLanguage(language);
+				languageRead = true;
+			}
+		}
+	}
+
+	private static Author createAuthor(String authorString, String role) {
+		if(StringUtil.isEmpty(authorString)) {
+			return null;
+		}
+		final int spacePos = authorString.lastIndexOf(' ');
+		final Author result;
+		if(spacePos < 0) {
+			result = new Author(authorString);
+		} else {
+			result = new Author(authorString.substring(0, spacePos), authorString.substring(spacePos + 1));
+		}
+		result.setRole(role != null ? role : StringUtil.EMPTY);
+		return result;
+	}
+
+	/**
+	 * Reads the text which is a direct child of the current element up to it's end tag. The text of nested
+	 * elements is skipped.
+	 */
+	private static String readTextChildren(XMLStreamReader reader) throws XMLStreamException {
+		final StringBuilder result = new StringBuilder();
+		int depth = 1;
+		while(depth > 0 && reader.hasNext()) {
+			final int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			} else if(depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+				result.append(reader.getText());
+			}
+		}
+		return result.toString().trim();
+	}
+
+	/**
+	 * Reads the whole text content of the current element up to it's end tag.
+	 */
+	private static String readTextContent(XMLStreamReader reader) throws XMLStreamException {
+		final StringBuilder result = new StringBuilder();
+		int depth = 1;
+		while(depth > 0 && reader.hasNext()) {
+			final int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			} else if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+				result.append(reader.getText());
+			}
+		}
+		return result.toString();
+	}
+
+	private void finish() {
+		for(int i = 0; i < identifiers.size(); i++) {
+			if(uniqueIdentifier != null && uniqueIdentifier.equals(identifierIds.get(i))) {
+				identifiers.get(i).setBookId(true);
+			}
+		}
+		metadata.setIdentifiers(identifiers);
+		metadata.setAuthors(authors);
+		metadata.setContributors(contributors);
+		metadata.setDates(dates);
+		metadata.setOtherProperties(otherProperties);
+		metadata.setOtherMeta(otherMeta);
+	}
+}
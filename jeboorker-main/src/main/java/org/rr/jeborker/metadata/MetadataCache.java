@@ -0,0 +1,165 @@
+package org.rr.jeborker.metadata;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rr.commons.collection.LRUCacheMap;
+import org.rr.commons.mufs.IResourceHandler;
+
+/**
+ * Least recently used cache for the metadata read by the {@link IMetadataReader}s including the cover bytes.
+ * The metadata is cached for the path of the ebook file. An entry is only valid for the size and the modification
+ * time the ebook file had when the metadata was read. Entries are removed if the metadata is written with a
+ * {@link IMetadataWriter} from the {@link MetadataHandlerFactory} or the file watch service detects a change.
+ * <br><br>
+ * The cached properties are cloned when they're put to and fetched from the cache, so changing the properties
+ * returned by the reader did not change the cached ones.
+ */
+public class MetadataCache {
+
+	/** Default number of ebooks whose metadata is kept. The metadata contains the cover bytes so it should not be too large. */
+	private static final int DEFAULT_MAX_ENTRIES = 32;
+
+	private static final MetadataCache instance = new MetadataCache(DEFAULT_MAX_ENTRIES);
+
+	private final LRUCacheMap<String, Entry> cache;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	MetadataCache(int maxEntries) {
+		this.cache = new LRUCacheMap<>(maxEntries);
+	}
+
+	public static MetadataCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Get the cached metadata for the given ebook resource.
+	 * @return A copy of the cached metadata or <code>null</code> if there is no valid metadata in the cache.
+	 */
+	List<MetadataProperty> get(IResourceHandler resource) {
+		if(resource.isFileResource()) {
+			final Entry entry;
+			synchronized(this) {
+				entry = cache.get(getKey(resource));
+			}
+			if(entry != null && entry.isValid(resource)) {
+				hits.incrementAndGet();
+				return copy(entry.metadata);
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Get the size and modification time stamp of the given resource which should be taken before reading
+	 * the metadata and passed to {@link #put(IResourceHandler, long[], List)} afterwards.
+	 * @return The stamp or <code>null</code> if the metadata for the given resource could not be cached.
+	 */
+	long[] getStamp(IResourceHandler resource) {
+		if(resource.isFileResource()) {
+			final Date modifiedAt = resource.getModifiedAt();
+			if(modifiedAt != null) {
+				return new long[] {resource.size(), modifiedAt.getTime()};
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the metadata for the given ebook resource to the cache.
+	 * @param stamp The stamp of the resource taken with {@link #getStamp(IResourceHandler)} before the metadata was read.
+	 */
+	void put(IResourceHandler resource, long[] stamp, List<MetadataProperty> metadata) {
+		if(stamp != null && metadata != null) {
+			final Entry entry = new Entry(stamp[0], stamp[1], copy(metadata));
+			synchronized(this) {
+				cache.put(getKey(resource), entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes the metadata for the given ebook resource.
+	 */
+	public void remove(IResourceHandler resource) {
+		if(resource.isFileResource()) {
+			remove(getKey(resource));
+		}
+	}
+
+	/**
+	 * Removes the metadata for the ebook with the given absolute path.
+	 */
+	public synchronized void remove(String path) {
+		cache.remove(path);
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+	}
+
+	public synchronized int getEntryCount() {
+		return cache.size();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return The percentage of requests which could be served from the cache.
+	 */
+	public int getHitRate() {
+		long hitCount = hits.get();
+		long total = hitCount + misses.get();
+		return total == 0 ? 0 : (int) (hitCount * 100 / total);
+	}
+
+	@Override
+	public String toString() {
+		return "Metadata cache: " + getEntryCount() + " entries, " + getHitCount() + " hits, " + getMissCount() + " misses (" + getHitRate() + "%)";
+	}
+
+	private static String getKey(IResourceHandler resource) {
+		return resource.toFile().getAbsolutePath();
+	}
+
+	private static List<MetadataProperty> copy(List<MetadataProperty> metadata) {
+		final List<MetadataProperty> result = new ArrayList<>(metadata.size());
+		for(MetadataProperty property : metadata) {
+			result.add(property.clone());
+		}
+		return result;
+	}
+
+	private static class Entry {
+
+		private final long size;
+
+		private final long modifiedAt;
+
+		private final List<MetadataProperty> metadata;
+
+		Entry(long size, long modifiedAt, List<MetadataProperty> metadata) {
+			this.size = size;
+			this.modifiedAt = modifiedAt;
+			this.metadata = metadata;
+		}
+
+		boolean isValid(IResourceHandler resource) {
+			final Date resourceModifiedAt = resource.getModifiedAt();
+			return resourceModifiedAt != null && resourceModifiedAt.getTime() == modifiedAt && resource.size() == size;
+		}
+	}
+}
@@ -68,21 +68,21 @@ public class MetadataHandlerFactory {
 		final String mimeType = resource.getMimeType(true);
 		if (mimeType != null) {
 			latestReader = null;
-			if(resource.getMimeType(true).equals(MIME_EPUB.getMime())) {
-				return latestReader = new EPubLibMetadataReader(resource);
-			} else if(resource.getMimeType(true).equals(MIME_PDF.getMime())) {
-				return latestReader = new PDFCommonMetadataReader(resource);
-			} else if(resource.getMimeType(true).equals(MIME_CBZ.getMime()) || resource.getMimeType(true).equals(MIME_CBR.getMime())) {
-				return latestReader = new ComicBookMetadataReader(resource);
-			} else if(resource.getMimeType(true).equals(MIME_HTML.getMime())) {
-				return latestReader = new HTMLMetadataReader(resource);
-			} else if(resource.getMimeType(true).equals(MIME_MOBI.getMime()) || resource.getMimeType(true).equals(MIME_AZW.getMime())) {
-				return latestReader = new MobiMetadataReader(resource);
-			}  
+			if(mimeType.equals(MIME_EPUB.getMime())) {
+				return latestReader = cached(new EPubLibMetadataReader(resource), resource);
+			} else if(mimeType.equals(MIME_PDF.getMime())) {
+				return latestReader = cached(new PDFCommonMetadataReader(resource), resource);
+			} else if(mimeType.equals(MIME_CBZ.getMime()) || mimeType.equals(MIME_CBR.getMime())) {
+				return latestReader = cached(new ComicBookMetadataReader(resource), resource);
+			} else if(mimeType.equals(MIME_HTML.getMime())) {
+				return latestReader = cached(new HTMLMetadataReader(resource), resource);
+			} else if(mimeType.equals(MIME_MOBI.getMime()) || mimeType.equals(MIME_AZW.getMime())) {
+				return latestReader = cached(new MobiMetadataReader(resource), resource);
+			}
 		}
 		return latestReader = new EmptyMetadataReader(resource);
 	}
-	
+
 	/**
 	 * Get a meta data writer for the given {@link IResourceHandler}.
 	 * @param resources The resources for which a meta data writer should be fetched for.
@@ -93,7 +93,7 @@ public class MetadataHandlerFactory {
 		if(resources.size() == 1) {
 			return getWriter(resources.get(0));
 		} else {
-			return wrap(new MultiMetadataHandler(resources));
+			return wrap(new MultiMetadataHandler(resources), resources);
 		}
 	}	
 	
@@ -106,14 +106,14 @@ public class MetadataHandlerFactory {
 	public static IMetadataWriter getWriter(final IResourceHandler resource) {
 		final String mimeType = resource.getMimeType(true);
 		if(mimeType!=null) {
-			if(resource.getMimeType(true).equals(MIME_EPUB.getMime())) {
-				return wrap(new EPubLibMetadataWriter(resource));
-			} else if(resource.getMimeType(true).equals(MIME_PDF.getMime())) {
-				return wrap(new PDFCommonMetadataWriter(resource));
-			} else if(resource.getMimeType(true).equals(MIME_CBZ.getMime()) || resource.getMimeType(true).equals(MIME_CBR.getMime())) {
-				return wrap(new ComicBookMetadataWriter(resource));
-			} else if(resource.getMimeType(true).equals(MIME_MOBI.getMime()) || resource.getMimeType(true).equals(MIME_AZW.getMime())) {
-				return wrap(new MobiMetadataWriter(resource));
+			if(mimeType.equals(MIME_EPUB.getMime())) {
+				return wrap(new EPubLibMetadataWriter(resource), resource);
+			} else if(mimeType.equals(MIME_PDF.getMime())) {
+				return wrap(new PDFCommonMetadataWriter(resource), resource);
+			} else if(mimeType.equals(MIME_CBZ.getMime()) || mimeType.equals(MIME_CBR.getMime())) {
+				return wrap(new ComicBookMetadataWriter(resource), resource);
+			} else if(mimeType.equals(MIME_MOBI.getMime()) || mimeType.equals(MIME_AZW.getMime())) {
+				return wrap(new MobiMetadataWriter(resource), resource);
 			}
 		}
 		return null;
@@ -140,11 +140,11 @@ public class MetadataHandlerFactory {
 	public static boolean hasCoverWriterSupport(final IResourceHandler resource) {
 		final String mimeType = resource.getMimeType(true);
 		if(mimeType != null) {
-			if(resource.getMimeType(true).equals(MIME_EPUB.getMime())) {
+			if(mimeType.equals(MIME_EPUB.getMime())) {
 				return true;
-			} else if(resource.getMimeType(true).equals(MIME_PDF.getMime())) {
+			} else if(mimeType.equals(MIME_PDF.getMime())) {
 				return true;
-			} else if(resource.getMimeType(true).equals(MIME_MOBI.getMime()) || resource.getMimeType(true).equals(MIME_AZW.getMime())) {
+			} else if(mimeType.equals(MIME_MOBI.getMime()) || mimeType.equals(MIME_AZW.getMime())) {
 				return true;
 			}
 		}	
@@ -159,13 +159,13 @@ public class MetadataHandlerFactory {
 	public static boolean hasPlainMetadataSupport(final IResourceHandler resourceHandler) {
 		final String mimeType = resourceHandler.getMimeType(true);
 		if(mimeType!=null) {
-			if(resourceHandler.getMimeType(true).equals(MIME_EPUB.getMime())) {
+			if(mimeType.equals(MIME_EPUB.getMime())) {
 				return true;
-			} else if(resourceHandler.getMimeType(true).equals(MIME_PDF.getMime())) {
+			} else if(mimeType.equals(MIME_PDF.getMime())) {
 				return true;
-			} else if(resourceHandler.getMimeType(true).equals(MIME_CBZ.getMime()) || resourceHandler.getMimeType(true).equals(MIME_CBR.getMime())) {
+			} else if(mimeType.equals(MIME_CBZ.getMime()) || mimeType.equals(MIME_CBR.getMime())) {
 				return true;
-			} else if(resourceHandler.getMimeType(true).equals(MIME_HTML.getMime())) {
+			} else if(mimeType.equals(MIME_HTML.getMime())) {
 				return true;
 			}
 		}	
@@ -192,37 +192,71 @@ public class MetadataHandlerFactory {
 		return null;
 	}
 	
+	/**
+	 * Wrap the given {@link IMetadataReader} with the {@link CachedMetadataReader}.
+	 */
+	private static IMetadataReader cached(final IMetadataReader reader, final IResourceHandler resource) {
+		return new CachedMetadataReader(reader, resource);
+	}
+	
 	/**
 	 * Wrap the given {@link IMetadataWriter} with the {@link MetadataWriterWrapper}.
 	 * @param writer The writer instance to be wrapped.
+	 * @param resource The resource written by the given writer.
 	 * @return The MetadataWriterWrapper wrapping the given {@link IMetadataWriter} instance.
 	 */
-	private static IMetadataWriter wrap(final IMetadataWriter writer) {
-		return new MetadataWriterWrapper(writer);
+	private static IMetadataWriter wrap(final IMetadataWriter writer, final IResourceHandler resource) {
+		return wrap(writer, Collections.singletonList(resource));
+	}
+	
+	/**
+	 * Wrap the given {@link IMetadataWriter} with the {@link MetadataWriterWrapper}.
+	 * @param writer The writer instance to be wrapped.
+	 * @param resources The resources written by the given writer.
+	 * @return The MetadataWriterWrapper wrapping the given {@link IMetadataWriter} instance.
+	 */
+	private static IMetadataWriter wrap(final IMetadataWriter writer, final List<IResourceHandler> resources) {
+		return new MetadataWriterWrapper(writer, resources);
 	}
 	
 	/**
 	 * Wrapper for all {@link IMetadataWriter}. It's needed for resetting the cached {@link IMetadataReader} instance
-	 * because the reader data are out of date after a writer does it's write.
+	 * and the {@link MetadataCache} entries because the reader data are out of date after a writer does it's write.
 	 */
 	private static class MetadataWriterWrapper implements IMetadataWriter {
 
 		private IMetadataWriter writer;
 		
-		MetadataWriterWrapper(IMetadataWriter writer) {
+		private List<IResourceHandler> resources;
+		
+		MetadataWriterWrapper(IMetadataWriter writer, List<IResourceHandler> resources) {
 			this.writer = writer;
+			this.resources = resources;
 		}
 		
 		@Override
 		public void writeMetadata(List<MetadataProperty> props) {
-			writer.writeMetadata(props);
-			latestReader = null;
+			try {
+				writer.writeMetadata(props);
+			} finally {
+				invalidate();
+			}
 		}
 
 		@Override
 		public void storePlainMetadata(byte[] plainMetadata) {
-			writer.storePlainMetadata(plainMetadata);
+			try {
+				writer.storePlainMetadata(plainMetadata);
+			} finally {
+				invalidate();
+			}
+		}
+		
+		private void invalidate() {
 			latestReader = null;
+			for(IResourceHandler resource : resources) {
+				MetadataCache.getInstance().remove(resource);
+			}
 		}
 	}
 
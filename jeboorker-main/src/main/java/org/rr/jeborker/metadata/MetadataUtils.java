@@ -95,7 +95,7 @@ public class MetadataUtils {
 	 * @param target The target ebook resource where the actual page count is read from.
 	 */
 	public static void refreshPageNumberMetadata(IMetadataReader sourceReader, List<MetadataProperty> metadataProperties, IResourceHandler target) {
-		if (sourceReader instanceof ComicBookMetadataReader && (MimeUtils.isCbr(target, true) || MimeUtils.isCbz(target, true))) {
+		if (CachedMetadataReader.unwrap(sourceReader) instanceof ComicBookMetadataReader && (MimeUtils.isCbr(target, true) || MimeUtils.isCbz(target, true))) {
 			IArchiveHandler archiveHandler = ArchiveHandlerFactory.getHandler(target);
 			try {
 				archiveHandler.readArchive();
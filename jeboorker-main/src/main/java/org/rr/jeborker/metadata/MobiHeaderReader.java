@@ -0,0 +1,245 @@
+package org.rr.jeborker.metadata;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the metadata of a mobi or azw file from it's headers. Other than the mobi4java reader which reads the
+ * whole palm database with all text records, only the record table, the first record with the mobi and the EXTH
+ * header and the cover image record are read from the file.
+ */
+class MobiHeaderReader {
+
+	private static final int PDB_HEADER_LENGTH = 78;
+
+	private static final int PDB_TYPE_OFFSET = 60;
+
+	private static final int PDB_RECORD_COUNT_OFFSET = 76;
+
+	private static final int PDB_RECORD_INFO_LENGTH = 8;
+
+	private static final int MOBI_HEADER_OFFSET = 16;
+
+	private static final int TEXT_ENCODING_OFFSET = 28;
+
+	private static final int FULL_NAME_OFFSET = 84;
+
+	private static final int FIRST_IMAGE_INDEX_OFFSET = 108;
+
+	private static final int EXTH_FLAGS_OFFSET = 128;
+
+	private static final int EXTH_FLAG = 0x40;
+
+	private static final int NULL_INDEX = 0xFFFFFFFF;
+
+	private static final int ENCODING_CP1252 = 1252;
+
+	private static final int ENCODING_UTF8 = 65001;
+
+	/** The EXTH record with the cover image record index relative to the first image record. */
+	static final int EXTH_COVER_OFFSET = 201;
+
+	/**
+	 * A record of the EXTH header.
+	 */
+	static class ExthEntry {
+
+		final int type;
+
+		final byte[] data;
+
+		ExthEntry(int type, byte[] data) {
+			this.type = type;
+			this.data = data;
+		}
+	}
+
+	private String fullName;
+
+	private String characterEncoding;
+
+	private final List<ExthEntry> exthEntries = new ArrayList<>();
+
+	private byte[] cover;
+
+	private MobiHeaderReader() {
+	}
+
+	/**
+	 * Reads the headers and the cover of the given mobi file.
+	 * @throws IOException if the file could not be read or is not a mobi file.
+	 */
+	static MobiHeaderReader read(File mobiFile) throws IOException {
+		final MobiHeaderReader result = new MobiHeaderReader();
+		try (FileChannel channel = FileChannel.open(mobiFile.toPath(), StandardOpenOption.READ)) {
+			result.read(channel, mobiFile);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the full name of the book from the mobi header.
+	 */
+	String getFullName() {
+		return fullName;
+	}
+
+	/**
+	 * Get the java name of the text encoding from the mobi header or <code>null</code> if the encoding is unknown.
+	 */
+	String getCharacterEncoding() {
+		return characterEncoding;
+	}
+
+	/**
+	 * Get all records of the EXTH header in the order they are stored in the file.
+	 */
+	List<ExthEntry> getExthEntries() {
+		return Collections.unmodifiableList(exthEntries);
+	}
+
+	/**
+	 * Get the cover image or the first image of the book if no cover is specified.
+	 * @return The image bytes or <code>null</code> if the book has no images.
+	 */
+	byte[] getCover() {
+		return cover;
+	}
+
+	private void read(FileChannel channel, File mobiFile) throws IOException {
+		final long fileSize = channel.size();
+		final ByteBuffer pdbHeader = read(channel, 0, PDB_HEADER_LENGTH);
+		final String type = new String(pdbHeader.array(), PDB_TYPE_OFFSET, 8, StandardCharsets.ISO_8859_1);
+		if(!type.equals("BOOKMOBI")) {
+			throw new IOException("No mobi file " + mobiFile);
+		}
+
+		final int recordCount = pdbHeader.getShort(PDB_RECORD_COUNT_OFFSET) & 0xFFFF;
+		final ByteBuffer recordTable = read(channel, PDB_HEADER_LENGTH, recordCount * PDB_RECORD_INFO_LENGTH);
+		final long[] recordOffsets = new long[recordCount + 1];
+		for(int i = 0; i < recordCount; i++) {
+			recordOffsets[i] = recordTable.getInt(i * PDB_RECORD_INFO_LENGTH) & 0xFFFFFFFFL;
+		}
+		recordOffsets[recordCount] = fileSize;
+
+		final ByteBuffer record0 = readRecord(channel, recordOffsets, 0);
+		if(record0 == null || record0.limit() < EXTH_FLAGS_OFFSET + 4 || record0.getInt(MOBI_HEADER_OFFSET) != 0x4D4F4249) { // MOBI
+			throw new IOException("No mobi header in " + mobiFile);
+		}
+
+		final int textEncoding = record0.getInt(TEXT_ENCODING_OFFSET);
+		if(textEncoding == ENCODING_UTF8) {
+			characterEncoding = StandardCharsets.UTF_8.name();
+		} else if(textEncoding == ENCODING_CP1252) {
+			characterEncoding = "Cp1252";
+		}
+
+		final int fullNameOffset = record0.getInt(FULL_NAME_OFFSET);
+		final int fullNameLength = record0.getInt(FULL_NAME_OFFSET + 4);
+		if(fullNameOffset > 0 && fullNameLength > 0 && fullNameOffset + fullNameLength <= record0.limit()) {
+			fullName = decode(record0.array(), fullNameOffset, fullNameLength);
+		}
+
+		final int headerLength = record0.getInt(MOBI_HEADER_OFFSET + 4);
+		if((record0.getInt(EXTH_FLAGS_OFFSET) & EXTH_FLAG) != 0) {
+			readExth(record0, MOBI_HEADER_OFFSET + headerLength);
+		}
+
+		final int firstImageIndex = record0.getInt(FIRST_IMAGE_INDEX_OFFSET);
+		if(firstImageIndex != NULL_INDEX && firstImageIndex > 0) {
+			final ExthEntry coverOffset = getExthEntry(EXTH_COVER_OFFSET);
+			if(coverOffset != null && coverOffset.data.length >= 4) {
+				final int coverOffsetValue = ByteBuffer.wrap(coverOffset.data).getInt();
+				if(coverOffsetValue != NULL_INDEX) {
+					cover = getImage(readRecord(channel, recordOffsets, firstImageIndex + coverOffsetValue));
+				}
+			}
+			if(cover == null) {
+				cover = getImage(readRecord(channel, recordOffsets, firstImageIndex));
+			}
+		}
+	}
+
+	private void readExth(ByteBuffer record0, int exthOffset) {
+		if(exthOffset < 0 || exthOffset + 12 > record0.limit() || record0.getInt(exthOffset) != 0x45585448) { // EXTH
+			return;
+		}
+		final int count = record0.getInt(exthOffset + 8);
+		int offset = exthOffset + 12;
+		for(int i = 0; i < count && offset + 8 <= record0.limit(); i++) {
+			final int type = record0.getInt(offset);
+			final int length = record0.getInt(offset + 4);
+			if(length < 8 || offset + length > record0.limit()) {
+				break;
+			}
+			final byte[] data = new byte[length - 8];
+			System.arraycopy(record0.array(), offset + 8, data, 0, data.length);
+			exthEntries.add(new ExthEntry(type, data));
+			offset += length;
+		}
+	}
+
+	private ExthEntry getExthEntry(int type) {
+		for(ExthEntry exthEntry : exthEntries) {
+			if(exthEntry.type == type) {
+				return exthEntry;
+			}
+		}
+		return null;
+	}
+
+	private String decode(byte[] data, int offset, int length) throws UnsupportedEncodingException {
+		return new String(data, offset, length, characterEncoding != null ? characterEncoding : StandardCharsets.UTF_8.name());
+	}
+
+	/**
+	 * Get the bytes of the given record if it contains an image.
+	 */
+	private static byte[] getImage(ByteBuffer record) {
+		if(record == null || record.limit() < 4) {
+			return null;
+		}
+		final byte[] data = record.array();
+		final boolean jpeg = (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8;
+		final boolean gif = data[0] == 'G' && data[1] == 'I' && data[2] == 'F';
+		final boolean png = (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G';
+		final boolean bmp = data[0] == 'B' && data[1] == 'M';
+		return jpeg || gif || png || bmp ? data : null;
+	}
+
+	/**
+	 * Reads the record with the given index.
+	 * @return The record data or <code>null</code> if there is no such record.
+	 */
+	private static ByteBuffer readRecord(FileChannel channel, long[] recordOffsets, int index) throws IOException {
+		if(index < 0 || index >= recordOffsets.length - 1) {
+			return null;
+		}
+		final long start = recordOffsets[index];
+		final long end = recordOffsets[index + 1];
+		if(end < start || end > channel.size() || end - start > Integer.MAX_VALUE) {
+			return null;
+		}
+		return read(channel, start, (int) (end - start));
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+}
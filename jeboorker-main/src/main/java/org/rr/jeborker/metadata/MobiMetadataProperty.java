@@ -13,6 +13,7 @@ import org.rr.commons.utils.DateConversionUtils;
 import org.rr.commons.utils.StringUtil;
 import org.rr.mobi4java.EXTHRecord;
 import org.rr.mobi4java.EXTHRecord.RECORD_TYPE;
+import org.rr.mobi4java.EXTHRecordFactory;
 import org.rr.mobi4java.exth.BinaryRecordDelegate;
 import org.rr.mobi4java.exth.DateRecordDelegate;
 import org.rr.mobi4java.exth.RecordDelegate;
@@ -29,6 +30,7 @@ class MobiMetadataProperty extends MetadataProperty {
 	MobiMetadataProperty(RecordDelegate record, String name, String encoding) {
 		super(name, record);
 		this.exthRecord = record;
+		this.encoding = encoding;
 	}
 	
 	MobiMetadataProperty(EXTHRecord record, String name, String encoding) {
@@ -69,14 +71,25 @@ class MobiMetadataProperty extends MetadataProperty {
 
 	/**
 	 * Creates a new {@link MobiMetadataProperty} instance with the data of this {@link MobiMetadataProperty}.
+	 * The exth record is copied, so changing the value of the clone did not change this property.
 	 */
 	@Override
 	public MetadataProperty clone() {
-		MobiMetadataProperty newMetadataProperty = new MobiMetadataProperty(exthRecord, getName(), encoding);
+		MobiMetadataProperty newMetadataProperty = new MobiMetadataProperty(copyRecord(exthRecord), getName(), encoding);
 		newMetadataProperty.hints = this.hints;
 		newMetadataProperty.values = new ArrayList<>(this.values);
 		return newMetadataProperty;
 	}
+
+	private static RecordDelegate copyRecord(RecordDelegate record) {
+		EXTHRecord exthRecord = EXTHRecordFactory.createEXTHRecord(record.getRecord().getRecordType());
+		byte[] data = record.getRecord().getData();
+		exthRecord.setData(data != null ? data.clone() : null);
+		if(record instanceof BinaryRecordDelegate) {
+			return new BinaryRecordDelegate(exthRecord);
+		}
+		return MobiMetadataReader.createRecordDelegate(exthRecord.getRecordType().getType(), exthRecord);
+	}
 	
 	public String getOriginCodeName() {
 		return StringUtil.toString(exthRecord.getRecord().getRecordType().getType());
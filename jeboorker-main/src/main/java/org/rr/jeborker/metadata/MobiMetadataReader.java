@@ -2,9 +2,15 @@ package org.rr.jeborker.metadata;
 
 import static org.rr.commons.utils.StringUtil.EMPTY;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
 
 import org.apache.commons.lang.StringUtils;
 import org.rr.commons.log.LoggerFactory;
@@ -12,6 +18,7 @@ import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.DateConversionUtils;
 import org.rr.commons.utils.StringUtil;
 import org.rr.jeborker.db.item.EbookPropertyItem;
+import org.rr.jeborker.metadata.MobiHeaderReader.ExthEntry;
 import org.rr.mobi4java.EXTHRecord;
 import org.rr.mobi4java.EXTHRecord.RECORD_TYPE;
 import org.rr.mobi4java.EXTHRecordFactory;
@@ -27,6 +34,17 @@ import org.rr.mobi4java.exth.StringRecordDelegate;
 
 public class MobiMetadataReader extends AMetadataHandler implements IMetadataReader {
 
+	private static final int EXTH_ISBN = 104;
+
+	private static final int EXTH_PUBLISHING_DATE = 106;
+
+	private static final int EXTH_ASIN = 113;
+
+	private static final int EXTH_LANGUAGE = 524;
+
+	/** The property names of the EXTH record types in the order they are added to the metadata. */
+	private static final Map<Integer, String> EXTH_PROPERTY_NAMES = createExthPropertyNames();
+
 	private IResourceHandler ebookResource;
 	
 	private String characterEncoding;
@@ -42,6 +60,102 @@ public class MobiMetadataReader extends AMetadataHandler implements IMetadataRea
 
 	@Override
 	public List<MetadataProperty> readMetadata() {
+		if(ebookResource.isFileResource()) {
+			try {
+				List<MetadataProperty> result = readHeaderMetadata();
+				if(result != null) {
+					return result;
+				}
+			} catch (Exception e) {
+				LoggerFactory.log(Level.FINE, this, "Could not read the mobi headers of " + ebookResource, e);
+			}
+		}
+		return readDocumentMetadata();
+	}
+
+	/**
+	 * Reads the metadata with the {@link MobiHeaderReader} which only reads the record table, the first record and
+	 * the cover image record from the file.
+	 * @return The metadata or <code>null</code> if the file contains EXTH records which are unknown to mobi4java.
+	 */
+	List<MetadataProperty> readHeaderMetadata() throws IOException {
+		MobiHeaderReader header = MobiHeaderReader.read(ebookResource.toFile());
+		characterEncoding = StringUtils.defaultIfBlank(header.getCharacterEncoding(), StringUtil.UTF_8);
+
+		List<ExthEntry> exthEntries = header.getExthEntries();
+		List<EXTHRecord> exthRecords = new ArrayList<>(exthEntries.size());
+		for (ExthEntry exthEntry : exthEntries) {
+			RECORD_TYPE recordType = getRecordType(exthEntry.type);
+			if(recordType == null) {
+				// the record would get lost with the next write.
+				return null;
+			}
+			EXTHRecord exthRecord = EXTHRecordFactory.createEXTHRecord(recordType);
+			exthRecord.setData(exthEntry.data);
+			exthRecords.add(exthRecord);
+		}
+
+		ArrayList<MetadataProperty> result = new ArrayList<>();
+		String fullName = header.getFullName();
+		if (StringUtil.isNotBlank(fullName)) {
+			result.add(new MetadataProperty("title", fullName));
+		}
+
+		result.addAll(transform(exthRecords));
+
+		byte[] cover = header.getCover();
+		if(cover != null) {
+			result.add(new MetadataProperty(COMMON_METADATA_TYPES.COVER.getName(), cover));
+		}
+		return result;
+	}
+
+	private static Map<Integer, String> createExthPropertyNames() {
+		Map<Integer, String> result = new LinkedHashMap<>();
+		result.put(100, COMMON_METADATA_TYPES.AUTHOR.getName());
+		result.put(101, "publisher");
+		result.put(102, "imprint");
+		result.put(103, COMMON_METADATA_TYPES.DESCRIPTION.getName());
+		result.put(EXTH_ISBN, COMMON_METADATA_TYPES.ISBN.getName());
+		result.put(105, COMMON_METADATA_TYPES.GENRE.getName());
+		result.put(EXTH_PUBLISHING_DATE, "publishingdate");
+		result.put(107, "review");
+		result.put(108, "contributor");
+		result.put(109, "rights");
+		result.put(112, "source");
+		result.put(EXTH_ASIN, "asin");
+		result.put(EXTH_LANGUAGE, COMMON_METADATA_TYPES.LANGUAGE.getName());
+		return Collections.unmodifiableMap(result);
+	}
+
+	private static RECORD_TYPE getRecordType(int type) {
+		for (RECORD_TYPE recordType : RECORD_TYPE.values()) {
+			if(recordType.getType() == type) {
+				return recordType;
+			}
+		}
+		return null;
+	}
+
+	static RecordDelegate createRecordDelegate(int type, EXTHRecord exthRecord) {
+		switch (type) {
+		case EXTH_ISBN:
+			return new ISBNRecordDelegate(exthRecord);
+		case EXTH_PUBLISHING_DATE:
+			return new DateRecordDelegate(exthRecord);
+		case EXTH_ASIN:
+			return new ASINRecordDelegate(exthRecord);
+		case EXTH_LANGUAGE:
+			return new LanguageRecordDelegate(exthRecord);
+		default:
+			return new StringRecordDelegate(exthRecord);
+		}
+	}
+
+	/**
+	 * Reads the metadata from the {@link MobiDocument} which is created from the whole file.
+	 */
+	List<MetadataProperty> readDocumentMetadata() {
 		try {
 			ArrayList<MetadataProperty> result = new ArrayList<>();
 			MobiDocument mobiDoc = new MobiReader().read(ebookResource.getContentInputStream());
@@ -52,21 +166,7 @@ public class MobiMetadataReader extends AMetadataHandler implements IMetadataRea
 				result.add(new MetadataProperty("title", fullName));
 			}
 
-			result.addAll(transform(mobiDoc.getMetaData().getAuthorRecords(), COMMON_METADATA_TYPES.AUTHOR.getName()));
-			result.addAll(transform(mobiDoc.getMetaData().getPublisherRecords(), "publisher"));
-			result.addAll(transform(mobiDoc.getMetaData().getImprintRecords(), "imprint"));
-			result.addAll(transform(mobiDoc.getMetaData().getDescriptionRecords(), COMMON_METADATA_TYPES.DESCRIPTION.getName()));
-			result.addAll(transform(mobiDoc.getMetaData().getISBNRecords(), COMMON_METADATA_TYPES.ISBN.getName()));
-			result.addAll(transform(mobiDoc.getMetaData().getSubjectRecords(), COMMON_METADATA_TYPES.GENRE.getName()));
-			result.addAll(transform(mobiDoc.getMetaData().getPublishingDateRecords(), "publishingdate"));
-			result.addAll(transform(mobiDoc.getMetaData().getReviewRecords(), "review"));
-			result.addAll(transform(mobiDoc.getMetaData().getContributorRecords(), "contributor"));
-			result.addAll(transform(mobiDoc.getMetaData().getRightsRecords(), "rights"));
-			result.addAll(transform(mobiDoc.getMetaData().getSourceRecords(), "source"));
-			result.addAll(transform(mobiDoc.getMetaData().getASINRecords(), "asin"));
-			result.addAll(transform(Collections.singletonList(mobiDoc.getMetaData().getLanguageRecord()), COMMON_METADATA_TYPES.LANGUAGE.getName()));
-	
-			applyAllNonDelegateMetadata(mobiDoc, result);
+			result.addAll(transform(mobiDoc.getMetaData().getEXTHRecords()));
 			
 			byte[] cover = mobiDoc.getCover();
 			if(cover != null) {
@@ -85,28 +185,30 @@ public class MobiMetadataReader extends AMetadataHandler implements IMetadataRea
 		return new ArrayList<MetadataProperty>(0);
 	}
 	
-	private void applyAllNonDelegateMetadata(MobiDocument mobiDoc, ArrayList<MetadataProperty> metadataProperties) {
-		List<EXTHRecord> exthRecords = mobiDoc.getMetaData().getEXTHRecords();
-		for (EXTHRecord exthRecord : exthRecords) {
-			boolean found = false;
-			for (MetadataProperty metadataProperty : metadataProperties) {
-				if(metadataProperty instanceof MobiMetadataProperty && ((MobiMetadataProperty) metadataProperty).getExthRecord() == exthRecord) {
-					found = true;
-					break;
+	/**
+	 * Creates the properties for the given EXTH records. The records with a type from {@link #EXTH_PROPERTY_NAMES} come first
+	 * in the order of this map, all other records are added as binary properties named after their type.
+	 */
+	private List<MobiMetadataProperty> transform(List<EXTHRecord> exthRecords) {
+		List<MobiMetadataProperty> result = new ArrayList<>(exthRecords.size());
+		Set<EXTHRecord> transformed = Collections.newSetFromMap(new IdentityHashMap<EXTHRecord, Boolean>());
+		for (Map.Entry<Integer, String> propertyName : EXTH_PROPERTY_NAMES.entrySet()) {
+			int type = propertyName.getKey().intValue();
+			for (EXTHRecord exthRecord : exthRecords) {
+				if(exthRecord.getRecordType().getType() == type) {
+					result.add(new MobiMetadataProperty(createRecordDelegate(type, exthRecord), propertyName.getValue(), characterEncoding));
+					transformed.add(exthRecord);
+					if(type == EXTH_LANGUAGE) {
+						break; // only one language record is supported
+					}
 				}
 			}
-			if(!found) {
-				BinaryRecordDelegate record = new BinaryRecordDelegate(exthRecord);
-				metadataProperties.add(new MobiMetadataProperty(record, record.getRecord().getRecordType().name(), characterEncoding));
-			}
 		}
-	}
-	
-	private List<MobiMetadataProperty> transform(List<? extends RecordDelegate> records, String name) {
-		List<MobiMetadataProperty> result = new ArrayList<>();
-		for (RecordDelegate record : records) {
-			if(record != null) {
-				result.add(new MobiMetadataProperty(record, name, characterEncoding));
+
+		for (EXTHRecord exthRecord : exthRecords) {
+			if(!transformed.contains(exthRecord)) {
+				BinaryRecordDelegate record = new BinaryRecordDelegate(exthRecord);
+				result.add(new MobiMetadataProperty(record, record.getRecord().getRecordType().name(), characterEncoding));
 			}
 		}
 		return result;
@@ -40,7 +40,7 @@ class PDFCommonMetadataReader extends APDFCommonMetadataHandler implements IMeta
 
 	PDFCommonMetadataReader(final IResourceHandler ebookResource) {
 		this.ebookResource = ebookResource;
-		this.pdfDoc = PDFDocument.getPDFCommonDocumentInstance(PDFDocument.ITEXT, ebookResource);
+		this.pdfDoc = PDFDocument.getPDFCommonDocumentInstance(PDFDocument.ITEXT, ebookResource, true);
 	}
 
 	@Override
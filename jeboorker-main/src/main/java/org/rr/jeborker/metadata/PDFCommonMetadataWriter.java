@@ -43,7 +43,7 @@ class PDFCommonMetadataWriter extends APDFCommonMetadataHandler implements IMeta
 	@Override
 	public void writeMetadata(List<MetadataProperty> props) {
 		try {
-			final PDFCommonMetadataReader reader = (PDFCommonMetadataReader) MetadataHandlerFactory.getReader(ebookResource);
+			final PDFCommonMetadataReader reader = (PDFCommonMetadataReader) CachedMetadataReader.unwrap(MetadataHandlerFactory.getReader(ebookResource));
 
 			byte[] fetchXMPThumbnail = reader.fetchXMPThumbnail(ebookResource);
 			HashMap<String, String> info = new HashMap<String, String>();
@@ -10,6 +10,7 @@ import org.rr.commons.log.LoggerFactory;
 import org.rr.commons.mufs.IResourceHandler;
 import org.rr.commons.utils.compression.CompressedDataEntry;
 import org.rr.commons.utils.compression.FileEntryFilter;
+import org.rr.commons.utils.compression.rar.RarSession;
 import org.rr.commons.utils.compression.rar.RarUtils;
 
 public class CBRArchiveHandler extends AArchiveHandler {
@@ -31,24 +32,26 @@ public class CBRArchiveHandler extends AArchiveHandler {
 	@Override
 	public void readArchive() throws IOException {
 		archiveEntries.clear();
-		List<CompressedDataEntry> comicInfoXml = RarUtils.extract(resource, new FileEntryFilter() {
+		try (RarSession session = RarSession.open(resource)) {
+			List<CompressedDataEntry> comicInfoXml = session.extract(new FileEntryFilter() {
 
-			@Override
-			public boolean accept(String entry, byte[] rawEntry) {
-				if(entry.toLowerCase().endsWith("comicinfo.xml")) {
-					return true;
-				} else {
-					archiveEntries.add(entry);
+				@Override
+				public boolean accept(String entry, byte[] rawEntry) {
+					if(entry.toLowerCase().endsWith("comicinfo.xml")) {
+						return true;
+					} else {
+						archiveEntries.add(entry);
+					}
+					return false;
 				}
-				return false;
-			}
-		});
+			});
 
-		Collections.sort(archiveEntries);
+			Collections.sort(archiveEntries);
 
-		if(!comicInfoXml.isEmpty()) {
-			comicInfoXmlContent = comicInfoXml.get(0).getBytes();
-			comicInfoXmlFilePath = comicInfoXml.get(0).path;
+			if(!comicInfoXml.isEmpty()) {
+				comicInfoXmlContent = comicInfoXml.get(0).getBytes();
+				comicInfoXmlFilePath = comicInfoXml.get(0).path;
+			}
 		}
 	}
 
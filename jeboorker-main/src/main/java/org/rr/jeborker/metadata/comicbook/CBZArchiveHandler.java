@@ -1,6 +1,5 @@
 package org.rr.jeborker.metadata.comicbook;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
@@ -20,7 +19,7 @@ public class CBZArchiveHandler extends AArchiveHandler {
 
 	@Override
 	public boolean replaceComicInfoXml(byte[] comicInfoXml, String comicInfoFilePath) throws IOException {
-		boolean success = TrueZipUtils.add(resource, comicInfoFilePath, new ByteArrayInputStream(comicInfoXml));
+		boolean success = TrueZipUtils.replace(resource, comicInfoFilePath, comicInfoXml);
 		if(!success) {
 			LoggerFactory.getLogger().log(Level.WARNING, "Writing CBZ " + resource + " has failed.");
 		}
@@ -60,6 +59,6 @@ public class CBZArchiveHandler extends AArchiveHandler {
 
 	@Override
 	public void addArchiveEntry(String name, byte[] content) {
-		TrueZipUtils.add(resource, name, new ByteArrayInputStream(content));
+		TrueZipUtils.replace(resource, name, content);
 	}
 }
@@ -16,11 +16,11 @@ import org.rr.commons.utils.CommonUtils;
 
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfDictionary;
 import com.itextpdf.text.pdf.PdfName;
 import com.itextpdf.text.pdf.PdfObject;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfStamper;
-import com.itextpdf.text.pdf.PdfStream;
 
 public abstract class PDFDocument {
 
@@ -40,7 +40,21 @@ public abstract class PDFDocument {
 	
 	protected byte[] xmpMetadata;
 	
+	/**
+	 * Tells if the document is only used to read the metadata.
+	 */
+	protected boolean metadataOnly;
+	
 	public static PDFDocument getPDFCommonDocumentInstance(int type, IResourceHandler pdfFile) {
+		return getPDFCommonDocumentInstance(type, pdfFile, false);
+	}
+	
+	/**
+	 * Get a {@link PDFDocument} for the given pdf file.
+	 * @param metadataOnly <code>true</code> if the document is only used for reading the metadata. Only the trailer, the info,
+	 * the xmp metadata and the first page are read from the file in that case which is much faster for large pdf files.
+	 */
+	public static PDFDocument getPDFCommonDocumentInstance(int type, IResourceHandler pdfFile, boolean metadataOnly) {
 		PDFDocument result = null;
 		switch(type) {
 		case ITEXT:
@@ -48,6 +62,7 @@ public abstract class PDFDocument {
 			break;
 		}
 		result.setResourceHandler(pdfFile);
+		result.metadataOnly = metadataOnly;
 		return result;
 	}
 	
@@ -103,9 +118,16 @@ public abstract class PDFDocument {
 
 		private PdfReader pdfReaderI;
 		
+		/**
+		 * Tells if the info and the xmp metadata are already read in the metadata only mode.
+		 */
+		private boolean metadataRead;
+		
 		@Override
 		public byte[] getXMPMetadata() throws IOException {
-			if(this.xmpMetadata == null) {
+			if(this.metadataOnly) {
+				readMetadata();
+			} else if(this.xmpMetadata == null) {
 				final PdfReader reader = getReader();
 				try {
 					final byte[] xmpMetadataBytes = reader.getMetadata();
@@ -121,7 +143,9 @@ public abstract class PDFDocument {
 
 		@Override
 		public Map<String, String> getInfo() throws IOException {
-			if(moreInfo == null) {
+			if(this.metadataOnly) {
+				readMetadata();
+			} else if(moreInfo == null) {
 				final PdfReader reader = getReader();
 				try {
 					moreInfo = reader.getInfo();
@@ -133,6 +157,29 @@ public abstract class PDFDocument {
 			return moreInfo;
 		}
 
+		/**
+		 * Reads the info and the xmp metadata at once.
+		 */
+		private void readMetadata() throws IOException {
+			if(!metadataRead) {
+				final PdfReader reader = getReader();
+				try {
+					if(moreInfo == null) {
+						moreInfo = reader.getInfo();
+					}
+					if(xmpMetadata == null) {
+						final byte[] xmpMetadataBytes = reader.getMetadata();
+						if(XMPUtils.isValidXMP(xmpMetadataBytes)) {
+							this.xmpMetadata = xmpMetadataBytes;
+						}
+					}
+					metadataRead = true;
+				} finally {
+					dispose();
+				}
+			}
+		}
+
 		@Override
 		public void write() throws IOException {
 			final IResourceHandler ebookResource = getResourceHandler();
@@ -199,46 +246,18 @@ public abstract class PDFDocument {
 			
 			final PdfReader reader = getReader();
 			try {
+				byte[] img = fetchCoverFromFirstPage(reader);
+				if(img != null || this.metadataOnly) {
+					return img;
+				}
+				
 				int xrefSize = reader.getXrefSize();
-				for (int i = 0; i < xrefSize; i++) { //process the first ten xrefs.
-					PdfObject pdfobj = reader.getPdfObject(i);
-					if(pdfobj != null) {
-						if (pdfobj.isStream()) {
-							PdfStream stream = (PdfStream) pdfobj;
-							
-							PdfObject pdfsubtype = stream.get(PdfName.SUBTYPE);
-							if (pdfsubtype == null || !pdfsubtype.toString().equals(PdfName.IMAGE.toString())) {
-								continue;
-							}
-			
-							// now you have a PDF stream object with an image
-							byte[] img = PdfReader.getStreamBytesRaw((PRStream) stream);
-							if(img.length > 1000) {
-								int width = 0;
-								int height = 0;
-								try {
-									width = Integer.parseInt(stream.get(PdfName.WIDTH).toString());
-									height = Integer.parseInt(stream.get(PdfName.HEIGHT).toString());
-									
-									if(width <= 0 || height <= 0) {
-										continue;
-									}
-									
-									PdfObject bitspercomponent = stream.get(PdfName.BITSPERCOMPONENT);
-									if(bitspercomponent!=null) {
-										Number bitspercomponentNum = CommonUtils.toNumber(bitspercomponent.toString());
-										if(bitspercomponentNum!=null && bitspercomponentNum.intValue()==1) {
-											//no b/w images
-											continue;
-										}
-									}							
-								} catch(Exception e) {}
-								
-								double aspectRatio = ((double)height) / ((double)width);
-								if(width > 150 && aspectRatio > MIN_IMAGE_COVER_WIDTH && aspectRatio < MAX_IMAGE_COVER_WIDTH) {
-									return img;
-								}
-							}
+				for (int i = 0; i < xrefSize; i++) {
+					PdfObject pdfobj = reader.getPdfObjectRelease(i);
+					if(pdfobj != null && pdfobj.isStream()) {
+						img = getCoverImage((PRStream) pdfobj);
+						if(img != null) {
+							return img;
 						}
 					}
 				}
@@ -247,10 +266,80 @@ public abstract class PDFDocument {
 			}
 			return null;
 		}
+		
+		/**
+		 * Looks for a cover in the images of the first page.
+		 */
+		private byte[] fetchCoverFromFirstPage(PdfReader reader) throws IOException {
+			if(reader.getNumberOfPages() == 0) {
+				return null;
+			}
+			final PdfDictionary page = reader.getPageN(1);
+			final PdfDictionary resources = page != null ? page.getAsDict(PdfName.RESOURCES) : null;
+			final PdfDictionary xObjects = resources != null ? resources.getAsDict(PdfName.XOBJECT) : null;
+			if(xObjects != null) {
+				for (PdfName name : xObjects.getKeys()) {
+					PdfObject pdfobj = PdfReader.getPdfObject(xObjects.get(name));
+					if(pdfobj instanceof PRStream) {
+						byte[] img = getCoverImage((PRStream) pdfobj);
+						if(img != null) {
+							return img;
+						}
+					}
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Get the raw bytes of the given stream if it's an image which looks like a cover. The size of the image is tested
+		 * before the image data is read.
+		 * @return The image bytes or <code>null</code> if the stream is not a cover image.
+		 */
+		private byte[] getCoverImage(PRStream stream) throws IOException {
+			PdfObject pdfsubtype = stream.get(PdfName.SUBTYPE);
+			if (pdfsubtype == null || !pdfsubtype.toString().equals(PdfName.IMAGE.toString())) {
+				return null;
+			}
+			
+			int width = 0;
+			int height = 0;
+			try {
+				width = Integer.parseInt(stream.get(PdfName.WIDTH).toString());
+				height = Integer.parseInt(stream.get(PdfName.HEIGHT).toString());
+				
+				if(width <= 0 || height <= 0) {
+					return null;
+				}
+				
+				PdfObject bitspercomponent = stream.get(PdfName.BITSPERCOMPONENT);
+				if(bitspercomponent!=null) {
+					Number bitspercomponentNum = CommonUtils.toNumber(bitspercomponent.toString());
+					if(bitspercomponentNum!=null && bitspercomponentNum.intValue()==1) {
+						//no b/w images
+						return null;
+					}
+				}							
+			} catch(Exception e) {}
+			
+			double aspectRatio = ((double)height) / ((double)width);
+			if(width > 150 && aspectRatio > MIN_IMAGE_COVER_WIDTH && aspectRatio < MAX_IMAGE_COVER_WIDTH) {
+				// now you have a PDF stream object with an image
+				byte[] img = PdfReader.getStreamBytesRaw(stream);
+				if(img.length > 1000) {
+					return img;
+				}
+			}
+			return null;
+		}
 
 		private PdfReader getReader() throws IOException {
 			if(this.pdfReaderI == null) {
-				this.pdfReaderI = PDFUtils.getReader(getResourceHandler().toFile());
+				if(this.metadataOnly) {
+					this.pdfReaderI = PDFUtils.getMetadataReader(getResourceHandler().toFile());
+				} else {
+					this.pdfReaderI = PDFUtils.getReader(getResourceHandler().toFile());
+				}
 			}
 			return this.pdfReaderI;
 		}		
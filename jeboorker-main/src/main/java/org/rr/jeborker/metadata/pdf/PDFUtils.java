@@ -15,6 +15,8 @@ import org.rr.jeborker.converter.ConverterUtils;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.io.FileChannelRandomAccessSource;
+import com.itextpdf.text.io.RandomAccessSource;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
 import com.itextpdf.text.pdf.PdfContentByte;
 import com.itextpdf.text.pdf.PdfImportedPage;
 import com.itextpdf.text.pdf.PdfReader;
@@ -39,6 +41,19 @@ public class PDFUtils {
 		return new PDFReaderDelegate(rafPdfIn, file, fileChannelI);
 	}
 
+	/**
+	 * Create a {@link PdfReader} for reading the metadata of the given file. Other than {@link #getReader(File)} large files are
+	 * not mapped into memory at once but page by page and only the requested objects are read from the file.
+	 * 
+	 * @param pdfFile The pdf file to be loaded with the {@link PdfReader}.
+	 * @return The desired {@link PdfReader}
+	 * @throws IOException
+	 */
+	public static PdfReader getMetadataReader(File pdfFile) throws IOException {
+		RandomAccessSource source = new RandomAccessSourceFactory().createBestSource(pdfFile.getPath());
+		return new PdfReader(new RandomAccessFileOrArray(source), null, true);
+	}
+
 	private static class PDFReaderDelegate extends PdfReader {
 
 		private FileChannel fileChannelI;
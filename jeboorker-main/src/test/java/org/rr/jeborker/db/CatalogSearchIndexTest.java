@@ -0,0 +1,229 @@
+package org.rr.jeborker.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.rr.jeborker.db.CatalogSearchIndex.SearchHit;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+
+import junit.framework.TestCase;
+
+public class CatalogSearchIndexTest extends TestCase {
+
+	/** The benchmark builds an index with {@link #BENCHMARK_SIZE} items and is skipped unless this system property is <code>true</code>. */
+	private static final String BENCHMARK_PROPERTY = "jeboorker.benchmark";
+
+	private static final int BENCHMARK_SIZE = 200000;
+
+	private static final int VOCABULARY_SIZE = 20000;
+
+	private static final String[] WORDS = new String[] {"lord", "rings", "tower", "dark", "night", "ship", "star", "garden", "winter",
+			"river", "stone", "king", "queen", "shadow", "fire", "ocean", "mountain", "city", "dream", "storm"};
+
+	public void testPrefixSearch() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.search(Arrays.asList("lor"))));
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.search(Arrays.asList("TOLK"))));
+			assertTrue(index.search(Arrays.asList("ords")).isEmpty());
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testScopedInfixSearch() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.search(Arrays.asList("title:ord"))));
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.search(Arrays.asList("title:ng"))));
+			assertTrue(index.search(Arrays.asList("author:ord")).isEmpty());
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testAndOrRanking() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.search(Arrays.asList("lord rings"))));
+			assertTrue(index.search(Arrays.asList("lord dark")).isEmpty());
+			assertEquals(2, index.search(Arrays.asList("lord OR tower")).size());
+			assertEquals(2, index.search(Arrays.asList("lord", "tower")).size());
+
+			// the title weights more than the description
+			assertEquals(Arrays.asList("/library/king.epub", "/library/tolkien.epub"), getFiles(index.search(Arrays.asList("tower"))));
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testUpdateAndRemove() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			EbookPropertyItem item = createItem("/library/tolkien.epub", "The Hobbit", "J. R. R. Tolkien", null);
+			index.add(item);
+			assertEquals(2, index.size());
+			assertTrue(index.search(Arrays.asList("rings")).isEmpty());
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.search(Arrays.asList("hobbit"))));
+
+			index.remove("/library/tolkien.epub");
+			assertEquals(1, index.size());
+			assertTrue(index.search(Arrays.asList("hobbit")).isEmpty());
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testRebuild() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			assertTrue(index.startRebuild());
+			assertFalse(index.startRebuild());
+			index.add(createItem("/library/hobbit.epub", "The Hobbit", "J. R. R. Tolkien", null));
+
+			List<String[]> rows = new ArrayList<>();
+			String[] row = new String[CatalogSearchIndex.getFieldNames().length];
+			row[0] = "/library/rebuilt.epub";
+			rows.add(row);
+			index.rebuild(rows);
+
+			assertTrue(index.isReady());
+			assertEquals(2, index.size());
+			assertEquals(Arrays.asList("/library/hobbit.epub"), getFiles(index.search(Arrays.asList("hobbit"))));
+			assertEquals(Arrays.asList("/library/rebuilt.epub"), getFiles(index.search(Arrays.asList("rebuilt"))));
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testKeywordsWithSeparator() {
+		List<String> keywords = Arrays.asList("Tolkien, J. R. R.", "back\\slash", "", "title:lord");
+		assertEquals(keywords, CatalogSearchIndex.splitKeywords(CatalogSearchIndex.joinKeywords(keywords)));
+		assertEquals(Arrays.asList("lord", "tower"), CatalogSearchIndex.splitKeywords("lord,tower"));
+		assertTrue(CatalogSearchIndex.splitKeywords(CatalogSearchIndex.joinKeywords(new ArrayList<String>())).isEmpty());
+
+		CatalogSearchIndex index = createIndex();
+		try {
+			String joined = CatalogSearchIndex.joinKeywords(Arrays.asList("Tolkien, J. R. R."));
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.getResult(index.createResultId(), CatalogSearchIndex.splitKeywords(joined))));
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testResultKeptForQuery() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			int resultId = index.createResultId();
+			List<SearchHit> hits = index.getResult(resultId, Arrays.asList("tower"));
+			assertEquals(2, hits.size());
+
+			// the pages of the query see the same hits while the index changes.
+			index.remove("/library/king.epub");
+			assertSame(hits, index.getResult(resultId, Arrays.asList("tower")));
+
+			index.releaseResult(resultId);
+			assertEquals(Arrays.asList("/library/tolkien.epub"), getFiles(index.getResult(resultId, Arrays.asList("tower"))));
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testResultsKeptUntilReleased() {
+		CatalogSearchIndex index = createIndex();
+		try {
+			List<Integer> resultIds = new ArrayList<>();
+			List<List<SearchHit>> results = new ArrayList<>();
+			for(int i = 0; i < 100; i++) {
+				int resultId = index.createResultId();
+				resultIds.add(resultId);
+				results.add(index.getResult(resultId, Arrays.asList("tower")));
+			}
+
+			index.remove("/library/king.epub");
+			for(int i = 0; i < resultIds.size(); i++) {
+				assertSame(results.get(i), index.getResult(resultIds.get(i), Arrays.asList("tower")));
+				index.releaseResult(resultIds.get(i));
+			}
+		} finally {
+			index.close();
+		}
+	}
+
+	public void testSearchBenchmark() {
+		if(!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+			return;
+		}
+		CatalogSearchIndex index = new CatalogSearchIndex();
+		try {
+			Random random = new Random(0);
+			long start = System.currentTimeMillis();
+			for(int i = 0; i < BENCHMARK_SIZE; i++) {
+				index.add(createItem("/library/author" + (i % 1000) + "/book" + i + ".epub", getWords(random, 3) + " " + i,
+						"Author " + getWords(random, 2) + " " + (i % 1000), getWords(random, 30)));
+			}
+			long buildTime = System.currentTimeMillis() - start;
+
+			List<List<String>> queries = Arrays.asList(Arrays.asList("lord"), Arrays.asList("lord1"), Arrays.asList("dark12 tower"),
+					Arrays.asList("king5", "queen7"), Arrays.asList("title:ing10"), Arrays.asList("author:ord12"), Arrays.asList("shadow3 OR storm42"));
+			for(List<String> query : queries) {
+				index.search(query);
+			}
+
+			int runs = 5;
+			start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				for(List<String> query : queries) {
+					index.search(query);
+				}
+			}
+			long averageMillis = (System.nanoTime() - start) / 1000000 / (runs * queries.size());
+			System.out.println("Search index with " + BENCHMARK_SIZE + " items built in " + buildTime + "ms, average query " + averageMillis + "ms");
+			for(List<String> query : queries) {
+				start = System.nanoTime();
+				int hits = index.search(query).size();
+				System.out.println("  " + query + ": " + hits + " hits in " + (System.nanoTime() - start) / 1000 + "us");
+			}
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * Get some words from a vocabulary of {@link #VOCABULARY_SIZE} words where the first words are much more frequent than the last ones.
+	 */
+	private static String getWords(Random random, int count) {
+		StringBuilder result = new StringBuilder();
+		for(int i = 0; i < count; i++) {
+			int word = (int) (Math.pow(random.nextDouble(), 3) * VOCABULARY_SIZE);
+			result.append(WORDS[word % WORDS.length]).append(word / WORDS.length).append(' ');
+		}
+		return result.toString().trim();
+	}
+
+	private static CatalogSearchIndex createIndex() {
+		CatalogSearchIndex index = new CatalogSearchIndex();
+		index.add(createItem("/library/tolkien.epub", "The Lord of the Rings", "J. R. R. Tolkien", "Frodo reaches the tower"));
+		index.add(createItem("/library/king.epub", "The Dark Tower", "Stephen King", null));
+		return index;
+	}
+
+	private static EbookPropertyItem createItem(String file, String title, String author, String description) {
+		EbookPropertyItem item = new EbookPropertyItem();
+		item.setFile(file);
+		item.setTitle(title);
+		item.setAuthor(author);
+		item.setDescription(description);
+		return item;
+	}
+
+	private static List<String> getFiles(List<SearchHit> hits) {
+		List<String> files = new ArrayList<>();
+		for(SearchHit hit : hits) {
+			files.add(hit.getFile());
+		}
+		return files;
+	}
+}
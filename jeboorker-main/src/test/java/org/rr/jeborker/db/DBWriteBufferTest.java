@@ -0,0 +1,98 @@
+package org.rr.jeborker.db;
+
+import java.util.List;
+
+import org.rr.jeborker.db.item.EbookPropertyItem;
+
+import junit.framework.TestCase;
+
+public class DBWriteBufferTest extends TestCase {
+
+	/** Small enough to keep the benchmark in the normal test run. */
+	private static final int IMPORT_SIZE = 2000;
+
+	public void testFlushOnBatchSize() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			DBWriteBuffer buffer = new DBWriteBuffer(db, 10, 0);
+			List<EbookPropertyItem> items = TempDBManager.createItems(25);
+			for(EbookPropertyItem item : items) {
+				buffer.add(item);
+			}
+			assertEquals(20, db.countItems());
+
+			buffer.close();
+			assertEquals(25, db.countItems());
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testNoFlushBeforeInterval() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			DBWriteBuffer buffer = new DBWriteBuffer(db, 1000, 60000);
+			for(EbookPropertyItem item : TempDBManager.createItems(5)) {
+				buffer.add(item);
+			}
+			assertEquals(0, db.countItems());
+
+			buffer.close();
+			assertEquals(5, db.countItems());
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testFlushOnInterval() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			DBWriteBuffer buffer = new DBWriteBuffer(db, 1000, 100);
+			for(EbookPropertyItem item : TempDBManager.createItems(5)) {
+				buffer.add(item);
+			}
+
+			long timeout = System.currentTimeMillis() + 10000;
+			while(db.countItems() < 5 && System.currentTimeMillis() < timeout) {
+				Thread.sleep(50);
+			}
+			assertEquals(5, db.countItems());
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testImportBenchmark() throws Exception {
+		List<EbookPropertyItem> items = TempDBManager.createItems(IMPORT_SIZE);
+
+		TempDBManager singleDb = new TempDBManager();
+		long singleTime;
+		try {
+			long start = System.currentTimeMillis();
+			for(EbookPropertyItem item : items) {
+				singleDb.storeObject(item);
+			}
+			singleTime = System.currentTimeMillis() - start;
+			assertEquals(IMPORT_SIZE, singleDb.countItems());
+		} finally {
+			singleDb.shutdown();
+		}
+
+		TempDBManager batchDb = new TempDBManager();
+		long batchTime;
+		try {
+			long start = System.currentTimeMillis();
+			DBWriteBuffer buffer = batchDb.createWriteBuffer();
+			for(EbookPropertyItem item : items) {
+				buffer.add(item);
+			}
+			buffer.close();
+			batchTime = System.currentTimeMillis() - start;
+			assertEquals(IMPORT_SIZE, batchDb.countItems());
+		} finally {
+			batchDb.shutdown();
+		}
+
+		System.out.println("Import of " + IMPORT_SIZE + " items: single transactions " + singleTime + "ms, batched " + batchTime + "ms");
+	}
+}
@@ -0,0 +1,107 @@
+package org.rr.jeborker.db;
+
+import java.util.List;
+
+import org.rr.jeborker.db.item.EbookPropertyItem;
+
+import junit.framework.TestCase;
+
+public class DefaultDBManagerTest extends TestCase {
+
+	public void testStoreObjects() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			List<EbookPropertyItem> items = TempDBManager.createItems(100);
+			db.storeObjects(items);
+			assertEquals(100, db.countItems());
+
+			items.get(0).setTitle("changed");
+			db.storeObjects(items.subList(0, 1));
+			assertEquals(100, db.countItems());
+			assertEquals("changed", db.getObject(EbookPropertyItem.class, "file", items.get(0).getFile()).get(0).getTitle());
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testReload() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			List<EbookPropertyItem> items = TempDBManager.createItems(2);
+			items.get(0).setDescription("description");
+			db.storeObjects(items);
+
+			EbookPropertyItem partial = new EbookPropertyItem();
+			partial.setFile(items.get(0).getFile());
+			partial.setPartial(true);
+			assertSame(partial, db.reload(partial));
+			assertEquals("description", partial.getDescription());
+
+			EbookPropertyItem missing = new EbookPropertyItem();
+			missing.setFile("/library/missing.epub");
+			assertNull(db.reload(missing));
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testPreparedLookup() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			List<EbookPropertyItem> items = TempDBManager.createItems(10);
+			items.get(1).setFile("/library/O'Brien/100% C:\\book.epub");
+			db.storeObjects(items);
+
+			for(int i = 0; i < 3; i++) {
+				assertEquals(1, db.getObject(EbookPropertyItem.class, "file", items.get(1).getFile()).size());
+			}
+			assertEquals(2, db.getObject(EbookPropertyItem.class, "file", items.get(2).getFile(), items.get(3).getFile()).size());
+			assertEquals(10, db.getObject(EbookPropertyItem.class, "basePath", "/library").size());
+			assertTrue(db.getObject(EbookPropertyItem.class, "basePath", "/library/").isEmpty());
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testColumnProjection() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			List<EbookPropertyItem> items = TempDBManager.createItems(10);
+			db.storeObjects(items);
+
+			List<String[]> columns = db.getColumns(EbookPropertyItem.class, new String[] {"file", "timestamp"}, "basePath", "/library", "/library/");
+			assertEquals(10, columns.size());
+			for(String[] column : columns) {
+				assertEquals(2, column.length);
+				if(column[0].equals(items.get(5).getFile())) {
+					assertEquals("5", column[1]);
+				}
+			}
+		} finally {
+			db.shutdown();
+		}
+	}
+
+	public void testLatencyCounters() throws Exception {
+		TempDBManager db = new TempDBManager();
+		try {
+			List<EbookPropertyItem> items = TempDBManager.createItems(10);
+			db.storeObjects(items);
+			for(int i = 0; i < 3; i++) {
+				db.getObject(EbookPropertyItem.class, "file", items.get(i).getFile());
+			}
+			db.getObject(EbookPropertyItem.class, "file", items.get(0).getFile(), items.get(1).getFile());
+
+			QueryLatencyCounter fileCounter = null;
+			for(QueryLatencyCounter counter : db.getQueryLatencyCounters()) {
+				if(counter.getName().equals("EbookPropertyItem.file")) {
+					fileCounter = counter;
+				}
+			}
+			assertNotNull(fileCounter);
+			assertEquals(3, fileCounter.getCount());
+		} finally {
+			db.shutdown();
+		}
+	}
+}
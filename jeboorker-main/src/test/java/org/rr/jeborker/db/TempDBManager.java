@@ -0,0 +1,67 @@
+package org.rr.jeborker.db;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.rr.commons.collection.ICloseableList;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.table.TableUtils;
+
+/**
+ * {@link DefaultDBManager} working on a private H2 database in the temp folder.
+ */
+class TempDBManager extends DefaultDBManager {
+
+	TempDBManager() {
+		setConnectionPool(initDatabase());
+	}
+
+	@Override
+	protected JdbcPooledConnectionSource initDatabase() {
+		try {
+			File dbFile = File.createTempFile("tempdb", "");
+			dbFile.delete();
+			dbFile.deleteOnExit();
+			new File(dbFile.getPath() + ".mv.db").deleteOnExit();
+			JdbcPooledConnectionSource connection = new JdbcPooledConnectionSource("jdbc:h2:" + dbFile.getPath() + ";TRACE_LEVEL_FILE=0");
+			TableUtils.createTable(connection, EbookPropertyItem.class);
+			return connection;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public <T> ICloseableList<T> queryFullTextSearch(Class<T> cls, Where<T, T> where, List<String> keywords, List<Field> orderFields,
+			OrderDirection orderDirection, boolean listView) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @return The number of {@link EbookPropertyItem}s in the database.
+	 */
+	long countItems() throws Exception {
+		return DaoManager.createDao(getConnectionPool(), EbookPropertyItem.class).countOf();
+	}
+
+	static List<EbookPropertyItem> createItems(int count) {
+		List<EbookPropertyItem> items = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			EbookPropertyItem item = new EbookPropertyItem();
+			item.setFile("/library/author" + (i % 100) + "/book" + i + ".epub");
+			item.setBasePath("/library");
+			item.setTitle("Title " + i);
+			item.setCreatedAt(new Date());
+			item.setTimestamp(i);
+			items.add(item);
+		}
+		return items;
+	}
+}
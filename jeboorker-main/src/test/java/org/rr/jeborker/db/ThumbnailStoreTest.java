@@ -0,0 +1,268 @@
+package org.rr.jeborker.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+public class ThumbnailStoreTest extends TestCase {
+
+	private static final int BENCHMARK_SIZE = 5000;
+
+	private static final int THUMBNAIL_SIZE = 6 * 1024;
+
+	public void testPutGetRemove() throws Exception {
+		File directory = createTempDirectory();
+		ThumbnailStore store = new ThumbnailStore(directory);
+		try {
+			byte[] first = createThumbnail(1);
+			store.put("/library/book.epub", first);
+			assertTrue(Arrays.equals(first, store.get("/library/book.epub")));
+			long modifiedAt = store.getModifiedAt("/library/book.epub");
+			assertTrue(modifiedAt > 0);
+
+			byte[] second = createThumbnail(2);
+			store.put("/library/book.epub", second);
+			assertTrue(Arrays.equals(second, store.get("/library/book.epub")));
+			assertTrue(store.getModifiedAt("/library/book.epub") > modifiedAt);
+
+			store.rename("/library/book.epub", "/library/renamed.epub");
+			assertNull(store.get("/library/book.epub"));
+			assertTrue(Arrays.equals(second, store.get("/library/renamed.epub")));
+
+			store.remove("/library/renamed.epub");
+			assertNull(store.get("/library/renamed.epub"));
+			assertEquals(0, store.getModifiedAt("/library/renamed.epub"));
+			assertEquals(0, store.size());
+		} finally {
+			store.close();
+			delete(directory);
+		}
+	}
+
+	public void testReopen() throws Exception {
+		File directory = createTempDirectory();
+		try {
+			ThumbnailStore store = new ThumbnailStore(directory);
+			for(int i = 0; i < 10; i++) {
+				store.put("/library/book" + i + ".epub", createThumbnail(i));
+			}
+			store.remove("/library/book0.epub");
+			store.close();
+
+			// records appended after the index has been written must be recovered from the data file.
+			store = new ThumbnailStore(directory);
+			store.put("/library/book10.epub", createThumbnail(10));
+			store.remove("/library/book1.epub");
+			store = new ThumbnailStore(directory);
+			try {
+				assertEquals(9, store.size());
+				assertNull(store.get("/library/book0.epub"));
+				assertNull(store.get("/library/book1.epub"));
+				for(int i = 2; i <= 10; i++) {
+					assertTrue(Arrays.equals(createThumbnail(i), store.get("/library/book" + i + ".epub")));
+				}
+			} finally {
+				store.close();
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	public void testCompact() throws Exception {
+		File directory = createTempDirectory();
+		ThumbnailStore store = new ThumbnailStore(directory);
+		try {
+			for(int i = 0; i < 100; i++) {
+				store.put("/library/book" + (i % 10) + ".epub", createThumbnail(i));
+			}
+			long sizeBefore = getDataSize(directory);
+			store.compact();
+			assertTrue(getDataSize(directory) < sizeBefore);
+
+			assertEquals(10, store.size());
+			for(int i = 90; i < 100; i++) {
+				assertTrue(Arrays.equals(createThumbnail(i), store.get("/library/book" + (i % 10) + ".epub")));
+			}
+			store.close();
+
+			store = new ThumbnailStore(directory);
+			assertEquals(10, store.size());
+			assertTrue(Arrays.equals(createThumbnail(95), store.get("/library/book5.epub")));
+		} finally {
+			store.close();
+			delete(directory);
+		}
+	}
+
+	public void testImportFolder() throws Exception {
+		File directory = createTempDirectory();
+		File legacyFolder = createLegacyFolder(directory, 20);
+		ThumbnailStore store = new ThumbnailStore(directory);
+		try {
+			assertEquals(20, store.importFolder(legacyFolder));
+			assertFalse(legacyFolder.exists());
+			for(int i = 0; i < 20; i++) {
+				assertTrue(Arrays.equals(createThumbnail(i), store.get(getPath(i))));
+			}
+		} finally {
+			store.close();
+			delete(directory);
+		}
+	}
+
+	public void testMigrateInBackground() throws Exception {
+		File directory = createTempDirectory();
+		File legacyFolder = createLegacyFolder(directory, 200);
+		ThumbnailStore store = new ThumbnailStore(directory);
+		try {
+			Future<?> migration = store.migrate(legacyFolder);
+			// thumbnails are found while the migration is running
+			for(int i = 0; i < 200; i++) {
+				assertTrue(Arrays.equals(createThumbnail(i), store.get(getPath(i))));
+				assertTrue(store.getModifiedAt(getPath(i)) > 0);
+			}
+			store.remove(getPath(0));
+
+			migration.get();
+			assertFalse(legacyFolder.exists());
+			assertNull(store.get(getPath(0)));
+			assertEquals(199, store.size());
+		} finally {
+			store.close();
+			delete(directory);
+		}
+	}
+
+	public void testReadAfterAppend() throws Exception {
+		File directory = createTempDirectory();
+		ThumbnailStore store = new ThumbnailStore(directory);
+		try {
+			for(int i = 0; i < 500; i++) {
+				store.put(getPath(i), createThumbnail(i));
+				assertTrue(Arrays.equals(createThumbnail(i), store.get(getPath(i))));
+				assertTrue(Arrays.equals(createThumbnail(i / 2), store.get(getPath(i / 2))));
+			}
+		} finally {
+			store.close();
+			delete(directory);
+		}
+	}
+
+	public void testIgnoreIncompleteCompaction() throws Exception {
+		File directory = createTempDirectory();
+		try {
+			ThumbnailStore store = new ThumbnailStore(directory);
+			for(int i = 0; i < 10; i++) {
+				store.put(getPath(i), createThumbnail(i));
+			}
+			store.close();
+
+			// a compaction which has been aborted before the index was written and a lost index
+			File tempFile = new File(directory, "thumbs-1.dat.tmp");
+			Files.write(tempFile.toPath(), new byte[100]);
+			new File(directory, "thumbs.idx").delete();
+
+			store = new ThumbnailStore(directory);
+			try {
+				assertEquals(10, store.size());
+				assertTrue(Arrays.equals(createThumbnail(5), store.get(getPath(5))));
+				assertFalse(tempFile.exists());
+			} finally {
+				store.close();
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	/**
+	 * Compares the thumbnail lookup done for each rendered table row. The single file lookup
+	 * needs a stat and a read of one file, the store only an index lookup and a mapped read.
+	 */
+	public void testRenderLookupBenchmark() throws Exception {
+		File directory = createTempDirectory();
+		File legacyFolder = createLegacyFolder(directory, BENCHMARK_SIZE);
+		try {
+			long start = System.currentTimeMillis();
+			long bytes = 0;
+			for(int i = 0; i < BENCHMARK_SIZE; i++) {
+				File file = new File(legacyFolder, UUID.nameUUIDFromBytes(getPath(i).getBytes()) + ".jpg");
+				if(file.lastModified() > 0) {
+					bytes += Files.readAllBytes(file.toPath()).length;
+				}
+			}
+			long fileTime = System.currentTimeMillis() - start;
+
+			ThumbnailStore store = new ThumbnailStore(directory);
+			try {
+				store.importFolder(legacyFolder);
+				start = System.currentTimeMillis();
+				long storeBytes = 0;
+				for(int i = 0; i < BENCHMARK_SIZE; i++) {
+					if(store.getModifiedAt(getPath(i)) > 0) {
+						storeBytes += store.get(getPath(i)).length;
+					}
+				}
+				long storeTime = System.currentTimeMillis() - start;
+				assertEquals(bytes, storeBytes);
+
+				System.out.println("Thumbnail lookup of " + BENCHMARK_SIZE + " rows: single files " + fileTime + "ms, packed store " + storeTime + "ms");
+			} finally {
+				store.close();
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	private static File createLegacyFolder(File directory, int count) throws IOException {
+		File legacyFolder = new File(directory, "thumbs");
+		legacyFolder.mkdir();
+		for(int i = 0; i < count; i++) {
+			File file = new File(legacyFolder, UUID.nameUUIDFromBytes(getPath(i).getBytes()) + ".jpg");
+			Files.write(file.toPath(), createThumbnail(i));
+		}
+		return legacyFolder;
+	}
+
+	private static String getPath(int i) {
+		return "/library/author" + (i % 100) + "/book" + i + ".epub";
+	}
+
+	private static byte[] createThumbnail(int seed) {
+		byte[] data = new byte[THUMBNAIL_SIZE + seed % 100];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	private static long getDataSize(File directory) {
+		long size = 0;
+		for(File file : directory.listFiles()) {
+			if(file.getName().endsWith(".dat")) {
+				size += file.length();
+			}
+		}
+		return size;
+	}
+
+	private static File createTempDirectory() throws IOException {
+		return Files.createTempDirectory("thumbnailstore").toFile();
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null) {
+			for(File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
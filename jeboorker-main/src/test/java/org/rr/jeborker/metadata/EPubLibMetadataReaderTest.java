@@ -0,0 +1,206 @@
+package org.rr.jeborker.metadata;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.mufs.ResourceHandlerFactory;
+
+import junit.framework.TestCase;
+
+public class EPubLibMetadataReaderTest extends TestCase {
+
+	private static final String CONTAINER = "<?xml version=\"1.0\"?><container version=\"1.0\" xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\">"
+			+ "<rootfiles><rootfile full-path=\"OEBPS/content.opf\" media-type=\"application/oebps-package+xml\"/></rootfiles></container>";
+
+	private static final String METADATA = "<metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:opf=\"http://www.idpf.org/2007/opf\">"
+			+ "<dc:title>The Title &amp; more</dc:title>"
+			+ "<dc:creator opf:role=\"aut\">John Ronald Reuel Tolkien</dc:creator>"
+			+ "<dc:creator>Christopher</dc:creator>"
+			+ "<dc:contributor opf:role=\"edt\">Some Editor</dc:contributor>"
+			+ "<dc:identifier id=\"BookId\" opf:scheme=\"uuid\">0d1e4ae6-8dfc-4d8f-a4d0-65f1a8d0b5a4</dc:identifier>"
+			+ "<dc:identifier opf:scheme=\"isbn\">9783608938289</dc:identifier>"
+			+ "<dc:identifier opf:scheme=\"isbn\"> </dc:identifier>"
+			+ "<dc:date opf:event=\"publication\">1954-07-29</dc:date>"
+			+ "<dc:date>2012-01-01</dc:date>"
+			+ "<dc:publisher>Allen &amp; Unwin</dc:publisher>"
+			+ "<dc:subject>Fantasy</dc:subject><dc:subject>Classic</dc:subject>"
+			+ "<dc:description>A &lt;b&gt;long&lt;/b&gt; story.</dc:description>"
+			+ "<dc:language>en</dc:language><dc:language>de</dc:language>"
+			+ "<dc:rights>All rights reserved</dc:rights>"
+			+ "<meta name=\"calibre:series\" content=\"The Lord of the Rings\"/>"
+			+ "<meta name=\"calibre:series_index\" content=\"1\"/>"
+			+ "<meta name=\"cover\" content=\"cover-image\"/>"
+			+ "<meta property=\"rendition:layout\">reflowable</meta>"
+			+ "</metadata>";
+
+	public void testOpfMetadataEqualsBookMetadata() throws Exception {
+		File file = createEpub(File.createTempFile("epubreader", ".epub"), 10, 0, "images/cover.jpg", false);
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			List<MetadataProperty> opfMetadata = new EPubLibMetadataReader(resource).readOpfMetadata(resource);
+			List<MetadataProperty> bookMetadata = new EPubLibMetadataReader(resource).readBookMetadata(resource);
+
+			assertEquals(toString(bookMetadata), toString(opfMetadata));
+			assertTrue(toString(opfMetadata).contains("title=The Title & more"));
+			assertTrue(toString(opfMetadata).contains("description=A <b>long</b> story."));
+			assertTrue(Arrays.equals(getCover(bookMetadata), getCover(opfMetadata)));
+			assertNotNull(getCover(opfMetadata));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testEpub3CoverImage() throws Exception {
+		File file = createEpub(File.createTempFile("epubreader", ".epub"), 1, 0, "../images/my%20cover.png", true);
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			List<MetadataProperty> metadata = new EPubLibMetadataReader(resource).readOpfMetadata(resource);
+			assertTrue(Arrays.equals(createCover(0), getCover(metadata)));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Compares reading the metadata of a folder with epub files with the epublib book and the opf reader.
+	 */
+	public void testMetadataReadBenchmark() throws Exception {
+		File folder = new File(FileUtils.getTempDirectory(), "epubreadertest");
+		folder.mkdirs();
+		try {
+			List<IResourceHandler> files = new ArrayList<>();
+			for(int i = 0; i < 20; i++) {
+				files.add(ResourceHandlerFactory.getResourceHandler(createEpub(new File(folder, "book" + i + ".epub"), 300, i, "images/cover.jpg", false)));
+			}
+
+			readMetadata(files, false);
+			readMetadata(files, true);
+
+			int runs = 5;
+			long start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				readMetadata(files, false);
+			}
+			long bookTime = (System.nanoTime() - start) / 1000000 / runs;
+
+			start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				readMetadata(files, true);
+			}
+			long opfTime = (System.nanoTime() - start) / 1000000 / runs;
+
+			System.out.println("Metadata of " + files.size() + " epub files: epublib book " + bookTime + "ms ("
+					+ files.size() * 1000 / Math.max(bookTime, 1) + " files/s), opf reader " + opfTime + "ms ("
+					+ files.size() * 1000 / Math.max(opfTime, 1) + " files/s)");
+		} finally {
+			FileUtils.deleteQuietly(folder);
+		}
+	}
+
+	private static void readMetadata(List<IResourceHandler> files, boolean opf) throws IOException {
+		for(IResourceHandler file : files) {
+			EPubLibMetadataReader reader = new EPubLibMetadataReader(file);
+			List<MetadataProperty> metadata = opf ? reader.readOpfMetadata(file) : reader.readBookMetadata(file);
+			assertNotNull(getCover(metadata));
+		}
+	}
+
+	private static String toString(List<MetadataProperty> metadata) {
+		StringBuilder result = new StringBuilder();
+		for(MetadataProperty property : metadata) {
+			if(!property.getName().equals(IMetadataReader.COMMON_METADATA_TYPES.COVER.getName())) {
+				result.append(property.getName()).append('=').append(property.getValueAsString()).append('\n');
+			}
+		}
+		return result.toString();
+	}
+
+	private static byte[] getCover(List<MetadataProperty> metadata) {
+		for(MetadataProperty property : metadata) {
+			if(property.getName().equals(IMetadataReader.COMMON_METADATA_TYPES.COVER.getName())) {
+				return (byte[]) property.getValues().get(0);
+			}
+		}
+		return null;
+	}
+
+	private static byte[] createCover(int seed) {
+		byte[] cover = new byte[50000];
+		new Random(seed).nextBytes(cover);
+		return cover;
+	}
+
+	/**
+	 * Creates an epub with the given number of chapters and a cover image.
+	 * @param coverHref The href of the cover image relative to the opf.
+	 * @param epub3 <code>true</code> if the cover should be declared with the epub3 cover-image property.
+	 */
+	private static File createEpub(File file, int chapters, int seed, String coverHref, boolean epub3) throws IOException {
+		StringBuilder manifest = new StringBuilder();
+		StringBuilder spine = new StringBuilder();
+		for(int i = 0; i < chapters; i++) {
+			manifest.append("<item id=\"chapter").append(i).append("\" href=\"text/chapter").append(i).append(".xhtml\" media-type=\"application/xhtml+xml\"/>");
+			spine.append("<itemref idref=\"chapter").append(i).append("\"/>");
+		}
+		manifest.append("<item id=\"cover-image\" href=\"").append(coverHref).append("\" media-type=\"image/")
+			.append(coverHref.endsWith(".png") ? "png" : "jpeg").append('"').append(epub3 ? " properties=\"cover-image\"" : "").append("/>");
+		manifest.append("<item id=\"ncx\" href=\"toc.ncx\" media-type=\"application/x-dtbncx+xml\"/>");
+		String opf = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><package xmlns=\"http://www.idpf.org/2007/opf\" unique-identifier=\"BookId\" version=\""
+				+ (epub3 ? "3.0" : "2.0") + "\">" + METADATA + "<manifest>" + manifest + "</manifest><spine toc=\"ncx\">" + spine + "</spine></package>";
+
+		StringBuilder navPoints = new StringBuilder();
+		for(int i = 0; i < chapters; i++) {
+			navPoints.append("<navPoint id=\"nav").append(i).append("\" playOrder=\"").append(i + 1).append("\"><navLabel><text>Chapter ").append(i)
+				.append("</text></navLabel><content src=\"text/chapter").append(i).append(".xhtml\"/></navPoint>");
+		}
+		String ncx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ncx xmlns=\"http://www.daisy.org/z3986/2005/ncx/\" version=\"2005-1\"><head/>"
+				+ "<docTitle><text>The Title</text></docTitle><navMap>" + navPoints + "</navMap></ncx>";
+
+		Random random = new Random(seed);
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+			byte[] mimetype = "application/epub+zip".getBytes("US-ASCII");
+			ZipEntry mimetypeEntry = new ZipEntry("mimetype");
+			mimetypeEntry.setMethod(ZipEntry.STORED);
+			mimetypeEntry.setSize(mimetype.length);
+			CRC32 crc = new CRC32();
+			crc.update(mimetype);
+			mimetypeEntry.setCrc(crc.getValue());
+			out.putNextEntry(mimetypeEntry);
+			out.write(mimetype);
+
+			addEntry(out, "META-INF/container.xml", CONTAINER.getBytes("UTF-8"));
+			addEntry(out, "OEBPS/content.opf", opf.getBytes("UTF-8"));
+			addEntry(out, "OEBPS/toc.ncx", ncx.getBytes("UTF-8"));
+			for(int i = 0; i < chapters; i++) {
+				StringBuilder chapter = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><html xmlns=\"http://www.w3.org/1999/xhtml\"><head><title>Chapter ")
+					.append(i).append("</title></head><body>");
+				for(int p = 0; p < 40; p++) {
+					chapter.append("<p>");
+					for(int w = 0; w < 80; w++) {
+						chapter.append(Integer.toString(random.nextInt(100000), 36)).append(' ');
+					}
+					chapter.append("</p>");
+				}
+				chapter.append("</body></html>");
+				addEntry(out, "OEBPS/text/chapter" + i + ".xhtml", chapter.toString().getBytes("UTF-8"));
+			}
+			addEntry(out, EpubOpfReader.resolveHref("OEBPS/content.opf", coverHref), createCover(seed));
+		}
+		return file;
+	}
+
+	private static void addEntry(ZipOutputStream out, String name, byte[] data) throws IOException {
+		out.putNextEntry(new ZipEntry(name));
+		out.write(data);
+	}
+}
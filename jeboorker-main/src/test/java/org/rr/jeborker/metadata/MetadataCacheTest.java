@@ -0,0 +1,152 @@
+package org.rr.jeborker.metadata;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nl.siegmann.epublib.domain.Author;
+
+import org.apache.commons.io.FileUtils;
+import org.rr.commons.mufs.IResourceHandler;
+import org.rr.commons.mufs.ResourceHandlerFactory;
+import org.rr.commons.utils.StringUtil;
+import org.rr.jeborker.db.item.EbookPropertyItem;
+import org.rr.mobi4java.EXTHRecord;
+import org.rr.mobi4java.EXTHRecord.RECORD_TYPE;
+import org.rr.mobi4java.EXTHRecordFactory;
+import org.rr.mobi4java.exth.StringRecordDelegate;
+
+import junit.framework.TestCase;
+
+public class MetadataCacheTest extends TestCase {
+
+	public void testValidForSizeAndModification() throws Exception {
+		File file = createFile("content");
+		try {
+			MetadataCache cache = new MetadataCache(10);
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			List<MetadataProperty> metadata = Collections.singletonList(new MetadataProperty("title", "The Title"));
+			cache.put(resource, cache.getStamp(resource), metadata);
+
+			List<MetadataProperty> cached = cache.get(resource);
+			assertEquals("The Title", cached.get(0).getValueAsString());
+			assertNotSame(metadata.get(0), cached.get(0));
+
+			// changing the returned properties did not change the cached ones
+			cached.get(0).setValue("Changed", 0);
+			assertEquals("The Title", cache.get(resource).get(0).getValueAsString());
+
+			FileUtils.writeStringToFile(file, "changed content");
+			assertNull(cache.get(resource));
+			assertEquals(2, cache.getHitCount());
+			assertEquals(1, cache.getMissCount());
+			assertEquals(66, cache.getHitRate());
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testRemoveAndBounds() throws Exception {
+		List<File> files = new ArrayList<>();
+		try {
+			MetadataCache cache = new MetadataCache(2);
+			List<IResourceHandler> resources = new ArrayList<>();
+			for(int i = 0; i < 3; i++) {
+				files.add(createFile("content" + i));
+				IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(files.get(i));
+				resources.add(resource);
+				cache.put(resource, cache.getStamp(resource), Collections.singletonList(new MetadataProperty("title", "Title " + i)));
+			}
+			assertEquals(2, cache.getEntryCount());
+			assertNull(cache.get(resources.get(0)));
+			assertNotNull(cache.get(resources.get(2)));
+
+			cache.remove(files.get(2).getAbsolutePath());
+			assertNull(cache.get(resources.get(2)));
+			assertNotNull(cache.get(resources.get(1)));
+		} finally {
+			for(File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	public void testCachedReader() throws Exception {
+		File file = createFile("content");
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			CountingReader countingReader = new CountingReader(resource);
+			CachedMetadataReader reader = new CachedMetadataReader(countingReader, resource);
+			assertEquals("The Title", reader.readMetadata().get(0).getValueAsString());
+			assertEquals("The Title", reader.readMetadata().get(0).getValueAsString());
+			assertEquals(1, countingReader.reads);
+
+			MetadataCache.getInstance().remove(resource);
+			reader.readMetadata();
+			assertEquals(2, countingReader.reads);
+			assertSame(countingReader, CachedMetadataReader.unwrap(reader));
+		} finally {
+			MetadataCache.getInstance().clear();
+			file.delete();
+		}
+	}
+
+	public void testChangedFormatPropertiesNotCached() throws Exception {
+		File file = createFile("content");
+		try {
+			IResourceHandler resource = ResourceHandlerFactory.getResourceHandler(file);
+			EXTHRecord exthRecord = EXTHRecordFactory.createEXTHRecord(RECORD_TYPE.PUBLISHER);
+			exthRecord.setData("Publisher".getBytes(StringUtil.UTF_8));
+			final List<MetadataProperty> metadata = new ArrayList<>();
+			metadata.add(new MobiMetadataProperty(new StringRecordDelegate(exthRecord), "publisher", StringUtil.UTF_8));
+			metadata.add(new EpubLibMetadataProperty<Author>("author", "Jane Doe", new Author("Jane", "Doe")));
+			CountingReader countingReader = new CountingReader(resource) {
+
+				@Override
+				public List<MetadataProperty> readMetadata() {
+					reads++;
+					return metadata;
+				}
+			};
+			CachedMetadataReader reader = new CachedMetadataReader(countingReader, resource);
+
+			List<MetadataProperty> read = reader.readMetadata();
+			read.get(0).setValue("Changed", 0);
+			((Author) ((EpubLibMetadataProperty<?>) read.get(1)).getType()).setFirstname("Changed");
+
+			List<MetadataProperty> readAgain = reader.readMetadata();
+			assertEquals(1, countingReader.reads);
+			assertEquals("Publisher", readAgain.get(0).getValueAsString());
+			assertEquals("Jane", ((Author) ((EpubLibMetadataProperty<?>) readAgain.get(1)).getType()).getFirstname());
+		} finally {
+			MetadataCache.getInstance().clear();
+			file.delete();
+		}
+	}
+
+	private static File createFile(String content) throws Exception {
+		File file = File.createTempFile("metadatacache", ".epub");
+		FileUtils.writeStringToFile(file, content);
+		return file;
+	}
+
+	private static class CountingReader extends EmptyMetadataReader {
+
+		int reads;
+
+		CountingReader(IResourceHandler resource) {
+			super(resource);
+		}
+
+		@Override
+		public List<MetadataProperty> readMetadata() {
+			reads++;
+			return new ArrayList<>(Collections.singletonList(new MetadataProperty("title", "The Title")));
+		}
+
+		@Override
+		public void fillEbookPropertyItem(List<MetadataProperty> metadataProperties, EbookPropertyItem item) {
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package org.rr.jeborker.metadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.rr.jeborker.metadata.MobiHeaderReader.ExthEntry;
+
+import junit.framework.TestCase;
+
+public class MobiHeaderReaderTest extends TestCase {
+
+	public void testReadHeaders() throws Exception {
+		File file = createMobi(File.createTempFile("mobiheader", ".mobi"), 10, 3, 1);
+		try {
+			MobiHeaderReader header = MobiHeaderReader.read(file);
+			assertEquals("The Title ä", header.getFullName());
+			assertEquals("UTF-8", header.getCharacterEncoding());
+
+			List<ExthEntry> exthEntries = header.getExthEntries();
+			assertEquals(4, exthEntries.size());
+			assertEquals(100, exthEntries.get(0).type);
+			assertEquals("Author One", new String(exthEntries.get(0).data, "UTF-8"));
+			assertEquals(100, exthEntries.get(1).type);
+			assertEquals("Author Two", new String(exthEntries.get(1).data, "UTF-8"));
+			assertEquals(524, exthEntries.get(2).type);
+			assertEquals(MobiHeaderReader.EXTH_COVER_OFFSET, exthEntries.get(3).type);
+
+			assertTrue(Arrays.equals(createImage(1), header.getCover()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testFirstImageWithoutCoverRecord() throws Exception {
+		File file = createMobi(File.createTempFile("mobiheader", ".mobi"), 1, 2, -1);
+		try {
+			assertTrue(Arrays.equals(createImage(0), MobiHeaderReader.read(file).getCover()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testNoMobi() throws Exception {
+		File file = File.createTempFile("mobiheader", ".mobi");
+		try {
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(new byte[200]);
+			}
+			MobiHeaderReader.read(file);
+			fail();
+		} catch(IOException e) {
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Compares reading the headers of a large mobi file with reading the whole file which is what the
+	 * mobi4java reader at least needs to do.
+	 */
+	public void testReadBenchmark() throws Exception {
+		File file = createMobi(File.createTempFile("mobiheader", ".mobi"), 5000, 50, 3);
+		try {
+			readFile(file);
+			MobiHeaderReader.read(file);
+
+			int runs = 5;
+			long start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				readFile(file);
+			}
+			long fileTime = (System.nanoTime() - start) / 1000 / runs;
+
+			start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				assertNotNull(MobiHeaderReader.read(file).getCover());
+			}
+			long headerTime = (System.nanoTime() - start) / 1000 / runs;
+
+			System.out.println("Mobi file with " + (file.length() / 1024 / 1024) + "MB: reading the whole file " + fileTime + "us, reading the headers "
+					+ headerTime + "us");
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static void readFile(File file) throws IOException {
+		byte[] buffer = new byte[8192];
+		try (InputStream in = new FileInputStream(file)) {
+			while(in.read(buffer) != -1) {
+			}
+		}
+	}
+
+	private static byte[] createImage(int seed) {
+		byte[] image = new byte[20000];
+		new Random(seed).nextBytes(image);
+		image[0] = (byte) 0xFF;
+		image[1] = (byte) 0xD8;
+		return image;
+	}
+
+	/**
+	 * Creates a mobi file with the given number of 4096 byte text records followed by the image records.
+	 * @param coverOffset The index of the cover image relative to the first image or -1 for no cover EXTH record.
+	 */
+	private static File createMobi(File file, int textRecords, int images, int coverOffset) throws IOException {
+		List<byte[]> records = new ArrayList<>();
+		records.add(createRecord0(textRecords + 1, coverOffset));
+		Random random = new Random(0);
+		for(int i = 0; i < textRecords; i++) {
+			byte[] text = new byte[4096];
+			random.nextBytes(text);
+			records.add(text);
+		}
+		for(int i = 0; i < images; i++) {
+			records.add(createImage(i));
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+			byte[] name = new byte[32];
+			System.arraycopy("The_Title".getBytes("US-ASCII"), 0, name, 0, 9);
+			out.write(name);
+			out.write(new byte[28]); // attributes, version, dates, modification number, app info, sort info
+			out.write("BOOKMOBI".getBytes("US-ASCII"));
+			out.writeInt(0); // unique id seed
+			out.writeInt(0); // next record list
+			out.writeShort(records.size());
+
+			int offset = 78 + records.size() * 8 + 2;
+			for(int i = 0; i < records.size(); i++) {
+				out.writeInt(offset);
+				out.writeInt(i * 2);
+				offset += records.get(i).length;
+			}
+			out.writeShort(0); // gap
+			for(byte[] record : records) {
+				out.write(record);
+			}
+		}
+		return file;
+	}
+
+	private static byte[] createRecord0(int firstImageIndex, int coverOffset) throws IOException {
+		ByteArrayOutputStream exthRecords = new ByteArrayOutputStream();
+		DataOutputStream exth = new DataOutputStream(exthRecords);
+		int exthCount = writeExth(exth, 100, "Author One".getBytes("UTF-8"))
+				+ writeExth(exth, 100, "Author Two".getBytes("UTF-8"))
+				+ writeExth(exth, 524, "en".getBytes("UTF-8"));
+		if(coverOffset >= 0) {
+			exthCount += writeExth(exth, MobiHeaderReader.EXTH_COVER_OFFSET, new byte[] {0, 0, 0, (byte) coverOffset});
+		}
+
+		byte[] fullName = "The Title ä".getBytes("UTF-8");
+		int mobiHeaderLength = 232;
+		int exthOffset = 16 + mobiHeaderLength;
+		int fullNameOffset = exthOffset + 12 + exthRecords.size();
+
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(result);
+		out.writeShort(2); // compression
+		out.writeShort(0);
+		out.writeInt(4096 * 10); // text length
+		out.writeShort(firstImageIndex - 1); // text record count
+		out.writeShort(4096);
+		out.writeInt(0); // encryption and unknown
+
+		byte[] mobiHeader = new byte[mobiHeaderLength];
+		ByteBuffer header = ByteBuffer.wrap(mobiHeader);
+		header.put("MOBI".getBytes("US-ASCII"));
+		header.putInt(4, mobiHeaderLength);
+		header.putInt(8, 2); // mobi book
+		header.putInt(12, 65001); // utf-8
+		header.putInt(68, fullNameOffset);
+		header.putInt(72, fullName.length);
+		header.putInt(92, firstImageIndex);
+		header.putInt(112, 0x50); // EXTH flag
+		out.write(mobiHeader);
+
+		out.write("EXTH".getBytes("US-ASCII"));
+		out.writeInt(12 + exthRecords.size());
+		out.writeInt(exthCount);
+		out.write(exthRecords.toByteArray());
+		out.write(fullName);
+		out.write(new byte[2]);
+		return result.toByteArray();
+	}
+
+	private static int writeExth(DataOutputStream out, int type, byte[] data) throws IOException {
+		out.writeInt(type);
+		out.writeInt(data.length + 8);
+		out.write(data);
+		return 1;
+	}
+}
@@ -0,0 +1,122 @@
+package org.rr.jeborker.metadata.pdf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.rr.commons.mufs.ResourceHandlerFactory;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import junit.framework.TestCase;
+
+public class PDFDocumentTest extends TestCase {
+
+	/** The benchmark writes about 225MB of pdf files and only runs if this system property is <code>true</code>. */
+	private static final String BENCHMARK_PROPERTY = "jeboorker.benchmark";
+
+	private static final String XMP = "<?xpacket begin=\"\" id=\"W5M0MpCehiHzreSzNTczkc9d\"?>"
+			+ "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">"
+			+ "<rdf:Description rdf:about=\"\" xmlns:dc=\"http://purl.org/dc/elements/1.1/\"><dc:format>application/pdf</dc:format></rdf:Description>"
+			+ "</rdf:RDF></x:xmpmeta><?xpacket end=\"w\"?>";
+
+	public void testMetadataOnly() throws Exception {
+		File file = createPdf(File.createTempFile("pdfdocument", ".pdf"), 5, 0);
+		try {
+			PDFDocument document = PDFDocument.getPDFCommonDocumentInstance(PDFDocument.ITEXT, ResourceHandlerFactory.getResourceHandler(file), true);
+			assertEquals("Title 0", document.getInfo().get("Title"));
+			assertTrue(new String(document.getXMPMetadata()).contains("application/pdf"));
+
+			PDFDocument fullDocument = PDFDocument.getPDFCommonDocumentInstance(PDFDocument.ITEXT, ResourceHandlerFactory.getResourceHandler(file));
+			assertEquals(fullDocument.getInfo(), document.getInfo());
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Compares reading the info and xmp metadata of a folder with large pdf files with the full and the metadata only mode.
+	 */
+	public void testMetadataReadBenchmark() throws Exception {
+		if(!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+			return;
+		}
+		File folder = new File(FileUtils.getTempDirectory(), "pdfdocumenttest");
+		folder.mkdirs();
+		try {
+			List<File> files = new ArrayList<>();
+			long size = 0;
+			for(int i = 0; i < 5; i++) {
+				File file = createPdf(new File(folder, "large" + i + ".pdf"), 1000, i);
+				files.add(file);
+				size += file.length();
+			}
+
+			readMetadata(files, false);
+			readMetadata(files, true);
+
+			int runs = 5;
+			long start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				readMetadata(files, false);
+			}
+			long fullTime = (System.nanoTime() - start) / 1000000 / runs;
+
+			start = System.nanoTime();
+			for(int i = 0; i < runs; i++) {
+				readMetadata(files, true);
+			}
+			long metadataOnlyTime = (System.nanoTime() - start) / 1000000 / runs;
+
+			System.out.println("Metadata of " + files.size() + " pdf files with " + (size / 1024 / 1024) + "MB: full reader " + fullTime + "ms ("
+					+ files.size() * 1000 / Math.max(fullTime, 1) + " files/s), metadata only " + metadataOnlyTime + "ms ("
+					+ files.size() * 1000 / Math.max(metadataOnlyTime, 1) + " files/s)");
+		} finally {
+			FileUtils.deleteQuietly(folder);
+		}
+	}
+
+	private static void readMetadata(List<File> files, boolean metadataOnly) throws IOException {
+		for(File file : files) {
+			PDFDocument document = PDFDocument.getPDFCommonDocumentInstance(PDFDocument.ITEXT, ResourceHandlerFactory.getResourceHandler(file), metadataOnly);
+			Map<String, String> info = document.getInfo();
+			assertNotNull(info.get("Title"));
+			assertNotNull(document.getXMPMetadata());
+		}
+	}
+
+	/**
+	 * Creates a pdf with an uncompressed random image on each page.
+	 */
+	private static File createPdf(File file, int pages, int seed) throws Exception {
+		Random random = new Random(seed);
+		Document document = new Document(new Rectangle(300, 450));
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			PdfWriter writer = PdfWriter.getInstance(document, out);
+			writer.setCompressionLevel(0);
+			writer.setXmpMetadata(XMP.getBytes("UTF-8"));
+			document.addTitle("Title " + seed);
+			document.addAuthor("Author " + seed);
+			document.open();
+			for(int i = 0; i < pages; i++) {
+				byte[] data = new byte[100 * 150 * 3];
+				random.nextBytes(data);
+				Image image = Image.getInstance(100, 150, 3, 8, data);
+				image.scaleAbsolute(300, 450);
+				image.setAbsolutePosition(0, 0);
+				document.add(image);
+				document.newPage();
+			}
+			document.close();
+		}
+		return file;
+	}
+}